@@ -0,0 +1,28 @@
+; The training run of the AppCDS archive: it goes through the assembler, the
+; verifier and the engine so that their classes get archived.
+        push title
+        push 7
+        sout
+        iin
+loop:   dup
+        push 0
+        cmp
+        je done
+        dup
+        push square
+        call
+        iout
+        push -1
+        add
+        push loop
+        jmp
+done:   pop
+        halt
+
+square: swap            ; [x, ret] -> [x * x]
+        dup
+        mul
+        swap
+        ret
+
+title:  .ascii "squares"
@@ -0,0 +1,473 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements a two-pass assembler of the machine language. A
+ * source holds one statement per line; everything after a {@code ;} outside
+ * of a string is a comment. A statement may be preceded by labels:
+ * <pre>
+ *   loop:  iin            ; read a number
+ *          dup
+ *          jz done        ; conditional jumps take their target address
+ *          push square    ; push and const take a number or a label
+ *          call           ; call pops its target
+ *          iout
+ *          push loop
+ *          jmp
+ *   done:  halt
+ * </pre>
+ * The mnemonics are the operation names of {@link Operation}, in any case.
+ * The numbers are decimal, {@code 0x}-prefixed hexadecimal or characters in
+ * single quotes. The directives are:
+ * <ul>
+ *   <li>{@code .wide} makes the program use 64-bit words; it must precede
+ *       everything else,</li>
+ *   <li>{@code .byte} and {@code .word} emit their operands as bytes and
+ *       words, the words being as wide as the words of the program,</li>
+ *   <li>{@code .zero n} emits {@code n} zero bytes,</li>
+ *   <li>{@code .ascii "text"} emits the UTF-8 bytes of the text, which may
+ *       contain the escapes {@code \n}, {@code \t}, {@code \"} and
+ *       {@code \\}.</li>
+ * </ul>
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class Assembler {
+
+    /**
+     * A parsed statement and the address it is assembled at.
+     */
+    private static final class Statement {
+
+        final int line;
+        final int address;
+        final String mnemonic;
+        final List<String> operands;
+
+        Statement(final int line,
+                  final int address,
+                  final String mnemonic,
+                  final List<String> operands) {
+            this.line = line;
+            this.address = address;
+            this.mnemonic = mnemonic;
+            this.operands = operands;
+        }
+    }
+
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final List<Statement> statements = new ArrayList<>();
+    private WordSize wordSize = WordSize.INT;
+    private int address = 0;
+
+    private Assembler() {
+
+    }
+
+    /**
+     * Assembles {@code source} into a program image.
+     *
+     * @param source the assembly source.
+     * @return the program image.
+     * @throws IllegalArgumentException if the source is not valid; the
+     *                                  message names the offending line.
+     */
+    public static byte[] assemble(final String source) {
+        Objects.requireNonNull(source, "The source is null.");
+
+        final Assembler assembler = new Assembler();
+        final String[] lines = source.split("\r?\n", -1);
+
+        for (int i = 0; i < lines.length; ++i) {
+            assembler.parseLine(i + 1, lines[i]);
+        }
+
+        return assembler.emit();
+    }
+
+    /**
+     * The first pass: records the labels and the statements with their
+     * addresses.
+     */
+    private void parseLine(final int line, final String text) {
+        String rest = stripComment(text).trim();
+
+        int colon;
+
+        while ((colon = labelEnd(rest)) >= 0) {
+            final String label = rest.substring(0, colon).trim();
+
+            if (!isIdentifier(label)) {
+                throw error(line, "invalid label '%s'", label);
+            }
+
+            if (labels.putIfAbsent(label, address) != null) {
+                throw error(line, "label %s is defined twice", label);
+            }
+
+            rest = rest.substring(colon + 1).trim();
+        }
+
+        if (rest.isEmpty()) {
+            return;
+        }
+
+        final int space = indexOfWhitespace(rest);
+        final String mnemonic =
+                (space < 0 ? rest : rest.substring(0, space))
+                        .toLowerCase(Locale.ROOT);
+
+        final String operandText = space < 0 ? ""
+                                             : rest.substring(space).trim();
+
+        final List<String> operands = splitOperands(line,
+                                                    mnemonic,
+                                                    operandText);
+
+        if (mnemonic.equals(".wide")) {
+            if (address != 0 || !labels.isEmpty() || !operands.isEmpty()) {
+                throw error(line,
+                            ".wide must be the first statement and takes "
+                                    + "no operands");
+            }
+
+            wordSize = WordSize.LONG;
+            address = wordSize.getCodeStart();
+            return;
+        }
+
+        statements.add(new Statement(line, address, mnemonic, operands));
+        address += lengthOf(line, mnemonic, operands);
+    }
+
+    /**
+     * The second pass: emits the statements.
+     */
+    private byte[] emit() {
+        final CodeBuilder cb = new CodeBuilder(address);
+
+        for (final byte b : wordSize.getImageHeader()) {
+            cb.emit(b);
+        }
+
+        for (final Statement statement : statements) {
+            switch (statement.mnemonic) {
+                case ".byte":
+                    for (final String operand : statement.operands) {
+                        cb.emit((byte) value(statement.line, operand));
+                    }
+
+                    break;
+
+                case ".word":
+                    for (final String operand : statement.operands) {
+                        emitWord(cb, value(statement.line, operand));
+                    }
+
+                    break;
+
+                case ".zero":
+                    cb.setInstructionPointer(
+                            cb.getInstructionPointer()
+                                    + (int) value(statement.line,
+                                                  statement.operands.get(0)));
+                    break;
+
+                case ".ascii":
+                    for (final byte b :
+                            unquote(statement.line,
+                                    statement.operands.get(0))) {
+                        cb.emit(b);
+                    }
+
+                    break;
+
+                default:
+                    emitInstruction(cb, statement);
+            }
+        }
+
+        return cb.toByteArray();
+    }
+
+    private void emitInstruction(final CodeBuilder cb,
+                                 final Statement statement) {
+        final Operation operation = Operation.getOperation(statement.mnemonic);
+        final byte opcode = operation.getOpcodeByte();
+
+        cb.emit(opcode);
+
+        if (opcode == Opcodes.CALL) {
+            cb.emit(0);
+        } else if (opcode == Opcodes.PUSH || opcode == Opcodes.CONST) {
+            emitWord(cb, value(statement.line, statement.operands.get(0)));
+        } else if (opcode == Opcodes.HOST
+                || Opcodes.isConditionalJump(opcode)) {
+            cb.emit(toInt(statement.line,
+                          value(statement.line, statement.operands.get(0))));
+        }
+    }
+
+    private void emitWord(final CodeBuilder cb, final long value) {
+        if (wordSize == WordSize.LONG) {
+            cb.emit(value);
+        } else {
+            cb.emit((int) value);
+        }
+    }
+
+    /**
+     * Returns the number of bytes {@code mnemonic} assembles to and checks
+     * the number of its operands.
+     */
+    private int lengthOf(final int line,
+                         final String mnemonic,
+                         final List<String> operands) {
+        switch (mnemonic) {
+            case ".byte":
+                requireOperands(line, mnemonic, operands, 1, Integer.MAX_VALUE);
+                return operands.size();
+
+            case ".word":
+                requireOperands(line, mnemonic, operands, 1, Integer.MAX_VALUE);
+                return operands.size() * wordSize.getBytes();
+
+            case ".zero":
+                requireOperands(line, mnemonic, operands, 1, 1);
+                final long count = value(line, operands.get(0));
+
+                if (count < 0L
+                        || count > SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+                    throw error(line, "invalid .zero count %d", count);
+                }
+
+                return (int) count;
+
+            case ".ascii":
+                requireOperands(line, mnemonic, operands, 1, 1);
+                return unquote(line, operands.get(0)).length;
+        }
+
+        final Operation operation = Operation.getOperation(mnemonic);
+
+        if (operation == null) {
+            throw error(line, "unknown mnemonic %s", mnemonic);
+        }
+
+        final byte opcode = operation.getOpcodeByte();
+
+        if (opcode == Opcodes.PUSH || opcode == Opcodes.CONST) {
+            requireOperands(line, mnemonic, operands, 1, 1);
+            return 1 + wordSize.getBytes();
+        }
+
+        if (opcode == Opcodes.HOST || Opcodes.isConditionalJump(opcode)) {
+            requireOperands(line, mnemonic, operands, 1, 1);
+        } else {
+            requireOperands(line, mnemonic, operands, 0, 0);
+        }
+
+        return Opcodes.instructionLength(opcode);
+    }
+
+    /**
+     * Returns the value of a number or a label operand.
+     */
+    private long value(final int line, final String operand) {
+        final Integer labelAddress = labels.get(operand);
+
+        if (labelAddress != null) {
+            return labelAddress;
+        }
+
+        if (operand.length() == 3
+                && operand.charAt(0) == '\''
+                && operand.charAt(2) == '\'') {
+            return operand.charAt(1);
+        }
+
+        try {
+            final boolean negative = operand.startsWith("-");
+            final String digits = negative ? operand.substring(1) : operand;
+            final long magnitude =
+                    digits.regionMatches(true, 0, "0x", 0, 2)
+                            ? Long.parseUnsignedLong(digits.substring(2), 16)
+                            : Long.parseLong(digits);
+
+            return negative ? -magnitude : magnitude;
+        } catch (final NumberFormatException ex) {
+            throw error(line,
+                        isIdentifier(operand) ? "undefined label %s"
+                                              : "invalid number %s",
+                        operand);
+        }
+    }
+
+    private static int toInt(final int line, final long value) {
+        if (value < Integer.MIN_VALUE || value > 0xffff_ffffL) {
+            throw error(line, "%d does not fit in 32 bits", value);
+        }
+
+        return (int) value;
+    }
+
+    private static List<String> splitOperands(final int line,
+                                              final String mnemonic,
+                                              final String text) {
+        final List<String> operands = new ArrayList<>();
+
+        if (text.isEmpty()) {
+            return operands;
+        }
+
+        if (mnemonic.equals(".ascii")) {
+            operands.add(text);
+            return operands;
+        }
+
+        for (final String operand : text.split(",")) {
+            final String trimmed = operand.trim();
+
+            if (trimmed.isEmpty()) {
+                throw error(line, "empty operand");
+            }
+
+            operands.add(trimmed);
+        }
+
+        if (operands.size() == 1) {
+            final String[] words = operands.get(0).split("\\s+");
+
+            if (words.length > 1) {
+                throw error(line, "operands must be separated by commas");
+            }
+        }
+
+        return operands;
+    }
+
+    private static void requireOperands(final int line,
+                                        final String mnemonic,
+                                        final List<String> operands,
+                                        final int minimum,
+                                        final int maximum) {
+        if (operands.size() < minimum || operands.size() > maximum) {
+            throw error(line,
+                        minimum == maximum
+                                ? "%s takes %d operand(s), not %d"
+                                : "%s takes at least %d operand(s), not %d",
+                        mnemonic,
+                        minimum,
+                        operands.size());
+        }
+    }
+
+    private static byte[] unquote(final int line, final String text) {
+        if (text.length() < 2
+                || text.charAt(0) != '"'
+                || text.charAt(text.length() - 1) != '"') {
+            throw error(line, "expected a string in double quotes");
+        }
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; ++i) {
+            final char c = text.charAt(i);
+
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            if (++i == text.length() - 1) {
+                throw error(line, "unfinished escape");
+            }
+
+            switch (text.charAt(i)) {
+                case 'n':  sb.append('\n'); break;
+                case 't':  sb.append('\t'); break;
+                case '"':  sb.append('"');  break;
+                case '\\': sb.append('\\'); break;
+                default:
+                    throw error(line, "unknown escape \\%c", text.charAt(i));
+            }
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String stripComment(final String text) {
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); ++i) {
+            final char c = text.charAt(i);
+
+            if (c == '\\' && quoted) {
+                ++i;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ';' && !quoted) {
+                return text.substring(0, i);
+            }
+        }
+
+        return text;
+    }
+
+    /**
+     * Returns the index of the colon ending the leading label of
+     * {@code text}, or -1 if it does not start with one.
+     */
+    private static int labelEnd(final String text) {
+        final int colon = text.indexOf(':');
+
+        if (colon < 0 || text.indexOf('"') >= 0 && text.indexOf('"') < colon) {
+            return -1;
+        }
+
+        return indexOfWhitespace(text.substring(0, colon).trim()) < 0
+                ? colon
+                : -1;
+    }
+
+    private static int indexOfWhitespace(final String text) {
+        for (int i = 0; i < text.length(); ++i) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isIdentifier(final String text) {
+        if (text.isEmpty() || !Character.isJavaIdentifierStart(text.charAt(0))) {
+            return false;
+        }
+
+        for (int i = 1; i < text.length(); ++i) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static IllegalArgumentException error(final int line,
+                                                  final String format,
+                                                  final Object... args) {
+        return new IllegalArgumentException(
+                String.format("Line %d: %s",
+                              line,
+                              String.format(format, args)));
+    }
+}
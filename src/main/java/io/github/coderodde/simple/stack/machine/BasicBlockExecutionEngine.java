@@ -0,0 +1,314 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.ControlFlowGraph.BasicBlock;
+import java.util.Arrays;
+
+/**
+ * This class implements an execution engine that runs the program block by
+ * block over its {@link ControlFlowGraph}. The operand stack size, the stack
+ * capacity and the instruction budget are checked once on the block entry;
+ * the instructions of the block then run without any per-instruction checks.
+ * <p>
+ * A block that would underflow the stack or exceed the instruction budget is
+ * not entered; instead, its first instruction is executed by the reference
+ * implementation, which raises the very same error or spends the rest of the
+ * budget.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class BasicBlockExecutionEngine implements ExecutionEngine {
+
+    public static final BasicBlockExecutionEngine INSTANCE =
+            new BasicBlockExecutionEngine();
+
+    private BasicBlockExecutionEngine() {
+
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        run(machine, machine.getControlFlowGraph());
+    }
+
+    /**
+     * Runs the machine over an already built control-flow graph.
+     *
+     * @param machine the target machine.
+     * @param cfg     the control-flow graph of the code on the tape of
+     *                {@code machine}.
+     */
+    public void run(final SimpleStackMachine machine,
+                    final ControlFlowGraph cfg) {
+        final byte[] tape = machine.getTape();
+        final SimpleStackMachine.ProcessorFlags flags = machine.flags();
+        final SubroutineMemoTable memoTable = machine.getMemoTable();
+
+        int[] stack = machine.getStackArray();
+        int sp = machine.getStackSize();
+        int ip = machine.getInstructionPointer();
+
+        final long initialBudget = machine.getInstructionBudget();
+        long budget = initialBudget;
+
+        try {
+            while (!machine.isStopRequested() && budget > 0L) {
+                final BasicBlock block = cfg.blockAt(ip);
+                final int instructionCount = block.getInstructionCount();
+
+                if (sp < block.getRequiredStackSize()
+                        || budget < instructionCount
+                        || instructionCount == 0) {
+                    --budget;
+                    machine.setStack(stack, sp);
+                    machine.setInstructionPointer(ip);
+                    machine.step();
+                    stack = machine.getStackArray();
+                    sp = machine.getStackSize();
+                    ip = machine.getInstructionPointer();
+
+                    if (machine.isWaiting()) {
+                        ++budget;
+                    }
+
+                    continue;
+                }
+
+                if (stack.length < sp + block.getMaximumStackGrowth()) {
+                    stack = Arrays.copyOf(
+                            stack,
+                            2 * (sp + block.getMaximumStackGrowth()));
+                }
+
+                budget -= instructionCount;
+
+                for (int i = 0; i < instructionCount; ++i) {
+                    final byte opcode = tape[ip];
+
+                    switch (opcode) {
+                        case Opcodes.NOP:
+                            ++ip;
+                            break;
+
+                        case Opcodes.PUSH:
+                        case Opcodes.CONST:
+                            stack[sp++] = SimpleStackMachine.wordAt(tape,
+                                                                    ip + 1);
+                            ip += 1 + Integer.BYTES;
+                            break;
+
+                        case Opcodes.POP:
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.LOAD:
+                            stack[sp - 1] =
+                                    machine.readWordFromTape(stack[sp - 1]);
+                            ++ip;
+                            break;
+
+                        case Opcodes.STORE:
+                            machine.writeWordToTape(stack[sp - 1],
+                                                    stack[sp - 2]);
+                            sp -= 2;
+                            ++ip;
+                            break;
+
+                        case Opcodes.ADD:
+                            stack[sp - 2] = stack[sp - 1] + stack[sp - 2];
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.SUB:
+                            stack[sp - 2] = stack[sp - 1] - stack[sp - 2];
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.MUL:
+                            stack[sp - 2] = stack[sp - 1] * stack[sp - 2];
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.DIV:
+                        case Opcodes.MOD:
+                            stack[sp - 2] = Opcodes.arithmetic(opcode,
+                                                               stack[sp - 1],
+                                                               stack[sp - 2]);
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.DUP:
+                            stack[sp] = stack[sp - 1];
+                            ++sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.SWAP: {
+                            final int tmp = stack[sp - 1];
+                            stack[sp - 1] = stack[sp - 2];
+                            stack[sp - 2] = tmp;
+                            ++ip;
+                            break;
+                        }
+
+                        case Opcodes.CMP:
+                            Opcodes.setComparisonFlags(
+                                    flags,
+                                    Integer.compare(stack[sp - 1],
+                                                    stack[sp - 2]));
+                            sp -= 2;
+                            ++ip;
+                            break;
+
+                        case Opcodes.JMP:
+                            ip = stack[--sp];
+                            break;
+
+                        case Opcodes.RET:
+                            ip = stack[--sp];
+
+                            if (memoTable != null) {
+                                machine.setStack(stack, sp);
+                                memoTable.onReturn(machine, ip);
+                            }
+
+                            break;
+
+                        case Opcodes.CALL: {
+                            final int target = stack[sp - 1];
+
+                            if (memoTable != null) {
+                                machine.setStack(stack, sp - 1);
+
+                                if (memoTable.tryCall(machine,
+                                                      target,
+                                                      ip + 1 + Integer.BYTES)) {
+                                    stack = machine.getStackArray();
+                                    sp = machine.getStackSize();
+                                    ip = machine.getInstructionPointer();
+                                    break;
+                                }
+                            }
+
+                            stack[sp - 1] = ip + 1 + Integer.BYTES;
+                            ip = target;
+                            break;
+                        }
+
+                        case Opcodes.PRINT_INT:
+                            machine.printLine(stack[--sp]);
+                            ++ip;
+                            break;
+
+                        case Opcodes.PRINT_STRING:
+                            machine.printString(stack[sp - 2], stack[sp - 1]);
+                            sp -= 2;
+                            ++ip;
+                            break;
+
+                        case Opcodes.READ_INT:
+                            if (!machine.awaitInput()) {
+                                // Stop at this instruction; it and the rest
+                                // of the block are not executed.
+                                budget += instructionCount - i;
+                                return;
+                            }
+
+                            stack[sp++] = machine.readInt();
+                            ++ip;
+                            break;
+
+                        case Opcodes.READ_STRING:
+                            if (!machine.awaitInput()) {
+                                budget += instructionCount - i;
+                                return;
+                            }
+
+                            stack[sp - 2] =
+                                    machine.readStringToTape(stack[sp - 2],
+                                                             stack[sp - 1]);
+                            --sp;
+                            ++ip;
+                            break;
+
+                        case Opcodes.HALT:
+                            machine.requestHalt();
+                            ++ip;
+                            break;
+
+                        case Opcodes.BCOPY:
+                            machine.copyOnTape(stack[sp - 3],
+                                               stack[sp - 2],
+                                               stack[sp - 1]);
+                            sp -= 3;
+                            ++ip;
+                            break;
+
+                        case Opcodes.BFILL:
+                            machine.fillTape(stack[sp - 3],
+                                             (byte) stack[sp - 2],
+                                             stack[sp - 1]);
+                            sp -= 3;
+                            ++ip;
+                            break;
+
+                        case Opcodes.BCMP:
+                            stack[sp - 3] =
+                                    machine.mismatchOnTape(stack[sp - 3],
+                                                           stack[sp - 2],
+                                                           stack[sp - 1]);
+                            sp -= 2;
+                            ++ip;
+                            break;
+
+                        case Opcodes.BFIND:
+                            stack[sp - 3] =
+                                    machine.findByteOnTape(
+                                            stack[sp - 3],
+                                            (byte) stack[sp - 2],
+                                            stack[sp - 1]);
+                            sp -= 2;
+                            ++ip;
+                            break;
+
+                        default:
+                            if (Opcodes.isConditionalJump(opcode)) {
+                                ip = Opcodes.isJumpTaken(opcode, flags)
+                                        ? SimpleStackMachine.wordAt(tape,
+                                                                    ip + 1)
+                                        : ip + 1 + Integer.BYTES;
+                                break;
+                            }
+
+                            machine.setStack(stack, sp);
+                            machine.setInstructionPointer(ip);
+                            machine.step();
+                            stack = machine.getStackArray();
+                            sp = machine.getStackSize();
+                            ip = machine.getInstructionPointer();
+
+                            if (machine.isWaiting()) {
+                                budget += instructionCount - i;
+                                return;
+                            }
+                    }
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException ex) {
+            throw new StackMachineException(
+                    String.format("Tape access out of bounds near address %d: "
+                                  + "%s",
+                                  ip,
+                                  ex.getMessage()));
+        } finally {
+            machine.setStack(stack, sp);
+            machine.setInstructionPointer(ip);
+            machine.chargeInstructions(initialBudget - budget);
+        }
+    }
+}
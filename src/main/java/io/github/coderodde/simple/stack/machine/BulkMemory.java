@@ -0,0 +1,93 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * This class implements the block instructions over a byte array. Copying,
+ * filling and comparing go through {@link System#arraycopy},
+ * {@link Arrays#fill} and {@link Arrays#mismatch}, which the JIT compiler
+ * turns into vectorized stubs. Finding a byte scans eight bytes at a time in
+ * a {@code long} and falls back to a scalar loop for the tail.
+ * <p>
+ * The callers check the ranges.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class BulkMemory {
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class,
+                                                 ByteOrder.LITTLE_ENDIAN);
+
+    private static final long LOW_BITS  = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Copies {@code length} bytes; the ranges may overlap.
+     */
+    static void copy(final byte[] bytes,
+                     final int target,
+                     final int source,
+                     final int length) {
+        System.arraycopy(bytes, source, bytes, target, length);
+    }
+
+    static void fill(final byte[] bytes,
+                     final int target,
+                     final byte value,
+                     final int length) {
+        Arrays.fill(bytes, target, target + length, value);
+    }
+
+    /**
+     * Returns the offset of the first differing byte of the two ranges, or -1
+     * if they are equal.
+     */
+    static int mismatch(final byte[] bytes,
+                        final int a,
+                        final int b,
+                        final int length) {
+        return Arrays.mismatch(bytes, a, a + length, bytes, b, b + length);
+    }
+
+    /**
+     * Returns the offset of the first occurrence of {@code value} within
+     * {@code [address, address + length)}, or -1 if there is none.
+     */
+    static int find(final byte[] bytes,
+                    final int address,
+                    final byte value,
+                    final int length) {
+        final long pattern = LOW_BITS * Byte.toUnsignedLong(value);
+        int offset = 0;
+
+        for (; offset + Long.BYTES <= length; offset += Long.BYTES) {
+            final long word =
+                    (long) LONG_VIEW.get(bytes, address + offset) ^ pattern;
+
+            // The highest bit of each zero byte of word is set.
+            final long zeroBytes = (word - LOW_BITS) & ~word & HIGH_BITS;
+
+            if (zeroBytes != 0L) {
+                return offset
+                        + Long.numberOfTrailingZeros(zeroBytes) / Byte.SIZE;
+            }
+        }
+
+        for (; offset < length; ++offset) {
+            if (bytes[address + offset] == value) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    private BulkMemory() {
+
+    }
+}
@@ -0,0 +1,539 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.ControlFlowGraph.BasicBlock;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements an offline optimizer that rewrites a program before
+ * it is executed. It folds constant arithmetic, resolves a {@code CMP} on
+ * constants followed by a conditional jump into a {@code JMP} or a
+ * fall-through, deletes the blocks no longer reachable and compacts the code,
+ * relocating all the jump targets.
+ * <p>
+ * The optimizer assumes the conventional program layout: the code starts at
+ * address 0 and everything at and above the end of the last reachable block
+ * is data. The data is never moved. A program with non-zero bytes between its
+ * blocks, such as a string placed in between, and a program whose
+ * {@code JMP}, {@code CALL} or {@code SPAWN} takes its target from anything
+ * but an immediately preceding {@code PUSH} cannot be relocated safely and
+ * are returned unchanged. Use {@link #verify(byte[], byte[], List)} to check
+ * an optimized program against the original on a corpus of inputs.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class BytecodeOptimizer {
+
+    /**
+     * The instruction budget of each run in the verification mode.
+     */
+    private static final long VERIFICATION_INSTRUCTION_BUDGET = 100_000_000L;
+
+    /**
+     * A decoded instruction.
+     */
+    private static final class Instruction {
+
+        final byte opcode;
+        final int operand;
+
+        /**
+         * The original address of the block the operand refers to, or -1 if
+         * the operand is not a code address.
+         */
+        final int label;
+
+        Instruction(final byte opcode, final int operand, final int label) {
+            this.opcode = opcode;
+            this.operand = operand;
+            this.label = label;
+        }
+
+        boolean isConstant() {
+            return (opcode == Opcodes.PUSH || opcode == Opcodes.CONST)
+                    && label < 0;
+        }
+    }
+
+    /**
+     * A block being optimized.
+     */
+    private static final class Block {
+
+        final int originalAddress;
+        final int originalEndAddress;
+        final List<Instruction> code;
+        int newAddress;
+
+        Block(final int originalAddress,
+              final int originalEndAddress,
+              final List<Instruction> code) {
+            this.originalAddress = originalAddress;
+            this.originalEndAddress = originalEndAddress;
+            this.code = code;
+        }
+
+        Instruction last() {
+            return code.isEmpty() ? null : code.get(code.size() - 1);
+        }
+
+        boolean fallsThrough() {
+            final Instruction last = last();
+
+            if (last == null) {
+                return true;
+            }
+
+            switch (last.opcode) {
+                case Opcodes.JMP:
+                case Opcodes.RET:
+                case Opcodes.HALT:
+                    return false;
+
+                default:
+                    return true;
+            }
+        }
+
+        int length() {
+            int length = 0;
+
+            for (final Instruction instruction : code) {
+                length += Opcodes.instructionLength(instruction.opcode);
+            }
+
+            return length;
+        }
+    }
+
+    private BytecodeOptimizer() {
+
+    }
+
+    /**
+     * Optimizes the program whose entry point is at address 0.
+     *
+     * @param program the program to optimize.
+     * @return the optimized program, of the same length as the input, or a
+     *         copy of the input if it cannot be optimized safely.
+     */
+    public static byte[] optimize(final byte[] program) {
+        Objects.requireNonNull(program, "The input program is null.");
+
+        final ControlFlowGraph cfg = ControlFlowGraph.build(program, 0);
+        final List<BasicBlock> basicBlocks = cfg.getBlocks();
+        int codeEnd = 0;
+
+        for (final BasicBlock basicBlock : basicBlocks) {
+            if (basicBlock.hasComputedSuccessor()
+                    && program[basicBlock.getLastInstructionAddress()]
+                       != Opcodes.RET) {
+                return program.clone();
+            }
+
+            if (basicBlock.getInstructionCount() == 0) {
+                return program.clone();
+            }
+
+            final int lastAddress = basicBlock.getLastInstructionAddress();
+
+            if (program[lastAddress] == Opcodes.SPAWN
+                    && cfg.constantJumpTarget(lastAddress) < 0) {
+                // The entry of the thread cannot be relocated.
+                return program.clone();
+            }
+
+            codeEnd = Math.max(codeEnd, basicBlock.getEndAddress());
+        }
+
+        final boolean[] isCode = new boolean[codeEnd];
+
+        for (final BasicBlock basicBlock : basicBlocks) {
+            Arrays.fill(isCode,
+                        basicBlock.getStartAddress(),
+                        basicBlock.getEndAddress(),
+                        true);
+        }
+
+        for (int i = 0; i < codeEnd; ++i) {
+            if (!isCode[i] && program[i] != Opcodes.NOP) {
+                // Data between the blocks; the compacted code may cover it.
+                return program.clone();
+            }
+        }
+
+        final Map<Integer, Block> blocks = new HashMap<>();
+        final List<Block> layout = new ArrayList<>();
+
+        for (final BasicBlock basicBlock : basicBlocks) {
+            final Block block = decode(program, cfg, basicBlock);
+            blocks.put(block.originalAddress, block);
+            layout.add(block);
+        }
+
+        for (final Block block : layout) {
+            for (final int successor : successors(block)) {
+                if (!blocks.containsKey(successor)) {
+                    // Jumps off the decodable code; leave it to the runtime.
+                    return program.clone();
+                }
+            }
+        }
+
+        final Set<Integer> flagsLiveOut = computeFlagsLiveOut(layout, blocks);
+
+        for (final Block block : layout) {
+            simplify(block.code);
+            resolveConstantBranch(block,
+                                  flagsLiveOut.contains(block.originalAddress));
+        }
+
+        final Set<Integer> reachable = computeReachable(layout, blocks);
+        layout.removeIf(block -> !reachable.contains(block.originalAddress));
+
+        // Drop the jumps to the very next block.
+        for (int i = 0; i + 1 < layout.size(); ++i) {
+            final List<Instruction> code = layout.get(i).code;
+            final int size = code.size();
+
+            if (size >= 2
+                    && code.get(size - 1).opcode == Opcodes.JMP
+                    && code.get(size - 2).label
+                       == layout.get(i + 1).originalAddress) {
+                code.remove(size - 1);
+                code.remove(size - 2);
+            }
+        }
+
+        int address = 0;
+
+        for (final Block block : layout) {
+            block.newAddress = address;
+            address += block.length();
+        }
+
+        if (address > codeEnd) {
+            return program.clone();
+        }
+
+        final byte[] optimized = program.clone();
+        Arrays.fill(optimized, 0, codeEnd, Opcodes.NOP);
+        int pointer = 0;
+
+        for (final Block block : layout) {
+            for (final Instruction instruction : block.code) {
+                optimized[pointer] = instruction.opcode;
+
+                if (Opcodes.instructionLength(instruction.opcode) > 1) {
+                    final int operand =
+                            instruction.label >= 0
+                            ? blocks.get(instruction.label).newAddress
+                            : instruction.operand;
+
+                    final byte[] bytes = CodeBuilder.intToBytes(operand);
+                    System.arraycopy(bytes,
+                                     0,
+                                     optimized,
+                                     pointer + 1,
+                                     bytes.length);
+                }
+
+                pointer += Opcodes.instructionLength(instruction.opcode);
+            }
+        }
+
+        return optimized;
+    }
+
+    /**
+     * Runs both programs on the default engine with each of the inputs and
+     * checks that they print the same output and either both halt or both
+     * fail.
+     *
+     * @param original  the original program.
+     * @param optimized the optimized program.
+     * @param inputs    the corpus of inputs.
+     * @throws StackMachineException on the first difference found.
+     */
+    public static void verify(final byte[] original,
+                              final byte[] optimized,
+                              final List<String> inputs) {
+        Objects.requireNonNull(original, "The original program is null.");
+        Objects.requireNonNull(optimized, "The optimized program is null.");
+        Objects.requireNonNull(inputs, "The input corpus is null.");
+
+        for (final String input : inputs) {
+            final String expected = runForVerification(original, input);
+            final String actual = runForVerification(optimized, input);
+
+            if (!expected.equals(actual)) {
+                throw new StackMachineException(
+                        String.format("The optimized program differs on "
+                                      + "input \"%s\": expected \"%s\", "
+                                      + "but was \"%s\"",
+                                      input,
+                                      expected,
+                                      actual));
+            }
+        }
+    }
+
+    private static String runForVerification(final byte[] program,
+                                             final String input) {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine =
+                new SimpleStackMachine(
+                        new ByteArrayInputStream(input.getBytes()),
+                        new PrintStream(bos, true));
+
+        machine.setInstructionBudget(VERIFICATION_INSTRUCTION_BUDGET);
+        String outcome;
+
+        try {
+            machine.execute(program);
+            outcome = machine.isHalted() ? "halted" : "budget exhausted";
+        } catch (final RuntimeException ex) {
+            outcome = "failed";
+        }
+
+        return bos.toString() + "<" + outcome + ">";
+    }
+
+    private static Block decode(final byte[] program,
+                                final ControlFlowGraph cfg,
+                                final BasicBlock basicBlock) {
+        final List<Instruction> code = new ArrayList<>();
+        int address = basicBlock.getStartAddress();
+
+        for (int i = 0; i < basicBlock.getInstructionCount(); ++i) {
+            final byte opcode = program[address];
+            final int length = Opcodes.instructionLength(opcode);
+            final int operand = length > 1
+                    ? SimpleStackMachine.wordAt(program, address + 1)
+                    : 0;
+
+            int label = -1;
+
+            if (Opcodes.isConditionalJump(opcode)) {
+                label = operand;
+            } else if ((opcode == Opcodes.PUSH || opcode == Opcodes.CONST)
+                    && i == basicBlock.getInstructionCount() - 2) {
+                final int next = address + length;
+
+                if ((program[next] == Opcodes.JMP
+                        || program[next] == Opcodes.CALL
+                        || program[next] == Opcodes.SPAWN)
+                        && cfg.constantJumpTarget(next) == operand) {
+                    label = operand;
+                }
+            }
+
+            code.add(new Instruction(opcode,
+                                     opcode == Opcodes.CALL ? 0 : operand,
+                                     label));
+            address += length;
+        }
+
+        return new Block(basicBlock.getStartAddress(),
+                         basicBlock.getEndAddress(),
+                         code);
+    }
+
+    /**
+     * Applies the peephole rules until none applies.
+     */
+    private static void simplify(final List<Instruction> code) {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int i = 0; i < code.size() && !changed; ++i) {
+                final Instruction a = code.get(i);
+                final Instruction b = i + 1 < code.size() ? code.get(i + 1)
+                                                          : null;
+                final Instruction c = i + 2 < code.size() ? code.get(i + 2)
+                                                          : null;
+
+                if (a.opcode == Opcodes.NOP) {
+                    code.remove(i);
+                    changed = true;
+                } else if (b == null) {
+                    // Nothing to combine with.
+                } else if (a.isConstant() && b.opcode == Opcodes.POP) {
+                    code.subList(i, i + 2).clear();
+                    changed = true;
+                } else if (a.opcode == Opcodes.DUP
+                        && b.opcode == Opcodes.POP) {
+                    code.subList(i, i + 2).clear();
+                    changed = true;
+                } else if (a.opcode == Opcodes.SWAP
+                        && b.opcode == Opcodes.SWAP) {
+                    code.subList(i, i + 2).clear();
+                    changed = true;
+                } else if (a.isConstant() && b.opcode == Opcodes.DUP) {
+                    code.set(i + 1, push(a.operand));
+                    changed = true;
+                } else if (c != null && a.isConstant() && b.isConstant()) {
+                    if (c.opcode == Opcodes.SWAP) {
+                        code.set(i, push(b.operand));
+                        code.set(i + 1, push(a.operand));
+                        code.remove(i + 2);
+                        changed = true;
+                    } else if (Opcodes.isArithmetic(c.opcode)
+                            && !((c.opcode == Opcodes.DIV
+                                  || c.opcode == Opcodes.MOD)
+                                 && a.operand == 0)) {
+                        final int value = Opcodes.arithmetic(c.opcode,
+                                                             b.operand,
+                                                             a.operand);
+                        code.subList(i, i + 3).clear();
+                        code.add(i, push(value));
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces a trailing {@code PUSH a; PUSH b; CMP; Jcc} with a jump or
+     * nothing at all. The comparison itself is kept if the flags may be read
+     * after the block.
+     */
+    private static void resolveConstantBranch(final Block block,
+                                              final boolean flagsLiveOut) {
+        final List<Instruction> code = block.code;
+        final int size = code.size();
+
+        if (size < 4 || !Opcodes.isConditionalJump(code.get(size - 1).opcode)
+                     || code.get(size - 2).opcode != Opcodes.CMP
+                     || !code.get(size - 3).isConstant()
+                     || !code.get(size - 4).isConstant()) {
+            return;
+        }
+
+        final Instruction jump = code.remove(size - 1);
+        final int cmp = Integer.compare(code.get(size - 3).operand,
+                                        code.get(size - 4).operand);
+
+        if (!flagsLiveOut) {
+            code.subList(size - 4, size - 1).clear();
+        }
+
+        if (Opcodes.isJumpTakenAfterCompare(jump.opcode, cmp)) {
+            code.add(new Instruction(Opcodes.PUSH, jump.label, jump.label));
+            code.add(new Instruction(Opcodes.JMP, 0, -1));
+        }
+    }
+
+    /**
+     * Computes the set of blocks after which the flags may still be read by a
+     * conditional jump before the next {@code CMP}.
+     */
+    private static Set<Integer> computeFlagsLiveOut(
+            final List<Block> layout,
+            final Map<Integer, Block> blocks) {
+        final Set<Integer> liveIn = new HashSet<>();
+        final Set<Integer> liveOut = new HashSet<>();
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (final Block block : layout) {
+                boolean out = false;
+
+                if (block.last() != null
+                        && block.last().opcode == Opcodes.RET) {
+                    out = true; // Returns anywhere.
+                }
+
+                for (final int successor : successors(block)) {
+                    if (!blocks.containsKey(successor)
+                            || liveIn.contains(successor)) {
+                        out = true;
+                    }
+                }
+
+                boolean in = out;
+
+                for (int i = block.code.size() - 1; i >= 0; --i) {
+                    final byte opcode = block.code.get(i).opcode;
+
+                    if (opcode == Opcodes.CMP) {
+                        in = false;
+                    } else if (Opcodes.isConditionalJump(opcode)) {
+                        in = true;
+                    }
+                }
+
+                if (out && liveOut.add(block.originalAddress)) {
+                    changed = true;
+                }
+
+                if (in && liveIn.add(block.originalAddress)) {
+                    changed = true;
+                }
+            }
+        }
+
+        return liveOut;
+    }
+
+    private static Set<Integer> computeReachable(
+            final List<Block> layout,
+            final Map<Integer, Block> blocks) {
+        final Set<Integer> reachable = new HashSet<>();
+        final Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.add(0);
+
+        while (!worklist.isEmpty()) {
+            final int address = worklist.remove();
+
+            if (!blocks.containsKey(address) || !reachable.add(address)) {
+                continue;
+            }
+
+            worklist.addAll(successors(blocks.get(address)));
+        }
+
+        return reachable;
+    }
+
+    /**
+     * Returns the original addresses of the successors of {@code block}
+     * within the original layout.
+     */
+    private static List<Integer> successors(final Block block) {
+        final List<Integer> successors = new ArrayList<>();
+
+        for (final Instruction instruction : block.code) {
+            if (instruction.label >= 0) {
+                successors.add(instruction.label);
+            }
+        }
+
+        if (block.fallsThrough()) {
+            successors.add(block.originalEndAddress);
+        }
+
+        return successors;
+    }
+
+    private static Instruction push(final int value) {
+        return new Instruction(Opcodes.PUSH, value, -1);
+    }
+}
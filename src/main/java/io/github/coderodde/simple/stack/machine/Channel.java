@@ -0,0 +1,447 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class implements a bounded, lock-free channel of words between
+ * machines. A machine reaches the channels attached to it by their port
+ * numbers via {@code SEND}, {@code RECV} and {@code TRYRECV}; see
+ * {@link SimpleStackMachine#setChannel(int, Channel)}.
+ * <p>
+ * {@link #singleProducerSingleConsumer(int)} returns a ring buffer for one
+ * sending and one receiving thread, which needs no atomic read-modify-write
+ * at all. {@link #multiProducerMultiConsumer(int)} returns a ring buffer with
+ * a sequence number per slot that any number of threads may share. Both
+ * round the capacity up to a power of two.
+ * <p>
+ * A sender finding the channel full and a receiver finding it empty spin,
+ * then yield, then park for growing periods until the channel has room or
+ * a word, so a fast stage is held back by a slow one. Closing the channel
+ * releases them: sending to a closed channel fails, and receiving fails once
+ * a closed channel is drained.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public abstract class Channel {
+
+    /**
+     * Returned by {@link #poll()} when the channel is empty.
+     */
+    public static final long EMPTY = Long.MIN_VALUE;
+
+    /**
+     * The number of busy-wait rounds before a waiting thread starts to yield.
+     */
+    private static final int SPIN_LIMIT = 128;
+
+    /**
+     * The number of yielding rounds before a waiting thread starts to park.
+     */
+    private static final int YIELD_LIMIT = 256;
+
+    private static final long MAXIMUM_PARK_NANOS = 1_000_000L;
+
+    /**
+     * The largest capacity allowed.
+     */
+    public static final int MAXIMUM_CAPACITY = 1 << 24;
+
+    private final LongAdder fullWaits = new LongAdder();
+    private final LongAdder emptyWaits = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Returns a channel for exactly one sending and one receiving thread.
+     *
+     * @param capacity the minimum number of words the channel holds.
+     * @return the channel.
+     */
+    public static Channel singleProducerSingleConsumer(final int capacity) {
+        return new SpscChannel(roundUpCapacity(capacity));
+    }
+
+    /**
+     * Returns a channel any number of threads may send to and receive from.
+     *
+     * @param capacity the minimum number of words the channel holds.
+     * @return the channel.
+     */
+    public static Channel multiProducerMultiConsumer(final int capacity) {
+        return new MpmcChannel(roundUpCapacity(capacity));
+    }
+
+    /**
+     * Adds the word to the channel unless it is full.
+     *
+     * @param word the word to add.
+     * @return {@code true} if the word was added.
+     */
+    public abstract boolean offer(final int word);
+
+    /**
+     * Removes the oldest word of the channel.
+     *
+     * @return the word, or {@link #EMPTY} if the channel is empty.
+     */
+    public abstract long poll();
+
+    public abstract int getCapacity();
+
+    /**
+     * Returns the number of words sent to this channel so far.
+     *
+     * @return the number of sent words.
+     */
+    public abstract long getSentCount();
+
+    /**
+     * Returns the number of words received from this channel so far.
+     *
+     * @return the number of received words.
+     */
+    public abstract long getReceivedCount();
+
+    /**
+     * Returns the number of words in the channel. Only an estimate while
+     * words are being sent or received.
+     *
+     * @return the occupancy of the channel.
+     */
+    public int size() {
+        final long received = getReceivedCount();
+        final long sent = getSentCount();
+        return (int) Math.max(0L, Math.min(sent - received, getCapacity()));
+    }
+
+    /**
+     * Returns the number of times a sender found the channel full and had to
+     * wait.
+     *
+     * @return the number of backpressure waits.
+     */
+    public long getFullWaitCount() {
+        return fullWaits.sum();
+    }
+
+    /**
+     * Returns the number of times a receiver found the channel empty and had
+     * to wait.
+     *
+     * @return the number of starvation waits.
+     */
+    public long getEmptyWaitCount() {
+        return emptyWaits.sum();
+    }
+
+    /**
+     * Closes the channel. The words already sent may still be received.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Adds the word to the channel, waiting while it is full.
+     *
+     * @param word the word to send.
+     * @return {@code false} if the channel is closed.
+     */
+    boolean send(final int word) {
+        int rounds = 0;
+
+        while (!closed) {
+            if (offer(word)) {
+                return true;
+            }
+
+            if (rounds == 0) {
+                fullWaits.increment();
+            }
+
+            backOff(rounds++);
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the oldest word of the channel, waiting while it is empty.
+     *
+     * @return the word, or {@link #EMPTY} if the channel is closed and
+     *         drained.
+     */
+    long receive() {
+        int rounds = 0;
+
+        while (true) {
+            // Read the flag first, so that no word sent before closing is
+            // missed.
+            final boolean wasClosed = closed;
+            final long word = poll();
+
+            if (word != EMPTY || wasClosed) {
+                return word;
+            }
+
+            if (rounds == 0) {
+                emptyWaits.increment();
+            }
+
+            backOff(rounds++);
+        }
+    }
+
+    private static void backOff(final int round) {
+        if (round < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (round < SPIN_LIMIT + YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            final int shift = Math.min(round - SPIN_LIMIT - YIELD_LIMIT, 20);
+            LockSupport.parkNanos(Math.min(1L << shift, MAXIMUM_PARK_NANOS));
+        }
+    }
+
+    private static int roundUpCapacity(final int capacity) {
+        if (capacity < 1 || capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    String.format("capacity(%d) is not within [1, %d]",
+                                  capacity,
+                                  MAXIMUM_CAPACITY));
+        }
+
+        return Integer.highestOneBit(capacity) == capacity
+                ? capacity
+                : Integer.highestOneBit(capacity) << 1;
+    }
+
+    /**
+     * The single-producer, single-consumer ring. Each side owns its index and
+     * publishes it with a release store; the other side reads it with an
+     * acquire load and caches it until the cached value says the ring is
+     * full or empty.
+     */
+    private static final class SpscChannel extends Channel {
+
+        private static final VarHandle HEAD;
+        private static final VarHandle TAIL;
+
+        static {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                HEAD = lookup.findVarHandle(SpscChannel.class,
+                                            "head",
+                                            long.class);
+                TAIL = lookup.findVarHandle(SpscChannel.class,
+                                            "tail",
+                                            long.class);
+            } catch (final ReflectiveOperationException ex) {
+                throw new ExceptionInInitializerError(ex);
+            }
+        }
+
+        private final int[] buffer;
+        private final int mask;
+
+        /**
+         * The index of the next word to receive. Written by the consumer.
+         */
+        private long head;
+
+        /**
+         * The consumer's view of {@link #tail}.
+         */
+        private long cachedTail;
+
+        /**
+         * Padding keeping the indices of the two sides on separate cache
+         * lines.
+         */
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        /**
+         * The index of the next word to send. Written by the producer.
+         */
+        private long tail;
+
+        /**
+         * The producer's view of {@link #head}.
+         */
+        private long cachedHead;
+
+        SpscChannel(final int capacity) {
+            this.buffer = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public boolean offer(final int word) {
+            final long t = tail;
+
+            if (t - cachedHead == buffer.length) {
+                cachedHead = (long) HEAD.getAcquire(this);
+
+                if (t - cachedHead == buffer.length) {
+                    return false;
+                }
+            }
+
+            buffer[(int) t & mask] = word;
+            TAIL.setRelease(this, t + 1);
+            return true;
+        }
+
+        @Override
+        public long poll() {
+            final long h = head;
+
+            if (h == cachedTail) {
+                cachedTail = (long) TAIL.getAcquire(this);
+
+                if (h == cachedTail) {
+                    return EMPTY;
+                }
+            }
+
+            final int word = buffer[(int) h & mask];
+            HEAD.setRelease(this, h + 1);
+            return word;
+        }
+
+        @Override
+        public int getCapacity() {
+            return buffer.length;
+        }
+
+        @Override
+        public long getSentCount() {
+            return (long) TAIL.getAcquire(this);
+        }
+
+        @Override
+        public long getReceivedCount() {
+            return (long) HEAD.getAcquire(this);
+        }
+    }
+
+    /**
+     * The multi-producer, multi-consumer ring. Every slot carries a sequence
+     * number telling whether it waits for the sender or the receiver of the
+     * given lap; the sides claim slots by advancing their index with a
+     * compare-and-set.
+     */
+    private static final class MpmcChannel extends Channel {
+
+        private static final VarHandle HEAD;
+        private static final VarHandle TAIL;
+
+        static {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                HEAD = lookup.findVarHandle(MpmcChannel.class,
+                                            "head",
+                                            long.class);
+                TAIL = lookup.findVarHandle(MpmcChannel.class,
+                                            "tail",
+                                            long.class);
+            } catch (final ReflectiveOperationException ex) {
+                throw new ExceptionInInitializerError(ex);
+            }
+        }
+
+        private final int[] buffer;
+        private final AtomicLongArray sequences;
+        private final int mask;
+
+        private volatile long head;
+
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        private volatile long tail;
+
+        MpmcChannel(final int capacity) {
+            this.buffer = new int[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+
+            for (int i = 0; i < capacity; ++i) {
+                sequences.setPlain(i, i);
+            }
+        }
+
+        @Override
+        public boolean offer(final int word) {
+            long t = tail;
+
+            while (true) {
+                final int index = (int) t & mask;
+                final long difference = sequences.getAcquire(index) - t;
+
+                if (difference == 0L) {
+                    if (TAIL.compareAndSet(this, t, t + 1)) {
+                        buffer[index] = word;
+                        sequences.setRelease(index, t + 1);
+                        return true;
+                    }
+
+                    t = tail;
+                } else if (difference < 0L) {
+                    return false;
+                } else {
+                    t = tail;
+                }
+            }
+        }
+
+        @Override
+        public long poll() {
+            long h = head;
+
+            while (true) {
+                final int index = (int) h & mask;
+                final long difference = sequences.getAcquire(index) - (h + 1);
+
+                if (difference == 0L) {
+                    if (HEAD.compareAndSet(this, h, h + 1)) {
+                        final int word = buffer[index];
+                        sequences.setRelease(index, h + buffer.length);
+                        return word;
+                    }
+
+                    h = head;
+                } else if (difference < 0L) {
+                    return EMPTY;
+                } else {
+                    h = head;
+                }
+            }
+        }
+
+        @Override
+        public int getCapacity() {
+            return buffer.length;
+        }
+
+        @Override
+        public long getSentCount() {
+            return tail;
+        }
+
+        @Override
+        public long getReceivedCount() {
+            return head;
+        }
+    }
+}
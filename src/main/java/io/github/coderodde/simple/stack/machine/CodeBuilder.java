@@ -18,10 +18,20 @@ public class CodeBuilder {
             emit(b);
         }
     }
+
+    void emit(long word) {
+        for (final byte b : longToBytes(word)) {
+            emit(b);
+        }
+    }
     
     void setInstructionPointer(int pointer) {
         this.pointer = pointer; 
     }
+    
+    int getInstructionPointer() {
+        return pointer;
+    }
 
     void emit(String str) {
         byte[] stringBytes = str.getBytes();
@@ -50,4 +60,14 @@ public class CodeBuilder {
             (byte)(value >>> 16),
             (byte)(value >>> 24)};
     }
-}
\ No newline at end of file
+
+    static byte[] longToBytes(long value) {
+        final byte[] bytes = new byte[Long.BYTES];
+
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte)(value >>> (8 * i));
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,592 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class implements the control-flow graph of a stack program. The program
+ * is split into basic blocks at the jump targets and after each conditional
+ * jump, {@code JMP}, {@code CALL}, {@code RET} and {@code HALT}. Each block
+ * knows its stack effect and the operand stack size it requires up front, so
+ * that the engines may check them once per block instead of once per
+ * instruction.
+ * <p>
+ * The jump targets of {@code JMP} and {@code CALL} are taken from the stack;
+ * the builder knows them only when a {@code PUSH} immediately precedes the
+ * jump within the same block. The entry point a {@code SPAWN} starts a VM
+ * thread at is found the same way; the code of the thread is a root of the
+ * graph, not a successor of the spawning block. The blocks entered only
+ * through the other, computed jumps are built the first time they are asked
+ * for via {@link #blockAt(int)}.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class ControlFlowGraph {
+
+    /**
+     * This class implements a basic block: a straight-line run of
+     * instructions entered only at its first instruction.
+     */
+    public static final class BasicBlock {
+
+        private final int startAddress;
+        private final int endAddress;
+        private final int lastInstructionAddress;
+        private final int instructionCount;
+        private final int stackEffect;
+        private final int requiredStackSize;
+        private final int maximumStackGrowth;
+        private final int[] successorAddresses;
+        private final boolean computedSuccessor;
+
+        BasicBlock(final int startAddress,
+                   final int endAddress,
+                   final int lastInstructionAddress,
+                   final int instructionCount,
+                   final int stackEffect,
+                   final int requiredStackSize,
+                   final int maximumStackGrowth,
+                   final int[] successorAddresses,
+                   final boolean computedSuccessor) {
+            this.startAddress = startAddress;
+            this.endAddress = endAddress;
+            this.lastInstructionAddress = lastInstructionAddress;
+            this.instructionCount = instructionCount;
+            this.stackEffect = stackEffect;
+            this.requiredStackSize = requiredStackSize;
+            this.maximumStackGrowth = maximumStackGrowth;
+            this.successorAddresses = successorAddresses;
+            this.computedSuccessor = computedSuccessor;
+        }
+
+        /**
+         * Returns the address of the first instruction of this block.
+         */
+        public int getStartAddress() {
+            return startAddress;
+        }
+
+        /**
+         * Returns the address right after the last instruction of this block.
+         */
+        public int getEndAddress() {
+            return endAddress;
+        }
+
+        public int getLastInstructionAddress() {
+            return lastInstructionAddress;
+        }
+
+        public int getInstructionCount() {
+            return instructionCount;
+        }
+
+        /**
+         * Returns the change in the operand stack size after this block.
+         */
+        public int getStackEffect() {
+            return stackEffect;
+        }
+
+        /**
+         * Returns the minimum operand stack size this block needs on entry.
+         */
+        public int getRequiredStackSize() {
+            return requiredStackSize;
+        }
+
+        /**
+         * Returns the maximum amount by which the operand stack grows above
+         * its entry size while running this block.
+         */
+        public int getMaximumStackGrowth() {
+            return maximumStackGrowth;
+        }
+
+        /**
+         * Returns the addresses of the successor blocks known statically.
+         */
+        public int[] getSuccessorAddresses() {
+            return successorAddresses.clone();
+        }
+
+        /**
+         * Tells whether this block may continue at an address computed at run
+         * time ({@code RET}, or {@code JMP}/{@code CALL} without a constant
+         * target).
+         */
+        public boolean hasComputedSuccessor() {
+            return computedSuccessor;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d, %d): %d instructions, "
+                                 + "requires %d, effect %+d, growth %d, "
+                                 + "successors %s%s",
+                                 startAddress,
+                                 endAddress,
+                                 instructionCount,
+                                 requiredStackSize,
+                                 stackEffect,
+                                 maximumStackGrowth,
+                                 Arrays.toString(successorAddresses),
+                                 computedSuccessor ? " + computed" : "");
+        }
+    }
+
+    private final byte[] code;
+    private final int entryAddress;
+
+    /**
+     * Maps each address to the block starting at it, if any.
+     */
+    private final BasicBlock[] blocksByAddress;
+
+    /**
+     * {@code true} for the addresses of the instructions reachable from the
+     * entry through the statically known edges.
+     */
+    private final boolean[] instructionStarts;
+
+    /**
+     * {@code true} for the addresses that start a block.
+     */
+    private final boolean[] leaders;
+
+    /**
+     * {@code true} for the addresses of the bytes decoded into a block.
+     */
+    private final boolean[] decoded;
+
+    private ControlFlowGraph(final byte[] code, final int entryAddress) {
+        this.code = code;
+        this.entryAddress = entryAddress;
+        this.blocksByAddress = new BasicBlock[code.length];
+        this.instructionStarts = new boolean[code.length];
+        this.leaders = new boolean[code.length];
+        this.decoded = new boolean[code.length];
+    }
+
+    /**
+     * Builds the control-flow graph of the code reachable from
+     * {@code entryAddress}.
+     *
+     * @param code         the program code.
+     * @param entryAddress the entry point.
+     * @return the control-flow graph.
+     */
+    public static ControlFlowGraph build(final byte[] code,
+                                         final int entryAddress) {
+        return build(code, new int[] { entryAddress }, List.of());
+    }
+
+    /**
+     * Builds the control-flow graph of the code reachable from
+     * {@code entryAddress}, taking over the instructions and the blocks of
+     * the shared libraries instead of decoding them again. The libraries
+     * must be placed on {@code code} at their base addresses.
+     *
+     * @param code         the program code.
+     * @param entryAddress the entry point.
+     * @param libraries    the shared libraries linked with the program.
+     * @return the control-flow graph.
+     */
+    static ControlFlowGraph build(final byte[] code,
+                                  final int entryAddress,
+                                  final Collection<SharedLibrary> libraries) {
+        return build(code, new int[] { entryAddress }, libraries);
+    }
+
+    /**
+     * Builds the control-flow graph of the code reachable from any of
+     * {@code entryAddresses}, the first of them being the entry point,
+     * taking over the code of the shared libraries.
+     *
+     * @param code           the program code.
+     * @param entryAddresses the addresses to start the discovery from.
+     * @param libraries      the shared libraries placed on {@code code}.
+     * @return the control-flow graph.
+     */
+    static ControlFlowGraph build(
+            final byte[] code,
+            final int[] entryAddresses,
+            final Collection<SharedLibrary> libraries) {
+        Objects.requireNonNull(code, "The input code is null.");
+
+        for (final int entryAddress : entryAddresses) {
+            if (entryAddress < 0 || entryAddress >= code.length) {
+                throw new IllegalArgumentException(
+                        String.format("entryAddress(%d) is not within "
+                                      + "[0, %d)",
+                                      entryAddress,
+                                      code.length));
+            }
+        }
+
+        final ControlFlowGraph cfg = new ControlFlowGraph(code,
+                                                          entryAddresses[0]);
+
+        for (final SharedLibrary library : libraries) {
+            cfg.adopt(library.getControlFlowGraph(),
+                      library.getBaseAddress(),
+                      library.getEndAddress());
+        }
+
+        cfg.discoverInstructions(entryAddresses);
+
+        for (int address = 0; address < code.length; ++address) {
+            if (cfg.isBlockStart(address)
+                    && cfg.blocksByAddress[address] == null) {
+                cfg.blocksByAddress[address] = cfg.buildBlock(address);
+            }
+        }
+
+        return cfg;
+    }
+
+    /**
+     * Takes over the instructions and the blocks of {@code shared} within
+     * {@code [start, end)}. The discovery stops at the instructions taken
+     * over, so the shared code is never decoded again.
+     */
+    private void adopt(final ControlFlowGraph shared,
+                       final int start,
+                       final int end) {
+        if (end > code.length || end > shared.code.length) {
+            throw new IllegalArgumentException(
+                    String.format("The shared code [%d, %d) does not fit in "
+                                  + "the code of length %d",
+                                  start,
+                                  end,
+                                  code.length));
+        }
+
+        for (int address = start; address < end; ++address) {
+            if (shared.isBlockStart(address)) {
+                blocksByAddress[address] = shared.blocksByAddress[address];
+            }
+        }
+
+        System.arraycopy(shared.instructionStarts,
+                         start,
+                         instructionStarts,
+                         start,
+                         end - start);
+
+        System.arraycopy(shared.leaders, start, leaders, start, end - start);
+        System.arraycopy(shared.decoded, start, decoded, start, end - start);
+    }
+
+    public int getEntryAddress() {
+        return entryAddress;
+    }
+
+    /**
+     * Returns the block starting at {@code address}, building it first if no
+     * block found statically starts there.
+     *
+     * @param address the start address.
+     * @return the basic block.
+     */
+    public BasicBlock blockAt(final int address) {
+        if (address < 0 || address >= code.length) {
+            throw new StackMachineException(
+                    String.format("Jump target %d is outside of the tape.",
+                                  address));
+        }
+
+        BasicBlock block = blocksByAddress[address];
+
+        if (block == null) {
+            block = buildBlock(address);
+            blocksByAddress[address] = block;
+        }
+
+        return block;
+    }
+
+    /**
+     * Returns the blocks found statically, ordered by their addresses.
+     *
+     * @return the list of blocks.
+     */
+    public List<BasicBlock> getBlocks() {
+        final List<BasicBlock> blocks = new ArrayList<>();
+
+        for (int address = 0; address < code.length; ++address) {
+            if (isBlockStart(address)) {
+                blocks.add(blocksByAddress[address]);
+            }
+        }
+
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Tells whether the instruction at {@code address} is reachable through
+     * the statically known edges.
+     *
+     * @param address the address to check.
+     * @return {@code true} if an instruction starts at {@code address}.
+     */
+    public boolean isInstructionStart(final int address) {
+        return address >= 0
+                && address < code.length
+                && instructionStarts[address];
+    }
+
+    /**
+     * Tells whether any byte of {@code [address, address + length)} has been
+     * decoded into a block, so that writing to the range may change the
+     * graph.
+     *
+     * @param address the start address of the range.
+     * @param length  the length of the range in bytes.
+     * @return {@code true} if the range overlaps the decoded code.
+     */
+    boolean overlapsCode(final int address, final int length) {
+        final int end = Math.min(code.length, address + length);
+
+        for (int i = Math.max(0, address); i < end; ++i) {
+            if (decoded[i]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isBlockStart(final int address) {
+        return leaders[address] && instructionStarts[address];
+    }
+
+    /**
+     * Returns the constant target of the {@code JMP}, {@code CALL} or
+     * {@code SPAWN} at {@code address}, or -1 if the target is computed.
+     *
+     * @param address the address of a {@code JMP}, {@code CALL} or
+     *                {@code SPAWN}.
+     * @return the target address or -1.
+     */
+    int constantJumpTarget(final int address) {
+        final int pushAddress = address - 1 - Integer.BYTES;
+
+        if (pushAddress < 0
+                || !instructionStarts[pushAddress]
+                || leaders[address]) {
+            return -1;
+        }
+
+        final byte opcode = code[pushAddress];
+
+        if (opcode != Opcodes.PUSH && opcode != Opcodes.CONST) {
+            return -1;
+        }
+
+        return SimpleStackMachine.wordAt(code, pushAddress + 1);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final BasicBlock block : getBlocks()) {
+            sb.append(block).append(System.lineSeparator());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Marks all the instructions reachable from the entry and the block
+     * leaders among them.
+     */
+    private void discoverInstructions(final int[] entryAddresses) {
+        final Deque<Integer> worklist = new ArrayDeque<>();
+        final List<Integer> pendingJumps = new ArrayList<>();
+        final List<Integer> pendingSpawns = new ArrayList<>();
+
+        for (final int address : entryAddresses) {
+            worklist.add(address);
+            leaders[address] = true;
+        }
+
+        while (!worklist.isEmpty()
+                || !pendingJumps.isEmpty()
+                || !pendingSpawns.isEmpty()) {
+            while (!worklist.isEmpty()) {
+                final int address = worklist.remove();
+
+                if (!isDecodable(address) || instructionStarts[address]) {
+                    continue;
+                }
+
+                instructionStarts[address] = true;
+
+                final byte opcode = code[address];
+                final int next = address + Opcodes.instructionLength(opcode);
+
+                if (Opcodes.isConditionalJump(opcode)) {
+                    addEdge(worklist, SimpleStackMachine.wordAt(code,
+                                                                address + 1));
+                    addEdge(worklist, next);
+                } else if (opcode == Opcodes.CALL) {
+                    pendingJumps.add(address);
+                    addEdge(worklist, next);
+                } else if (opcode == Opcodes.JMP) {
+                    pendingJumps.add(address);
+                } else if (opcode == Opcodes.RET
+                        || opcode == Opcodes.HALT
+                        || Operation.getOperation(opcode) == null) {
+                    if (next < code.length) {
+                        leaders[next] = true;
+                    }
+                } else {
+                    if (Opcodes.endsBasicBlock(opcode) && next < code.length) {
+                        leaders[next] = true;
+                    }
+
+                    if (opcode == Opcodes.SPAWN) {
+                        pendingSpawns.add(address);
+                    }
+
+                    worklist.add(next);
+                }
+            }
+
+            // The constant targets are known only after the preceding PUSH
+            // has been discovered.
+            for (final int address : pendingJumps) {
+                if (address + 1 + Integer.BYTES < code.length) {
+                    leaders[address + 1 + Integer.BYTES] = true;
+                }
+
+                final int target = constantJumpTarget(address);
+
+                if (target >= 0) {
+                    addEdge(worklist, target);
+                }
+            }
+
+            pendingJumps.clear();
+
+            for (final int address : pendingSpawns) {
+                final int entry = constantJumpTarget(address);
+
+                if (entry >= 0) {
+                    addEdge(worklist, entry);
+                }
+            }
+
+            pendingSpawns.clear();
+        }
+    }
+
+    private void addEdge(final Deque<Integer> worklist, final int target) {
+        if (target >= 0 && target < code.length) {
+            leaders[target] = true;
+            worklist.add(target);
+        }
+    }
+
+    /**
+     * Tells whether a whole instruction starts at {@code address}. The tape
+     * must hold at least one byte past the instruction, just as
+     * {@link SimpleStackMachine#checkTapeReserve(int)} demands.
+     */
+    private boolean isDecodable(final int address) {
+        return address >= 0
+                && address < code.length
+                && address + Opcodes.instructionLength(code[address])
+                   < code.length;
+    }
+
+    private BasicBlock buildBlock(final int startAddress) {
+        int address = startAddress;
+        int lastAddress = startAddress;
+        int instructionCount = 0;
+        int depth = 0;
+        int minimumDepth = 0;
+        int maximumDepth = 0;
+
+        while (isDecodable(address)) {
+            final byte opcode = code[address];
+
+            depth -= Opcodes.stackPops(opcode);
+            minimumDepth = Math.min(minimumDepth, depth);
+            depth += Opcodes.stackPushes(opcode);
+            maximumDepth = Math.max(maximumDepth, depth);
+
+            ++instructionCount;
+            lastAddress = address;
+            address += Opcodes.instructionLength(opcode);
+
+            if (Opcodes.endsBasicBlock(opcode)
+                    || (address < code.length && leaders[address])) {
+                break;
+            }
+        }
+
+        if (instructionCount == 0) {
+            // Not even one instruction fits; an empty block makes the engine
+            // fall back to the reference implementation.
+            return new BasicBlock(startAddress,
+                                  startAddress,
+                                  startAddress,
+                                  0,
+                                  0,
+                                  0,
+                                  0,
+                                  new int[0],
+                                  false);
+        }
+
+        Arrays.fill(decoded, startAddress, address, true);
+
+        final byte lastOpcode = code[lastAddress];
+        final List<Integer> successors = new ArrayList<>();
+        boolean computedSuccessor = false;
+
+        if (Opcodes.isConditionalJump(lastOpcode)) {
+            successors.add(SimpleStackMachine.wordAt(code, lastAddress + 1));
+            successors.add(address);
+        } else if (lastOpcode == Opcodes.JMP || lastOpcode == Opcodes.CALL) {
+            final int target = constantJumpTarget(lastAddress);
+
+            if (target >= 0) {
+                successors.add(target);
+            } else {
+                computedSuccessor = true;
+            }
+
+            if (lastOpcode == Opcodes.CALL) {
+                // The callee returns here through RET.
+                successors.add(address);
+            }
+        } else if (lastOpcode == Opcodes.RET) {
+            computedSuccessor = true;
+        } else if (lastOpcode != Opcodes.HALT
+                && Operation.getOperation(lastOpcode) != null) {
+            successors.add(address);
+        }
+
+        return new BasicBlock(
+                startAddress,
+                address,
+                lastAddress,
+                instructionCount,
+                depth,
+                -minimumDepth,
+                maximumDepth,
+                successors.stream().mapToInt(Integer::intValue).toArray(),
+                computedSuccessor);
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This class implements the reference execution engine that dispatches each 
+ * instruction through its {@link Operation} implementation.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class DefaultExecutionEngine implements ExecutionEngine {
+    
+    public static final DefaultExecutionEngine INSTANCE = 
+            new DefaultExecutionEngine();
+    
+    private DefaultExecutionEngine() {
+        
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        while (machine.canRun()) {
+            machine.step();
+            
+            if (!machine.isWaiting()) {
+                machine.chargeInstructions(1L);
+            }
+        }
+    }
+}
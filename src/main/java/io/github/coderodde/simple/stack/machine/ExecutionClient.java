@@ -0,0 +1,338 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This class implements a blocking client of {@link ExecutionService}. It
+ * keeps one request outstanding at a time; the output and the results of
+ * the jobs read while waiting for a reply are kept until asked for. A client
+ * is meant to be used by a single thread.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class ExecutionClient implements AutoCloseable {
+
+    /**
+     * This class implements the result of a job.
+     */
+    public static final class JobResult {
+
+        private final byte outcome;
+        private final long executedInstructionCount;
+        private final int[] operandStack;
+        private final String trapMessage;
+        private final String output;
+
+        JobResult(final byte outcome,
+                  final long executedInstructionCount,
+                  final int[] operandStack,
+                  final String trapMessage,
+                  final String output) {
+            this.outcome = outcome;
+            this.executedInstructionCount = executedInstructionCount;
+            this.operandStack = operandStack;
+            this.trapMessage = trapMessage;
+            this.output = output;
+        }
+
+        public boolean isHalted() {
+            return outcome == ExecutionService.OUTCOME_HALTED;
+        }
+
+        /**
+         * Tells whether the job stopped on exhausting its budget.
+         */
+        public boolean isOutOfBudget() {
+            return outcome == ExecutionService.OUTCOME_OUT_OF_BUDGET;
+        }
+
+        public boolean isTrapped() {
+            return outcome == ExecutionService.OUTCOME_TRAPPED;
+        }
+
+        /**
+         * Returns the message of the trap, or {@code null} if the job did not
+         * trap.
+         */
+        public String getTrapMessage() {
+            return trapMessage;
+        }
+
+        public long getExecutedInstructionCount() {
+            return executedInstructionCount;
+        }
+
+        public int[] getOperandStack() {
+            return operandStack.clone();
+        }
+
+        /**
+         * Returns all the output of the job.
+         */
+        public String getOutput() {
+            return output;
+        }
+    }
+
+    private final SocketChannel channel;
+    private final ByteBuffer lengthBuffer =
+            ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final Map<Integer, ByteArrayOutputStream> outputs =
+            new HashMap<>();
+
+    private final Map<Integer, JobResult> results = new HashMap<>();
+
+    /**
+     * Connects to the service at {@code address}.
+     *
+     * @param address the address returned by
+     *                {@link ExecutionService#start(SocketAddress)}.
+     * @throws IOException if the connection fails.
+     */
+    public ExecutionClient(final SocketAddress address) throws IOException {
+        this.channel =
+                SocketChannel.open(Objects.requireNonNull(
+                        address,
+                        "The address is null."));
+    }
+
+    /**
+     * Stores a program in the service.
+     *
+     * @param program the program bytes.
+     * @return the ID of the stored program.
+     * @throws IOException if the connection fails.
+     */
+    public int storeProgram(final byte[] program) throws IOException {
+        Objects.requireNonNull(program, "The program is null.");
+        send(newFrame(ExecutionService.STORE_PROGRAM, program.length)
+                     .put(program));
+        return awaitReply(ExecutionService.PROGRAM_STORED).getInt();
+    }
+
+    /**
+     * Submits a job running a stored program.
+     *
+     * @param programId the ID of the stored program.
+     * @param budget    the instruction budget of the job.
+     * @return the ID of the job.
+     * @throws IOException if the connection fails.
+     * @throws RejectedExecutionException if the service rejects the job.
+     */
+    public int run(final int programId, final long budget)
+            throws IOException {
+        send(newFrame(ExecutionService.RUN, Integer.BYTES + Long.BYTES)
+                     .putInt(programId)
+                     .putLong(budget));
+        return awaitAcceptance();
+    }
+
+    /**
+     * Submits a job running {@code program} without storing it.
+     *
+     * @param program the program bytes.
+     * @param budget  the instruction budget of the job.
+     * @return the ID of the job.
+     * @throws IOException if the connection fails.
+     * @throws RejectedExecutionException if the service rejects the job.
+     */
+    public int run(final byte[] program, final long budget)
+            throws IOException {
+        Objects.requireNonNull(program, "The program is null.");
+        send(newFrame(ExecutionService.RUN_PROGRAM,
+                      Long.BYTES + program.length)
+                     .putLong(budget)
+                     .put(program));
+        return awaitAcceptance();
+    }
+
+    /**
+     * Sends an input line to a job.
+     *
+     * @param jobId the ID of the job.
+     * @param line  the input line.
+     * @throws IOException if the connection fails.
+     */
+    public void sendInput(final int jobId, final String line)
+            throws IOException {
+        final byte[] bytes =
+                Objects.requireNonNull(line, "The input line is null.")
+                       .getBytes(StandardCharsets.UTF_8);
+
+        send(newFrame(ExecutionService.INPUT, Integer.BYTES + bytes.length)
+                     .putInt(jobId)
+                     .put(bytes));
+    }
+
+    /**
+     * Waits for the result of a job.
+     *
+     * @param jobId the ID of the job.
+     * @return the result of the job.
+     * @throws IOException if the connection fails.
+     */
+    public JobResult awaitResult(final int jobId) throws IOException {
+        while (!results.containsKey(jobId)) {
+            readFrame();
+        }
+
+        return results.remove(jobId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int awaitAcceptance() throws IOException {
+        final ByteBuffer reply = awaitReply(ExecutionService.ACCEPTED,
+                                            ExecutionService.REJECTED);
+
+        if (reply.get(0) == ExecutionService.REJECTED) {
+            throw new RejectedExecutionException(text(reply.position(1)));
+        }
+
+        return reply.position(1).getInt();
+    }
+
+    /**
+     * Reads frames until one of the given types arrives.
+     *
+     * @return the frame, positioned after its type.
+     */
+    private ByteBuffer awaitReply(final byte... types) throws IOException {
+        while (true) {
+            final ByteBuffer frame = readFrame();
+
+            if (frame == null) {
+                continue;
+            }
+
+            for (final byte type : types) {
+                if (frame.get(0) == type) {
+                    return frame;
+                }
+            }
+
+            throw new IOException(
+                    String.format("Unexpected frame type 0x%02x",
+                                  Byte.toUnsignedInt(frame.get(0))));
+        }
+    }
+
+    /**
+     * Reads a frame, keeping the output and the results of the jobs.
+     *
+     * @return the frame positioned after its type if it is a reply, or
+     *         {@code null}.
+     */
+    private ByteBuffer readFrame() throws IOException {
+        readFully(lengthBuffer.clear());
+
+        final int length = lengthBuffer.getInt(0);
+
+        if (length < 1 || length > ExecutionService.MAXIMUM_FRAME_LENGTH) {
+            throw new IOException(
+                    String.format("Invalid frame length %d", length));
+        }
+
+        final ByteBuffer frame = ByteBuffer.allocate(length)
+                                           .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(frame);
+        frame.flip();
+
+        final byte type = frame.get();
+
+        switch (type) {
+            case ExecutionService.OUTPUT:
+                final int outputJobId = frame.getInt();
+                outputs.computeIfAbsent(outputJobId,
+                                        id -> new ByteArrayOutputStream())
+                       .write(frame.array(),
+                              frame.position(),
+                              frame.remaining());
+                return null;
+
+            case ExecutionService.RESULT:
+                readResult(frame);
+                return null;
+
+            case ExecutionService.ERROR:
+                throw new IOException(text(frame));
+
+            default:
+                return frame;
+        }
+    }
+
+    private void readResult(final ByteBuffer frame) {
+        final int jobId = frame.getInt();
+        final byte outcome = frame.get();
+        final long executed = frame.getLong();
+        final int[] stack = new int[frame.getInt()];
+
+        for (int i = 0; i < stack.length; ++i) {
+            stack[i] = frame.getInt();
+        }
+
+        final String trapMessage = text(frame);
+        final ByteArrayOutputStream output = outputs.remove(jobId);
+
+        results.put(jobId,
+                    new JobResult(
+                            outcome,
+                            executed,
+                            stack,
+                            outcome == ExecutionService.OUTCOME_TRAPPED
+                                    ? trapMessage
+                                    : null,
+                            output == null
+                                    ? ""
+                                    : output.toString(
+                                            StandardCharsets.UTF_8)));
+    }
+
+    private void send(final ByteBuffer frame) throws IOException {
+        frame.flip();
+
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private void readFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The service closed the connection.");
+            }
+        }
+    }
+
+    private static ByteBuffer newFrame(final byte type,
+                                       final int payloadLength) {
+        return ByteBuffer.allocate(Integer.BYTES + 1 + payloadLength)
+                         .order(ByteOrder.LITTLE_ENDIAN)
+                         .putInt(1 + payloadLength)
+                         .put(type);
+    }
+
+    private static String text(final ByteBuffer buffer) {
+        return new String(buffer.array(),
+                          buffer.position(),
+                          buffer.remaining(),
+                          StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This interface defines the API for the engines that actually run the program
+ * loaded to the tape of a {@link SimpleStackMachine}.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public interface ExecutionEngine {
+
+    /**
+     * Runs the machine starting from its current instruction pointer until 
+     * it halts or exhausts its instruction budget. Each executed instruction 
+     * must be charged via {@link SimpleStackMachine#chargeInstructions(long)}.
+     * 
+     * @param machine the target machine.
+     */
+    public void run(final SimpleStackMachine machine);
+}
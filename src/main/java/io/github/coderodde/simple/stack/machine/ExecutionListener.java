@@ -0,0 +1,88 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This interface specifies the callbacks of an execution listener attached
+ * via {@link SimpleStackMachine#setExecutionListener(ExecutionListener)}.
+ * While a listener is attached, the machine runs its instrumented engine,
+ * stepping the reference implementation, regardless of the engine asked
+ * for; the other engines never check for a listener.
+ * <p>
+ * A callback may call {@link SimpleStackMachine#requestPause()} to stop the
+ * machine after the callback returns: before the instruction when called
+ * from {@link #beforeInstruction}, after it otherwise. This is how
+ * breakpoints, single stepping and watchpoints are built.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public interface ExecutionListener {
+
+    /**
+     * Called before the instruction at {@code address} runs.
+     *
+     * @param machine   the machine.
+     * @param address   the address of the instruction.
+     * @param operation the instruction, or {@code null} if the opcode is
+     *                  unknown.
+     */
+    public default void beforeInstruction(final SimpleStackMachine machine,
+                                          final int address,
+                                          final Operation operation) {
+
+    }
+
+    /**
+     * Called after an instruction wrote to the tape. A {@code CAS} is 
+     * reported even if it finds another value than the expected one. The 
+     * writes of the {@code HOST} intrinsics are not reported.
+     *
+     * @param machine the machine.
+     * @param address the first address written.
+     * @param length  the number of bytes written.
+     */
+    public default void onMemoryWrite(final SimpleStackMachine machine,
+                                      final int address,
+                                      final int length) {
+
+    }
+
+    /**
+     * Called after a {@code CALL}.
+     *
+     * @param machine     the machine.
+     * @param callAddress the address of the {@code CALL}.
+     * @param target      the entry address of the callee.
+     */
+    public default void onCall(final SimpleStackMachine machine,
+                               final int callAddress,
+                               final int target) {
+
+    }
+
+    /**
+     * Called after a {@code RET}.
+     *
+     * @param machine       the machine.
+     * @param returnAddress the address of the {@code RET}.
+     * @param target        the address returned to.
+     */
+    public default void onReturn(final SimpleStackMachine machine,
+                                 final int returnAddress,
+                                 final int target) {
+
+    }
+
+    /**
+     * Called when the instruction at {@code address} fails. The exception is
+     * rethrown after the callback returns.
+     *
+     * @param machine   the machine.
+     * @param address   the address of the failing instruction.
+     * @param exception the failure.
+     */
+    public default void onTrap(final SimpleStackMachine machine,
+                               final int address,
+                               final StackMachineException exception) {
+
+    }
+}
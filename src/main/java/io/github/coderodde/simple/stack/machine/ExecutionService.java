@@ -0,0 +1,851 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a local service running programs on behalf of its
+ * clients. It listens on a loopback TCP port or a Unix domain socket; a
+ * single selector thread reads the requests and writes the responses, and a
+ * bounded pool of workers runs the jobs.
+ * <p>
+ * The requests and the responses are frames of little-endian words: the
+ * length of the rest of the frame, the frame type and the payload. The
+ * strings are UTF-8 encoded and fill the rest of the frame.
+ * <pre>
+ *   {@link #STORE_PROGRAM}  program:byte[]
+ *   {@link #RUN}            programId:int budget:long
+ *   {@link #RUN_PROGRAM}    budget:long program:byte[]
+ *   {@link #INPUT}          jobId:int line:string
+ *
+ *   {@link #PROGRAM_STORED} programId:int
+ *   {@link #ACCEPTED}       jobId:int
+ *   {@link #REJECTED}       reason:string
+ *   {@link #OUTPUT}         jobId:int text:byte[]
+ *   {@link #RESULT}         jobId:int outcome:byte executed:long
+ *                           stackSize:int stack:int[stackSize] trap:string
+ *   {@link #ERROR}          message:string
+ * </pre>
+ * A stored program is cached for the lifetime of the service under its ID;
+ * storing the same bytes again returns the same ID. Each {@code RUN} is
+ * answered right away with {@code ACCEPTED} or {@code REJECTED}; the output
+ * of the job is then streamed as it is printed, and {@code RESULT} ends it.
+ * A job reading past the input sent so far is parked, without holding a
+ * worker, until {@code INPUT} arrives for it.
+ * <p>
+ * A job is admitted only while fewer than {@code workerCount + queueCapacity}
+ * jobs are unfinished, the parked ones included, and only if its budget fits
+ * in what is left of the instruction budget of its client. The budget is
+ * reserved for the job and the unused part is given back when it finishes.
+ * The jobs of a client that disconnects are abandoned.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class ExecutionService implements AutoCloseable {
+
+    public static final byte STORE_PROGRAM = 0x01;
+    public static final byte RUN           = 0x02;
+    public static final byte RUN_PROGRAM   = 0x03;
+    public static final byte INPUT         = 0x04;
+
+    public static final byte PROGRAM_STORED = (byte) 0x81;
+    public static final byte ACCEPTED       = (byte) 0x82;
+    public static final byte REJECTED       = (byte) 0x83;
+    public static final byte OUTPUT         = (byte) 0x84;
+    public static final byte RESULT         = (byte) 0x85;
+    public static final byte ERROR          = (byte) 0x86;
+
+    /**
+     * The outcomes reported by {@link #RESULT}.
+     */
+    public static final byte OUTCOME_HALTED        = 0;
+    public static final byte OUTCOME_OUT_OF_BUDGET = 1;
+    public static final byte OUTCOME_TRAPPED       = 2;
+
+    /**
+     * The largest frame length accepted or sent, the length word excluded.
+     */
+    public static final int MAXIMUM_FRAME_LENGTH = 1 << 16;
+
+    private final int workerCount;
+    private final int maximumPendingJobs;
+    private final long clientInstructionBudget;
+
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private final AtomicLong acceptedJobCount = new AtomicLong();
+    private final AtomicLong rejectedJobCount = new AtomicLong();
+    private final AtomicLong completedJobCount = new AtomicLong();
+
+    /**
+     * The stored programs by their IDs, and the IDs by the program bytes.
+     * Accessed only by the selector thread.
+     */
+    private final Map<Integer, byte[]> programs = new HashMap<>();
+    private final Map<ByteBuffer, Integer> programIds = new HashMap<>();
+
+    /**
+     * The connections having frames to write. Only the selector thread may
+     * change the interest set of their keys.
+     */
+    private final Queue<Connection> writableConnections =
+            new ConcurrentLinkedQueue<>();
+
+    private ExecutionEngine engine = DefaultExecutionEngine.INSTANCE;
+    private int nextJobId = 1;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private Thread selectorThread;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a service.
+     *
+     * @param workerCount             the number of worker threads.
+     * @param queueCapacity           the number of admitted jobs that may
+     *                                wait for a worker.
+     * @param clientInstructionBudget the number of instructions each client
+     *                                may have reserved at a time.
+     */
+    public ExecutionService(final int workerCount,
+                            final int queueCapacity,
+                            final long clientInstructionBudget) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException(
+                    String.format("workerCount(%d) < 1", workerCount));
+        }
+
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException(
+                    String.format("queueCapacity(%d) < 0", queueCapacity));
+        }
+
+        if (clientInstructionBudget < 0L) {
+            throw new IllegalArgumentException(
+                    String.format("clientInstructionBudget(%d) < 0",
+                                  clientInstructionBudget));
+        }
+
+        this.workerCount = workerCount;
+        this.maximumPendingJobs = workerCount + queueCapacity;
+        this.clientInstructionBudget = clientInstructionBudget;
+    }
+
+    /**
+     * Sets the engine the jobs run in. Must be called before the service is
+     * started.
+     *
+     * @param engine the execution engine.
+     */
+    public void setExecutionEngine(final ExecutionEngine engine) {
+        Objects.requireNonNull(engine, "The execution engine is null.");
+        requireNotStarted();
+        this.engine = engine;
+    }
+
+    /**
+     * Starts listening on an ephemeral loopback TCP port.
+     *
+     * @return the address of the service.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public SocketAddress start() throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                           0));
+    }
+
+    /**
+     * Starts listening on {@code address}, which is either a loopback
+     * {@link InetSocketAddress} or a {@link UnixDomainSocketAddress}.
+     *
+     * @param address the address to listen on.
+     * @return the address of the service.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public SocketAddress start(final SocketAddress address)
+            throws IOException {
+        Objects.requireNonNull(address, "The address is null.");
+        requireNotStarted();
+
+        if (address instanceof InetSocketAddress inetAddress) {
+            if (!inetAddress.getAddress().isLoopbackAddress()) {
+                throw new IllegalArgumentException(
+                        String.format("%s is not a loopback address",
+                                      address));
+            }
+
+            serverChannel = ServerSocketChannel.open();
+        } else if (address instanceof UnixDomainSocketAddress) {
+            serverChannel =
+                    ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Unsupported address %s", address));
+        }
+
+        selector = Selector.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        final AtomicInteger workerIds = new AtomicInteger();
+
+        workers = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread =
+                            new Thread(runnable,
+                                       "execution-worker-"
+                                       + workerIds.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        selectorThread = new Thread(this::select, "execution-service");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops accepting requests, disconnects the clients and stops the
+     * workers. The running jobs are abandoned.
+     */
+    @Override
+    public void close() {
+        if (closed || selector == null) {
+            closed = true;
+            return;
+        }
+
+        closed = true;
+        selector.wakeup();
+
+        try {
+            selectorThread.join();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        workers.shutdownNow();
+    }
+
+    public long getAcceptedJobCount() {
+        return acceptedJobCount.get();
+    }
+
+    public long getRejectedJobCount() {
+        return rejectedJobCount.get();
+    }
+
+    public long getCompletedJobCount() {
+        return completedJobCount.get();
+    }
+
+    /**
+     * Returns the number of admitted jobs not finished yet.
+     *
+     * @return the number of pending jobs.
+     */
+    public int getPendingJobCount() {
+        return pendingJobs.get();
+    }
+
+    private void requireNotStarted() {
+        if (selector != null || closed) {
+            throw new IllegalStateException(
+                    "The service has already been started.");
+        }
+    }
+
+    /**
+     * The loop of the selector thread.
+     */
+    private void select() {
+        try {
+            while (!closed) {
+                selector.select();
+
+                Connection connection;
+
+                while ((connection = writableConnections.poll()) != null) {
+                    if (connection.key.isValid()) {
+                        connection.key.interestOps(
+                                connection.key.interestOps()
+                                | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                for (final SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    connection = (Connection) key.attachment();
+
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (final IOException ex) {
+                        connection.close();
+                    }
+                }
+
+                selector.selectedKeys().clear();
+            }
+        } catch (final IOException ex) {
+            closed = true;
+        } finally {
+            for (final SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+
+        if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        final Connection connection = new Connection(channel);
+        connection.key = channel.register(selector,
+                                          SelectionKey.OP_READ,
+                                          connection);
+    }
+
+    private static void closeQuietly(final AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (final Exception ex) {
+            // Nothing to do about it while closing.
+        }
+    }
+
+    /**
+     * Allocates a frame with its length and type written.
+     */
+    private static ByteBuffer newFrame(final byte type,
+                                       final int payloadLength) {
+        return ByteBuffer.allocate(Integer.BYTES + 1 + payloadLength)
+                         .order(ByteOrder.LITTLE_ENDIAN)
+                         .putInt(1 + payloadLength)
+                         .put(type);
+    }
+
+    private static ByteBuffer newTextFrame(final byte type,
+                                           final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return newFrame(type, bytes.length).put(bytes);
+    }
+
+    /**
+     * This class implements a client connection. Its frames are read and
+     * written on the selector thread; the workers only queue frames.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final Queue<ByteBuffer> writeQueue =
+                new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong remainingBudget =
+                new AtomicLong(clientInstructionBudget);
+
+        private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+        private ByteBuffer readBuffer =
+                ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        private SelectionKey key;
+        private volatile boolean disconnected;
+
+        /**
+         * {@code true} once a malformed frame was read; the connection is
+         * closed after the error frame is written.
+         */
+        private boolean closeAfterWrite;
+
+        Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Queues a frame for writing. May be called from any thread.
+         */
+        void send(final ByteBuffer frame) {
+            if (disconnected) {
+                return;
+            }
+
+            writeQueue.add(frame.flip());
+            writableConnections.add(this);
+            selector.wakeup();
+        }
+
+        void read() throws IOException {
+            if (closeAfterWrite) {
+                readBuffer.clear();
+
+                if (channel.read(readBuffer) < 0) {
+                    close();
+                }
+
+                return;
+            }
+
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+
+            while (readBuffer.remaining() >= Integer.BYTES) {
+                final int start = readBuffer.position();
+                final int length = readBuffer.getInt(start);
+
+                if (length < 1 || length > MAXIMUM_FRAME_LENGTH) {
+                    fail(String.format("Invalid frame length %d", length));
+                    return;
+                }
+
+                if (readBuffer.remaining() < Integer.BYTES + length) {
+                    if (readBuffer.capacity() < Integer.BYTES + length) {
+                        readBuffer =
+                                ByteBuffer.allocate(Integer.BYTES + length)
+                                          .order(ByteOrder.LITTLE_ENDIAN)
+                                          .put(readBuffer);
+                        return;
+                    }
+
+                    break;
+                }
+
+                final ByteBuffer frame =
+                        readBuffer.slice(start + Integer.BYTES + 1,
+                                         length - 1)
+                                  .order(ByteOrder.LITTLE_ENDIAN);
+
+                readBuffer.position(start + Integer.BYTES + length);
+                handleFrame(readBuffer.get(start + Integer.BYTES), frame);
+
+                if (closeAfterWrite) {
+                    return;
+                }
+            }
+
+            readBuffer.compact();
+        }
+
+        void write() throws IOException {
+            ByteBuffer frame;
+
+            while ((frame = writeQueue.peek()) != null) {
+                channel.write(frame);
+
+                if (frame.hasRemaining()) {
+                    return;
+                }
+
+                writeQueue.poll();
+            }
+
+            if (closeAfterWrite) {
+                close();
+                return;
+            }
+
+            // A frame queued meanwhile sets the interest again.
+            key.interestOps(SelectionKey.OP_READ);
+
+            if (!writeQueue.isEmpty()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void close() {
+            disconnected = true;
+            key.cancel();
+            closeQuietly(channel);
+
+            for (final Job job : jobs.values()) {
+                job.cancel();
+            }
+        }
+
+        private void fail(final String message) {
+            send(newTextFrame(ERROR, message));
+            closeAfterWrite = true;
+        }
+
+        private void handleFrame(final byte type, final ByteBuffer payload) {
+            switch (type) {
+                case STORE_PROGRAM:
+                    storeProgram(payload);
+                    break;
+
+                case RUN:
+                    if (payload.remaining() != Integer.BYTES + Long.BYTES) {
+                        fail("Malformed RUN frame");
+                        return;
+                    }
+
+                    final int programId = payload.getInt();
+                    final long budget = payload.getLong();
+                    final byte[] program = programs.get(programId);
+
+                    if (program == null) {
+                        reject(String.format("Unknown program %d",
+                                             programId));
+                    } else {
+                        admit(program, budget);
+                    }
+
+                    break;
+
+                case RUN_PROGRAM:
+                    if (payload.remaining() < Long.BYTES) {
+                        fail("Malformed RUN_PROGRAM frame");
+                        return;
+                    }
+
+                    final long inlineBudget = payload.getLong();
+                    admit(remainingBytes(payload), inlineBudget);
+                    break;
+
+                case INPUT:
+                    if (payload.remaining() < Integer.BYTES) {
+                        fail("Malformed INPUT frame");
+                        return;
+                    }
+
+                    final Job job = jobs.get(payload.getInt());
+
+                    // The input for a finished job is dropped.
+                    if (job != null) {
+                        job.offer(new String(remainingBytes(payload),
+                                             StandardCharsets.UTF_8));
+                    }
+
+                    break;
+
+                default:
+                    fail(String.format("Unknown frame type 0x%02x",
+                                       Byte.toUnsignedInt(type)));
+            }
+        }
+
+        private void storeProgram(final ByteBuffer payload) {
+            final byte[] program = remainingBytes(payload);
+
+            if (program.length > SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+                fail(String.format("The program of %d bytes does not fit on "
+                                   + "the tape",
+                                   program.length));
+                return;
+            }
+
+            final ByteBuffer key = ByteBuffer.wrap(program);
+            Integer id = programIds.get(key);
+
+            if (id == null) {
+                id = programs.size() + 1;
+                programs.put(id, program);
+                programIds.put(key, id);
+            }
+
+            send(newFrame(PROGRAM_STORED, Integer.BYTES).putInt(id));
+        }
+
+        private void admit(final byte[] program, final long budget) {
+            if (budget < 0L) {
+                reject(String.format("Negative budget %d", budget));
+                return;
+            }
+
+            if (pendingJobs.get() >= maximumPendingJobs) {
+                reject("The job queue is full");
+                return;
+            }
+
+            if (remainingBudget.addAndGet(-budget) < 0L) {
+                remainingBudget.addAndGet(budget);
+                reject(String.format("The budget of %d instructions exceeds "
+                                     + "the %d left to the client",
+                                     budget,
+                                     remainingBudget.get()));
+                return;
+            }
+
+            pendingJobs.incrementAndGet();
+            acceptedJobCount.incrementAndGet();
+
+            final Job job = new Job(nextJobId++, this, program, budget);
+            jobs.put(job.id, job);
+            send(newFrame(ACCEPTED, Integer.BYTES).putInt(job.id));
+            workers.execute(job);
+        }
+
+        private void reject(final String reason) {
+            rejectedJobCount.incrementAndGet();
+            send(newTextFrame(REJECTED, reason));
+        }
+    }
+
+    private static byte[] remainingBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * This class implements a job. It runs on a worker until the program
+     * halts, traps or exhausts its budget, or until it needs input not sent
+     * yet; a parked job is resubmitted by the first input sent to it.
+     */
+    private final class Job implements Runnable {
+
+        private static final int RUNNING = 0;
+        private static final int PARKED  = 1;
+        private static final int DONE    = 2;
+
+        private final int id;
+        private final Connection connection;
+        private final byte[] program;
+        private final long budget;
+        private final SimpleStackMachine machine;
+        private final PrintStream out;
+
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private final Queue<String> input = new ConcurrentLinkedQueue<>();
+        private boolean started;
+
+        Job(final int id,
+            final Connection connection,
+            final byte[] program,
+            final long budget) {
+            this.id = id;
+            this.connection = connection;
+            this.program = program;
+            this.budget = budget;
+            this.out = new PrintStream(new OutputFrames(this), true);
+            this.machine = new SimpleStackMachine(
+                    new ByteArrayInputStream(new byte[0]),
+                    out);
+
+            machine.setSuspendingInput(true);
+            machine.setInstructionBudget(budget);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    String line;
+
+                    while ((line = input.poll()) != null) {
+                        machine.offerInput(line);
+                    }
+
+                    if (started) {
+                        machine.resume(engine);
+                    } else {
+                        started = true;
+                        machine.execute(program, engine);
+                    }
+
+                    if (machine.getStatus() != MachineStatus.NEEDS_INPUT) {
+                        finish(null);
+                        return;
+                    }
+
+                    out.flush();
+                    state.set(PARKED);
+
+                    if (connection.disconnected) {
+                        cancel();
+                        return;
+                    }
+
+                    // Resume right away if the input arrived meanwhile.
+                    if (input.isEmpty()
+                            || !state.compareAndSet(PARKED, RUNNING)) {
+                        return;
+                    }
+                }
+            } catch (final RuntimeException ex) {
+                finish(ex);
+            }
+        }
+
+        void offer(final String line) {
+            input.add(line);
+
+            if (state.compareAndSet(PARKED, RUNNING)) {
+                workers.execute(this);
+            }
+        }
+
+        void cancel() {
+            if (state.compareAndSet(PARKED, DONE)) {
+                release();
+            }
+        }
+
+        private void finish(final RuntimeException trap) {
+            state.set(DONE);
+            out.flush();
+
+            final byte outcome = trap != null ? OUTCOME_TRAPPED
+                               : machine.isHalted() ? OUTCOME_HALTED
+                               : OUTCOME_OUT_OF_BUDGET;
+
+            final int[] stack = machine.getWordSize() == WordSize.INT
+                              ? machine.getOperandStack()
+                              : new int[0];
+
+            final byte[] message =
+                    (trap == null ? "" : String.valueOf(trap.getMessage()))
+                            .getBytes(StandardCharsets.UTF_8);
+
+            final ByteBuffer frame =
+                    newFrame(RESULT,
+                             Integer.BYTES
+                             + 1
+                             + Long.BYTES
+                             + Integer.BYTES * (1 + stack.length)
+                             + message.length);
+
+            frame.putInt(id)
+                 .put(outcome)
+                 .putLong(machine.getExecutedInstructionCount())
+                 .putInt(stack.length);
+
+            for (final int word : stack) {
+                frame.putInt(word);
+            }
+
+            frame.put(message);
+
+            // Account for the job before the client may see its result.
+            completedJobCount.incrementAndGet();
+            release();
+            connection.send(frame);
+        }
+
+        private void release() {
+            // A job out of budget or cancelled leaves its VM threads parked.
+            machine.stopThreads();
+            connection.jobs.remove(id);
+            connection.remainingBudget.addAndGet(
+                    budget - Math.min(budget,
+                                      machine.getExecutedInstructionCount()));
+            pendingJobs.decrementAndGet();
+        }
+    }
+
+    /**
+     * This class implements the output stream of a job, sending what is
+     * written to it as {@link #OUTPUT} frames on every flush.
+     */
+    private static final class OutputFrames extends OutputStream {
+
+        private static final int MAXIMUM_CHUNK_LENGTH =
+                MAXIMUM_FRAME_LENGTH - 1 - Integer.BYTES;
+
+        private final Job job;
+        private final ByteArrayOutputStream buffer =
+                new ByteArrayOutputStream();
+
+        OutputFrames(final Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void write(final int b) {
+            buffer.write(b);
+
+            if (buffer.size() == MAXIMUM_CHUNK_LENGTH) {
+                flush();
+            }
+        }
+
+        @Override
+        public void write(final byte[] bytes,
+                          final int offset,
+                          final int length) {
+            for (int i = 0; i < length; ++i) {
+                write(bytes[offset + i]);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (buffer.size() == 0) {
+                return;
+            }
+
+            final byte[] text = buffer.toByteArray();
+            buffer.reset();
+            job.connection.send(newFrame(OUTPUT, Integer.BYTES + text.length)
+                                        .putInt(job.id)
+                                        .put(text));
+        }
+    }
+}
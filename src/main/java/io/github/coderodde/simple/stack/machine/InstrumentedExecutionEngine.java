@@ -0,0 +1,141 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This class implements the execution engine the machine switches to while
+ * an {@link ExecutionListener} is attached. It runs the reference
+ * implementation one instruction at a time and reports each instruction, the
+ * tape writes, the calls, the returns and the traps to the listener.
+ * <p>
+ * A pause requested before the first instruction of a run is ignored, so
+ * that resuming from a breakpoint runs past it. The engine returns as soon
+ * as the listener is detached, so that the machine may continue with the
+ * engine it was asked to run with. That is also why the engine is internal
+ * to the machine: run without a listener, it would execute nothing.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class InstrumentedExecutionEngine implements ExecutionEngine {
+
+    static final InstrumentedExecutionEngine INSTANCE =
+            new InstrumentedExecutionEngine();
+
+    private InstrumentedExecutionEngine() {
+
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        final byte[] tape = machine.getTape();
+        boolean first = true;
+
+        while (machine.canRun()) {
+            final ExecutionListener listener = machine.getExecutionListener();
+
+            if (listener == null) {
+                return;
+            }
+
+            final int address = machine.getInstructionPointer();
+
+            if (address < 0 || address >= tape.length) {
+                final StackMachineException ex =
+                        new StackMachineException(
+                                String.format("Instruction pointer %d is "
+                                              + "outside of the tape.",
+                                              address));
+                listener.onTrap(machine, address, ex);
+                throw ex;
+            }
+
+            final byte opcode = tape[address];
+            listener.beforeInstruction(machine,
+                                       address,
+                                       Operation.getOperation(opcode));
+
+            if (machine.isPauseRequested()) {
+                if (!first) {
+                    return;
+                }
+
+                machine.clearPauseRequest();
+            }
+
+            first = false;
+
+            // Decode the operands the callbacks need before the instruction
+            // pops them.
+            final int[] stack = machine.getStackArray();
+            final int sp = machine.getStackSize();
+            final int top = sp >= 1 ? stack[sp - 1] : 0;
+            final int second = sp >= 2 ? stack[sp - 2] : 0;
+            final int third = sp >= 3 ? stack[sp - 3] : 0;
+
+            try {
+                machine.step();
+            } catch (final StackMachineException ex) {
+                listener.onTrap(machine, address, ex);
+                throw ex;
+            } catch (final ArrayIndexOutOfBoundsException ex) {
+                final StackMachineException trap =
+                        new StackMachineException(
+                                String.format("Tape access out of bounds near "
+                                              + "address %d: %s",
+                                              address,
+                                              ex.getMessage()));
+                listener.onTrap(machine, address, trap);
+                throw trap;
+            }
+
+            if (machine.isWaiting()) {
+                return;
+            }
+
+            machine.chargeInstructions(1L);
+
+            switch (opcode) {
+                case Opcodes.STORE:
+                    listener.onMemoryWrite(machine, top, Integer.BYTES);
+                    break;
+
+                case Opcodes.READ_STRING: {
+                    final int length = machine.top();
+
+                    if (length >= 0) {
+                        listener.onMemoryWrite(machine, second, length);
+                    }
+
+                    break;
+                }
+
+                case Opcodes.BCOPY:
+                case Opcodes.BFILL:
+                    listener.onMemoryWrite(machine, third, top);
+                    break;
+
+                case Opcodes.CAS:
+                    listener.onMemoryWrite(machine, third, Integer.BYTES);
+                    break;
+
+                case Opcodes.FADD:
+                    listener.onMemoryWrite(machine, second, Integer.BYTES);
+                    break;
+
+                case Opcodes.CALL:
+                    listener.onCall(machine, address, top);
+                    break;
+
+                case Opcodes.RET:
+                    listener.onReturn(machine, address, top);
+                    break;
+
+                default:
+                    break;
+            }
+
+            if (machine.isPauseRequested()) {
+                return;
+            }
+        }
+    }
+}
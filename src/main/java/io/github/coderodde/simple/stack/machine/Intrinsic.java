@@ -0,0 +1,64 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This class describes a registered intrinsic: its numeric ID, its name, its
+ * declared stack effect and its Java implementation.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class Intrinsic {
+
+    private final int id;
+    private final String name;
+    private final int argumentCount;
+    private final int resultCount;
+    private final IntrinsicFunction function;
+
+    Intrinsic(final int id,
+              final String name,
+              final int argumentCount,
+              final int resultCount,
+              final IntrinsicFunction function) {
+        this.id = id;
+        this.name = name;
+        this.argumentCount = argumentCount;
+        this.resultCount = resultCount;
+        this.function = function;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of operand stack entries the intrinsic pops.
+     */
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * Returns the number of operand stack entries the intrinsic pushes.
+     */
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public IntrinsicFunction getFunction() {
+        return function;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d:%s(%d -> %d)",
+                             id,
+                             name,
+                             argumentCount,
+                             resultCount);
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This class gives an intrinsic access to its arguments, its results and the
+ * tape of the calling machine. The arguments are numbered in the order they
+ * were pushed, so that argument 0 is the deepest one; likewise result 0 ends
+ * up deepest on the stack. The results start out as zeros.
+ * <p>
+ * A machine owns a single frame and rebinds it on every {@code HOST}
+ * instruction.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class IntrinsicFrame {
+
+    private final SimpleStackMachine machine;
+    private int[] arguments = new int[4];
+    private int argumentCount;
+    private int resultBase;
+    private int resultCount;
+
+    /**
+     * Set once the bound intrinsic has obtained the tape itself, which it may
+     * write to behind the back of the machine.
+     */
+    private boolean tapeExposed;
+
+    IntrinsicFrame(final SimpleStackMachine machine) {
+        this.machine = machine;
+    }
+
+    /**
+     * Copies the arguments off the stack of the machine and clears the slots
+     * of the results. The stack must already have room for the results.
+     */
+    void bind(final int base,
+              final int argumentCount,
+              final int resultCount) {
+        final int[] stack = machine.getStackArray();
+
+        if (arguments.length < argumentCount) {
+            arguments = new int[argumentCount];
+        }
+
+        System.arraycopy(stack, base, arguments, 0, argumentCount);
+
+        for (int i = 0; i < resultCount; ++i) {
+            stack[base + i] = 0;
+        }
+
+        this.argumentCount = argumentCount;
+        this.resultBase = base;
+        this.resultCount = resultCount;
+        this.tapeExposed = false;
+    }
+
+    SimpleStackMachine getMachine() {
+        return machine;
+    }
+
+    boolean isTapeExposed() {
+        return tapeExposed;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    public int getArgument(final int index) {
+        if (index < 0 || index >= argumentCount) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Argument index %d is not within [0, %d)",
+                                  index,
+                                  argumentCount));
+        }
+
+        return arguments[index];
+    }
+
+    public void setResult(final int index, final int value) {
+        if (index < 0 || index >= resultCount) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Result index %d is not within [0, %d)",
+                                  index,
+                                  resultCount));
+        }
+
+        machine.getStackArray()[resultBase + index] = value;
+    }
+
+    /**
+     * Returns the tape of the machine itself, not a copy. Check the ranges
+     * via {@link #checkRange(int, int)} before touching it. Once the tape is
+     * obtained, the machine assumes all of it may have been written to.
+     *
+     * @return the tape.
+     */
+    public byte[] getTape() {
+        tapeExposed = true;
+        return machine.getTape();
+    }
+
+    /**
+     * Checks that {@code [address, address + length)} lies within the tape.
+     *
+     * @param address the start address.
+     * @param length  the length of the range in bytes.
+     * @return {@code address}.
+     * @throws StackMachineException if the range is invalid.
+     */
+    public int checkRange(final int address, final int length) {
+        machine.checkTapeRange(address, length);
+        return address;
+    }
+
+    public int readWord(final int address) {
+        checkRange(address, Integer.BYTES);
+        return SimpleStackMachine.wordAt(machine.getTape(), address);
+    }
+
+    public void writeWord(final int address, final int word) {
+        checkRange(address, Integer.BYTES);
+        machine.writeWordToTape(address, word);
+    }
+}
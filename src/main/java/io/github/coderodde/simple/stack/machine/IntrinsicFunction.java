@@ -0,0 +1,20 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This interface specifies the Java implementation of an intrinsic invoked by
+ * the {@code HOST} instruction.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+@FunctionalInterface
+public interface IntrinsicFunction {
+
+    /**
+     * Runs the intrinsic. The arguments and the results are accessed through
+     * {@code frame}, which is valid only for the duration of this call.
+     *
+     * @param frame the frame of the current invocation.
+     */
+    public void invoke(final IntrinsicFrame frame);
+}
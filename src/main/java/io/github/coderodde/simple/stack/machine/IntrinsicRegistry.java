@@ -0,0 +1,187 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class maps the numeric IDs of the {@code HOST} instruction to the Java
+ * implementations of the intrinsics. When a program is loaded, the registry
+ * is resolved into a dense array indexed by the ID and every {@code HOST}
+ * instruction of the program is checked against it, so that a call costs a
+ * single array access and an unknown ID fails before the program starts.
+ * <p>
+ * The {@link #standard()} registry provides {@code memcpy}, {@code memset},
+ * {@code memcmp} and {@code hash}:
+ * <pre>
+ *   memcpy(dst, src, length)  -&gt;           overlapping ranges are fine
+ *   memset(dst, value, length) -&gt;
+ *   memcmp(a, b, length)      -&gt; sign       compares unsigned bytes
+ *   hash(address, length)     -&gt; hash       32-bit FNV-1a
+ * </pre>
+ * The arguments are pushed left to right, so {@code length} is on top.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class IntrinsicRegistry {
+
+    public static final int MEMCPY = 0;
+    public static final int MEMSET = 1;
+    public static final int MEMCMP = 2;
+    public static final int HASH   = 3;
+
+    /**
+     * The largest ID allowed. Keeps the resolved table small.
+     */
+    public static final int MAXIMUM_ID = 4095;
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private Intrinsic[] intrinsics = new Intrinsic[0];
+
+    /**
+     * Returns a new registry holding the standard intrinsics.
+     *
+     * @return the standard registry.
+     */
+    public static IntrinsicRegistry standard() {
+        return new IntrinsicRegistry()
+                .register(MEMCPY, "memcpy", 3, 0, IntrinsicRegistry::memcpy)
+                .register(MEMSET, "memset", 3, 0, IntrinsicRegistry::memset)
+                .register(MEMCMP, "memcmp", 3, 1, IntrinsicRegistry::memcmp)
+                .register(HASH,   "hash",   2, 1, IntrinsicRegistry::hash);
+    }
+
+    /**
+     * Registers an intrinsic.
+     *
+     * @param id            the ID the {@code HOST} instruction refers to.
+     * @param name          the name of the intrinsic.
+     * @param argumentCount the number of entries the intrinsic pops.
+     * @param resultCount   the number of entries the intrinsic pushes.
+     * @param function      the implementation.
+     * @return this registry.
+     */
+    public IntrinsicRegistry register(final int id,
+                                      final String name,
+                                      final int argumentCount,
+                                      final int resultCount,
+                                      final IntrinsicFunction function) {
+        Objects.requireNonNull(name, "The intrinsic name is null.");
+        Objects.requireNonNull(function, "The intrinsic function is null.");
+
+        if (id < 0 || id > MAXIMUM_ID) {
+            throw new IllegalArgumentException(
+                    String.format("id(%d) is not within [0, %d]",
+                                  id,
+                                  MAXIMUM_ID));
+        }
+
+        if (argumentCount < 0 || resultCount < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Negative stack effect: %d -> %d",
+                                  argumentCount,
+                                  resultCount));
+        }
+
+        if (getIntrinsic(id) != null) {
+            throw new IllegalArgumentException(
+                    String.format("Intrinsic %d is already registered as %s",
+                                  id,
+                                  intrinsics[id].getName()));
+        }
+
+        if (intrinsics.length <= id) {
+            intrinsics = Arrays.copyOf(intrinsics, id + 1);
+        }
+
+        intrinsics[id] = new Intrinsic(id,
+                                       name,
+                                       argumentCount,
+                                       resultCount,
+                                       function);
+        return this;
+    }
+
+    /**
+     * Returns the intrinsic registered under {@code id}.
+     *
+     * @param id the ID.
+     * @return the intrinsic or {@code null}.
+     */
+    public Intrinsic getIntrinsic(final int id) {
+        return id >= 0 && id < intrinsics.length ? intrinsics[id] : null;
+    }
+
+    /**
+     * Resolves the registry for {@code program}: checks that each
+     * {@code HOST} instruction reachable from address 0 names a registered
+     * intrinsic and returns the table indexed by the ID.
+     *
+     * @param program the program being loaded.
+     * @return the dispatch table.
+     */
+    Intrinsic[] resolve(final byte[] program) {
+        if (program.length > 0) {
+            final ControlFlowGraph cfg = ControlFlowGraph.build(program, 0);
+
+            for (int address = 0; address < program.length; ++address) {
+                if (program[address] == Opcodes.HOST
+                        && cfg.isInstructionStart(address)) {
+                    final int id = SimpleStackMachine.wordAt(program,
+                                                             address + 1);
+
+                    if (getIntrinsic(id) == null) {
+                        throw new StackMachineException(
+                                String.format("Unknown intrinsic %d at "
+                                              + "address %d",
+                                              id,
+                                              address));
+                    }
+                }
+            }
+        }
+
+        return intrinsics.clone();
+    }
+
+    private static void memcpy(final IntrinsicFrame frame) {
+        frame.getMachine().copyOnTape(frame.getArgument(0),
+                                      frame.getArgument(1),
+                                      frame.getArgument(2));
+    }
+
+    private static void memset(final IntrinsicFrame frame) {
+        frame.getMachine().fillTape(frame.getArgument(0),
+                                    (byte) frame.getArgument(1),
+                                    frame.getArgument(2));
+    }
+
+    private static void memcmp(final IntrinsicFrame frame) {
+        final SimpleStackMachine machine = frame.getMachine();
+        final int a = frame.getArgument(0);
+        final int b = frame.getArgument(1);
+        final int offset = machine.mismatchOnTape(a, b, frame.getArgument(2));
+
+        if (offset >= 0) {
+            final byte[] tape = machine.getTape();
+
+            frame.setResult(0, Integer.signum(
+                    Byte.compareUnsigned(tape[a + offset], tape[b + offset])));
+        }
+    }
+
+    private static void hash(final IntrinsicFrame frame) {
+        final int length = frame.getArgument(1);
+        final int address = frame.checkRange(frame.getArgument(0), length);
+        final byte[] tape = frame.getMachine().getTape();
+        int hash = FNV_OFFSET_BASIS;
+
+        for (int i = address; i < address + length; ++i) {
+            hash = (hash ^ Byte.toUnsignedInt(tape[i])) * FNV_PRIME;
+        }
+
+        frame.setResult(0, hash);
+    }
+}
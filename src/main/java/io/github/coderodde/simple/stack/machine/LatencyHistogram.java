@@ -0,0 +1,66 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a concurrent latency histogram with power-of-two
+ * microsecond buckets: bucket 0 counts the latencies below 1 microsecond and
+ * bucket {@code i > 0} those in {@code [2^(i - 1), 2^i)} microseconds. The
+ * last bucket takes everything longer.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class LatencyHistogram {
+
+    static final int BUCKET_COUNT = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder totalNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(final long nanos) {
+        final long micros = Math.max(0L, nanos) / 1_000L;
+        final int bucket = micros == 0L
+                ? 0
+                : Math.min(BUCKET_COUNT - 1,
+                           Long.SIZE - Long.numberOfLeadingZeros(micros));
+
+        buckets[bucket].increment();
+        totalNanos.add(nanos);
+    }
+
+    long[] snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return counts;
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the exclusive upper bounds of the buckets in microseconds; the
+     * last one is {@link Long#MAX_VALUE}.
+     */
+    static long[] upperBoundsMicros() {
+        final long[] bounds = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT - 1; ++i) {
+            bounds[i] = 1L << i;
+        }
+
+        bounds[BUCKET_COUNT - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements a program linked by {@link Linker}: the image
+ * holding the relocated program module at address 0 and the shared libraries
+ * at their base addresses.
+ * <p>
+ * The image may be run with any engine through
+ * {@link SimpleStackMachine#execute(byte[], ExecutionEngine)}.
+ * {@link #execute(SimpleStackMachine)} runs it with the basic block engine
+ * instead, reusing the blocks the libraries decoded when they were loaded, so
+ * that only the program module is decoded per run.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class LinkedProgram {
+
+    /**
+     * This class implements the engine running a linked program over a
+     * control-flow graph built once per machine.
+     */
+    private static final class PreparedEngine implements ExecutionEngine {
+
+        private final Collection<SharedLibrary> libraries;
+        private ControlFlowGraph cfg;
+
+        PreparedEngine(final Collection<SharedLibrary> libraries) {
+            this.libraries = libraries;
+        }
+
+        @Override
+        public void run(final SimpleStackMachine machine) {
+            if (cfg == null) {
+                cfg = ControlFlowGraph.build(machine.getTape(),
+                                             machine.getInstructionPointer(),
+                                             libraries);
+            }
+
+            BasicBlockExecutionEngine.INSTANCE.run(machine, cfg);
+        }
+    }
+
+    private final byte[] image;
+    private final List<SharedLibrary> libraries;
+    private final Map<String, Integer> symbols;
+
+    LinkedProgram(final byte[] image,
+                  final List<SharedLibrary> libraries,
+                  final Map<String, Integer> symbols) {
+        this.image = image;
+        this.libraries = libraries;
+        this.symbols = Collections.unmodifiableMap(symbols);
+    }
+
+    /**
+     * Returns a copy of the linked image.
+     *
+     * @return the program image.
+     */
+    public byte[] getImage() {
+        return image.clone();
+    }
+
+    /**
+     * Returns the libraries linked with the program.
+     *
+     * @return the unmodifiable list of libraries.
+     */
+    public List<SharedLibrary> getLibraries() {
+        return libraries;
+    }
+
+    /**
+     * Returns the address of {@code symbol} in the image.
+     *
+     * @param symbol the symbol exported by the program module or one of the
+     *               libraries.
+     * @return the address of the symbol.
+     */
+    public int getSymbolAddress(final String symbol) {
+        final Integer address =
+                symbols.get(Objects.requireNonNull(symbol,
+                                                   "The symbol is null."));
+
+        if (address == null) {
+            throw new IllegalArgumentException(
+                    String.format("Undefined symbol %s", symbol));
+        }
+
+        return address;
+    }
+
+    /**
+     * Loads the image to the tape of {@code machine} and runs it. The machine
+     * may be resumed with {@link SimpleStackMachine#resume(ExecutionEngine)}
+     * if it runs out of its instruction budget.
+     *
+     * @param machine the machine to run the program on.
+     */
+    public void execute(final SimpleStackMachine machine) {
+        Objects.requireNonNull(machine, "The machine is null.");
+        machine.execute(image, new PreparedEngine(libraries));
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements the linker of program modules. A program module is
+ * placed at address 0, so that the machine starts running it at its first
+ * byte, and its relocations are resolved against its own exports and those
+ * of the shared libraries added to the linker. The libraries keep their own
+ * base addresses; the linker only checks that no two modules overlap and
+ * that no symbol is exported twice.
+ * <p>
+ * Only the program module is relocated, verified and decoded per link; the
+ * libraries were processed once when loaded. The linker may be reused for
+ * any number of programs.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class Linker {
+
+    /**
+     * The libraries added, their dependencies included, by their names.
+     */
+    private final Map<String, SharedLibrary> libraries = new LinkedHashMap<>();
+
+    /**
+     * The symbols exported by the libraries mapped to their addresses.
+     */
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    /**
+     * Adds a library and the libraries it depends on.
+     *
+     * @param library the library to link the programs with.
+     * @return this linker.
+     */
+    public Linker addLibrary(final SharedLibrary library) {
+        Objects.requireNonNull(library, "The library is null.");
+
+        for (final SharedLibrary member : library.getClosure()) {
+            final SharedLibrary present = libraries.get(member.getName());
+
+            if (present == member) {
+                continue;
+            }
+
+            if (present != null) {
+                throw new IllegalArgumentException(
+                        String.format("Another library %s is already added",
+                                      member.getName()));
+            }
+
+            for (final SharedLibrary other : libraries.values()) {
+                checkDisjoint(member.getName(),
+                              member.getBaseAddress(),
+                              member.getEndAddress(),
+                              other);
+            }
+
+            addSymbols(symbols, member);
+            libraries.put(member.getName(), member);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the libraries added, their dependencies included, each after
+     * its dependencies.
+     *
+     * @return the unmodifiable list of libraries.
+     */
+    public List<SharedLibrary> getLibraries() {
+        return Collections.unmodifiableList(
+                new ArrayList<>(libraries.values()));
+    }
+
+    /**
+     * Links {@code module} with the libraries of this linker.
+     *
+     * @param module the program module.
+     * @return the linked program.
+     */
+    public LinkedProgram link(final ProgramModule module) {
+        Objects.requireNonNull(module, "The module is null.");
+
+        final int endAddress = module.getCodeLength();
+        int imageLength = endAddress;
+
+        for (final SharedLibrary library : libraries.values()) {
+            checkDisjoint(module.getName(), 0, endAddress, library);
+            imageLength = Math.max(imageLength, library.getEndAddress());
+        }
+
+        if (imageLength >= SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+            throw new IllegalArgumentException(
+                    String.format("The linked image of %d bytes leaves no "
+                                  + "room on the tape",
+                                  imageLength));
+        }
+
+        final Map<String, Integer> addresses = new HashMap<>(symbols);
+        addresses.putAll(module.getExports());
+
+        final byte[] tapeImage =
+                new byte[SimpleStackMachine.TAPE_LENGTH_IN_BYTES];
+
+        for (final SharedLibrary library : libraries.values()) {
+            library.copyTo(tapeImage);
+        }
+
+        module.relocateInto(tapeImage, 0, addresses);
+
+        final List<SharedLibrary> libraryList = getLibraries();
+        final ControlFlowGraph cfg = ControlFlowGraph.build(tapeImage,
+                                                            0,
+                                                            libraryList);
+
+        verify(cfg, tapeImage, 0, endAddress, module.getName(),
+               symbols.values());
+
+        return new LinkedProgram(
+                Arrays.copyOf(tapeImage, imageLength),
+                libraryList,
+                addresses);
+    }
+
+    /**
+     * Verifies the code of a module within {@code [start, end)} reachable
+     * through the statically known edges of {@code cfg}: every instruction
+     * must be known and whole, and every jump must stay within the module or
+     * go to one of {@code entries}.
+     *
+     * @param cfg     the control-flow graph of the code.
+     * @param code    the relocated code.
+     * @param start   the base address of the module.
+     * @param end     the address right after the module.
+     * @param name    the module name.
+     * @param entries the addresses of the other modules that may be jumped
+     *                to.
+     */
+    static void verify(final ControlFlowGraph cfg,
+                       final byte[] code,
+                       final int start,
+                       final int end,
+                       final String name,
+                       final Collection<Integer> entries) {
+        final Set<Integer> entrySet = new HashSet<>(entries);
+
+        for (final ControlFlowGraph.BasicBlock block : cfg.getBlocks()) {
+            final int blockStart = block.getStartAddress();
+
+            if (blockStart < start || blockStart >= end) {
+                continue;
+            }
+
+            if (block.getInstructionCount() == 0
+                    || block.getEndAddress() > end) {
+                throw new IllegalArgumentException(
+                        String.format("Module %s runs past its end from "
+                                      + "address %d",
+                                      name,
+                                      blockStart));
+            }
+
+            for (int address = blockStart;
+                    address < block.getEndAddress();
+                    address += Opcodes.instructionLength(code[address])) {
+                if (Operation.getOperation(code[address]) == null) {
+                    throw new IllegalArgumentException(
+                            String.format("Module %s has the unknown opcode "
+                                          + "0x%02x at address %d",
+                                          name,
+                                          Byte.toUnsignedInt(code[address]),
+                                          address));
+                }
+            }
+
+            for (final int successor : block.getSuccessorAddresses()) {
+                if ((successor < start || successor >= end)
+                        && !entrySet.contains(successor)) {
+                    throw new IllegalArgumentException(
+                            String.format("Module %s jumps from address %d "
+                                          + "to %d outside of its code",
+                                          name,
+                                          block.getLastInstructionAddress(),
+                                          successor));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the module at {@code [start, end)} does not overlap
+     * {@code library}.
+     */
+    static void checkDisjoint(final String name,
+                              final int start,
+                              final int end,
+                              final SharedLibrary library) {
+        if (start < library.getEndAddress()
+                && library.getBaseAddress() < end) {
+            throw new IllegalArgumentException(
+                    String.format("Module %s at [%d, %d) overlaps library %s",
+                                  name,
+                                  start,
+                                  end,
+                                  library));
+        }
+    }
+
+    /**
+     * Adds the exports of {@code library} to {@code symbols}, rejecting the
+     * symbols exported twice.
+     */
+    static void addSymbols(final Map<String, Integer> symbols,
+                           final SharedLibrary library) {
+        for (final Map.Entry<String, Integer> export
+                : library.getExports().entrySet()) {
+            final Integer previous = symbols.putIfAbsent(export.getKey(),
+                                                         export.getValue());
+
+            if (previous != null && !previous.equals(export.getValue())) {
+                throw new IllegalArgumentException(
+                        String.format("The symbol %s is exported twice, the "
+                                      + "second time by library %s",
+                                      export.getKey(),
+                                      library.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,991 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class implements a data-parallel engine running one program over many
+ * independent inputs in lockstep. Each input is a lane: a machine of its own
+ * whose {@code READ_INT} instructions consume the words of the input in
+ * order. The lanes are run in groups, and every instruction is dispatched
+ * once for all the lanes of a group at that instruction.
+ * <p>
+ * The operand stacks of a group are laid out as a structure of arrays: the
+ * row {@code d} holds the entry at depth {@code d} of every lane, so that an
+ * {@code ADD} over a converged group is a loop over two rows the JIT
+ * compiler vectorizes. When a conditional jump diverges, the lanes at the
+ * lowest instruction pointer run first and the others wait masked off, so
+ * the lanes reconverge where the paths meet again. The lanes that finish are
+ * compacted out of the group, so that the rows keep covering only the
+ * running lanes.
+ * <p>
+ * The engine runs {@code NOP}, {@code PUSH}, {@code CONST}, {@code POP},
+ * {@code DUP}, {@code SWAP}, the arithmetic, {@code CMP}, the jumps,
+ * {@code CALL}, {@code RET}, {@code LOAD}, {@code STORE}, {@code READ_INT},
+ * {@code PRINT_INT} and {@code HALT} itself. A lane reaching any other
+ * instruction, one that would trap, a store to the program or the end of
+ * the program is handed over to a {@link SimpleStackMachine} in its exact
+ * state, which finishes it with the fallback engine. So the result of every
+ * lane is the one of running the program on a fresh machine with the words
+ * of its input on separate lines of the input stream.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class LockstepEngine {
+
+    /**
+     * The default number of lanes run together.
+     */
+    public static final int DEFAULT_GROUP_SIZE = 1024;
+
+    private static final int INITIAL_STACK_DEPTH = 16;
+
+    private static final byte RUNNING = 0;
+    private static final byte DONE = 1;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final byte[] program;
+    private final int groupSize;
+    private ExecutionEngine fallbackEngine = DefaultExecutionEngine.INSTANCE;
+
+    /**
+     * The number of instructions dispatched for a whole group.
+     */
+    private long dispatchCount;
+
+    /**
+     * The number of instructions dispatched for all the running lanes of a
+     * group at the same stack depth, which run over whole rows.
+     */
+    private long convergedDispatchCount;
+
+    /**
+     * The number of lanes handed over to a scalar machine.
+     */
+    private long handedOverLaneCount;
+
+    /**
+     * Constructs an engine running the program in groups of
+     * {@value #DEFAULT_GROUP_SIZE} lanes.
+     *
+     * @param program the program to run.
+     */
+    public LockstepEngine(final byte[] program) {
+        this(program, DEFAULT_GROUP_SIZE);
+    }
+
+    /**
+     * Constructs an engine.
+     *
+     * @param program   the program to run.
+     * @param groupSize the number of lanes run together.
+     */
+    public LockstepEngine(final byte[] program, final int groupSize) {
+        Objects.requireNonNull(program, "The program is null.");
+
+        if (program.length > SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+            throw new IllegalArgumentException(
+                    String.format("program.length(%d) > tape.length(%d)",
+                                  program.length,
+                                  SimpleStackMachine.TAPE_LENGTH_IN_BYTES));
+        }
+
+        if (WordSize.of(program) != WordSize.INT) {
+            throw new IllegalArgumentException(
+                    "The program does not use 32-bit words.");
+        }
+
+        if (groupSize < 1) {
+            throw new IllegalArgumentException(
+                    String.format("groupSize(%d) < 1", groupSize));
+        }
+
+        this.program = program.clone();
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * Sets the engine the lanes handed over to a scalar machine are finished
+     * with.
+     *
+     * @param fallbackEngine the fallback engine.
+     */
+    public void setFallbackEngine(final ExecutionEngine fallbackEngine) {
+        this.fallbackEngine =
+                Objects.requireNonNull(fallbackEngine,
+                                       "The execution engine is null.");
+    }
+
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    public long getConvergedDispatchCount() {
+        return convergedDispatchCount;
+    }
+
+    public long getHandedOverLaneCount() {
+        return handedOverLaneCount;
+    }
+
+    /**
+     * Runs the program once per input.
+     *
+     * @param inputs the input words of every lane.
+     * @return the result of every lane, in the order of the inputs.
+     */
+    public LaneResult[] run(final int[][] inputs) {
+        Objects.requireNonNull(inputs, "The inputs are null.");
+
+        final LaneResult[] results = new LaneResult[inputs.length];
+
+        for (int from = 0; from < inputs.length; from += groupSize) {
+            final int to = Math.min(inputs.length, from + groupSize);
+            new LaneGroup(inputs, from, to, results).run();
+        }
+
+        return results;
+    }
+
+    /**
+     * The outcome of running the program over one input.
+     */
+    public static final class LaneResult {
+
+        private final String output;
+        private final int[] operandStack;
+        private final boolean halted;
+        private final RuntimeException trap;
+
+        LaneResult(final String output,
+                   final int[] operandStack,
+                   final boolean halted,
+                   final RuntimeException trap) {
+            this.output = output;
+            this.operandStack = operandStack;
+            this.halted = halted;
+            this.trap = trap;
+        }
+
+        /**
+         * Returns the text the lane printed.
+         *
+         * @return the output of the lane.
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        /**
+         * Returns a copy of the final operand stack, the top of the stack
+         * being the last element.
+         *
+         * @return the operand stack.
+         */
+        public int[] getOperandStack() {
+            return operandStack.clone();
+        }
+
+        public boolean isHalted() {
+            return halted;
+        }
+
+        /**
+         * Returns the exception the lane trapped with.
+         *
+         * @return the trap, or {@code null} if the lane did not trap.
+         */
+        public RuntimeException getTrap() {
+            return trap;
+        }
+    }
+
+    /**
+     * The state of the lanes run together.
+     */
+    private final class LaneGroup {
+
+        private final int[][] inputs;
+        private final int offset;
+        private final int laneCount;
+        private final LaneResult[] results;
+
+        private final int[] instructionPointers;
+        private final int[] stackSizes;
+        private final int[] flagBits;
+        private final int[] inputIndices;
+        private final byte[] states;
+
+        /**
+         * The index of the lane in every slot of the group, relative to
+         * {@code offset}. The arrays are indexed by slot, and the running
+         * lanes are compacted into the first {@code runningCount} slots
+         * before every dispatch.
+         */
+        private final int[] laneIndices;
+
+        /**
+         * The tape of every lane, or {@code null} while the lane has not
+         * written to its tape and it equals the program.
+         */
+        private final byte[][] tapes;
+
+        private final StringBuilder[] outputs;
+
+        /**
+         * {@code stackRows[d][lane]} is the entry at depth {@code d} of the
+         * operand stack of the lane.
+         */
+        private int[][] stackRows;
+
+        /**
+         * The lanes at the instruction being run.
+         */
+        private final int[] activeLanes;
+        private int activeCount;
+
+        /**
+         * Whether all the active lanes have the same stack size. Only set
+         * when all the running lanes are active.
+         */
+        private boolean converged;
+
+        private int runningCount;
+
+        /**
+         * The number of slots holding a lane, running or finished since the
+         * last compaction.
+         */
+        private int slotCount;
+
+        LaneGroup(final int[][] inputs,
+                  final int from,
+                  final int to,
+                  final LaneResult[] results) {
+            this.inputs = inputs;
+            this.offset = from;
+            this.laneCount = to - from;
+            this.results = results;
+            this.instructionPointers = new int[laneCount];
+            this.stackSizes = new int[laneCount];
+            this.flagBits = new int[laneCount];
+            this.inputIndices = new int[laneCount];
+            this.states = new byte[laneCount];
+            this.laneIndices = new int[laneCount];
+            this.tapes = new byte[laneCount][];
+            this.outputs = new StringBuilder[laneCount];
+            this.stackRows = new int[INITIAL_STACK_DEPTH][laneCount];
+            this.activeLanes = new int[laneCount];
+            this.runningCount = laneCount;
+            this.slotCount = laneCount;
+
+            for (int lane = 0; lane < runningCount; ++lane) {
+                Objects.requireNonNull(inputs[from + lane],
+                                       "The input of a lane is null.");
+                outputs[lane] = new StringBuilder();
+                laneIndices[lane] = lane;
+            }
+        }
+
+        void run() {
+            while (runningCount > 0) {
+                final int address = selectActiveLanes();
+                final int length = address >= 0 && address < program.length
+                        ? Opcodes.instructionLength(program[address])
+                        : 1;
+
+                if (address < 0
+                        || address + length > program.length
+                        || address + length
+                                >= SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+                    handOverActiveLanes();
+                } else {
+                    ++dispatchCount;
+                    execute(address, program[address]);
+
+                    if (converged) {
+                        ++convergedDispatchCount;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Collects the running lanes at the lowest instruction pointer.
+         *
+         * @return the instruction pointer of the active lanes.
+         */
+        private int selectActiveLanes() {
+            if (runningCount < slotCount) {
+                compact();
+            }
+
+            int address = Integer.MAX_VALUE;
+
+            for (int lane = 0; lane < runningCount; ++lane) {
+                if (instructionPointers[lane] < address) {
+                    address = instructionPointers[lane];
+                }
+            }
+
+            activeCount = 0;
+
+            for (int lane = 0; lane < runningCount; ++lane) {
+                if (instructionPointers[lane] == address) {
+                    activeLanes[activeCount++] = lane;
+                }
+            }
+
+            converged = activeCount == runningCount;
+
+            for (int i = 1; converged && i < runningCount; ++i) {
+                converged = stackSizes[i] == stackSizes[0];
+            }
+
+            return address;
+        }
+
+        /**
+         * Moves the running lanes into the first {@code runningCount} slots,
+         * keeping their order.
+         */
+        private void compact() {
+            int kept = 0;
+
+            for (int lane = 0; lane < slotCount; ++lane) {
+                if (states[lane] == RUNNING) {
+                    if (lane != kept) {
+                        moveLane(lane, kept);
+                    }
+
+                    ++kept;
+                }
+            }
+
+            slotCount = kept;
+        }
+
+        private void moveLane(final int from, final int to) {
+            instructionPointers[to] = instructionPointers[from];
+            stackSizes[to] = stackSizes[from];
+            flagBits[to] = flagBits[from];
+            inputIndices[to] = inputIndices[from];
+            states[to] = RUNNING;
+            tapes[to] = tapes[from];
+            outputs[to] = outputs[from];
+            laneIndices[to] = laneIndices[from];
+
+            for (int d = 0; d < stackSizes[from]; ++d) {
+                stackRows[d][to] = stackRows[d][from];
+            }
+
+            states[from] = DONE;
+            tapes[from] = null;
+            outputs[from] = null;
+        }
+
+        private void execute(final int address, final byte opcode) {
+            switch (opcode) {
+                case Opcodes.NOP:
+                    advance(1);
+                    break;
+
+                case Opcodes.PUSH:
+                case Opcodes.CONST:
+                    push(SimpleStackMachine.wordAt(program, address + 1));
+                    advance(1 + Integer.BYTES);
+                    break;
+
+                case Opcodes.POP:
+                    requireStackSize(1);
+                    pop();
+                    break;
+
+                case Opcodes.DUP:
+                    requireStackSize(1);
+                    duplicate();
+                    break;
+
+                case Opcodes.SWAP:
+                    requireStackSize(2);
+                    swap();
+                    break;
+
+                case Opcodes.ADD:
+                case Opcodes.SUB:
+                case Opcodes.MUL:
+                    requireStackSize(2);
+                    arithmetic(opcode);
+                    break;
+
+                case Opcodes.DIV:
+                case Opcodes.MOD:
+                    requireStackSize(2);
+                    requireNonZeroSecond();
+                    arithmetic(opcode);
+                    break;
+
+                case Opcodes.CMP:
+                    requireStackSize(2);
+                    compare();
+                    break;
+
+                case Opcodes.JZ:
+                case Opcodes.JNZ:
+                case Opcodes.JBZ:
+                case Opcodes.JAZ:
+                case Opcodes.JL:
+                case Opcodes.JLE:
+                case Opcodes.JE:
+                case Opcodes.JNE:
+                case Opcodes.JA:
+                case Opcodes.JAE:
+                    conditionalJump(opcode,
+                                    address + 1 + Integer.BYTES,
+                                    SimpleStackMachine.wordAt(program,
+                                                              address + 1));
+                    break;
+
+                case Opcodes.JMP:
+                    requireStackSize(1);
+                    requireJumpTargetInReserve(address + 1);
+                    popInstructionPointers();
+                    break;
+
+                case Opcodes.CALL:
+                    requireStackSize(1);
+                    call(address + 1 + Integer.BYTES);
+                    break;
+
+                case Opcodes.RET:
+                    requireStackSize(1);
+                    popInstructionPointers();
+                    break;
+
+                case Opcodes.LOAD:
+                    requireStackSize(1);
+                    requireTopAddress(0);
+                    load();
+                    break;
+
+                case Opcodes.STORE:
+                    requireStackSize(2);
+                    requireTopAddress(program.length);
+                    store();
+                    break;
+
+                case Opcodes.READ_INT:
+                    requireInput();
+                    readInt();
+                    break;
+
+                case Opcodes.PRINT_INT:
+                    requireStackSize(1);
+                    printInt();
+                    break;
+
+                case Opcodes.HALT:
+                    halt();
+                    break;
+
+                default:
+                    handOverActiveLanes();
+                    break;
+            }
+        }
+
+        private void advance(final int length) {
+            for (int i = 0; i < activeCount; ++i) {
+                instructionPointers[activeLanes[i]] += length;
+            }
+        }
+
+        private void push(final int value) {
+            if (converged) {
+                final int depth = stackSizes[0];
+                ensureDepth(depth + 1);
+                Arrays.fill(stackRows[depth], 0, runningCount, value);
+                Arrays.fill(stackSizes, 0, runningCount, depth + 1);
+                return;
+            }
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                ensureDepth(depth + 1);
+                stackRows[depth][lane] = value;
+                stackSizes[lane] = depth + 1;
+            }
+        }
+
+        private void pop() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                --stackSizes[lane];
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void duplicate() {
+            if (converged) {
+                final int depth = stackSizes[0];
+                ensureDepth(depth + 1);
+                System.arraycopy(stackRows[depth - 1], 0,
+                                 stackRows[depth], 0,
+                                 runningCount);
+                Arrays.fill(stackSizes, 0, runningCount, depth + 1);
+                advance(1);
+                return;
+            }
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                ensureDepth(depth + 1);
+                stackRows[depth][lane] = stackRows[depth - 1][lane];
+                stackSizes[lane] = depth + 1;
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void swap() {
+            if (converged) {
+                final int depth = stackSizes[0];
+                final int[] top = stackRows[depth - 1];
+                stackRows[depth - 1] = stackRows[depth - 2];
+                stackRows[depth - 2] = top;
+                advance(1);
+                return;
+            }
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                final int top = stackRows[depth - 1][lane];
+                stackRows[depth - 1][lane] = stackRows[depth - 2][lane];
+                stackRows[depth - 2][lane] = top;
+                ++instructionPointers[lane];
+            }
+        }
+
+        /**
+         * Replaces the two top-most entries of the active lanes with
+         * {@code top op second}.
+         */
+        private void arithmetic(final byte opcode) {
+            if (converged) {
+                final int depth = stackSizes[0];
+                final int[] top = stackRows[depth - 1];
+                final int[] second = stackRows[depth - 2];
+
+                switch (opcode) {
+                    case Opcodes.ADD:
+                        for (int lane = 0; lane < runningCount; ++lane) {
+                            second[lane] = top[lane] + second[lane];
+                        }
+
+                        break;
+
+                    case Opcodes.SUB:
+                        for (int lane = 0; lane < runningCount; ++lane) {
+                            second[lane] = top[lane] - second[lane];
+                        }
+
+                        break;
+
+                    case Opcodes.MUL:
+                        for (int lane = 0; lane < runningCount; ++lane) {
+                            second[lane] = top[lane] * second[lane];
+                        }
+
+                        break;
+
+                    default:
+                        for (int lane = 0; lane < runningCount; ++lane) {
+                            second[lane] = Opcodes.arithmetic(opcode,
+                                                              top[lane],
+                                                              second[lane]);
+                        }
+                }
+
+                Arrays.fill(stackSizes, 0, runningCount, depth - 1);
+                advance(1);
+                return;
+            }
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                stackRows[depth - 2][lane] =
+                        Opcodes.arithmetic(opcode,
+                                           stackRows[depth - 1][lane],
+                                           stackRows[depth - 2][lane]);
+                stackSizes[lane] = depth - 1;
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void compare() {
+            if (converged) {
+                final int depth = stackSizes[0];
+                final int[] top = stackRows[depth - 1];
+                final int[] second = stackRows[depth - 2];
+
+                for (int lane = 0; lane < runningCount; ++lane) {
+                    flagBits[lane] = Opcodes.comparisonFlagBits(
+                            Integer.compare(top[lane], second[lane]));
+                }
+
+                Arrays.fill(stackSizes, 0, runningCount, depth - 2);
+                advance(1);
+                return;
+            }
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                flagBits[lane] = Opcodes.comparisonFlagBits(
+                        Integer.compare(stackRows[depth - 1][lane],
+                                        stackRows[depth - 2][lane]));
+                stackSizes[lane] = depth - 2;
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void conditionalJump(final byte opcode,
+                                     final int next,
+                                     final int target) {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                instructionPointers[lane] =
+                        Opcodes.isJumpTakenOnFlagBits(opcode, flagBits[lane])
+                                ? target
+                                : next;
+            }
+        }
+
+        /**
+         * Pops the new instruction pointer of every active lane.
+         */
+        private void popInstructionPointers() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = --stackSizes[lane];
+                instructionPointers[lane] = stackRows[depth][lane];
+            }
+        }
+
+        private void call(final int returnAddress) {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                instructionPointers[lane] = stackRows[depth - 1][lane];
+                stackRows[depth - 1][lane] = returnAddress;
+            }
+        }
+
+        private void load() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                final int address = stackRows[depth - 1][lane];
+                final byte[] tape = tapes[lane];
+
+                stackRows[depth - 1][lane] =
+                        tape != null
+                                ? SimpleStackMachine.wordAt(tape, address)
+                                : address + Integer.BYTES <= program.length
+                                        ? SimpleStackMachine.wordAt(program,
+                                                                    address)
+                                        : readBeyondProgram(address);
+                ++instructionPointers[lane];
+            }
+        }
+
+        /**
+         * Reads a word of an unwritten tape, which holds the program and
+         * zeros after it.
+         */
+        private int readBeyondProgram(final int address) {
+            int word = 0;
+
+            for (int i = Integer.BYTES - 1; i >= 0; --i) {
+                final int index = address + i;
+                word = (word << 8) | (index < program.length
+                                      ? Byte.toUnsignedInt(program[index])
+                                      : 0);
+            }
+
+            return word;
+        }
+
+        private void store() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                final int address = stackRows[depth - 1][lane];
+                int word = stackRows[depth - 2][lane];
+
+                if (tapes[lane] == null) {
+                    tapes[lane] = Arrays.copyOf(
+                            program,
+                            SimpleStackMachine.TAPE_LENGTH_IN_BYTES);
+                }
+
+                for (int b = 0; b < Integer.BYTES; ++b) {
+                    tapes[lane][address + b] = (byte) word;
+                    word >>>= Byte.SIZE;
+                }
+
+                stackSizes[lane] = depth - 2;
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void readInt() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = stackSizes[lane];
+                ensureDepth(depth + 1);
+                outputs[lane].append(">>> ");
+                stackRows[depth][lane] =
+                        inputs[offset + laneIndices[lane]][inputIndices[lane]++];
+                stackSizes[lane] = depth + 1;
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void printInt() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int depth = --stackSizes[lane];
+                outputs[lane].append(stackRows[depth][lane])
+                             .append(LINE_SEPARATOR);
+                ++instructionPointers[lane];
+            }
+        }
+
+        private void halt() {
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                ++instructionPointers[lane];
+                finishHalted(lane);
+            }
+        }
+
+        private void ensureDepth(final int depth) {
+            if (depth > stackRows.length) {
+                final int oldDepth = stackRows.length;
+                stackRows = Arrays.copyOf(stackRows, 2 * oldDepth);
+
+                for (int d = oldDepth; d < stackRows.length; ++d) {
+                    stackRows[d] = new int[laneCount];
+                }
+            }
+        }
+
+        /**
+         * Hands the active lanes with fewer than {@code size} stack entries
+         * over to a scalar machine, where they trap.
+         */
+        private void requireStackSize(final int size) {
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+
+                if (stackSizes[lane] < size) {
+                    handOver(lane);
+                } else {
+                    activeLanes[kept++] = lane;
+                }
+            }
+
+            retainActive(kept);
+        }
+
+        private void requireNonZeroSecond() {
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+
+                if (stackRows[stackSizes[lane] - 2][lane] == 0) {
+                    handOver(lane);
+                } else {
+                    activeLanes[kept++] = lane;
+                }
+            }
+
+            retainActive(kept);
+        }
+
+        /**
+         * Hands over the lanes whose top-most entry is not the address of a
+         * word within {@code [lowest, tape.length)}.
+         */
+        private void requireTopAddress(final int lowest) {
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int address = stackRows[stackSizes[lane] - 1][lane];
+
+                if (address < lowest
+                        || address > SimpleStackMachine.TAPE_LENGTH_IN_BYTES
+                                     - Integer.BYTES) {
+                    handOver(lane);
+                } else {
+                    activeLanes[kept++] = lane;
+                }
+            }
+
+            retainActive(kept);
+        }
+
+        /**
+         * Hands over the lanes whose {@code JMP} target the scalar machine
+         * rejects: those with {@code nextAddress + target} beyond the tape.
+         */
+        private void requireJumpTargetInReserve(final int nextAddress) {
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+                final int target = stackRows[stackSizes[lane] - 1][lane];
+
+                if ((long) nextAddress + target
+                        >= SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+                    handOver(lane);
+                } else {
+                    activeLanes[kept++] = lane;
+                }
+            }
+
+            retainActive(kept);
+        }
+
+        private void requireInput() {
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; ++i) {
+                final int lane = activeLanes[i];
+
+                if (inputIndices[lane] == inputs[offset + laneIndices[lane]].length) {
+                    handOver(lane);
+                } else {
+                    activeLanes[kept++] = lane;
+                }
+            }
+
+            retainActive(kept);
+        }
+
+        private void retainActive(final int kept) {
+            if (kept != activeCount) {
+                activeCount = kept;
+                converged = false;
+            }
+        }
+
+        private void handOverActiveLanes() {
+            for (int i = 0; i < activeCount; ++i) {
+                handOver(activeLanes[i]);
+            }
+
+            activeCount = 0;
+        }
+
+        /**
+         * Finishes the lane on a scalar machine loaded with its state.
+         */
+        private void handOver(final int lane) {
+            ++handedOverLaneCount;
+
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine =
+                    new SimpleStackMachine(
+                            new ByteArrayInputStream(
+                                    remainingInput(lane).getBytes()),
+                            new PrintStream(bos, true));
+
+            machine.loadProgram(program);
+
+            if (tapes[lane] != null) {
+                System.arraycopy(tapes[lane], 0,
+                                 machine.getTape(), 0,
+                                 tapes[lane].length);
+            }
+
+            final int size = stackSizes[lane];
+            final int[] stack = new int[Math.max(size, INITIAL_STACK_DEPTH)];
+
+            for (int d = 0; d < size; ++d) {
+                stack[d] = stackRows[d][lane];
+            }
+
+            machine.setStack(stack, size);
+            machine.setInstructionPointer(instructionPointers[lane]);
+            machine.flags().setBits(flagBits[lane]);
+
+            RuntimeException trap = null;
+
+            try {
+                machine.resume(fallbackEngine);
+            } catch (final RuntimeException ex) {
+                trap = ex;
+            }
+
+            results[offset + laneIndices[lane]] =
+                    new LaneResult(outputs[lane].append(bos).toString(),
+                                   machine.getOperandStack(),
+                                   machine.isHalted(),
+                                   trap);
+            states[lane] = DONE;
+            --runningCount;
+        }
+
+        /**
+         * Returns the input stream text left for the lane: the words not yet
+         * read, one per line, as a {@link java.util.Scanner} that has read
+         * the others would see it.
+         */
+        private String remainingInput(final int lane) {
+            final int[] input = inputs[offset + laneIndices[lane]];
+            final StringBuilder sb = new StringBuilder();
+
+            for (int i = inputIndices[lane]; i < input.length; ++i) {
+                if (i > 0) {
+                    sb.append('\n');
+                }
+
+                sb.append(input[i]);
+            }
+
+            if (input.length > 0) {
+                sb.append('\n');
+            }
+
+            return sb.toString();
+        }
+
+        private void finishHalted(final int lane) {
+            final int size = stackSizes[lane];
+            final int[] stack = new int[size];
+
+            for (int d = 0; d < size; ++d) {
+                stack[d] = stackRows[d][lane];
+            }
+
+            results[offset + laneIndices[lane]] =
+                    new LaneResult(outputs[lane].toString(), stack, true, null);
+            states[lane] = DONE;
+            --runningCount;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.coderodde.simple.stack.machine;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This class holds the JDK Flight Recorder events of the machine. All of them
+ * are emitted per program or per engine run (a slice), never per instruction,
+ * so that they cost nothing measurable while no recording is running.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class MachineEvents {
+
+    private static final String PREFIX = "io.github.coderodde.simple.stack.";
+    private static final String CATEGORY = "Simple Stack Machine";
+
+    @Name(PREFIX + "ProgramStart")
+    @Label("Program Start")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ProgramStart extends Event {
+
+        @Label("Program Size")
+        @DataAmount
+        int programSize;
+
+        @Label("Engine")
+        String engine;
+    }
+
+    @Name(PREFIX + "ProgramEnd")
+    @Label("Program End")
+    @Category(CATEGORY)
+    @Description("A program halted or trapped.")
+    @StackTrace(false)
+    static final class ProgramEnd extends Event {
+
+        @Label("Executed Instructions")
+        long executedInstructions;
+
+        @Label("Trapped")
+        boolean trapped;
+    }
+
+    @Name(PREFIX + "Trap")
+    @Label("Trap")
+    @Category(CATEGORY)
+    @Description("A program failed with a StackMachineException.")
+    static final class Trap extends Event {
+
+        @Label("Message")
+        String message;
+
+        @Label("Instruction Pointer")
+        int instructionPointer;
+    }
+
+    @Name(PREFIX + "ExecutionSlice")
+    @Label("Execution Slice")
+    @Category(CATEGORY)
+    @Description("An engine ran a machine until it halted, trapped or "
+                 + "exhausted its instruction budget.")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class ExecutionSlice extends Event {
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Executed Instructions")
+        long executedInstructions;
+
+        @Label("Operand Stack Size")
+        int stackSize;
+    }
+
+    @Name(PREFIX + "IoWait")
+    @Label("I/O Wait")
+    @Category(CATEGORY)
+    @Description("A program waited for its input.")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class IoWait extends Event {
+
+        @Label("Operation")
+        String operation;
+    }
+
+    private MachineEvents() {
+
+    }
+}
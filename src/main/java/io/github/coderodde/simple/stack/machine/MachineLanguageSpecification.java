@@ -312,6 +312,16 @@ public final class MachineLanguageSpecification {
             final int address = machine.pop();
             
             machine.advanceInstructionPointer(Integer.BYTES);
+            
+            final SubroutineMemoTable memoTable = machine.getMemoTable();
+            
+            if (memoTable != null 
+                    && memoTable.tryCall(machine, 
+                                         address, 
+                                         machine.getInstructionPointer())) {
+                return;
+            }
+            
             machine.push(machine.getInstructionPointer());
             machine.setInstructionPointer(address);
         }
@@ -328,6 +338,12 @@ public final class MachineLanguageSpecification {
             
             final int address = machine.pop();
             machine.setInstructionPointer(address);
+            
+            final SubroutineMemoTable memoTable = machine.getMemoTable();
+            
+            if (memoTable != null) {
+                memoTable.onReturn(machine, address);
+            }
         }
     }
     
@@ -345,6 +361,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -363,6 +381,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -381,6 +401,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -399,6 +421,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -417,6 +441,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -435,6 +461,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -453,6 +481,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -471,6 +501,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -489,6 +521,8 @@ public final class MachineLanguageSpecification {
                                 machine.getInstructionPointer());
                 
                 machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -506,7 +540,9 @@ public final class MachineLanguageSpecification {
                         machine.readWordFromTape(
                                 machine.getInstructionPointer());
                 
-                machine.setInstructionPointer(address); 
+                machine.setInstructionPointer(address);
+            } else {
+                machine.advanceInstructionPointer(Integer.BYTES);
             }
         }
     }
@@ -523,24 +559,10 @@ public final class MachineLanguageSpecification {
             final int stringLength = machine.pop();
             final int startAddress = machine.pop();
             
-            System.out.println(processStringPrint(machine,
-                                                  stringLength,
-                                                  startAddress));
+            machine.printString(startAddress, stringLength);
         }
     }
     
-    private static String processStringPrint(final SimpleStackMachine machine,
-                                             final int stringLength,
-                                             final int startAddress) {
-        final byte[] stringData = new byte[stringLength];
-        
-        for (int i = 0; i < stringData.length; ++i) {
-            stringData[i] = machine.readByteFromTape(startAddress + i);
-        }
-        
-        return new String(stringData);
-    }
-    
     public static final class PrintNumberInstructionImplementation 
             implements InstructionImplementation {
         
@@ -550,7 +572,7 @@ public final class MachineLanguageSpecification {
             machine.requireStackSize(1);
             machine.advanceInstructionPointer();
             
-            System.out.println(machine.pop());
+            machine.printLine(machine.pop());
         }
     }
     
@@ -559,6 +581,10 @@ public final class MachineLanguageSpecification {
 
         @Override
         public void execute(SimpleStackMachine machine) {
+            if (!machine.awaitInput()) {
+                return;
+            }
+            
             machine.push(machine.readInt());
             machine.advanceInstructionPointer();
         }
@@ -571,24 +597,307 @@ public final class MachineLanguageSpecification {
         public void execute(SimpleStackMachine machine) {
             machine.checkTapeReserve(1);
             machine.requireStackSize(2);
+            
+            if (!machine.awaitInput()) {
+                return;
+            }
+            
             machine.advanceInstructionPointer();
             
             final int bufferLength  = machine.pop();
             final int stringAddress = machine.pop();
             
-            final String text = machine.readString();
+            machine.push(machine.readStringToTape(stringAddress, 
+                                                  bufferLength));
+        }
+    }
+    
+    public static final class HostCallInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Invokes the intrinsic whose ID follows the opcode.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.checkTapeReserve(1 + Integer.BYTES);
+            
+            final int id = 
+                    machine.readWordFromTape(
+                            machine.getInstructionPointer() + 1);
+            
+            machine.invokeIntrinsic(id);
+            machine.advanceInstructionPointer(1 + Integer.BYTES);
+        }
+    }
+    
+    public static final class BlockCopyInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the length, the source and the target address and copies the
+         * block. The blocks may overlap.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.checkTapeReserve(1);
+            machine.requireStackSize(3);
+            machine.advanceInstructionPointer();
+            
+            final int length = machine.pop();
+            final int source = machine.pop();
+            final int target = machine.pop();
+            
+            machine.copyOnTape(target, source, length);
+        }
+    }
+    
+    public static final class BlockFillInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the length, the byte value and the target address and fills 
+         * the block.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.checkTapeReserve(1);
+            machine.requireStackSize(3);
+            machine.advanceInstructionPointer();
+            
+            final int length = machine.pop();
+            final int value  = machine.pop();
+            final int target = machine.pop();
+            
+            machine.fillTape(target, (byte) value, length);
+        }
+    }
+    
+    public static final class BlockCompareInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the length and the two block addresses and pushes the offset
+         * of the first differing byte, or -1 if the blocks are equal.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.checkTapeReserve(1);
+            machine.requireStackSize(3);
+            machine.advanceInstructionPointer();
+            
+            final int length = machine.pop();
+            final int b = machine.pop();
+            final int a = machine.pop();
+            
+            machine.push(machine.mismatchOnTape(a, b, length));
+        }
+    }
+    
+    public static final class BlockFindInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the length, the byte value and the block address and pushes 
+         * the offset of the first occurrence of the byte, or -1 if there is
+         * none.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.checkTapeReserve(1);
+            machine.requireStackSize(3);
+            machine.advanceInstructionPointer();
+            
+            final int length  = machine.pop();
+            final int value   = machine.pop();
+            final int address = machine.pop();
+            
+            machine.push(machine.findByteOnTape(address, (byte) value, length));
+        }
+    }
+    
+    public static final class SpawnInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the entry address and the argument, starts a VM thread at the 
+         * entry address with the argument on its stack and pushes the ID of
+         * the thread.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(2);
+            machine.advanceInstructionPointer();
+            
+            final int entryAddress = machine.pop();
+            final int argument     = machine.pop();
+            
+            machine.push(VmThreadGroup.spawnThread(machine, 
+                                                    entryAddress, 
+                                                    argument));
+        }
+    }
+    
+    public static final class JoinInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops a thread ID, waits for the thread to halt and pushes the top
+         * of its operand stack. If the thread cannot run any more in the 
+         * current slice, stops the machine at this instruction instead.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(1);
+            
+            if (!VmThreadGroup.awaitThread(machine, machine.top())) {
+                return;
+            }
+            
+            machine.advanceInstructionPointer();
+            machine.push(VmThreadGroup.joinThread(machine, machine.pop()));
+        }
+    }
+    
+    public static final class YieldInstructionImplementation 
+            implements InstructionImplementation {
+
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.advanceInstructionPointer();
+            VmThreadGroup.yieldThread(machine);
+        }
+    }
+    
+    public static final class CompareAndSwapInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the new value, the expected value and the address, atomically
+         * replaces the word at the address with the new value if it equals 
+         * the expected one, and pushes the word found.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(3);
+            machine.advanceInstructionPointer();
+            
+            final int newValue = machine.pop();
+            final int expected = machine.pop();
+            final int address  = machine.pop();
+            
+            machine.push(VmThreadGroup.compareAndExchangeWord(machine,
+                                                              address, 
+                                                              expected, 
+                                                              newValue));
+        }
+    }
+    
+    public static final class FetchAndAddInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the delta and the address, atomically adds the delta to the 
+         * word at the address and pushes the word found.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(2);
+            machine.advanceInstructionPointer();
+            
+            final int delta   = machine.pop();
+            final int address = machine.pop();
+            
+            machine.push(VmThreadGroup.fetchAndAddWord(machine, 
+                                                       address, 
+                                                       delta));
+        }
+    }
+    
+    public static final class SendInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the port and the word, and sends the word to the channel at 
+         * the port, waiting while the channel is full.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(2);
+            machine.advanceInstructionPointer();
+            
+            final int port = machine.pop();
+            final int word = machine.pop();
+            
+            VmThreadGroup.sendToChannel(machine, port, word);
+        }
+    }
+    
+    public static final class ReceiveInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the port and pushes the word received from the channel at the
+         * port, waiting while the channel is empty.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(1);
+            machine.advanceInstructionPointer();
+            machine.push(VmThreadGroup.receiveFromChannel(machine, 
+                                                           machine.pop()));
+        }
+    }
+    
+    public static final class TryReceiveInstructionImplementation 
+            implements InstructionImplementation {
+        
+        /**
+         * Pops the port and pushes the word received from the channel at the
+         * port, or 0 if there is none, and then the status: 1 if a word was
+         * received, 0 if the channel is empty and -1 if it is closed and 
+         * drained.
+         * 
+         * @param machine the target machine.
+         */
+        @Override
+        public void execute(final SimpleStackMachine machine) {
+            machine.requireStackSize(1);
+            machine.advanceInstructionPointer();
+            
+            final int port = machine.pop();
+            final Channel channel = VmThreadGroup.channelAt(machine, port);
+            final boolean closed = channel.isClosed();
+            final long word = channel.poll();
             
-            if (text.length() > bufferLength) {
-                machine.push(Integer.MIN_VALUE);
+            if (word != Channel.EMPTY) {
+                machine.push((int) word);
+                machine.push(1);
             } else {
-                machine.push(text.length());
-                
-                final byte[] stringData = text.getBytes();
-                
-                for (int i = 0; i < stringData.length; ++i) {
-                    machine.writeByteToTape(stringAddress + i,
-                                            stringData[i]);
-                }
+                machine.push(0);
+                machine.push(closed ? -1 : 0);
             }
         }
     }
@@ -0,0 +1,191 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class aggregates the metrics of all the machines of the JVM. The
+ * counters are {@link LongAdder}s, so that many machines running in parallel
+ * do not contend on a shared cache line. The machines update the metrics
+ * once per program, per engine run and per input operation; nothing is
+ * counted per instruction.
+ * <p>
+ * Call {@link #register()} to expose the metrics as the MXBean named
+ * {@value #OBJECT_NAME}.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class MachineMetrics implements MachineMetricsMXBean {
+
+    public static final String OBJECT_NAME =
+            "io.github.coderodde.simple.stack.machine:type=MachineMetrics";
+
+    public static final MachineMetrics INSTANCE = new MachineMetrics();
+
+    private final LongAdder machinesCreated = new LongAdder();
+    private final LongAdder runningMachines = new LongAdder();
+    private final LongAdder programsStarted = new LongAdder();
+    private final LongAdder programsHalted = new LongAdder();
+    private final LongAdder traps = new LongAdder();
+    private final LongAdder pausedSlices = new LongAdder();
+    private final LongAdder executedInstructions = new LongAdder();
+    private final LongAdder ioWaits = new LongAdder();
+    private final LongAccumulator maximumStackCapacity =
+            new LongAccumulator(Math::max, 0L);
+
+    private final LatencyHistogram sliceLatencies = new LatencyHistogram();
+    private final LatencyHistogram ioWaitLatencies = new LatencyHistogram();
+
+    private MachineMetrics() {
+
+    }
+
+    /**
+     * Registers {@link #INSTANCE} with the platform MBean server unless it is
+     * registered already.
+     */
+    public static synchronized void register() {
+        try {
+            final MBeanServer server =
+                    ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (final JMException ex) {
+            throw new IllegalStateException(
+                    "Could not register the machine metrics.", ex);
+        }
+    }
+
+    public static synchronized void unregister() {
+        try {
+            final MBeanServer server =
+                    ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (final JMException ex) {
+            throw new IllegalStateException(
+                    "Could not unregister the machine metrics.", ex);
+        }
+    }
+
+    @Override
+    public long getMachinesCreated() {
+        return machinesCreated.sum();
+    }
+
+    @Override
+    public long getRunningMachines() {
+        return runningMachines.sum();
+    }
+
+    @Override
+    public long getProgramsStarted() {
+        return programsStarted.sum();
+    }
+
+    @Override
+    public long getProgramsHalted() {
+        return programsHalted.sum();
+    }
+
+    @Override
+    public long getTraps() {
+        return traps.sum();
+    }
+
+    @Override
+    public long getPausedSlices() {
+        return pausedSlices.sum();
+    }
+
+    @Override
+    public long getExecutedInstructions() {
+        return executedInstructions.sum();
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        final long nanos = sliceLatencies.getTotalNanos();
+        return nanos == 0L ? 0.0
+                           : 1e9 * executedInstructions.sum() / nanos;
+    }
+
+    @Override
+    public long getIoWaits() {
+        return ioWaits.sum();
+    }
+
+    @Override
+    public long getIoWaitNanos() {
+        return ioWaitLatencies.getTotalNanos();
+    }
+
+    @Override
+    public long getMaximumStackCapacity() {
+        return maximumStackCapacity.get();
+    }
+
+    @Override
+    public long[] getSliceLatencyHistogram() {
+        return sliceLatencies.snapshot();
+    }
+
+    @Override
+    public long[] getIoWaitLatencyHistogram() {
+        return ioWaitLatencies.snapshot();
+    }
+
+    @Override
+    public long[] getHistogramUpperBoundsMicros() {
+        return LatencyHistogram.upperBoundsMicros();
+    }
+
+    void machineCreated() {
+        machinesCreated.increment();
+    }
+
+    void programStarted() {
+        programsStarted.increment();
+    }
+
+    void sliceStarted() {
+        runningMachines.increment();
+    }
+
+    void sliceEnded(final long nanos,
+                    final long instructions,
+                    final int stackCapacity) {
+        runningMachines.decrement();
+        executedInstructions.add(instructions);
+        sliceLatencies.record(nanos);
+        maximumStackCapacity.accumulate(stackCapacity);
+    }
+
+    void programHalted() {
+        programsHalted.increment();
+    }
+
+    void slicePaused() {
+        pausedSlices.increment();
+    }
+
+    void trapped() {
+        traps.increment();
+    }
+
+    void ioWaited(final long nanos) {
+        ioWaits.increment();
+        ioWaitLatencies.record(nanos);
+    }
+}
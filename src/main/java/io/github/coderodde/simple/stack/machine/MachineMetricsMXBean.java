@@ -0,0 +1,57 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This interface specifies the JMX view of {@link MachineMetrics}. All the
+ * values are aggregated over all the machines of the JVM.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public interface MachineMetricsMXBean {
+
+    public long getMachinesCreated();
+
+    /**
+     * Returns the number of machines an engine is running right now.
+     */
+    public long getRunningMachines();
+
+    public long getProgramsStarted();
+
+    public long getProgramsHalted();
+
+    public long getTraps();
+
+    /**
+     * Returns the number of engine runs that ended because the instruction
+     * budget ran out.
+     */
+    public long getPausedSlices();
+
+    public long getExecutedInstructions();
+
+    /**
+     * Returns the executed instructions per second of running time, summed
+     * over all the slices.
+     */
+    public double getInstructionsPerSecond();
+
+    public long getIoWaits();
+
+    public long getIoWaitNanos();
+
+    /**
+     * Returns the largest operand stack capacity any machine has grown to.
+     */
+    public long getMaximumStackCapacity();
+
+    /**
+     * Returns the counts of the slice durations, bucketed as described by
+     * {@link #getHistogramUpperBoundsMicros()}.
+     */
+    public long[] getSliceLatencyHistogram();
+
+    public long[] getIoWaitLatencyHistogram();
+
+    public long[] getHistogramUpperBoundsMicros();
+}
@@ -0,0 +1,322 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class implements an immutable snapshot of the state of a
+ * {@link SimpleStackMachine}: its tape, operand stack, flags, instruction
+ * pointer, halt state and executed instruction count. Snapshots are taken by
+ * {@link SimpleStackMachine#snapshot()} and restored by
+ * {@link SimpleStackMachine#restore(MachineSnapshot)} or
+ * {@link #fork(InputStream, PrintStream)}.
+ * <p>
+ * The tape is kept in pages of {@value #PAGE_SIZE} bytes. A snapshot shares
+ * every page left unchanged since the previous snapshot of the same machine,
+ * so a series of checkpoints costs only the pages written in between. The
+ * live tape itself stays a plain array, since the engines index it directly.
+ * <p>
+ * A snapshot may be written to and read from a {@link FileChannel}. The file
+ * starts with the magic number {@code 0x534d5353} and holds little-endian
+ * words:
+ * <pre>
+ *   magic:int version:int ip:int flags:int halted:byte executed:long
+ *   stackSize:int stack:int[stackSize] tape:byte[16384]
+ * </pre>
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class MachineSnapshot {
+
+    public static final int PAGE_SIZE = 1024;
+
+    public static final int MAGIC = 0x534d5353;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 4 * Integer.BYTES
+                                           + 1
+                                           + Long.BYTES
+                                           + Integer.BYTES;
+
+    /**
+     * The tape pages, possibly shared with other snapshots. Never modified.
+     */
+    private final byte[][] pages;
+
+    private final int[] stack;
+    private final int flags;
+    private final int instructionPointer;
+    private final boolean halted;
+    private final long executedInstructionCount;
+
+    /**
+     * The intrinsics resolved for the program of the machine, or
+     * {@code null} if the snapshot was read from a file.
+     */
+    private final Intrinsic[] intrinsics;
+
+    private MachineSnapshot(final byte[][] pages,
+                            final int[] stack,
+                            final int flags,
+                            final int instructionPointer,
+                            final boolean halted,
+                            final long executedInstructionCount,
+                            final Intrinsic[] intrinsics) {
+        this.pages = pages;
+        this.stack = stack;
+        this.flags = flags;
+        this.instructionPointer = instructionPointer;
+        this.halted = halted;
+        this.executedInstructionCount = executedInstructionCount;
+        this.intrinsics = intrinsics;
+    }
+
+    /**
+     * Captures the state of the machine.
+     *
+     * @param machine       the machine.
+     * @param base          the previous snapshot of the machine, or
+     *                      {@code null}.
+     * @param tapeUnchanged whether the tape is known to be unchanged since
+     *                      {@code base} was taken.
+     * @return the snapshot.
+     */
+    static MachineSnapshot capture(final SimpleStackMachine machine,
+                                   final MachineSnapshot base,
+                                   final boolean tapeUnchanged) {
+        final byte[] tape = machine.getTape();
+        final byte[][] pages;
+
+        if (tapeUnchanged) {
+            pages = base.pages;
+        } else {
+            pages = new byte[tape.length / PAGE_SIZE][];
+
+            for (int i = 0; i < pages.length; ++i) {
+                final int from = i * PAGE_SIZE;
+
+                if (base != null
+                        && Arrays.equals(base.pages[i], 0, PAGE_SIZE,
+                                         tape, from, from + PAGE_SIZE)) {
+                    pages[i] = base.pages[i];
+                } else {
+                    pages[i] = Arrays.copyOfRange(tape,
+                                                  from,
+                                                  from + PAGE_SIZE);
+                }
+            }
+        }
+
+        return new MachineSnapshot(pages,
+                                   Arrays.copyOf(machine.getStackArray(),
+                                                 machine.getStackSize()),
+                                   machine.flags().toBits(),
+                                   machine.getInstructionPointer(),
+                                   machine.isHalted(),
+                                   machine.getExecutedInstructionCount(),
+                                   machine.getIntrinsics());
+    }
+
+    /**
+     * Creates a new machine in the state of this snapshot.
+     *
+     * @param in  the input stream of the new machine.
+     * @param out the output stream of the new machine.
+     * @return the new machine.
+     */
+    public SimpleStackMachine fork(final InputStream in,
+                                   final PrintStream out) {
+        final SimpleStackMachine machine = 
+                new SimpleStackMachine(in, out, getTapeLength());
+        machine.restore(this);
+        return machine;
+    }
+
+    /**
+     * Writes this snapshot at the current position of the channel.
+     *
+     * @param channel the channel to write to.
+     * @throws IOException if the channel fails.
+     * @throws IllegalStateException if the tape is not of the default
+     *                               length, which the format assumes.
+     */
+    public void writeTo(final FileChannel channel) throws IOException {
+        Objects.requireNonNull(channel, "The channel is null.");
+
+        if (getTapeLength() != SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+            throw new IllegalStateException(
+                    String.format("Only the snapshots of %d-byte tapes may "
+                                  + "be written.",
+                                  SimpleStackMachine.TAPE_LENGTH_IN_BYTES));
+        }
+
+        final ByteBuffer header =
+                ByteBuffer.allocate(HEADER_LENGTH
+                                    + stack.length * Integer.BYTES)
+                          .order(ByteOrder.LITTLE_ENDIAN);
+
+        header.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(instructionPointer)
+              .putInt(flags)
+              .put((byte) (halted ? 1 : 0))
+              .putLong(executedInstructionCount)
+              .putInt(stack.length);
+
+        for (final int datum : stack) {
+            header.putInt(datum);
+        }
+
+        final ByteBuffer[] buffers = new ByteBuffer[1 + pages.length];
+        buffers[0] = header.flip();
+
+        for (int i = 0; i < pages.length; ++i) {
+            buffers[i + 1] = ByteBuffer.wrap(pages[i]);
+        }
+
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(FileChannel)} from the
+     * current position of the channel.
+     *
+     * @param channel the channel to read from.
+     * @return the snapshot.
+     * @throws IOException if the channel fails or does not hold a snapshot.
+     */
+    public static MachineSnapshot readFrom(final FileChannel channel)
+            throws IOException {
+        Objects.requireNonNull(channel, "The channel is null.");
+
+        final ByteBuffer header = readFully(channel, HEADER_LENGTH);
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a machine snapshot.");
+        }
+
+        final int version = header.getInt();
+
+        if (version != VERSION) {
+            throw new IOException(
+                    String.format("Unsupported snapshot version %d", version));
+        }
+
+        final int instructionPointer = header.getInt();
+        final int flags = header.getInt();
+        final boolean halted = header.get() != 0;
+        final long executedInstructionCount = header.getLong();
+        final int stackSize = header.getInt();
+
+        if (stackSize < 0) {
+            throw new IOException(
+                    String.format("Negative stack size %d", stackSize));
+        }
+
+        final int[] stack = new int[stackSize];
+        readFully(channel, stackSize * Integer.BYTES).asIntBuffer().get(stack);
+
+        final byte[][] pages =
+                new byte[SimpleStackMachine.TAPE_LENGTH_IN_BYTES / PAGE_SIZE][];
+
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = readFully(channel, PAGE_SIZE).array();
+        }
+
+        return new MachineSnapshot(pages,
+                                   stack,
+                                   flags,
+                                   instructionPointer,
+                                   halted,
+                                   executedInstructionCount,
+                                   null);
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel,
+                                        final int length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("The snapshot is cut short.");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Returns a copy of the operand stack, the top of the stack being the
+     * last element.
+     *
+     * @return the operand stack.
+     */
+    public int[] getOperandStack() {
+        return stack.clone();
+    }
+
+    public int getInstructionPointer() {
+        return instructionPointer;
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    public long getExecutedInstructionCount() {
+        return executedInstructionCount;
+    }
+
+    /**
+     * Returns the number of tape pages this snapshot shares with
+     * {@code other}.
+     *
+     * @param other the other snapshot.
+     * @return the number of shared pages.
+     */
+    public int getSharedPageCount(final MachineSnapshot other) {
+        int shared = 0;
+
+        for (int i = 0; i < pages.length; ++i) {
+            if (pages[i] == other.pages[i]) {
+                ++shared;
+            }
+        }
+
+        return shared;
+    }
+
+    int[] getStack() {
+        return stack;
+    }
+
+    int getFlags() {
+        return flags;
+    }
+
+    Intrinsic[] getIntrinsics() {
+        return intrinsics;
+    }
+
+    int getTapeLength() {
+        return pages.length * PAGE_SIZE;
+    }
+
+    void copyTapeTo(final byte[] tape) {
+        for (int i = 0; i < pages.length; ++i) {
+            System.arraycopy(pages[i], 0, tape, i * PAGE_SIZE, PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This enumeration lists the states a machine may be left in when
+ * {@link SimpleStackMachine#execute(byte[], ExecutionEngine)} or
+ * {@link SimpleStackMachine#resume(ExecutionEngine)} returns normally.
+ * 
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public enum MachineStatus {
+    
+    /**
+     * The machine ran out of its instruction budget or was asked to pause, 
+     * and may be resumed right away.
+     */
+    PAUSED,
+    
+    /**
+     * The machine stopped at a {@code READ_INT} or {@code READ_STRING} with 
+     * no input queued. It may be resumed once input is offered.
+     */
+    NEEDS_INPUT,
+    
+    /**
+     * The machine has executed {@code HALT}.
+     */
+    HALTED;
+}
@@ -0,0 +1,338 @@
+package io.github.coderodde.simple.stack.machine;
+
+/**
+ * This class holds the opcode bytes of the machine language as compile-time
+ * constants so that the specialized execution engines may dispatch on them
+ * with a plain {@code switch}. {@link Operation} is built from the very same
+ * constants. The class also hosts the few pieces of instruction semantics 
+ * that the engines share.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class Opcodes {
+
+    static final byte NOP   = (byte) 0x00;
+    static final byte PUSH  = (byte) 0x01;
+    static final byte POP   = (byte) 0x02;
+    static final byte CONST = (byte) 0x03;
+    static final byte LOAD  = (byte) 0x04;
+    static final byte STORE = (byte) 0x05;
+
+    static final byte ADD = (byte) 0x06;
+    static final byte SUB = (byte) 0x07;
+    static final byte MUL = (byte) 0x08;
+    static final byte DIV = (byte) 0x09;
+    static final byte MOD = (byte) 0x0a;
+
+    static final byte CALL = (byte) 0x0b;
+    static final byte RET  = (byte) 0x0c;
+    static final byte DUP  = (byte) 0x0d;
+    static final byte SWAP = (byte) 0x0e;
+
+    static final byte CMP = (byte) 0x0f;
+    static final byte JMP = (byte) 0x10;
+    static final byte JZ  = (byte) 0x11;
+    static final byte JNZ = (byte) 0x12;
+    static final byte JBZ = (byte) 0x13;
+    static final byte JAZ = (byte) 0x14;
+    static final byte JL  = (byte) 0xf0;
+    static final byte JLE = (byte) 0xf1;
+    static final byte JE  = (byte) 0xf2;
+    static final byte JNE = (byte) 0xf3;
+    static final byte JA  = (byte) 0xf4;
+    static final byte JAE = (byte) 0xf5;
+
+    static final byte PRINT_INT    = (byte) 0x15;
+    static final byte PRINT_STRING = (byte) 0x16;
+    static final byte READ_INT     = (byte) 0x17;
+    static final byte READ_STRING  = (byte) 0x18;
+    static final byte HALT         = (byte) 0xff;
+
+    static final byte HOST = (byte) 0x19;
+
+    static final byte BCOPY = (byte) 0x1a;
+    static final byte BFILL = (byte) 0x1b;
+    static final byte BCMP  = (byte) 0x1c;
+    static final byte BFIND = (byte) 0x1d;
+
+    static final byte SPAWN = (byte) 0x1e;
+    static final byte JOIN  = (byte) 0x1f;
+    static final byte YIELD = (byte) 0x20;
+    static final byte CAS   = (byte) 0x21;
+    static final byte FADD  = (byte) 0x22;
+
+    static final byte SEND    = (byte) 0x23;
+    static final byte RECV    = (byte) 0x24;
+    static final byte TRYRECV = (byte) 0x25;
+
+    /**
+     * Applies the arithmetic {@code opcode} to the two top-most operands.
+     */
+    static int arithmetic(final byte opcode,
+                          final int top,
+                          final int second) {
+        try {
+            switch (opcode) {
+                case ADD: return top + second;
+                case SUB: return top - second;
+                case MUL: return top * second;
+                case DIV: return top / second;
+                case MOD: return top % second;
+                default:
+                    throw new IllegalStateException(
+                            "Not an arithmetic opcode: " + opcode);
+            }
+        } catch (final ArithmeticException ex) {
+            throw new StackMachineException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Applies the arithmetic {@code opcode} to the two top-most 64-bit 
+     * operands.
+     */
+    static long arithmetic(final byte opcode,
+                           final long top,
+                           final long second) {
+        try {
+            switch (opcode) {
+                case ADD: return top + second;
+                case SUB: return top - second;
+                case MUL: return top * second;
+                case DIV: return top / second;
+                case MOD: return top % second;
+                default:
+                    throw new IllegalStateException(
+                            "Not an arithmetic opcode: " + opcode);
+            }
+        } catch (final ArithmeticException ex) {
+            throw new StackMachineException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Sets the flags the way {@code CMP} does for the comparison result 
+     * {@code cmp} of the top-most and the second top-most operands.
+     */
+    static void setComparisonFlags(final SimpleStackMachine.ProcessorFlags flags,
+                                   final int cmp) {
+        flags.unsetAll();
+
+        if (cmp < 0) {
+            flags.belowFlag    = true;
+            flags.notEqualFlag = true;
+        } else if (cmp > 0) {
+            flags.aboveFlag    = true;
+            flags.notEqualFlag = true;
+        } else {
+            flags.equalFlag = true;
+        }
+    }
+
+    /**
+     * Computes whether the conditional jump {@code opcode} is taken under the
+     * given flags.
+     */
+    static boolean isJumpTaken(final byte opcode,
+                               final SimpleStackMachine.ProcessorFlags flags) {
+        switch (opcode) {
+            case JZ:  return flags.zeroFlag;
+            case JNZ: return flags.notZeroFlag;
+            case JBZ: return flags.belowZeroFlag;
+            case JAZ: return flags.aboveZeroFlag;
+            case JL:  return flags.belowFlag;
+            case JLE: return flags.belowFlag || flags.equalFlag;
+            case JE:  return flags.equalFlag;
+            case JNE: return !flags.equalFlag;
+            case JA:  return flags.aboveFlag;
+            case JAE: return flags.aboveFlag || flags.equalFlag;
+            default:
+                throw new IllegalStateException(
+                        "Not a conditional jump opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Returns the flags {@code CMP} sets for the comparison result 
+     * {@code cmp}, packed as by 
+     * {@link SimpleStackMachine.ProcessorFlags#toBits()}.
+     */
+    static int comparisonFlagBits(final int cmp) {
+        return cmp < 0 ? 0x82 : cmp > 0 ? 0x42 : 0x01;
+    }
+    
+    /**
+     * Computes whether the conditional jump {@code opcode} is taken under the
+     * flags packed as by {@link SimpleStackMachine.ProcessorFlags#toBits()}.
+     */
+    static boolean isJumpTakenOnFlagBits(final byte opcode, 
+                                         final int flagBits) {
+        switch (opcode) {
+            case JZ:  return (flagBits & 0x04) != 0;
+            case JNZ: return (flagBits & 0x08) != 0;
+            case JBZ: return (flagBits & 0x20) != 0;
+            case JAZ: return (flagBits & 0x10) != 0;
+            case JL:  return (flagBits & 0x80) != 0;
+            case JLE: return (flagBits & 0x81) != 0;
+            case JE:  return (flagBits & 0x01) != 0;
+            case JNE: return (flagBits & 0x01) == 0;
+            case JA:  return (flagBits & 0x40) != 0;
+            case JAE: return (flagBits & 0x41) != 0;
+            default:
+                throw new IllegalStateException(
+                        "Not a conditional jump opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Computes whether the conditional jump {@code opcode} is taken right 
+     * after a {@code CMP} whose comparison result was {@code cmp}.
+     */
+    static boolean isJumpTakenAfterCompare(final byte opcode, final int cmp) {
+        switch (opcode) {
+            case JZ:
+            case JNZ:
+            case JBZ:
+            case JAZ: return false;
+            case JL:  return cmp < 0;
+            case JLE: return cmp <= 0;
+            case JE:  return cmp == 0;
+            case JNE: return cmp != 0;
+            case JA:  return cmp > 0;
+            case JAE: return cmp >= 0;
+            default:
+                throw new IllegalStateException(
+                        "Not a conditional jump opcode: " + opcode);
+        }
+    }
+    
+    static boolean isConditionalJump(final byte opcode) {
+        switch (opcode) {
+            case JZ:
+            case JNZ:
+            case JBZ:
+            case JAZ:
+            case JL:
+            case JLE:
+            case JE:
+            case JNE:
+            case JA:
+            case JAE: return true;
+            default:  return false;
+        }
+    }
+    
+    static boolean isArithmetic(final byte opcode) {
+        return opcode >= ADD && opcode <= MOD;
+    }
+    
+    /**
+     * Returns the length of the instruction in bytes including its operand.
+     * {@code CALL} reserves a word after the opcode even though it takes its
+     * target from the stack; {@code HOST} takes the intrinsic ID.
+     */
+    static int instructionLength(final byte opcode) {
+        switch (opcode) {
+            case PUSH:
+            case CONST:
+            case CALL:
+            case HOST: return 1 + Integer.BYTES;
+            default:   return isConditionalJump(opcode) ? 1 + Integer.BYTES 
+                                                        : 1;
+        }
+    }
+
+    /**
+     * Returns the number of operand stack entries the instruction pops.
+     */
+    static int stackPops(final byte opcode) {
+        switch (opcode) {
+            case POP:
+            case LOAD:
+            case CALL:
+            case RET:
+            case DUP:
+            case JMP:
+            case PRINT_INT:
+            case JOIN:
+            case RECV:
+            case TRYRECV:      return 1;
+            case STORE:
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case MOD:
+            case SWAP:
+            case CMP:
+            case PRINT_STRING:
+            case READ_STRING:
+            case SPAWN:
+            case FADD:
+            case SEND:         return 2;
+            case BCOPY:
+            case BFILL:
+            case BCMP:
+            case BFIND:
+            case CAS:          return 3;
+            default:           return 0;
+        }
+    }
+    
+    /**
+     * Returns the number of operand stack entries the instruction pushes.
+     */
+    static int stackPushes(final byte opcode) {
+        switch (opcode) {
+            case PUSH:
+            case CONST:
+            case LOAD:
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case MOD:
+            case CALL:
+            case READ_INT:
+            case READ_STRING:
+            case BCMP:
+            case BFIND:
+            case SPAWN:
+            case JOIN:
+            case CAS:
+            case FADD:
+            case RECV:        return 1;
+            case DUP:
+            case SWAP:
+            case TRYRECV:     return 2;
+            default:          return 0;
+        }
+    }
+    
+    /**
+     * Tells whether the instruction ends a basic block, that is, whether the
+     * next instruction to run is not simply the following one. {@code HOST}
+     * ends a block too, since its stack effect is known only at run time,
+     * and so do the scheduling points {@code SPAWN}, {@code JOIN} and
+     * {@code YIELD}.
+     */
+    static boolean endsBasicBlock(final byte opcode) {
+        switch (opcode) {
+            case JMP:
+            case CALL:
+            case RET:
+            case HALT:
+            case HOST:
+            case SPAWN:
+            case JOIN:
+            case YIELD: return true;
+            default:    return isConditionalJump(opcode) 
+                            || Operation.getOperation(opcode) == null;
+        }
+    }
+
+    private Opcodes() {
+
+    }
+}
@@ -1,12 +1,25 @@
 package io.github.coderodde.simple.stack.machine;
 
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.AddInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.BlockCompareInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.BlockCopyInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.BlockFillInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.BlockFindInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.CallInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.CompareAndSwapInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.CompareInstructionImplementation;    
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.FetchAndAddInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.JoinInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.ReceiveInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.SendInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.SpawnInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.TryReceiveInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.YieldInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.ConstInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.DivideInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.DuplicateInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.HaltInstructionImplementation;
+import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.HostCallInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.JumpIfAboveInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.JumpIfAboveOrEqualInstructionImplementation;
 import io.github.coderodde.simple.stack.machine.MachineLanguageSpecification.JumpIfAboveZeroInstructionImplementation;
@@ -44,42 +57,60 @@ import java.util.Map;
  */
 public enum Operation {
     
-    NOP   ("nop"  , (byte) 0x0, new NopInstructionImplementation()),
-    PUSH  ("push" , (byte) 0x1, new PushInstructionImplementation()),
-    POP   ("pop"  , (byte) 0x2, new PopInstructionImplementation()), 
-    CONST ("const", (byte) 0x3, new ConstInstructionImplementation()),
-    LOAD  ("load" , (byte) 0x4, new LoadInstructionImplementation()),
-    STORE ("store", (byte) 0x5, new StoreInstructionImplementation()),
-    
-    ADD  ("add", (byte) 0x6, new AddInstructionImplementation()),
-    SUB  ("sub", (byte) 0x7, new SubInstructionImplementation()),
-    MUL  ("mul", (byte) 0x8, new MultiplyInstructionImplementation()),
-    DIV  ("div", (byte) 0x9, new DivideInstructionImplementation()),
-    MOD  ("mod", (byte) 0xa, new ModuloInstructionImplementation()),
-    
-    CALL ("call", (byte) 0xb, new CallInstructionImplementation()), 
-    RET  ("ret" , (byte) 0xc, new ReturnInstructionImplementation()),
-    DUP  ("dup" , (byte) 0xd, new DuplicateInstructionImplementation()),
-    SWAP ("swap", (byte) 0xe, new SwapInstructionImplementation()),
-    
-    CMP ("cmp", (byte) 0x0f, new CompareInstructionImplementation()),
-    JMP ("jmp", (byte) 0x10, new UnconditionalJumpInstructionImplementation()), 
-    JZ  ("jz" , (byte) 0x11, new JumpIfZeroInstructionImplementation()), 
-    JNZ ("jnz", (byte) 0x12, new JumpIfNotZeroInstructionImplementation()), 
-    JBZ ("jbz", (byte) 0x13, new JumpIfBelowZeroInstructionImplementation()), 
-    JAZ ("jaz", (byte) 0x14, new JumpIfAboveZeroInstructionImplementation()),
-    JL  ("jl" , (byte) 0xf0, new JumpIfBelowInstructionImplementation()), 
-    JLE ("jle", (byte) 0xf1, new JumpIfBelowOrEqualInstructionImplementation()),
-    JE  ("je" , (byte) 0xf2, new JumpIfEqualInstructionImplementation()),
-    JNE ("jne", (byte) 0xf3, new JumpIfNotEqualInstructionImplementation()),
-    JA  ("ja" , (byte) 0xf4, new JumpIfAboveInstructionImplementation()), 
-    JAE ("jae", (byte) 0xf5, new JumpIfAboveOrEqualInstructionImplementation()),
-    
-    PRINT_INT    ("iout", (byte) 0x15, new PrintNumberInstructionImplementation()),
-    PRINT_STRING ("sout", (byte) 0x16, new PrintStringInstructionImplementation()),
-    READ_INT     ("iin",  (byte) 0x17, new ReadNumberInstructionImplementation()), 
-    READ_STRING  ("sin",  (byte) 0x18, new ReadStringInstructionImplementation()), 
-    HALT         ("halt", (byte) 0xff, new HaltInstructionImplementation());
+    NOP   ("nop"  , Opcodes.NOP, new NopInstructionImplementation()),
+    PUSH  ("push" , Opcodes.PUSH, new PushInstructionImplementation()),
+    POP   ("pop"  , Opcodes.POP, new PopInstructionImplementation()), 
+    CONST ("const", Opcodes.CONST, new ConstInstructionImplementation()),
+    LOAD  ("load" , Opcodes.LOAD, new LoadInstructionImplementation()),
+    STORE ("store", Opcodes.STORE, new StoreInstructionImplementation()),
+    
+    ADD  ("add", Opcodes.ADD, new AddInstructionImplementation()),
+    SUB  ("sub", Opcodes.SUB, new SubInstructionImplementation()),
+    MUL  ("mul", Opcodes.MUL, new MultiplyInstructionImplementation()),
+    DIV  ("div", Opcodes.DIV, new DivideInstructionImplementation()),
+    MOD  ("mod", Opcodes.MOD, new ModuloInstructionImplementation()),
+    
+    CALL ("call", Opcodes.CALL, new CallInstructionImplementation()), 
+    RET  ("ret" , Opcodes.RET, new ReturnInstructionImplementation()),
+    DUP  ("dup" , Opcodes.DUP, new DuplicateInstructionImplementation()),
+    SWAP ("swap", Opcodes.SWAP, new SwapInstructionImplementation()),
+    
+    CMP ("cmp", Opcodes.CMP, new CompareInstructionImplementation()),
+    JMP ("jmp", Opcodes.JMP, new UnconditionalJumpInstructionImplementation()), 
+    JZ  ("jz" , Opcodes.JZ, new JumpIfZeroInstructionImplementation()), 
+    JNZ ("jnz", Opcodes.JNZ, new JumpIfNotZeroInstructionImplementation()), 
+    JBZ ("jbz", Opcodes.JBZ, new JumpIfBelowZeroInstructionImplementation()), 
+    JAZ ("jaz", Opcodes.JAZ, new JumpIfAboveZeroInstructionImplementation()),
+    JL  ("jl" , Opcodes.JL, new JumpIfBelowInstructionImplementation()), 
+    JLE ("jle", Opcodes.JLE, new JumpIfBelowOrEqualInstructionImplementation()),
+    JE  ("je" , Opcodes.JE, new JumpIfEqualInstructionImplementation()),
+    JNE ("jne", Opcodes.JNE, new JumpIfNotEqualInstructionImplementation()),
+    JA  ("ja" , Opcodes.JA, new JumpIfAboveInstructionImplementation()), 
+    JAE ("jae", Opcodes.JAE, new JumpIfAboveOrEqualInstructionImplementation()),
+    
+    PRINT_INT    ("iout", Opcodes.PRINT_INT, new PrintNumberInstructionImplementation()),
+    PRINT_STRING ("sout", Opcodes.PRINT_STRING, new PrintStringInstructionImplementation()),
+    READ_INT     ("iin",  Opcodes.READ_INT, new ReadNumberInstructionImplementation()), 
+    READ_STRING  ("sin",  Opcodes.READ_STRING, new ReadStringInstructionImplementation()), 
+    HALT         ("halt", Opcodes.HALT, new HaltInstructionImplementation()),
+    
+    HOST ("host", Opcodes.HOST, new HostCallInstructionImplementation()),
+    
+    BCOPY ("bcopy", Opcodes.BCOPY, new BlockCopyInstructionImplementation()),
+    BFILL ("bfill", Opcodes.BFILL, new BlockFillInstructionImplementation()),
+    BCMP  ("bcmp" , Opcodes.BCMP, new BlockCompareInstructionImplementation()),
+    BFIND ("bfind", Opcodes.BFIND, new BlockFindInstructionImplementation()),
+    
+    SPAWN ("spawn", Opcodes.SPAWN, new SpawnInstructionImplementation()),
+    JOIN  ("join" , Opcodes.JOIN, new JoinInstructionImplementation()),
+    YIELD ("yield", Opcodes.YIELD, new YieldInstructionImplementation()),
+    CAS   ("cas"  , Opcodes.CAS, new CompareAndSwapInstructionImplementation()),
+    FADD  ("fadd" , Opcodes.FADD, new FetchAndAddInstructionImplementation()),
+    
+    SEND    ("send"   , Opcodes.SEND, new SendInstructionImplementation()),
+    RECV    ("recv"   , Opcodes.RECV, new ReceiveInstructionImplementation()),
+    TRYRECV ("tryrecv", Opcodes.TRYRECV, 
+             new TryReceiveInstructionImplementation());
     
     private static final Map<String, Operation> mapOperationNameToOperationEnum 
             = new HashMap<>();
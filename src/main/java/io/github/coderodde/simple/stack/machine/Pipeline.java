@@ -0,0 +1,229 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class implements a pipeline of machines, each stage consuming the
+ * words the previous one sends. The stages are connected by
+ * single-producer, single-consumer {@link Channel}s: a stage receives from
+ * {@link #INPUT_PORT} and sends to {@link #OUTPUT_PORT}. A full channel
+ * holds its sender back until the next stage catches up.
+ * <p>
+ * {@link #run()} runs every stage on a platform thread of its own. A stage
+ * that halts closes its channels, so the next stage drains its input and
+ * then sees it closed ({@code TRYRECV} pushes -1, {@code RECV} traps), and
+ * the previous stage traps on its next {@code SEND}, like a broken pipe. A
+ * trapping stage closes all the channels, and the first trap is rethrown by
+ * {@link #run()}.
+ * <p>
+ * The pipeline is built once and run once:
+ * <pre>
+ *   new Pipeline(1024).addStage(producer, producerProgram)
+ *                     .addStage(consumer, consumerProgram)
+ *                     .run();
+ * </pre>
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class Pipeline {
+
+    /**
+     * The port a stage receives the words of the previous stage from.
+     */
+    public static final int INPUT_PORT = 0;
+
+    /**
+     * The port a stage sends the words for the next stage to.
+     */
+    public static final int OUTPUT_PORT = 1;
+
+    private final int channelCapacity;
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<Channel> channels = new ArrayList<>();
+    private long elapsedNanos = 0L;
+    private boolean started = false;
+
+    /**
+     * Constructs an empty pipeline.
+     *
+     * @param channelCapacity the capacity of the channels between the
+     *                        stages.
+     */
+    public Pipeline(final int channelCapacity) {
+        if (channelCapacity < 1) {
+            throw new IllegalArgumentException(
+                    String.format("channelCapacity(%d) < 1",
+                                  channelCapacity));
+        }
+
+        this.channelCapacity = channelCapacity;
+    }
+
+    /**
+     * Appends a stage running with the default engine.
+     *
+     * @param machine the machine of the stage.
+     * @param program the program of the stage.
+     * @return this pipeline.
+     */
+    public Pipeline addStage(final SimpleStackMachine machine,
+                             final byte[] program) {
+        return addStage(machine, program, DefaultExecutionEngine.INSTANCE);
+    }
+
+    /**
+     * Appends a stage, connecting it to the last one.
+     *
+     * @param machine the machine of the stage.
+     * @param program the program of the stage.
+     * @param engine  the engine to run the stage with.
+     * @return this pipeline.
+     */
+    public Pipeline addStage(final SimpleStackMachine machine,
+                             final byte[] program,
+                             final ExecutionEngine engine) {
+        Objects.requireNonNull(machine, "The machine is null.");
+        Objects.requireNonNull(program, "The program is null.");
+        Objects.requireNonNull(engine, "The execution engine is null.");
+
+        if (started) {
+            throw new IllegalStateException("The pipeline has been run.");
+        }
+
+        if (!stages.isEmpty()) {
+            final Channel channel =
+                    Channel.singleProducerSingleConsumer(channelCapacity);
+
+            stages.get(stages.size() - 1).machine.setChannel(OUTPUT_PORT,
+                                                             channel);
+            machine.setChannel(INPUT_PORT, channel);
+            channels.add(channel);
+        }
+
+        stages.add(new Stage(machine, program, engine));
+        return this;
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    /**
+     * Returns the channel from the stage {@code index} to the next one.
+     *
+     * @param index the index of the sending stage.
+     * @return the channel.
+     */
+    public Channel getChannel(final int index) {
+        return channels.get(index);
+    }
+
+    /**
+     * Returns the duration of the last run.
+     *
+     * @return the wall-clock time of the run in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the throughput of the channel from the stage {@code index} to
+     * the next one over the run.
+     *
+     * @param index the index of the sending stage.
+     * @return the words received per second.
+     */
+    public double getThroughput(final int index) {
+        return elapsedNanos == 0L
+                ? 0.0
+                : channels.get(index).getReceivedCount() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Runs all the stages to their end and waits for them.
+     *
+     * @throws StackMachineException the first trap of a stage.
+     */
+    public void run() {
+        if (started) {
+            throw new IllegalStateException("The pipeline has been run.");
+        }
+
+        started = true;
+
+        final AtomicReference<RuntimeException> failure =
+                new AtomicReference<>();
+        final Thread[] threads = new Thread[stages.size()];
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < threads.length; ++i) {
+            final Stage stage = stages.get(i);
+
+            threads[i] = new Thread(() -> stage.run(failure, channels),
+                                    "pipeline-stage-" + i);
+            threads[i].start();
+        }
+
+        try {
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            channels.forEach(Channel::close);
+            throw new IllegalStateException(
+                    "Interrupted while waiting for the pipeline.", ex);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+
+        final RuntimeException ex = failure.get();
+
+        if (ex instanceof StackMachineException) {
+            throw (StackMachineException) ex;
+        } else if (ex != null) {
+            throw new StackMachineException(ex.toString());
+        }
+    }
+
+    private static final class Stage {
+
+        private final SimpleStackMachine machine;
+        private final byte[] program;
+        private final ExecutionEngine engine;
+
+        Stage(final SimpleStackMachine machine,
+              final byte[] program,
+              final ExecutionEngine engine) {
+            this.machine = machine;
+            this.program = program;
+            this.engine = engine;
+        }
+
+        void run(final AtomicReference<RuntimeException> failure,
+                 final List<Channel> channels) {
+            try {
+                machine.execute(program, engine);
+            } catch (final RuntimeException ex) {
+                failure.compareAndSet(null, ex);
+                channels.forEach(Channel::close);
+            } finally {
+                closePort(INPUT_PORT);
+                closePort(OUTPUT_PORT);
+            }
+        }
+
+        private void closePort(final int port) {
+            final Channel channel = machine.getChannel(port);
+
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements a relocatable unit of code. The code of a module is
+ * written as if it started at address 0; the {@link Linker} places it at its
+ * base address and patches the words listed as its relocations:
+ * <ul>
+ *   <li>a local relocation adds the base address of the module to the word,
+ *       as needed by the targets of its own jumps and calls,</li>
+ *   <li>a symbol relocation adds the address of the named symbol, exported
+ *       by the module itself or by one of the libraries it is linked with.
+ *       The word written in the code is the addend, usually 0.</li>
+ * </ul>
+ * A relocated word is the immediate of a {@code PUSH} preceding {@code CALL}
+ * or {@code JMP}, or the address of a conditional jump. The exports map the
+ * symbol names to the offsets of their code within the module.
+ * <p>
+ * A module may be stored as bytes. The format starts with the magic number
+ * {@code 0x4d4d5353} and holds little-endian words, the strings being
+ * encoded in UTF-8 and prefixed by their length:
+ * <pre>
+ *   magic:int version:int name:string codeLength:int code:byte[codeLength]
+ *   exportCount:int { symbol:string offset:int }[exportCount]
+ *   relocationCount:int { offset:int symbol:string }[relocationCount]
+ * </pre>
+ * The symbol of a local relocation is the empty string.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class ProgramModule {
+
+    public static final int MAGIC = 0x4d4d5353;
+
+    private static final int VERSION = 1;
+
+    /**
+     * This class implements a single relocation of a module.
+     */
+    public static final class Relocation {
+
+        private final int offset;
+        private final String symbol;
+
+        Relocation(final int offset, final String symbol) {
+            this.offset = offset;
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the offset of the relocated word within the module.
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the symbol whose address is added to the word, or
+         * {@code null} if the base address of the module is.
+         */
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public boolean isLocal() {
+            return symbol == null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d: %s", offset, isLocal() ? "." : symbol);
+        }
+    }
+
+    /**
+     * This class implements the builder of modules.
+     */
+    public static final class Builder {
+
+        private final String name;
+        private final byte[] code;
+        private final Map<String, Integer> exports = new LinkedHashMap<>();
+        private final List<Relocation> relocations = new ArrayList<>();
+
+        /**
+         * Constructs a builder.
+         *
+         * @param name the name of the module.
+         * @param code the code of the module, starting at offset 0.
+         */
+        public Builder(final String name, final byte[] code) {
+            this.name = Objects.requireNonNull(name, "The name is null.");
+            this.code = Objects.requireNonNull(code, "The code is null.")
+                               .clone();
+
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("The name is empty.");
+            }
+
+            if (WordSize.of(code) != WordSize.INT) {
+                throw new IllegalArgumentException(
+                        "Only the modules with 32-bit words may be linked.");
+            }
+        }
+
+        /**
+         * Exports the code at {@code offset} under {@code symbol}.
+         *
+         * @param symbol the symbol name.
+         * @param offset the offset of the code within the module.
+         * @return this builder.
+         */
+        public Builder export(final String symbol, final int offset) {
+            checkSymbol(symbol);
+            checkOffset(offset, 1);
+
+            if (exports.putIfAbsent(symbol, offset) != null) {
+                throw new IllegalArgumentException(
+                        String.format("The symbol %s is exported twice.",
+                                      symbol));
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds the base address of the module to the word at
+         * {@code offset}.
+         *
+         * @param offset the offset of the word.
+         * @return this builder.
+         */
+        public Builder relocate(final int offset) {
+            checkOffset(offset, Integer.BYTES);
+            relocations.add(new Relocation(offset, null));
+            return this;
+        }
+
+        /**
+         * Adds the address of {@code symbol} to the word at {@code offset}.
+         *
+         * @param offset the offset of the word.
+         * @param symbol the symbol name.
+         * @return this builder.
+         */
+        public Builder relocate(final int offset, final String symbol) {
+            checkSymbol(symbol);
+            checkOffset(offset, Integer.BYTES);
+            relocations.add(new Relocation(offset, symbol));
+            return this;
+        }
+
+        public ProgramModule build() {
+            return new ProgramModule(name,
+                                     code.clone(),
+                                     new LinkedHashMap<>(exports),
+                                     new ArrayList<>(relocations));
+        }
+
+        private void checkOffset(final int offset, final int length) {
+            if (offset < 0 || offset > code.length - length) {
+                throw new IllegalArgumentException(
+                        String.format("offset(%d) + %d is not within "
+                                      + "[0, %d]",
+                                      offset,
+                                      length,
+                                      code.length));
+            }
+        }
+
+        private static void checkSymbol(final String symbol) {
+            Objects.requireNonNull(symbol, "The symbol is null.");
+
+            if (symbol.isEmpty()) {
+                throw new IllegalArgumentException("The symbol is empty.");
+            }
+        }
+    }
+
+    private final String name;
+    private final byte[] code;
+    private final Map<String, Integer> exports;
+    private final List<Relocation> relocations;
+
+    private ProgramModule(final String name,
+                          final byte[] code,
+                          final Map<String, Integer> exports,
+                          final List<Relocation> relocations) {
+        this.name = name;
+        this.code = code;
+        this.exports = Collections.unmodifiableMap(exports);
+        this.relocations = Collections.unmodifiableList(relocations);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a copy of the unrelocated code of this module.
+     *
+     * @return the code.
+     */
+    public byte[] getCode() {
+        return code.clone();
+    }
+
+    public int getCodeLength() {
+        return code.length;
+    }
+
+    /**
+     * Returns the exported symbols mapped to their offsets.
+     *
+     * @return the unmodifiable map of exports.
+     */
+    public Map<String, Integer> getExports() {
+        return exports;
+    }
+
+    public List<Relocation> getRelocations() {
+        return relocations;
+    }
+
+    /**
+     * Copies the code of this module to {@code image} at
+     * {@code baseAddress} and applies the relocations.
+     *
+     * @param image       the image to link the module into.
+     * @param baseAddress the base address of the module.
+     * @param symbols     the addresses of the symbols this module may refer
+     *                    to, its own exports included.
+     */
+    void relocateInto(final byte[] image,
+                      final int baseAddress,
+                      final Map<String, Integer> symbols) {
+        System.arraycopy(code, 0, image, baseAddress, code.length);
+
+        for (final Relocation relocation : relocations) {
+            final int address = baseAddress + relocation.getOffset();
+            final int addend;
+
+            if (relocation.isLocal()) {
+                addend = baseAddress;
+            } else {
+                final Integer symbolAddress =
+                        symbols.get(relocation.getSymbol());
+
+                if (symbolAddress == null) {
+                    throw new IllegalArgumentException(
+                            String.format("Module %s refers to the undefined "
+                                          + "symbol %s",
+                                          name,
+                                          relocation.getSymbol()));
+                }
+
+                addend = symbolAddress;
+            }
+
+            final byte[] word =
+                    CodeBuilder.intToBytes(
+                            SimpleStackMachine.wordAt(image, address)
+                            + addend);
+
+            System.arraycopy(word, 0, image, address, Integer.BYTES);
+        }
+    }
+
+    /**
+     * Encodes this module in the module format.
+     *
+     * @return the encoded module.
+     */
+    public byte[] toByteArray() {
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = 6 * Integer.BYTES + nameBytes.length + code.length;
+
+        for (final String symbol : exports.keySet()) {
+            length += 2 * Integer.BYTES
+                    + symbol.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        for (final Relocation relocation : relocations) {
+            length += 2 * Integer.BYTES
+                    + (relocation.isLocal()
+                       ? 0
+                       : relocation.getSymbol()
+                                   .getBytes(StandardCharsets.UTF_8).length);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(VERSION);
+        putString(buffer, name);
+        buffer.putInt(code.length).put(code).putInt(exports.size());
+
+        for (final Map.Entry<String, Integer> export : exports.entrySet()) {
+            putString(buffer, export.getKey());
+            buffer.putInt(export.getValue());
+        }
+
+        buffer.putInt(relocations.size());
+
+        for (final Relocation relocation : relocations) {
+            buffer.putInt(relocation.getOffset());
+            putString(buffer,
+                      relocation.isLocal() ? "" : relocation.getSymbol());
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a module from the remaining bytes of {@code buffer}.
+     *
+     * @param buffer the buffer holding the module.
+     * @return the decoded module.
+     */
+    public static ProgramModule fromBuffer(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "The buffer is null.");
+
+        final ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a program module.");
+            }
+
+            final int version = in.getInt();
+
+            if (version != VERSION) {
+                throw new IllegalArgumentException(
+                        String.format("Unsupported module version %d",
+                                      version));
+            }
+
+            final String name = getString(in);
+            final byte[] code = new byte[checkCount(in.getInt(), in)];
+            in.get(code);
+
+            final Builder builder = new Builder(name, code);
+            final int exportCount = checkCount(in.getInt(), in);
+
+            for (int i = 0; i < exportCount; ++i) {
+                builder.export(getString(in), in.getInt());
+            }
+
+            final int relocationCount = checkCount(in.getInt(), in);
+
+            for (int i = 0; i < relocationCount; ++i) {
+                final int offset = in.getInt();
+                final String symbol = getString(in);
+
+                if (symbol.isEmpty()) {
+                    builder.relocate(offset);
+                } else {
+                    builder.relocate(offset, symbol);
+                }
+            }
+
+            buffer.position(buffer.position() + in.position());
+            return builder.build();
+        } catch (final BufferUnderflowException ex) {
+            throw new IllegalArgumentException("The module is cut short.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d bytes, exports %s, relocations %s",
+                             name,
+                             code.length,
+                             exports,
+                             relocations);
+    }
+
+    private static void putString(final ByteBuffer buffer,
+                                  final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[checkCount(buffer.getInt(), buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rejects the negative counts and the lengths longer than the rest of the
+     * buffer before anything is allocated for them.
+     */
+    private static int checkCount(final int count, final ByteBuffer buffer) {
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid count %d in the module", count));
+        }
+
+        return count;
+    }
+}
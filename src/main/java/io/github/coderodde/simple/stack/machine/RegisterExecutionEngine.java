@@ -0,0 +1,236 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.RegisterProgram.RegisterBlock;
+import io.github.coderodde.simple.stack.machine.RegisterProgram.RegisterInstruction;
+import java.util.Arrays;
+
+/**
+ * This class implements an execution engine that translates the program on
+ * the tape into the register-based form of {@link RegisterProgram} and runs
+ * that instead of the stack bytecode. The output is identical to the one of
+ * {@link DefaultExecutionEngine}.
+ * <p>
+ * The translation is made once per loaded program and kept by the machine. 
+ * Since a block ends after each instruction writing to the tape, a program 
+ * overwriting its own code runs the new code: the machine drops the blocks 
+ * written over before the next block is entered. Writes of the other VM 
+ * threads are not tracked.
+ * <p>
+ * A block that would underflow the operand stack or exceed the instruction 
+ * budget is not entered; instead, its first instruction is executed by the 
+ * reference implementation, which raises the very same error the default 
+ * engine would.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class RegisterExecutionEngine implements ExecutionEngine {
+
+    public static final RegisterExecutionEngine INSTANCE =
+            new RegisterExecutionEngine();
+
+    private RegisterExecutionEngine() {
+
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        run(machine, machine.getRegisterProgram());
+    }
+
+    /**
+     * Runs the machine with an already translated program. From now on the
+     * machine keeps {@code program} up to date on tape writes, and 
+     * {@link #run(SimpleStackMachine)} reuses it until another program is 
+     * loaded.
+     *
+     * @param machine the target machine.
+     * @param program the translation of the tape of {@code machine}.
+     * @throws IllegalArgumentException if {@code program} is translated from
+     *                                  anything else than the tape of 
+     *                                  {@code machine}.
+     */
+    public void run(final SimpleStackMachine machine,
+                    final RegisterProgram program) {
+        machine.setRegisterProgram(program);
+        
+        final SimpleStackMachine.ProcessorFlags flags = machine.flags();
+
+        int[] stack = machine.getStackArray();
+        int sp = machine.getStackSize();
+        int ip = machine.getInstructionPointer();
+        int[] r = new int[Math.max(1, program.getMaximumRegisterCount())];
+
+        final long initialBudget = machine.getInstructionBudget();
+        long budget = initialBudget;
+
+        try {
+            blocks:
+            while (!machine.isStopRequested() && budget > 0L) {
+                final RegisterBlock block = program.blockAt(ip);
+
+                if (sp < block.requiredStackSize
+                        || budget < block.instructionCount
+                        || (block.readCount > 0 
+                                && !machine.hasInput(block.readCount))) {
+                    // Let the reference implementation raise the error or
+                    // spend the rest of the budget.
+                    --budget;
+                    machine.setStack(stack, sp);
+                    machine.setInstructionPointer(ip);
+                    machine.step();
+                    stack = machine.getStackArray();
+                    sp = machine.getStackSize();
+                    ip = machine.getInstructionPointer();
+
+                    if (machine.isWaiting()) {
+                        ++budget;
+                    }
+
+                    continue;
+                }
+
+                if (stack.length < sp + Math.max(0, block.stackDelta)) {
+                    stack = Arrays.copyOf(stack,
+                                          2 * (sp + block.stackDelta));
+                }
+
+                if (r.length < block.registerCount) {
+                    r = new int[block.registerCount];
+                }
+
+                final int sp0 = sp;
+                budget -= block.instructionCount;
+
+                for (final RegisterInstruction in : block.instructions) {
+                    switch (in.opcode) {
+                        case MOVI:
+                            r[in.dst] = in.imm;
+                            break;
+
+                        case LDIN:
+                            r[in.dst] = stack[sp0 - 1 - in.imm];
+                            break;
+
+                        case ADD:
+                            r[in.dst] = r[in.a] + r[in.b];
+                            break;
+
+                        case SUB:
+                            r[in.dst] = r[in.a] - r[in.b];
+                            break;
+
+                        case MUL:
+                            r[in.dst] = r[in.a] * r[in.b];
+                            break;
+
+                        case DIV:
+                            r[in.dst] = Opcodes.arithmetic(Opcodes.DIV,
+                                                           r[in.a],
+                                                           r[in.b]);
+                            break;
+
+                        case MOD:
+                            r[in.dst] = Opcodes.arithmetic(Opcodes.MOD,
+                                                           r[in.a],
+                                                           r[in.b]);
+                            break;
+
+                        case CMP:
+                            Opcodes.setComparisonFlags(
+                                    flags,
+                                    Integer.compare(r[in.a], r[in.b]));
+                            break;
+
+                        case SETFLAGS:
+                            Opcodes.setComparisonFlags(flags, in.imm);
+                            break;
+
+                        case LOADW:
+                            r[in.dst] = machine.readWordFromTape(r[in.a]);
+                            break;
+
+                        case STOREW:
+                            machine.writeWordToTape(r[in.a], r[in.b]);
+                            break;
+
+                        case PRINTI:
+                            machine.printLine(r[in.a]);
+                            break;
+
+                        case PRINTS:
+                            machine.printString(r[in.a], r[in.b]);
+                            break;
+
+                        case READI:
+                            r[in.dst] = machine.readInt();
+                            break;
+
+                        case READS:
+                            r[in.dst] = machine.readStringToTape(r[in.a],
+                                                                 r[in.b]);
+                            break;
+
+                        case STST:
+                            stack[sp0 + in.imm] = r[in.a];
+                            break;
+
+                        case STSTI:
+                            stack[sp0 + in.imm] = in.b;
+                            break;
+
+                        case GOTO:
+                            ip = in.imm;
+                            break;
+
+                        case BRANCH:
+                            ip = Opcodes.isJumpTaken((byte) in.a, flags)
+                                    ? in.imm
+                                    : in.b;
+                            break;
+
+                        case JUMPR:
+                            ip = r[in.a];
+                            break;
+
+                        case HALT:
+                            ip = in.imm;
+                            machine.requestHalt();
+                            break;
+
+                        case INTERPRET:
+                            machine.setStack(stack, sp0 + block.stackDelta);
+                            machine.setInstructionPointer(in.imm);
+                            machine.step();
+                            stack = machine.getStackArray();
+                            sp = machine.getStackSize();
+                            ip = machine.getInstructionPointer();
+
+                            if (machine.isWaiting()) {
+                                // The last instruction of the block.
+                                ++budget;
+                            }
+
+                            continue blocks;
+
+                        default:
+                            throw new IllegalStateException(
+                                    "Unknown register opcode: " + in.opcode);
+                    }
+                }
+
+                sp += block.stackDelta;
+            }
+        } catch (final ArrayIndexOutOfBoundsException ex) {
+            throw new StackMachineException(
+                    String.format("Tape access out of bounds in the block "
+                                  + "near address %d: %s",
+                                  ip,
+                                  ex.getMessage()));
+        } finally {
+            machine.setStack(stack, sp);
+            machine.setInstructionPointer(ip);
+            machine.chargeInstructions(initialBudget - budget);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class holds the register-based intermediate form of a stack program.
+ * The program is a collection of blocks, each keyed by the tape address of its
+ * first stack instruction. Within a block the operands live in virtual
+ * registers; the operand stack is only read for the values the block consumes
+ * from below its entry depth and only written once, at the block exit, for
+ * the values the block leaves behind.
+ * <p>
+ * Blocks not discovered by the translator up front (targets of computed
+ * jumps, for example) are translated the first time they are entered. A block
+ * whose code is overwritten is dropped via {@link #invalidate(int, int)} and
+ * translated again on its next entry.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class RegisterProgram {
+
+    /**
+     * The opcodes of the register-based intermediate form. In the comments
+     * below {@code sp0} denotes the operand stack size at the block entry.
+     */
+    enum RegisterOpcode {
+
+        /** {@code r[dst] = imm} */
+        MOVI,
+
+        /** {@code r[dst] = stack[sp0 - 1 - imm]} */
+        LDIN,
+
+        /** {@code r[dst] = r[a] op r[b]} */
+        ADD, SUB, MUL, DIV, MOD,
+
+        /** Sets the flags from comparing {@code r[a]} to {@code r[b]}. */
+        CMP,
+
+        /** Sets the flags from the constant comparison result {@code imm}. */
+        SETFLAGS,
+
+        /** {@code r[dst] = tape word at r[a]} */
+        LOADW,
+
+        /** Stores the word {@code r[b]} at tape address {@code r[a]}. */
+        STOREW,
+
+        /** Prints {@code r[a]}. */
+        PRINTI,
+
+        /** Prints the {@code r[b]} bytes at tape address {@code r[a]}. */
+        PRINTS,
+
+        /** Reads a number to {@code r[dst]}. */
+        READI,
+
+        /**
+         * Reads a line into the buffer at {@code r[a]} of length {@code r[b]}
+         * and puts the result into {@code r[dst]}.
+         */
+        READS,
+
+        /** {@code stack[sp0 + imm] = r[a]} */
+        STST,
+
+        /** {@code stack[sp0 + imm] = b} */
+        STSTI,
+
+        /** Exit: continue at the address {@code imm}. */
+        GOTO,
+
+        /**
+         * Exit: continue at {@code imm} if the conditional jump {@code a}
+         * (a stack opcode) is taken, otherwise at {@code b}.
+         */
+        BRANCH,
+
+        /** Exit: continue at the address {@code r[a]}. */
+        JUMPR,
+
+        /** Exit: halt with the instruction pointer at {@code imm}. */
+        HALT,
+
+        /**
+         * Exit: execute the stack instruction at {@code imm} with the
+         * reference implementation.
+         */
+        INTERPRET;
+    }
+
+    /**
+     * A single register instruction.
+     */
+    static final class RegisterInstruction {
+
+        final RegisterOpcode opcode;
+        final int dst;
+        final int a;
+        final int b;
+        final int imm;
+
+        RegisterInstruction(final RegisterOpcode opcode,
+                            final int dst,
+                            final int a,
+                            final int b,
+                            final int imm) {
+            this.opcode = opcode;
+            this.dst = dst;
+            this.a = a;
+            this.b = b;
+            this.imm = imm;
+        }
+
+        @Override
+        public String toString() {
+            switch (opcode) {
+                case MOVI:     return String.format("r%d = %d", dst, imm);
+                case LDIN:     return String.format("r%d = in[%d]", dst, imm);
+                case ADD:
+                case SUB:
+                case MUL:
+                case DIV:
+                case MOD:      return String.format("r%d = %s r%d, r%d",
+                                                    dst,
+                                                    opcode.name().toLowerCase(),
+                                                    a,
+                                                    b);
+                case CMP:      return String.format("cmp r%d, r%d", a, b);
+                case SETFLAGS: return String.format("setflags %d", imm);
+                case LOADW:    return String.format("r%d = [r%d]", dst, a);
+                case STOREW:   return String.format("[r%d] = r%d", a, b);
+                case PRINTI:   return String.format("iout r%d", a);
+                case PRINTS:   return String.format("sout r%d, r%d", a, b);
+                case READI:    return String.format("r%d = iin", dst);
+                case READS:    return String.format("r%d = sin r%d, r%d",
+                                                    dst,
+                                                    a,
+                                                    b);
+                case STST:     return String.format("out[%d] = r%d", imm, a);
+                case STSTI:    return String.format("out[%d] = %d", imm, b);
+                case GOTO:     return String.format("goto %d", imm);
+                case BRANCH:   return String.format("%s %d else %d",
+                                                    Operation.getOperation(
+                                                            (byte) a)
+                                                            .getOperationName(),
+                                                    imm,
+                                                    b);
+                case JUMPR:    return String.format("goto r%d", a);
+                case HALT:     return "halt";
+                case INTERPRET:return String.format("interpret %d", imm);
+                default:       return opcode.name();
+            }
+        }
+    }
+
+    /**
+     * A translated block. Its last instruction is always an exit.
+     */
+    static final class RegisterBlock {
+
+        /**
+         * The tape address of the first stack instruction of this block.
+         */
+        final int address;
+
+        /**
+         * The address past the last byte of code this block was translated
+         * from.
+         */
+        final int endAddress;
+
+        /**
+         * The instructions; the last one is an exit.
+         */
+        final RegisterInstruction[] instructions;
+
+        /**
+         * The number of virtual registers this block uses.
+         */
+        final int registerCount;
+
+        /**
+         * The number of stack instructions this block stands for.
+         */
+        final int instructionCount;
+
+        /**
+         * The minimum operand stack size required at the block entry.
+         */
+        final int requiredStackSize;
+
+        /**
+         * The change in the operand stack size after the block.
+         */
+        final int stackDelta;
+
+        /**
+         * The number of {@code READ_INT} and {@code READ_STRING} instructions
+         * in this block.
+         */
+        final int readCount;
+
+        RegisterBlock(final int address,
+                      final int endAddress,
+                      final RegisterInstruction[] instructions,
+                      final int registerCount,
+                      final int instructionCount,
+                      final int requiredStackSize,
+                      final int stackDelta,
+                      final int readCount) {
+            this.address = address;
+            this.endAddress = endAddress;
+            this.instructions = instructions;
+            this.registerCount = registerCount;
+            this.instructionCount = instructionCount;
+            this.requiredStackSize = requiredStackSize;
+            this.stackDelta = stackDelta;
+            this.readCount = readCount;
+        }
+    }
+
+    private final byte[] code;
+    private final RegisterBlock[] blocks;
+
+    /**
+     * Marks the bytes some block has been translated from. The marks are not
+     * cleared when blocks are dropped, so a write may find no block to drop.
+     */
+    private final boolean[] translated;
+    private int maximumRegisterCount;
+
+    RegisterProgram(final byte[] code) {
+        this.code = code;
+        this.blocks = new RegisterBlock[code.length];
+        this.translated = new boolean[code.length];
+    }
+
+    /**
+     * Returns the block starting at {@code address}, translating it first if
+     * needed.
+     *
+     * @param address the tape address of the block.
+     * @return the block.
+     */
+    RegisterBlock blockAt(final int address) {
+        if (address < 0 || address >= blocks.length) {
+            throw new StackMachineException(
+                    String.format("Jump target %d is outside of the tape.",
+                                  address));
+        }
+
+        RegisterBlock block = blocks[address];
+
+        if (block == null) {
+            block = RegisterTranslator.translateBlock(code, address);
+            blocks[address] = block;
+            Arrays.fill(translated, address, block.endAddress, true);
+            maximumRegisterCount = Math.max(maximumRegisterCount,
+                                            block.registerCount);
+        }
+
+        return block;
+    }
+
+    /**
+     * Drops the blocks translated from any of the bytes in
+     * {@code [address, address + length)}, which have just been overwritten.
+     * The dropped blocks are translated again the next time they are entered.
+     *
+     * @param address the start address of the written range.
+     * @param length  the length of the written range in bytes.
+     */
+    void invalidate(final int address, final int length) {
+        final int end = Math.min(code.length, address + length);
+        int i = Math.max(0, address);
+
+        while (i < end && !translated[i]) {
+            ++i;
+        }
+
+        if (i == end) {
+            return;
+        }
+
+        final int firstStart =
+                Math.max(0, address - RegisterTranslator.MAXIMUM_BLOCK_SPAN);
+
+        for (int start = firstStart; start < end; ++start) {
+            final RegisterBlock block = blocks[start];
+
+            if (block != null && block.endAddress > address) {
+                blocks[start] = null;
+            }
+        }
+    }
+
+    /**
+     * Tells whether this program is a translation of {@code code}.
+     *
+     * @param code the code to check.
+     * @return {@code true} if the blocks are translated from {@code code}.
+     */
+    boolean isTranslationOf(final byte[] code) {
+        return this.code == code;
+    }
+
+    boolean containsBlockAt(final int address) {
+        return blocks[address] != null;
+    }
+
+    int getMaximumRegisterCount() {
+        return maximumRegisterCount;
+    }
+
+    /**
+     * Returns the number of blocks translated so far.
+     *
+     * @return the number of blocks.
+     */
+    public int getBlockCount() {
+        int blockCount = 0;
+
+        for (final RegisterBlock block : blocks) {
+            if (block != null) {
+                ++blockCount;
+            }
+        }
+
+        return blockCount;
+    }
+
+    /**
+     * Returns the number of register instructions in the blocks translated so
+     * far.
+     *
+     * @return the number of register instructions.
+     */
+    public int getInstructionCount() {
+        int instructionCount = 0;
+
+        for (final RegisterBlock block : blocks) {
+            if (block != null) {
+                instructionCount += block.instructions.length;
+            }
+        }
+
+        return instructionCount;
+    }
+
+    @Override
+    public String toString() {
+        final List<String> lines = new ArrayList<>();
+
+        for (final RegisterBlock block : blocks) {
+            if (block == null) {
+                continue;
+            }
+
+            lines.add(String.format("block %d (requires %d, delta %d):",
+                                    block.address,
+                                    block.requiredStackSize,
+                                    block.stackDelta));
+
+            for (final RegisterInstruction instruction : block.instructions) {
+                lines.add("    " + instruction);
+            }
+        }
+
+        return String.join(System.lineSeparator(), lines);
+    }
+}
@@ -0,0 +1,518 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.RegisterProgram.RegisterBlock;
+import io.github.coderodde.simple.stack.machine.RegisterProgram.RegisterInstruction;
+import io.github.coderodde.simple.stack.machine.RegisterProgram.RegisterOpcode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class translates stack bytecode into the register-based intermediate
+ * form of {@link RegisterProgram}.
+ * <p>
+ * Each block is translated by evaluating it symbolically: the operand stack is
+ * replaced by a stack of symbolic values, each being a constant, a virtual
+ * register or an entry the block consumes from below its entry depth. As a
+ * result, {@code PUSH}, {@code DUP}, {@code SWAP} and {@code POP} emit no code
+ * at all, arithmetic on constants is folded, a {@code CMP} on constants
+ * resolves the following conditional jump and values pushed only to be popped
+ * are dropped. Only the values left on the stack at the block exit are
+ * written back.
+ * <p>
+ * The blocks embed the {@code PUSH} operands as constants. So that a program
+ * overwriting its own code sees the new instructions, every block writing to
+ * the tape, through {@code STORE} or {@code READ_STRING}, ends right after the
+ * write; the engine drops the overwritten blocks before the next one is
+ * entered.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class RegisterTranslator {
+
+    /**
+     * The maximum number of stack instructions in a single block.
+     */
+    private static final int MAXIMUM_BLOCK_LENGTH = 256;
+
+    /**
+     * The maximum number of code bytes a single block is translated from.
+     */
+    static final int MAXIMUM_BLOCK_SPAN =
+            MAXIMUM_BLOCK_LENGTH * (1 + Integer.BYTES);
+
+    private RegisterTranslator() {
+
+    }
+
+    /**
+     * Translates all the blocks reachable from {@code entryAddress} through
+     * the jump targets known at translation time.
+     *
+     * @param code         the program code.
+     * @param entryAddress the address to start translating from.
+     * @return the translated program.
+     */
+    public static RegisterProgram translate(final byte[] code,
+                                            final int entryAddress) {
+        Objects.requireNonNull(code, "The input code is null.");
+
+        final RegisterProgram program = new RegisterProgram(code);
+        final Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.add(entryAddress);
+
+        while (!worklist.isEmpty()) {
+            final int address = worklist.remove();
+
+            if (address < 0
+                    || address >= code.length
+                    || program.containsBlockAt(address)) {
+                continue;
+            }
+
+            final RegisterBlock block = program.blockAt(address);
+            final RegisterInstruction exit =
+                    block.instructions[block.instructions.length - 1];
+
+            switch (exit.opcode) {
+                case GOTO:
+                    worklist.add(exit.imm);
+                    break;
+
+                case BRANCH:
+                    worklist.add(exit.imm);
+                    worklist.add(exit.b);
+                    break;
+
+                default:
+            }
+
+            // The return site of a trailing CALL is entered through RET.
+            final int callSite = lastInstructionAddress(code, address);
+
+            if (callSite >= 0 && code[callSite] == Opcodes.CALL) {
+                worklist.add(callSite + 1 + Integer.BYTES);
+            }
+        }
+
+        return program;
+    }
+
+    /**
+     * Translates the single block starting at {@code address}.
+     *
+     * @param code    the program code.
+     * @param address the address of the first stack instruction.
+     * @return the translated block.
+     */
+    static RegisterBlock translateBlock(final byte[] code, final int address) {
+        return new BlockTranslation(code, address).translate();
+    }
+
+    private static int lastInstructionAddress(final byte[] code,
+                                              final int address) {
+        int current = address;
+        int last = -1;
+
+        for (int i = 0; i < MAXIMUM_BLOCK_LENGTH; ++i) {
+            if (current >= code.length) {
+                return -1;
+            }
+
+            final byte opcode = code[current];
+            last = current;
+
+            if (Opcodes.endsBasicBlock(opcode)) {
+                return last;
+            }
+
+            current += Opcodes.instructionLength(opcode);
+        }
+
+        return last;
+    }
+
+    /**
+     * A symbolic operand stack entry.
+     */
+    private static final class Value {
+
+        static final int CONSTANT = 0;
+        static final int REGISTER = 1;
+        static final int INPUT    = 2;
+
+        final int kind;
+
+        /**
+         * The constant, the register index or the input depth, respectively.
+         */
+        final int payload;
+
+        Value(final int kind, final int payload) {
+            this.kind = kind;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * The state of the translation of a single block.
+     */
+    private static final class BlockTranslation {
+
+        private final byte[] code;
+        private final int startAddress;
+        private int endAddress;
+        private final List<RegisterInstruction> instructions =
+                new ArrayList<>();
+
+        private final List<Value> stack = new ArrayList<>();
+        private final Map<Integer, Integer> inputRegisters = new HashMap<>();
+        private int registerCount;
+        private int consumedInputs;
+        private int instructionCount;
+        private int readCount;
+
+        /**
+         * The comparison result of the latest {@code CMP} of this block, or
+         * {@code null} if not known at translation time.
+         */
+        private Integer knownComparison;
+
+        BlockTranslation(final byte[] code, final int startAddress) {
+            this.code = code;
+            this.startAddress = startAddress;
+            this.endAddress = startAddress;
+        }
+
+        RegisterBlock translate() {
+            int address = startAddress;
+
+            while (true) {
+                if (instructionCount == MAXIMUM_BLOCK_LENGTH) {
+                    return exit(RegisterOpcode.GOTO, 0, address);
+                }
+
+                final byte opcode = code[address];
+                endAddress = address + 1;
+
+                if (Operation.getOperation(opcode) == null
+                        || address + Opcodes.instructionLength(opcode)
+                           >= code.length) {
+                    // Let the reference implementation raise the error.
+                    ++instructionCount;
+                    return exit(RegisterOpcode.INTERPRET, 0, address);
+                }
+
+                final int next = address + Opcodes.instructionLength(opcode);
+                endAddress = next;
+                ++instructionCount;
+
+                switch (opcode) {
+                    case Opcodes.NOP:
+                        break;
+
+                    case Opcodes.PUSH:
+                    case Opcodes.CONST:
+                        push(constant(SimpleStackMachine.wordAt(code,
+                                                                address + 1)));
+                        break;
+
+                    case Opcodes.POP:
+                        pop();
+                        break;
+
+                    case Opcodes.LOAD: {
+                        final int a = materialize(pop());
+                        final int dst = newRegister();
+                        emit(RegisterOpcode.LOADW, dst, a, 0, 0);
+                        push(register(dst));
+                        break;
+                    }
+
+                    case Opcodes.STORE: {
+                        final int a = materialize(pop());
+                        final int b = materialize(pop());
+                        emit(RegisterOpcode.STOREW, 0, a, b, 0);
+                        return exit(RegisterOpcode.GOTO, 0, next);
+                    }
+
+                    case Opcodes.ADD:
+                    case Opcodes.SUB:
+                    case Opcodes.MUL:
+                    case Opcodes.DIV:
+                    case Opcodes.MOD:
+                        translateArithmetic(opcode);
+                        break;
+
+                    case Opcodes.DUP: {
+                        final Value value = pop();
+                        push(value);
+                        push(value);
+                        break;
+                    }
+
+                    case Opcodes.SWAP: {
+                        final Value top = pop();
+                        final Value second = pop();
+                        push(top);
+                        push(second);
+                        break;
+                    }
+
+                    case Opcodes.CMP: {
+                        final Value top = pop();
+                        final Value second = pop();
+
+                        if (top.kind == Value.CONSTANT
+                                && second.kind == Value.CONSTANT) {
+                            knownComparison = Integer.compare(top.payload,
+                                                              second.payload);
+                            emit(RegisterOpcode.SETFLAGS,
+                                 0,
+                                 0,
+                                 0,
+                                 knownComparison);
+                        } else {
+                            knownComparison = null;
+                            emit(RegisterOpcode.CMP,
+                                 0,
+                                 materialize(top),
+                                 materialize(second),
+                                 0);
+                        }
+
+                        break;
+                    }
+
+                    case Opcodes.JMP:
+                    case Opcodes.RET:
+                        return jumpTo(pop());
+
+                    case Opcodes.CALL: {
+                        final Value target = pop();
+                        push(constant(next));
+                        return jumpTo(target);
+                    }
+
+                    case Opcodes.PRINT_INT:
+                        emit(RegisterOpcode.PRINTI, 0, materialize(pop()), 0, 0);
+                        break;
+
+                    case Opcodes.PRINT_STRING: {
+                        final int length = materialize(pop());
+                        final int start = materialize(pop());
+                        emit(RegisterOpcode.PRINTS, 0, start, length, 0);
+                        break;
+                    }
+
+                    case Opcodes.READ_INT: {
+                        final int dst = newRegister();
+                        emit(RegisterOpcode.READI, dst, 0, 0, 0);
+                        ++readCount;
+                        push(register(dst));
+                        break;
+                    }
+
+                    case Opcodes.READ_STRING: {
+                        final int length = materialize(pop());
+                        final int start = materialize(pop());
+                        final int dst = newRegister();
+                        emit(RegisterOpcode.READS, dst, start, length, 0);
+                        ++readCount;
+                        push(register(dst));
+                        return exit(RegisterOpcode.GOTO, 0, next);
+                    }
+
+                    case Opcodes.HALT:
+                        return exit(RegisterOpcode.HALT, 0, next);
+
+                    default:
+                        if (Opcodes.isConditionalJump(opcode)) {
+                            final int target = SimpleStackMachine.wordAt(
+                                    code,
+                                    address + 1);
+
+                            if (knownComparison != null) {
+                                return exit(
+                                        RegisterOpcode.GOTO,
+                                        0,
+                                        Opcodes.isJumpTakenAfterCompare(
+                                                opcode,
+                                                knownComparison) ? target
+                                                                 : next);
+                            }
+
+                            writeBack();
+                            emit(RegisterOpcode.BRANCH, 0, opcode, next, target);
+                            return build();
+                        }
+
+                        return exit(RegisterOpcode.INTERPRET, 0, address);
+                }
+
+                address = next;
+            }
+        }
+
+        private void translateArithmetic(final byte opcode) {
+            final Value top = pop();
+            final Value second = pop();
+
+            if (top.kind == Value.CONSTANT
+                    && second.kind == Value.CONSTANT
+                    && !((opcode == Opcodes.DIV || opcode == Opcodes.MOD)
+                         && second.payload == 0)) {
+                push(constant(Opcodes.arithmetic(opcode,
+                                                 top.payload,
+                                                 second.payload)));
+                return;
+            }
+
+            final int a = materialize(top);
+            final int b = materialize(second);
+            final int dst = newRegister();
+            final RegisterOpcode registerOpcode;
+
+            switch (opcode) {
+                case Opcodes.ADD: registerOpcode = RegisterOpcode.ADD; break;
+                case Opcodes.SUB: registerOpcode = RegisterOpcode.SUB; break;
+                case Opcodes.MUL: registerOpcode = RegisterOpcode.MUL; break;
+                case Opcodes.DIV: registerOpcode = RegisterOpcode.DIV; break;
+                default:          registerOpcode = RegisterOpcode.MOD; break;
+            }
+
+            emit(registerOpcode, dst, a, b, 0);
+            push(register(dst));
+        }
+
+        private RegisterBlock jumpTo(final Value target) {
+            if (target.kind == Value.CONSTANT) {
+                return exit(RegisterOpcode.GOTO, 0, target.payload);
+            }
+
+            final int a = materialize(target);
+            writeBack();
+            emit(RegisterOpcode.JUMPR, 0, a, 0, 0);
+            return build();
+        }
+
+        private RegisterBlock exit(final RegisterOpcode opcode,
+                                   final int a,
+                                   final int imm) {
+            writeBack();
+            emit(opcode, 0, a, 0, imm);
+            return build();
+        }
+
+        /**
+         * Emits the stores of the values left on the symbolic stack. All the
+         * inputs needed are loaded to registers before the first store so that
+         * no store clobbers an input still to be read.
+         */
+        private void writeBack() {
+            final int[] sources = new int[stack.size()];
+
+            for (int i = 0; i < stack.size(); ++i) {
+                final Value value = stack.get(i);
+                final int offset = i - consumedInputs;
+
+                if (value.kind == Value.INPUT && -1 - value.payload == offset) {
+                    sources[i] = -1; // Already in place.
+                } else if (value.kind == Value.CONSTANT) {
+                    sources[i] = -2;
+                } else {
+                    sources[i] = materialize(value);
+                }
+            }
+
+            for (int i = 0; i < stack.size(); ++i) {
+                final int offset = i - consumedInputs;
+
+                if (sources[i] == -2) {
+                    emit(RegisterOpcode.STSTI,
+                         0,
+                         0,
+                         stack.get(i).payload,
+                         offset);
+                } else if (sources[i] >= 0) {
+                    emit(RegisterOpcode.STST, 0, sources[i], 0, offset);
+                }
+            }
+        }
+
+        private RegisterBlock build() {
+            return new RegisterBlock(
+                    startAddress,
+                    endAddress,
+                    instructions.toArray(new RegisterInstruction[0]),
+                    registerCount,
+                    instructionCount,
+                    consumedInputs,
+                    stack.size() - consumedInputs,
+                    readCount);
+        }
+
+        private Value pop() {
+            if (stack.isEmpty()) {
+                return new Value(Value.INPUT, consumedInputs++);
+            }
+
+            return stack.remove(stack.size() - 1);
+        }
+
+        private void push(final Value value) {
+            stack.add(value);
+        }
+
+        private int materialize(final Value value) {
+            switch (value.kind) {
+                case Value.REGISTER:
+                    return value.payload;
+
+                case Value.CONSTANT: {
+                    final int dst = newRegister();
+                    emit(RegisterOpcode.MOVI, dst, 0, 0, value.payload);
+                    return dst;
+                }
+
+                default: {
+                    final Integer cached = inputRegisters.get(value.payload);
+
+                    if (cached != null) {
+                        return cached;
+                    }
+
+                    final int dst = newRegister();
+                    emit(RegisterOpcode.LDIN, dst, 0, 0, value.payload);
+                    inputRegisters.put(value.payload, dst);
+                    return dst;
+                }
+            }
+        }
+
+        private int newRegister() {
+            return registerCount++;
+        }
+
+        private void emit(final RegisterOpcode opcode,
+                          final int dst,
+                          final int a,
+                          final int b,
+                          final int imm) {
+            instructions.add(new RegisterInstruction(opcode, dst, a, b, imm));
+        }
+
+        private static Value constant(final int value) {
+            return new Value(Value.CONSTANT, value);
+        }
+
+        private static Value register(final int register) {
+            return new Value(Value.REGISTER, register);
+        }
+    }
+}
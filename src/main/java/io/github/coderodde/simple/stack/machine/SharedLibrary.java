@@ -0,0 +1,253 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class implements a library module loaded once per process. Loading
+ * relocates the module to its fixed base address, verifies it and decodes
+ * its exported code into basic blocks. The loaded library is immutable and
+ * shared by every program linked with it on every machine: linking copies
+ * its relocated bytes, and the control-flow graph of the program takes over
+ * its blocks instead of decoding them again.
+ * <p>
+ * The libraries are registered by their module names. Loading a module whose
+ * name is already registered returns the registered library if the module,
+ * the base address and the dependencies are the same.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class SharedLibrary {
+
+    /**
+     * The libraries loaded in this process, by their module names.
+     */
+    private static final ConcurrentMap<String, SharedLibrary> LOADED =
+            new ConcurrentHashMap<>();
+
+    private final ProgramModule module;
+    private final int baseAddress;
+    private final int endAddress;
+    private final List<SharedLibrary> dependencies;
+
+    /**
+     * This library and all its dependencies, direct or not.
+     */
+    private final List<SharedLibrary> closure;
+
+    /**
+     * The exported symbols mapped to their addresses.
+     */
+    private final Map<String, Integer> exports;
+
+    /**
+     * A tape image holding the relocated code of this library at its base
+     * address.
+     */
+    private final byte[] image;
+
+    private final ControlFlowGraph cfg;
+
+    private SharedLibrary(final ProgramModule module,
+                          final int baseAddress,
+                          final List<SharedLibrary> dependencies) {
+        this.module = module;
+        this.baseAddress = baseAddress;
+        this.endAddress = baseAddress + module.getCodeLength();
+        this.dependencies = dependencies;
+
+        if (baseAddress < 0
+                || endAddress > SimpleStackMachine.TAPE_LENGTH_IN_BYTES) {
+            throw new IllegalArgumentException(
+                    String.format("Library %s at [%d, %d) does not fit on "
+                                  + "the tape",
+                                  module.getName(),
+                                  baseAddress,
+                                  endAddress));
+        }
+
+        if (module.getExports().isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format("Library %s exports nothing",
+                                  module.getName()));
+        }
+
+        final Map<String, SharedLibrary> libraries = new LinkedHashMap<>();
+
+        for (final SharedLibrary dependency : dependencies) {
+            for (final SharedLibrary library : dependency.closure) {
+                libraries.putIfAbsent(library.getName(), library);
+            }
+        }
+
+        if (libraries.containsKey(module.getName())) {
+            throw new IllegalArgumentException(
+                    String.format("Library %s depends on itself",
+                                  module.getName()));
+        }
+
+        final Map<String, Integer> addresses = new HashMap<>();
+        final Map<String, Integer> ownExports = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, Integer> export
+                : module.getExports().entrySet()) {
+            ownExports.put(export.getKey(), baseAddress + export.getValue());
+        }
+
+        for (final SharedLibrary library : libraries.values()) {
+            Linker.checkDisjoint(module.getName(),
+                                 baseAddress,
+                                 endAddress,
+                                 library);
+            Linker.addSymbols(addresses, library);
+        }
+
+        // The own exports take precedence over those of the dependencies.
+        addresses.putAll(ownExports);
+
+        this.exports = Collections.unmodifiableMap(ownExports);
+        this.image = new byte[SimpleStackMachine.TAPE_LENGTH_IN_BYTES];
+        module.relocateInto(image, baseAddress, addresses);
+
+        final List<SharedLibrary> closureList =
+                new ArrayList<>(libraries.values());
+
+        this.cfg = ControlFlowGraph.build(
+                image,
+                ownExports.values().stream()
+                                   .mapToInt(Integer::intValue)
+                                   .toArray(),
+                closureList);
+
+        Linker.verify(cfg,
+                      image,
+                      baseAddress,
+                      endAddress,
+                      module.getName(),
+                      addresses.values());
+
+        closureList.add(this);
+        this.closure = Collections.unmodifiableList(closureList);
+    }
+
+    /**
+     * Loads {@code module} as a library at {@code baseAddress}, or returns
+     * the library already loaded from it.
+     *
+     * @param module       the library module.
+     * @param baseAddress  the address to place the library at.
+     * @param dependencies the libraries the module refers to.
+     * @return the loaded library.
+     */
+    public static SharedLibrary load(final ProgramModule module,
+                                     final int baseAddress,
+                                     final SharedLibrary... dependencies) {
+        Objects.requireNonNull(module, "The module is null.");
+        Objects.requireNonNull(dependencies, "The dependencies are null.");
+
+        final List<SharedLibrary> dependencyList =
+                List.of(dependencies.clone());
+
+        final SharedLibrary library =
+                LOADED.computeIfAbsent(
+                        module.getName(),
+                        name -> new SharedLibrary(module,
+                                                  baseAddress,
+                                                  dependencyList));
+
+        if (library.baseAddress != baseAddress
+                || !library.dependencies.equals(dependencyList)
+                || (library.module != module
+                    && !Arrays.equals(library.module.toByteArray(),
+                                      module.toByteArray()))) {
+            throw new IllegalStateException(
+                    String.format("Another library %s is already loaded at "
+                                  + "%d",
+                                  library.getName(),
+                                  library.baseAddress));
+        }
+
+        return library;
+    }
+
+    /**
+     * Returns the library loaded from the module named {@code name}.
+     *
+     * @param name the module name.
+     * @return the library, or {@code null} if none is loaded.
+     */
+    public static SharedLibrary getLoaded(final String name) {
+        return LOADED.get(Objects.requireNonNull(name, "The name is null."));
+    }
+
+    public String getName() {
+        return module.getName();
+    }
+
+    public ProgramModule getModule() {
+        return module;
+    }
+
+    public int getBaseAddress() {
+        return baseAddress;
+    }
+
+    /**
+     * Returns the address right after the code of this library.
+     */
+    public int getEndAddress() {
+        return endAddress;
+    }
+
+    public List<SharedLibrary> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the exported symbols mapped to their addresses.
+     *
+     * @return the unmodifiable map of exports.
+     */
+    public Map<String, Integer> getExports() {
+        return exports;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s at [%d, %d)",
+                             getName(),
+                             baseAddress,
+                             endAddress);
+    }
+
+    /**
+     * Returns this library and all its dependencies, the dependencies first.
+     */
+    List<SharedLibrary> getClosure() {
+        return closure;
+    }
+
+    ControlFlowGraph getControlFlowGraph() {
+        return cfg;
+    }
+
+    /**
+     * Copies the relocated code of this library to {@code tapeImage}.
+     */
+    void copyTo(final byte[] tapeImage) {
+        System.arraycopy(image,
+                         baseAddress,
+                         tapeImage,
+                         baseAddress,
+                         endAddress - baseAddress);
+    }
+}
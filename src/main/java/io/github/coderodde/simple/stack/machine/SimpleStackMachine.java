@@ -1,19 +1,96 @@
 package io.github.coderodde.simple.stack.machine;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class implements the actual stack virtual machine.
  *
- * @version 1.1.0 (Jul 3, 2025)
+ * @version 1.2.0 (Oct 18, 2026)
  * @since 1.0.0 (Jul 3, 2025)
  */
 public class SimpleStackMachine {
 
-    private final Scanner scanner = new Scanner(System.in);
+    /**
+     * The initial capacity of the operand stack array.
+     */
+    private static final int INITIAL_STACK_CAPACITY = 64;
+    
+    /**
+     * The largest port a channel may be attached to.
+     */
+    public static final int MAXIMUM_CHANNEL_PORT = 255;
+    
+    private final Scanner scanner;
+    
+    private final PrintStream out;
+    
+    public SimpleStackMachine() {
+        this(System.in, System.out);
+    }
+    
+    public SimpleStackMachine(final InputStream in, final PrintStream out) {
+        this(in, out, TAPE_LENGTH_IN_BYTES);
+    }
+    
+    /**
+     * Constructs a machine with a tape of {@code tapeLength} bytes. The 
+     * length must be a positive multiple of 
+     * {@link MachineSnapshot#PAGE_SIZE} so that the machine may be 
+     * snapshotted.
+     * 
+     * @param in         the input stream.
+     * @param out        the output stream.
+     * @param tapeLength the tape length in bytes.
+     */
+    public SimpleStackMachine(final InputStream in, 
+                              final PrintStream out,
+                              final int tapeLength) {
+        this.scanner = 
+                new Scanner(Objects.requireNonNull(in, 
+                                                   "The input stream is null."));
+        this.out = Objects.requireNonNull(out, "The output stream is null.");
+        
+        if (tapeLength <= 0 || tapeLength % MachineSnapshot.PAGE_SIZE != 0) {
+            throw new IllegalArgumentException(
+                    String.format("tapeLength(%d) is not a positive multiple "
+                                  + "of %d",
+                                  tapeLength,
+                                  MachineSnapshot.PAGE_SIZE));
+        }
+        
+        this.tape = new byte[tapeLength];
+        this.threadId = 0;
+        MachineMetrics.INSTANCE.machineCreated();
+    }
+    
+    /**
+     * Constructs a VM thread of {@code parent}, sharing its tape, streams, 
+     * intrinsics and thread group.
+     * 
+     * @param parent   the machine spawning the thread.
+     * @param threadId the ID of the new thread.
+     */
+    private SimpleStackMachine(final SimpleStackMachine parent, 
+                               final int threadId) {
+        this.scanner = parent.scanner;
+        this.out = parent.out;
+        this.tape = parent.tape;
+        this.threadId = threadId;
+        this.intrinsicRegistry = parent.intrinsicRegistry;
+        this.intrinsics = parent.intrinsics;
+        this.threadPool = parent.threadPool;
+        this.threadGroup = parent.threadGroup;
+        this.channels = parent.channels;
+        MachineMetrics.INSTANCE.machineCreated();
+    }
 
     int getInstructionPointer() {
         return instructionPointer;
@@ -25,21 +102,64 @@ public class SimpleStackMachine {
 
     int top() {
         requireStackSize(1);
-        return stack.element();
+        return stack[stackSize - 1];
     }
 
     int pop() {
-        return stack.pop();
+        requireStackSize(1);
+        return stack[--stackSize];
     }
 
     void push(final int datum) {
-        stack.push(datum);
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * stack.length);
+        }
+        
+        stack[stackSize++] = datum;
+    }
+    
+    /**
+     * Returns the backing array of the operand stack. Only the first 
+     * {@link #getStackSize()} entries are meaningful, the last of them being 
+     * the top of the stack.
+     * 
+     * @return the operand stack array.
+     */
+    int[] getStackArray() {
+        return stack;
+    }
+    
+    int getStackSize() {
+        return stackSize;
+    }
+    
+    /**
+     * Installs a new operand stack. Used by the execution engines that keep 
+     * the stack in local variables while running.
+     * 
+     * @param stack     the new backing array.
+     * @param stackSize the number of valid entries in {@code stack}.
+     */
+    void setStack(final int[] stack, final int stackSize) {
+        this.stack = stack;
+        this.stackSize = stackSize;
+    }
+    
+    /**
+     * Returns the state of the 64-bit mode, or {@code null} if no program 
+     * declaring {@link WordSize#LONG} has been loaded.
+     * 
+     * @return the 64-bit mode state.
+     */
+    WideMode getWideMode() {
+        return wideMode;
     }
 
     /**
-     * The length of the memory tape in bytes. Effectively, 16 kilobytes.
+     * The default length of the memory tape in bytes. Effectively, 16 
+     * kilobytes.
      */
-    private static final int TAPE_LENGTH_IN_BYTES = 16 * 1024;
+    static final int TAPE_LENGTH_IN_BYTES = 16 * 1024;
 
     /**
      * This inner static class models all the processor flags.
@@ -105,6 +225,39 @@ public class SimpleStackMachine {
             zeroFlag = false;
             notZeroFlag = false;
         }
+        
+        /**
+         * Packs the flags into the lowest eight bits of an integer, in the 
+         * order of declaration.
+         * 
+         * @return the packed flags.
+         */
+        int toBits() {
+            return (equalFlag     ? 0x01 : 0) 
+                 | (notEqualFlag  ? 0x02 : 0) 
+                 | (zeroFlag      ? 0x04 : 0) 
+                 | (notZeroFlag   ? 0x08 : 0) 
+                 | (aboveZeroFlag ? 0x10 : 0) 
+                 | (belowZeroFlag ? 0x20 : 0) 
+                 | (aboveFlag     ? 0x40 : 0) 
+                 | (belowFlag     ? 0x80 : 0);
+        }
+        
+        /**
+         * Sets the flags packed by {@link #toBits()}.
+         * 
+         * @param bits the packed flags.
+         */
+        void setBits(final int bits) {
+            equalFlag     = (bits & 0x01) != 0;
+            notEqualFlag  = (bits & 0x02) != 0;
+            zeroFlag      = (bits & 0x04) != 0;
+            notZeroFlag   = (bits & 0x08) != 0;
+            aboveZeroFlag = (bits & 0x10) != 0;
+            belowZeroFlag = (bits & 0x20) != 0;
+            aboveFlag     = (bits & 0x40) != 0;
+            belowFlag     = (bits & 0x80) != 0;
+        }
     }
 
     /**
@@ -115,12 +268,29 @@ public class SimpleStackMachine {
     /**
      * The memory tape.
      */
-    private final byte[] tape = new byte[TAPE_LENGTH_IN_BYTES];
+    private final byte[] tape;
 
     /**
-     * The operand stack.
+     * The operand stack. The top of the stack is at 
+     * {@code stack[stackSize - 1]}.
+     */
+    private int[] stack = new int[INITIAL_STACK_CAPACITY];
+    
+    /**
+     * The number of entries in the operand stack.
+     */
+    private int stackSize = 0;
+    
+    /**
+     * The state of the programs declaring {@link WordSize#LONG}, or 
+     * {@code null} until the first of them is loaded.
+     */
+    private WideMode wideMode;
+    
+    /**
+     * The word size the loaded program declares.
      */
-    private final Deque<Integer> stack = new ArrayDeque<>();
+    private WordSize wordSize = WordSize.INT;
 
     /**
      * The instruction pointer.
@@ -131,15 +301,209 @@ public class SimpleStackMachine {
      * The halting flag. When set to {@code true}, execution must end.
      */
     private boolean haltIsRequested = false;
+    
+    /**
+     * The number of instructions the machine may still execute. When it 
+     * drops to zero, the engine returns leaving the machine paused.
+     */
+    private long instructionBudget = Long.MAX_VALUE;
+    
+    /**
+     * The total number of instructions executed so far.
+     */
+    private long executedInstructionCount = 0L;
+    
+    /**
+     * The number of writes to the tape so far. The memo table uses it to tell
+     * whether its entries are still valid.
+     */
+    private long tapeWriteCount = 0L;
+    
+    /**
+     * The register translation of the loaded program, or {@code null} if none
+     * has been made. Tape writes drop the blocks translated from the bytes 
+     * written over.
+     */
+    private RegisterProgram registerProgram;
+    
+    /**
+     * The control-flow graph of the loaded program, or {@code null} if none
+     * has been built. Dropped as soon as a tape write hits the code it was 
+     * built from.
+     */
+    private ControlFlowGraph controlFlowGraph;
+    
+    /**
+     * The memo table of the pure subroutine calls, or {@code null} if 
+     * memoization is disabled.
+     */
+    private SubroutineMemoTable memoTable;
+    
+    /**
+     * The registry the intrinsics of the loaded programs are resolved 
+     * against, or {@code null} if there is none.
+     */
+    private IntrinsicRegistry intrinsicRegistry;
+    
+    /**
+     * The intrinsics resolved for the loaded program, indexed by their IDs.
+     */
+    private Intrinsic[] intrinsics = new Intrinsic[0];
+    
+    /**
+     * The frame of the intrinsics, created on the first {@code HOST}
+     * instruction.
+     */
+    private IntrinsicFrame intrinsicFrame;
+    
+    /**
+     * The attached execution listener, or {@code null} if there is none.
+     */
+    private ExecutionListener executionListener;
+    
+    /**
+     * Set by {@link #requestPause()}; cleared when the running slice ends.
+     */
+    private boolean pauseRequested = false;
+    
+    /**
+     * The recorder of the execution trace, or {@code null} if not recording.
+     */
+    private TraceRecorder traceRecorder;
+    
+    /**
+     * The snapshot last taken of or restored to this machine, or 
+     * {@code null}. The next snapshot shares the pages it has in common with
+     * this one.
+     */
+    private MachineSnapshot lastSnapshot;
+    
+    /**
+     * The tape write count at the time {@link #lastSnapshot} was taken or 
+     * restored.
+     */
+    private long lastSnapshotTapeWriteCount;
+    
+    /**
+     * The input offered to a machine with suspending input, or {@code null}
+     * if the input is read from the input stream.
+     */
+    private Queue<String> inputQueue;
+    
+    /**
+     * Set when an input instruction finds no input queued; stops the engines.
+     * Cleared when the machine is resumed.
+     */
+    private boolean inputPending = false;
+    
+    /**
+     * Set once a machine that needs input has stopped. The thread that clears
+     * it, offering input or stopping, owns the next resumption.
+     */
+    private final AtomicBoolean waitingForInput = new AtomicBoolean();
+    
+    /**
+     * The replayer feeding the recorded input, or {@code null} if the input
+     * comes from the input stream.
+     */
+    private TraceReplayer traceReplayer;
+    
+    /**
+     * The ID of this VM thread. The machine a program is loaded to is the 
+     * thread 0.
+     */
+    private final int threadId;
+    
+    /**
+     * The pool the VM threads spawned by the program run on.
+     */
+    private ForkJoinPool threadPool = ForkJoinPool.commonPool();
+    
+    /**
+     * The VM threads of the program, or {@code null} until the first 
+     * {@code SPAWN}.
+     */
+    private VmThreadGroup threadGroup;
+    
+    /**
+     * Set by {@code YIELD} in a spawned thread; stops the engines so that the
+     * thread gives its worker up. Cleared when the machine is resumed.
+     */
+    private boolean yieldRequested = false;
+    
+    /**
+     * Set by a {@code JOIN} waiting for a VM thread that cannot run any more 
+     * in the current slice of the thread 0; stops the engines with the 
+     * instruction pointer at the {@code JOIN}. Cleared when the machine is
+     * resumed.
+     */
+    private boolean joinPending = false;
+    
+    /**
+     * The engine of the running slice. The spawned threads run with it too.
+     */
+    private ExecutionEngine runningEngine = DefaultExecutionEngine.INSTANCE;
+    
+    /**
+     * The channels attached to this machine, indexed by their ports.
+     */
+    private Channel[] channels = new Channel[0];
 
     public ProcessorFlags flags() {
         return flags;
     }
 
+    /**
+     * Loads the program to the beginning of the tape and runs it with the 
+     * default, instruction-by-instruction engine.
+     * 
+     * @param programBytes the program to run.
+     */
     public void execute(final byte[] programBytes) {
+        execute(programBytes, DefaultExecutionEngine.INSTANCE);
+    }
+    
+    /**
+     * Loads the program to the beginning of the tape and runs it with the 
+     * given execution engine. A program declaring {@link WordSize#LONG} 
+     * always runs in {@link WideExecutionEngine}, whatever the engine.
+     * 
+     * @param programBytes the program to run.
+     * @param engine       the engine to run the program with.
+     * @throws IllegalStateException if the program declares 
+     *                               {@link WordSize#LONG} and an execution
+     *                               listener is attached.
+     */
+    public void execute(final byte[] programBytes, 
+                        final ExecutionEngine engine) {
         Objects.requireNonNull(programBytes,
                 "The input program byte array is null.");
-
+        
+        Objects.requireNonNull(engine, "The execution engine is null.");
+        
+        loadProgram(programBytes);
+        requireListenerSupport();
+        MachineMetrics.INSTANCE.programStarted();
+        
+        final MachineEvents.ProgramStart event = 
+                new MachineEvents.ProgramStart();
+        
+        if (event.shouldCommit()) {
+            event.programSize = programBytes.length;
+            event.engine = engine.getClass().getSimpleName();
+            event.commit();
+        }
+        
+        runSlice(engine);
+    }
+    
+    /**
+     * Copies the program to the beginning of the tape and resolves its 
+     * intrinsics, without running it.
+     * 
+     * @param programBytes the program to load.
+     */
+    void loadProgram(final byte[] programBytes) {
         if (programBytes.length > tape.length) {
             final String exceptionMessage
                     = String.format(
@@ -149,53 +513,1105 @@ public class SimpleStackMachine {
 
             throw new IllegalArgumentException(exceptionMessage);
         }
+        
+        final WordSize programWordSize = WordSize.of(programBytes);
+        
+        if (programWordSize == WordSize.LONG 
+                && (traceRecorder != null || traceReplayer != null)) {
+            throw new IllegalStateException(
+                    "Programs with 64-bit words cannot be traced.");
+        }
+
+        intrinsics = intrinsicRegistry == null 
+                   ? new Intrinsic[0]
+                   : intrinsicRegistry.resolve(programBytes);
 
         System.arraycopy(programBytes,
                 0,
                 tape,
                 0,
                 programBytes.length);
+        
+        ++tapeWriteCount;
+        registerProgram = null;
+        controlFlowGraph = null;
+        stopThreads();
+        wordSize = programWordSize;
+        
+        if (wordSize == WordSize.LONG && wideMode == null) {
+            wideMode = new WideMode(this);
+        }
+        
+        instructionPointer = programWordSize.getCodeStart();
+        
+        if (memoTable != null) {
+            memoTable.clear();
+        }
+        
+        if (traceRecorder != null) {
+            traceRecorder.programLoaded(programBytes);
+        }
+    }
 
-        while (!haltIsRequested) {
-            executeImpl();
+    /**
+     * Continues running a paused machine with the default engine.
+     */
+    public void resume() {
+        resume(DefaultExecutionEngine.INSTANCE);
+    }
+    
+    /**
+     * Continues running a paused machine from its current instruction pointer
+     * with the given engine. A program declaring {@link WordSize#LONG} 
+     * always runs in {@link WideExecutionEngine}, whatever the engine.
+     * 
+     * @param engine the engine to run the machine with.
+     * @throws IllegalStateException if the program declares 
+     *                               {@link WordSize#LONG} and an execution
+     *                               listener is attached.
+     */
+    public void resume(final ExecutionEngine engine) {
+        Objects.requireNonNull(engine, "The execution engine is null.");
+        requireListenerSupport();
+        runSlice(engine);
+    }
+    
+    /**
+     * Rejects an execution listener attached to a program declaring 
+     * {@link WordSize#LONG}, which the instrumented engine cannot run.
+     */
+    private void requireListenerSupport() {
+        if (wordSize == WordSize.LONG && executionListener != null) {
+            throw new IllegalStateException(
+                    "An execution listener cannot observe a program using "
+                    + "64-bit words.");
+        }
+    }
+    
+    /**
+     * Runs the engine on this machine and reports the run to 
+     * {@link MachineMetrics} and to the flight recorder. A 
+     * {@link StackMachineException} counts as a trap.
+     * 
+     * @param engine the engine to run the machine with.
+     */
+    private void runSlice(final ExecutionEngine engine) {
+        final MachineMetrics metrics = MachineMetrics.INSTANCE;
+        final MachineEvents.ExecutionSlice event = 
+                new MachineEvents.ExecutionSlice();
+        
+        final boolean wasHalted = haltIsRequested;
+        final long executedBefore = executedInstructionCount;
+        final long start = System.nanoTime();
+        boolean returned = false;
+        
+        metrics.sliceStarted();
+        event.begin();
+        
+        try {
+            inputPending = false;
+            yieldRequested = false;
+            joinPending = false;
+            runningEngine = engine;
+            
+            if (threadId == 0 && threadGroup != null) {
+                threadGroup.beginSlice(instructionBudget);
+            }
+            
+            runEngine(engine);
+            returned = true;
+        } catch (final StackMachineException ex) {
+            metrics.trapped();
+            
+            final MachineEvents.Trap trap = new MachineEvents.Trap();
+            
+            if (trap.shouldCommit()) {
+                trap.message = ex.getMessage();
+                trap.instructionPointer = instructionPointer;
+                trap.commit();
+            }
+            
+            commitProgramEnd(true);
+            throw ex;
+        } finally {
+            pauseRequested = false;
+            
+            if (threadId == 0 && threadGroup != null) {
+                endThreadSlice(!returned || haltIsRequested);
+            }
+            
+            final long executed = executedInstructionCount - executedBefore;
+            
+            metrics.sliceEnded(System.nanoTime() - start, 
+                               executed, 
+                               stack.length);
+            event.end();
+            
+            if (event.shouldCommit()) {
+                event.engine = engine.getClass().getSimpleName();
+                event.executedInstructions = executed;
+                event.stackSize = stackSize;
+                event.commit();
+            }
+        }
+        
+        if (!haltIsRequested) {
+            metrics.slicePaused();
+        } else if (!wasHalted) {
+            metrics.programHalted();
+            commitProgramEnd(false);
+        }
+        
+        // Parking must come last: once parked, another thread may resume
+        // this machine.
+        if (inputPending && !parkForInput()) {
+            // The input arrived while the machine was stopping.
+            runSlice(engine);
+        }
+    }
+    
+    /**
+     * Charges the instructions the VM threads executed during the slice to 
+     * this machine, and stops the threads if the program has ended.
+     * 
+     * @param programEnded whether this machine halted or trapped.
+     */
+    private void endThreadSlice(final boolean programEnded) {
+        final long executed = threadGroup.endSlice();
+        
+        executedInstructionCount += executed;
+        instructionBudget = Math.max(0L, instructionBudget - executed);
+        
+        if (programEnded) {
+            threadGroup.stop();
+        }
+    }
+    
+    /**
+     * Cancels the VM threads of the program, if any, and forgets them. Called
+     * as well by the owners of a machine that is paused for good.
+     */
+    void stopThreads() {
+        if (threadGroup != null) {
+            threadGroup.stop();
+            threadGroup = null;
+        }
+    }
+    
+    /**
+     * Marks this stopped machine as waiting for input, unless input has been
+     * offered in the meantime.
+     * 
+     * @return {@code true} if the machine is now waiting for input.
+     */
+    private boolean parkForInput() {
+        waitingForInput.set(true);
+        
+        return inputQueue.isEmpty() 
+                || !waitingForInput.compareAndSet(true, false);
+    }
+    
+    /**
+     * Runs the instrumented engine while a listener is attached, and 
+     * {@code engine} otherwise. If a callback detaches the listener, the rest
+     * of the slice runs in {@code engine}.
+     * 
+     * @param engine the engine to run the machine with.
+     */
+    private void runEngine(final ExecutionEngine engine) {
+        if (traceRecorder == null) {
+            runEngineOnce(engine);
+        } else {
+            runRecordedEngine(engine);
+        }
+    }
+    
+    /**
+     * Runs the engine in chunks of at most the checkpoint interval of the 
+     * trace recorder, recording a checkpoint after each chunk.
+     * 
+     * @param engine the engine to run the machine with.
+     */
+    private void runRecordedEngine(final ExecutionEngine engine) {
+        final TraceRecorder recorder = traceRecorder;
+        
+        do {
+            final long budget = instructionBudget;
+            final long chunk = Math.min(budget, 
+                                        recorder.getCheckpointInterval());
+            instructionBudget = chunk;
+            
+            try {
+                runEngineOnce(engine);
+            } finally {
+                instructionBudget = budget - (chunk - instructionBudget);
+            }
+            
+            recorder.recordCheckpoint(executedInstructionCount,
+                                      instructionPointer,
+                                      haltIsRequested);
+        } while (canRun() && !pauseRequested);
+    }
+    
+    private void runEngineOnce(final ExecutionEngine engine) {
+        if (wordSize == WordSize.LONG) {
+            WideExecutionEngine.INSTANCE.run(this);
+            return;
+        }
+        
+        if (executionListener != null) {
+            InstrumentedExecutionEngine.INSTANCE.run(this);
+            
+            if (pauseRequested || executionListener != null) {
+                return;
+            }
+        }
+        
+        engine.run(this);
+    }
+    
+    private void commitProgramEnd(final boolean trapped) {
+        final MachineEvents.ProgramEnd event = new MachineEvents.ProgramEnd();
+        
+        if (event.shouldCommit()) {
+            event.executedInstructions = executedInstructionCount;
+            event.trapped = trapped;
+            event.commit();
         }
     }
+    
+    /**
+     * Tells whether the program has executed {@code HALT}. A machine that 
+     * returned from {@link #execute(byte[], ExecutionEngine)} without halting
+     * ran out of its instruction budget and may be resumed.
+     * 
+     * @return {@code true} if the machine has halted.
+     */
+    public boolean isHalted() {
+        return haltIsRequested;
+    }
+    
+    /**
+     * Sets the number of instructions the machine may execute before pausing.
+     * 
+     * @param instructionBudget the instruction budget.
+     */
+    public void setInstructionBudget(final long instructionBudget) {
+        if (instructionBudget < 0L) {
+            throw new IllegalArgumentException(
+                    String.format("instructionBudget(%d) < 0", 
+                                  instructionBudget));
+        }
+        
+        this.instructionBudget = instructionBudget;
+    }
+    
+    public long getInstructionBudget() {
+        return instructionBudget;
+    }
+    
+    /**
+     * Returns the length of the tape in bytes.
+     * 
+     * @return the tape length.
+     */
+    public int getTapeLength() {
+        return tape.length;
+    }
+    
+    public long getExecutedInstructionCount() {
+        return executedInstructionCount;
+    }
+    
+    /**
+     * Returns a copy of the operand stack, the top of the stack being the 
+     * last element.
+     * 
+     * @return the operand stack.
+     */
+    public int[] getOperandStack() {
+        requireWordSize(WordSize.INT);
+        return Arrays.copyOf(stack, stackSize);
+    }
+    
+    /**
+     * Returns a copy of the 64-bit operand stack of a program declaring 
+     * {@link WordSize#LONG}, the top of the stack being the last element.
+     * 
+     * @return the 64-bit operand stack.
+     */
+    public long[] getWideOperandStack() {
+        requireWordSize(WordSize.LONG);
+        return wideMode.getOperandStack();
+    }
+    
+    /**
+     * Returns the word size of the loaded program. The programs declaring 
+     * {@link WordSize#LONG} always run in {@link WideExecutionEngine}, 
+     * without execution listeners, and cannot be snapshotted or traced.
+     * 
+     * @return the word size.
+     */
+    public WordSize getWordSize() {
+        return wordSize;
+    }
+    
+    private void requireWordSize(final WordSize expected) {
+        if (wordSize != expected) {
+            throw new IllegalStateException(
+                    String.format("The loaded program uses %d-bit words.", 
+                                  Byte.SIZE * wordSize.getBytes()));
+        }
+    }
+    
+    /**
+     * Attaches an execution listener. While a listener is attached, the 
+     * machine runs its instrumented engine, which reports every instruction 
+     * to the listener; the engine passed to 
+     * {@link #execute(byte[], ExecutionEngine)} or 
+     * {@link #resume(ExecutionEngine)} takes over again once the listener is
+     * detached. The listener may be attached and detached while the machine
+     * is paused, or from within one of its callbacks. Programs declaring 
+     * {@link WordSize#LONG} cannot be observed: running one with a listener
+     * attached throws {@link IllegalStateException}.
+     * 
+     * @param executionListener the listener, or {@code null} to detach.
+     */
+    public void setExecutionListener(
+            final ExecutionListener executionListener) {
+        this.executionListener = executionListener;
+    }
+    
+    public ExecutionListener getExecutionListener() {
+        return executionListener;
+    }
+    
+    /**
+     * Asks the machine to pause after the running listener callback returns.
+     * Only honoured while a listener is attached.
+     */
+    public void requestPause() {
+        pauseRequested = true;
+    }
+    
+    /**
+     * Captures the tape, the operand stack, the flags, the instruction 
+     * pointer, the halt state and the executed instruction count. The tape
+     * pages left unchanged since the previous snapshot of this machine are 
+     * shared with it, not copied.
+     * <p>
+     * Once the program has spawned VM threads, whose tape writes this 
+     * machine does not count, the pages are compared with the previous 
+     * snapshot instead. A snapshot cannot be taken while any of the threads
+     * is still running.
+     * 
+     * @return the snapshot.
+     * @throws IllegalStateException if a VM thread is running.
+     */
+    public MachineSnapshot snapshot() {
+        requireWordSize(WordSize.INT);
+        
+        if (threadGroup != null && threadGroup.hasRunningThreads()) {
+            throw new IllegalStateException(
+                    "Cannot take a snapshot while VM threads are running.");
+        }
+        
+        final MachineSnapshot snapshot = 
+                MachineSnapshot.capture(
+                        this, 
+                        lastSnapshot, 
+                        lastSnapshot != null 
+                                && threadGroup == null
+                                && lastSnapshotTapeWriteCount 
+                                   == tapeWriteCount);
+        
+        lastSnapshot = snapshot;
+        lastSnapshotTapeWriteCount = tapeWriteCount;
+        return snapshot;
+    }
+    
+    /**
+     * Restores the state captured by {@code snapshot}. The configuration of 
+     * this machine, such as its listener, recorder, memoization and 
+     * instruction budget, is kept. The intrinsics are restored too, unless 
+     * the snapshot was read from a file.
+     * 
+     * @param snapshot the snapshot to restore.
+     */
+    public void restore(final MachineSnapshot snapshot) {
+        Objects.requireNonNull(snapshot, "The snapshot is null.");
+        
+        if (snapshot.getTapeLength() != tape.length) {
+            throw new IllegalArgumentException(
+                    String.format("The snapshot tape length %d differs from "
+                                  + "the machine tape length %d",
+                                  snapshot.getTapeLength(),
+                                  tape.length));
+        }
+        
+        stopThreads();
+        snapshot.copyTapeTo(tape);
+        ++tapeWriteCount;
+        registerProgram = null;
+        controlFlowGraph = null;
+        
+        final int[] snapshotStack = snapshot.getStack();
+        stack = Arrays.copyOf(snapshotStack, 
+                              Math.max(INITIAL_STACK_CAPACITY, 
+                                       2 * snapshotStack.length));
+        stackSize = snapshotStack.length;
+        flags.setBits(snapshot.getFlags());
+        instructionPointer = snapshot.getInstructionPointer();
+        haltIsRequested = snapshot.isHalted();
+        executedInstructionCount = snapshot.getExecutedInstructionCount();
+        pauseRequested = false;
+        inputPending = false;
+        
+        if (snapshot.getIntrinsics() != null) {
+            intrinsics = snapshot.getIntrinsics();
+        }
+        
+        if (memoTable != null) {
+            memoTable.clear();
+        }
+        
+        lastSnapshot = snapshot;
+        lastSnapshotTapeWriteCount = tapeWriteCount;
+    }
+    
+    Intrinsic[] getIntrinsics() {
+        return intrinsics;
+    }
+    
+    /**
+     * Switches between reading the input stream, which blocks the running 
+     * thread in {@code READ_INT} and {@code READ_STRING}, and suspending 
+     * input. With suspending input, the machine reads the lines offered via
+     * {@link #offerInput(String)}; an input instruction finding none stops 
+     * the machine before it with the status 
+     * {@link MachineStatus#NEEDS_INPUT}, so that no thread waits for the 
+     * input.
+     * 
+     * @param suspending whether the input is suspending.
+     */
+    public void setSuspendingInput(final boolean suspending) {
+        inputQueue = suspending ? new ConcurrentLinkedQueue<>() : null;
+        waitingForInput.set(false);
+    }
+    
+    public boolean isSuspendingInput() {
+        return inputQueue != null;
+    }
+    
+    /**
+     * Queues an input line for a machine with suspending input. 
+     * {@code READ_INT} parses a whole line as an integer. May be called from
+     * any thread, also while the machine runs. If the machine was waiting for
+     * input, the caller is told so and is the one to resume it; the machine
+     * has then stopped running, so it may be resumed on any thread.
+     * 
+     * @param line the input line.
+     * @return {@code true} if the caller should resume the machine.
+     */
+    public boolean offerInput(final String line) {
+        Objects.requireNonNull(line, "The input line is null.");
+        
+        if (inputQueue == null) {
+            throw new IllegalStateException(
+                    "The machine does not have suspending input.");
+        }
+        
+        inputQueue.add(line);
+        return waitingForInput.compareAndSet(true, false);
+    }
+    
+    /**
+     * Returns the state the last {@code execute} or {@code resume} left this
+     * machine in.
+     * 
+     * @return the status.
+     */
+    public MachineStatus getStatus() {
+        if (haltIsRequested) {
+            return MachineStatus.HALTED;
+        }
+        
+        return inputPending ? MachineStatus.NEEDS_INPUT 
+                            : MachineStatus.PAUSED;
+    }
+    
+    /**
+     * Tells whether an input instruction may run now, and stops the machine 
+     * if it may not.
+     * 
+     * @return {@code true} if the input is available or will be blocked on.
+     */
+    boolean awaitInput() {
+        if (inputQueue == null 
+                || traceReplayer != null 
+                || !inputQueue.isEmpty()) {
+            return true;
+        }
+        
+        inputPending = true;
+        return false;
+    }
+    
+    /**
+     * Tells whether {@code count} input instructions may run without 
+     * stopping.
+     * 
+     * @param count the number of input instructions.
+     * @return {@code true} if that much input is available.
+     */
+    boolean hasInput(final int count) {
+        return inputQueue == null 
+                || traceReplayer != null 
+                || inputQueue.size() >= count;
+    }
+    
+    boolean isInputPending() {
+        return inputPending;
+    }
+    
+    /**
+     * Tells whether the engines must stop: the machine has halted, waits for
+     * input or for a VM thread, or yields.
+     * 
+     * @return {@code true} if the engines must stop.
+     */
+    boolean isStopRequested() {
+        return haltIsRequested 
+                || inputPending 
+                || yieldRequested 
+                || joinPending;
+    }
+    
+    /**
+     * Sets the pool the VM threads spawned by the program run on. The 
+     * threads are scheduled as pool tasks in slices of 
+     * {@value VmThreadGroup#QUANTUM} instructions, and share the tape, the 
+     * intrinsics and the input and output streams of this machine; the 
+     * input queue of suspending input is read by this machine only.
+     * <p>
+     * The memory model of the tape is as follows. {@code LOAD} and 
+     * {@code STORE} are plain accesses: without synchronization, a thread may
+     * see the stores of another one late, out of order or, for words, torn.
+     * {@code CAS} and {@code FADD} are atomic and sequentially consistent, 
+     * like the volatile accesses of Java. {@code SPAWN} happens-before the 
+     * first instruction of the spawned thread, and the {@code HALT} of a 
+     * thread happens-before the {@code JOIN} waiting for it returns.
+     * <p>
+     * Traces and memoization do not support programs that spawn threads; 
+     * {@code SPAWN} suspends memoization until the next program is loaded or
+     * a snapshot is restored. A snapshot may be taken only while no spawned 
+     * thread is running. 
+     * <p>
+     * The threads run only during the slices of this machine and share its 
+     * instruction budget; their instructions are charged to this machine 
+     * when the slice ends. The program ends when this machine halts or 
+     * traps, whether or not the other threads have: they are cancelled then,
+     * as well as when another program is loaded or a snapshot is restored.
+     * 
+     * @param threadPool the pool to run the VM threads on.
+     */
+    public void setThreadPool(final ForkJoinPool threadPool) {
+        this.threadPool = 
+                Objects.requireNonNull(threadPool, "The thread pool is null.");
+    }
+    
+    public ForkJoinPool getThreadPool() {
+        return threadPool;
+    }
+    
+    /**
+     * Attaches the channel to the port. {@code SEND}, {@code RECV} and 
+     * {@code TRYRECV} name the channel by the port. The VM threads spawned
+     * from now on share the channels of this machine.
+     * 
+     * @param port    the port number in {@code [0, MAXIMUM_CHANNEL_PORT]}.
+     * @param channel the channel, or {@code null} to detach the port.
+     */
+    public void setChannel(final int port, final Channel channel) {
+        if (port < 0 || port > MAXIMUM_CHANNEL_PORT) {
+            throw new IllegalArgumentException(
+                    String.format("port(%d) is not within [0, %d]", 
+                                  port, 
+                                  MAXIMUM_CHANNEL_PORT));
+        }
+        
+        if (port >= channels.length) {
+            channels = Arrays.copyOf(channels, port + 1);
+        }
+        
+        channels[port] = channel;
+    }
+    
+    public Channel getChannel(final int port) {
+        return port >= 0 && port < channels.length ? channels[port] : null;
+    }
+    
+    int getThreadId() {
+        return threadId;
+    }
+    
+    /**
+     * Creates the machine of a VM thread spawned by this one.
+     * 
+     * @param threadId the ID of the thread.
+     * @return the machine of the thread.
+     */
+    SimpleStackMachine newThread(final int threadId) {
+        return new SimpleStackMachine(this, threadId);
+    }
+    
+    /**
+     * Returns the group of the VM threads of the loaded program, creating it
+     * on first use.
+     * 
+     * @return the thread group.
+     */
+    VmThreadGroup getThreadGroup() {
+        if (threadGroup == null) {
+            threadGroup = new VmThreadGroup(threadPool, instructionBudget);
+        }
+        
+        return threadGroup;
+    }
+    
+    ExecutionEngine getRunningEngine() {
+        return runningEngine;
+    }
+    
+    /**
+     * Makes a spawned thread give its worker up after this instruction.
+     */
+    void requestYield() {
+        yieldRequested = true;
+    }
+    
+    /**
+     * Stops the engines at the {@code JOIN} being run, which is not executed.
+     */
+    void requestJoinPause() {
+        joinPending = true;
+    }
+    
+    boolean isJoinPending() {
+        return joinPending;
+    }
+    
+    /**
+     * Tells whether the instruction last run by {@link #step()} waits, for 
+     * input or for a VM thread, and was not executed. The engines do not 
+     * charge such an instruction.
+     * 
+     * @return {@code true} if the instruction waits.
+     */
+    boolean isWaiting() {
+        return inputPending || joinPending;
+    }
+    
+    /**
+     * Attaches a trace recorder. The trace starts with the next program 
+     * loaded, so the recorder should be attached before 
+     * {@link #execute(byte[], ExecutionEngine)}.
+     * 
+     * @param traceRecorder the recorder, or {@code null} to stop recording.
+     */
+    public void setTraceRecorder(final TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+    
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+    
+    void setTraceReplayer(final TraceReplayer traceReplayer) {
+        this.traceReplayer = traceReplayer;
+    }
+    
+    boolean isPauseRequested() {
+        return pauseRequested;
+    }
+    
+    void clearPauseRequest() {
+        pauseRequested = false;
+    }
+    
+    /**
+     * Enables the memoization of the pure subroutine calls of the program the
+     * analysis was made for. The program may opt out via 
+     * {@link SubroutineAnalysis#setMemoizationEnabled(boolean)}. Memoization
+     * is honoured by {@link DefaultExecutionEngine} and 
+     * {@link BasicBlockExecutionEngine}; the other engines ignore the table.
+     * 
+     * @param analysis the analysis of the program to run.
+     * @param capacity the maximum number of memoized calls.
+     */
+    public void enableMemoization(final SubroutineAnalysis analysis, 
+                                  final int capacity) {
+        memoTable = new SubroutineMemoTable(analysis, capacity);
+    }
+    
+    public void disableMemoization() {
+        memoTable = null;
+    }
+    
+    /**
+     * Returns the memo table of this machine.
+     * 
+     * @return the memo table, or {@code null} if memoization is disabled.
+     */
+    public SubroutineMemoTable getMemoTable() {
+        return memoTable;
+    }
+    
+    long getTapeWriteCount() {
+        return tapeWriteCount;
+    }
+    
+    /**
+     * Accounts for a write to {@code [address, address + length)}: counts it
+     * for the memo table and drops the register translation and the 
+     * control-flow graph of the code written over.
+     * 
+     * @param address the start address of the written range.
+     * @param length  the length of the written range in bytes.
+     */
+    void tapeWritten(final int address, final int length) {
+        ++tapeWriteCount;
+        
+        if (registerProgram != null) {
+            registerProgram.invalidate(address, length);
+        }
+        
+        if (controlFlowGraph != null 
+                && controlFlowGraph.overlapsCode(address, length)) {
+            controlFlowGraph = null;
+        }
+    }
+    
+    /**
+     * Returns the control-flow graph of the loaded program, building it from
+     * the current instruction pointer on first use. The graph is kept until 
+     * the code is written over, another program is loaded or a snapshot is 
+     * restored.
+     * 
+     * @return the control-flow graph.
+     */
+    ControlFlowGraph getControlFlowGraph() {
+        if (controlFlowGraph == null) {
+            controlFlowGraph = ControlFlowGraph.build(tape, 
+                                                      instructionPointer);
+        }
+        
+        return controlFlowGraph;
+    }
+    
+    /**
+     * Returns the register translation of the loaded program, translating it
+     * from the current instruction pointer on first use. The translation is 
+     * kept until another program is loaded or a snapshot is restored.
+     * 
+     * @return the register translation.
+     */
+    RegisterProgram getRegisterProgram() {
+        if (registerProgram == null) {
+            registerProgram = RegisterTranslator.translate(tape, 
+                                                           instructionPointer);
+        }
+        
+        return registerProgram;
+    }
+    
+    /**
+     * Makes {@code registerProgram}, a translation of the tape of this 
+     * machine, the one kept up to date on tape writes.
+     * 
+     * @param registerProgram the register translation.
+     */
+    void setRegisterProgram(final RegisterProgram registerProgram) {
+        if (!registerProgram.isTranslationOf(tape)) {
+            throw new IllegalArgumentException(
+                    "The register program is not a translation of the tape "
+                    + "of the machine.");
+        }
+        
+        this.registerProgram = registerProgram;
+    }
+    
+    /**
+     * Sets the registry the {@code HOST} instructions of the programs loaded
+     * from now on are resolved against.
+     * 
+     * @param intrinsicRegistry the registry, or {@code null} for none.
+     */
+    public void setIntrinsicRegistry(
+            final IntrinsicRegistry intrinsicRegistry) {
+        this.intrinsicRegistry = intrinsicRegistry;
+    }
+    
+    public IntrinsicRegistry getIntrinsicRegistry() {
+        return intrinsicRegistry;
+    }
+    
+    /**
+     * Invokes the intrinsic {@code id}: pops its arguments and pushes its 
+     * results.
+     * 
+     * @param id the ID of the intrinsic.
+     */
+    void invokeIntrinsic(final int id) {
+        final Intrinsic intrinsic = 
+                id >= 0 && id < intrinsics.length ? intrinsics[id] : null;
+        
+        if (intrinsic == null) {
+            throw new StackMachineException(
+                    String.format("Unknown intrinsic %d at address %d", 
+                                  id, 
+                                  instructionPointer));
+        }
+        
+        final int argumentCount = intrinsic.getArgumentCount();
+        final int resultCount = intrinsic.getResultCount();
+        
+        requireStackSize(argumentCount);
+        
+        final int base = stackSize - argumentCount;
+        
+        if (stack.length < base + resultCount) {
+            stack = Arrays.copyOf(stack, 2 * (base + resultCount));
+        }
+        
+        if (intrinsicFrame == null) {
+            intrinsicFrame = new IntrinsicFrame(this);
+        }
+        
+        intrinsicFrame.bind(base, argumentCount, resultCount);
+        intrinsic.getFunction().invoke(intrinsicFrame);
+        stackSize = base + resultCount;
+        
+        if (intrinsicFrame.isTapeExposed()) {
+            // The intrinsic may have written to the tape directly.
+            tapeWritten(0, tape.length);
+        }
+    }
+    
+    /**
+     * Accounts for {@code count} executed instructions.
+     * 
+     * @param count the number of instructions executed.
+     */
+    void chargeInstructions(final long count) {
+        instructionBudget -= count;
+        executedInstructionCount += count;
+    }
+    
+    /**
+     * Tells whether the engines may run the next instruction.
+     * 
+     * @return {@code true} if not stopped and the budget is not exhausted.
+     */
+    boolean canRun() {
+        return !haltIsRequested 
+                && !inputPending 
+                && !yieldRequested
+                && !joinPending
+                && instructionBudget > 0L;
+    }
 
-    private void executeImpl() {
+    /**
+     * Executes exactly one instruction via its {@link Operation} 
+     * implementation.
+     */
+    void step() {
         final byte opcode = tape[instructionPointer];
         final Operation operation = Operation.getOperation(opcode);
-        final InstructionImplementation impl = operation.getImpl();
-
-        impl.execute(this);
+        
+        if (operation == null) {
+            throw new StackMachineException(
+                    String.format("Unknown opcode 0x%02x at address %d", 
+                                  Byte.toUnsignedInt(opcode), 
+                                  instructionPointer));
+        }
+        
+        operation.getImpl().execute(this);
     }
 
+    /**
+     * Runs a program file; see {@link StackMachineRunner}.
+     * 
+     * @param args the command line arguments.
+     */
     public static void main(String[] args) {
-        final SimpleStackMachine m = new SimpleStackMachine();
-        CodeBuilder cb = new CodeBuilder(64);
-
-        cb.emit(Operation.READ_INT.getOpcodeByte());
-        cb.emit(Operation.READ_INT.getOpcodeByte());
-        cb.emit(Operation.ADD.getOpcodeByte());
-        cb.emit(Operation.PRINT_INT.getOpcodeByte());
-        cb.emit(Operation.HALT.getOpcodeByte());
-        
-        m.execute(cb.toByteArray());
+        StackMachineRunner.main(args);
     }
 
     String readString() {
-        return scanner.nextLine();
+        final MachineEvents.IoWait event = new MachineEvents.IoWait();
+        final long start = System.nanoTime();
+        event.begin();
+        
+        try {
+            if (traceReplayer != null) {
+                return traceReplayer.nextString();
+            }
+            
+            final String text = inputQueue == null ? nextLine()
+                                                   : inputQueue.poll();
+            
+            if (traceRecorder != null) {
+                traceRecorder.recordString(text);
+            }
+            
+            return text;
+        } finally {
+            reportIoWait(event, "readString", start);
+        }
     }
 
     int readInt() {
-        System.out.print(">>> ");
-        return scanner.nextInt();
+        out.print(">>> ");
+        
+        final MachineEvents.IoWait event = new MachineEvents.IoWait();
+        final long start = System.nanoTime();
+        event.begin();
+        
+        try {
+            if (traceReplayer != null) {
+                return traceReplayer.nextInt();
+            }
+            
+            final int value = inputQueue == null ? nextInt()
+                                                 : parseInput(inputQueue.poll());
+            
+            if (traceRecorder != null) {
+                traceRecorder.recordInt(value);
+            }
+            
+            return value;
+        } finally {
+            reportIoWait(event, "readInt", start);
+        }
+    }
+    
+    /**
+     * Prompts for a number and reads it as text: the next token of the input
+     * stream, or the next line of suspending input.
+     * 
+     * @param operation the name of the operation the wait is reported as.
+     * @return the text of the number.
+     */
+    String readNumberToken(final String operation) {
+        out.print(">>> ");
+        
+        final MachineEvents.IoWait event = new MachineEvents.IoWait();
+        final long start = System.nanoTime();
+        event.begin();
+        
+        try {
+            return inputQueue == null ? nextToken() : inputQueue.poll();
+        } finally {
+            reportIoWait(event, operation, start);
+        }
+    }
+    
+    /**
+     * Reads a line from the input stream. The scanner is shared by the VM 
+     * threads of the program.
+     */
+    private String nextLine() {
+        synchronized (scanner) {
+            return scanner.nextLine();
+        }
+    }
+    
+    private int nextInt() {
+        synchronized (scanner) {
+            return scanner.nextInt();
+        }
+    }
+    
+    private String nextToken() {
+        synchronized (scanner) {
+            return scanner.next();
+        }
+    }
+    
+    private static int parseInput(final String line) {
+        try {
+            return Integer.parseInt(line.trim());
+        } catch (final NumberFormatException ex) {
+            throw new StackMachineException(
+                    String.format("The input \"%s\" is not an integer", 
+                                  line));
+        }
+    }
+    
+    private static void reportIoWait(final MachineEvents.IoWait event,
+                                     final String operation,
+                                     final long start) {
+        MachineMetrics.INSTANCE.ioWaited(System.nanoTime() - start);
+        event.end();
+        
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.commit();
+        }
+    }
+    
+    void printLine(final String text) {
+        out.println(text);
+    }
+    
+    void printLine(final int number) {
+        out.println(number);
+    }
+    
+    void printLine(final long number) {
+        out.println(number);
+    }
+    
+    void printString(final int startAddress, final int stringLength) {
+        final byte[] stringData = new byte[stringLength];
+        
+        for (int i = 0; i < stringData.length; ++i) {
+            stringData[i] = readByteFromTape(startAddress + i);
+        }
+        
+        printLine(new String(stringData));
+    }
+    
+    /**
+     * Reads a line and writes it to the tape buffer.
+     * 
+     * @param stringAddress the address of the buffer.
+     * @param bufferLength  the length of the buffer.
+     * @return the length of the line read, or {@link Integer#MIN_VALUE} if the
+     *         line does not fit in the buffer.
+     */
+    int readStringToTape(final int stringAddress, final int bufferLength) {
+        final String text = readString();
+        
+        if (text.length() > bufferLength) {
+            return Integer.MIN_VALUE;
+        }
+        
+        final byte[] stringData = text.getBytes();
+
+        for (int i = 0; i < stringData.length; ++i) {
+            writeByteToTape(stringAddress + i, stringData[i]);
+        }
+        
+        return text.length();
     }
 
     void requireStackSize(final int requestedSize) {
-        if (stack.size() < requestedSize) {
+        if (stackSize < requestedSize) {
             throw new StackMachineException(
                     String.format("'stack.size()' is %d, 'requestedSize' is %d",
-                            stack.size(),
+                            stackSize,
                             requestedSize));
         }
     }
@@ -218,22 +1634,75 @@ public class SimpleStackMachine {
             throw new StackMachineException(exceptionMessage);
         }
 
-        final int word0 = Byte.toUnsignedInt(tape[address + 3]) << 0;
-        final int word1 = Byte.toUnsignedInt(tape[address + 2]) << 8;
-        final int word2 = Byte.toUnsignedInt(tape[address + 1]) << 16;
-        final int word3 = Byte.toUnsignedInt(tape[address + 0]) << 24;
-
-        return word0
-                | word1
-                | word2
-                | word3;
+        return wordAt(tape, address);
+    }
+    
+    /**
+     * Decodes the little-endian word starting at {@code address}. This is the
+     * very byte order {@link CodeBuilder} and {@link #writeWordToTape} use.
+     * 
+     * @param bytes   the byte array to read from.
+     * @param address the address of the lowest byte of the word.
+     * @return the decoded word.
+     */
+    static int wordAt(final byte[] bytes, final int address) {
+        return  Byte.toUnsignedInt(bytes[address]) 
+             | (Byte.toUnsignedInt(bytes[address + 1]) << 8)
+             | (Byte.toUnsignedInt(bytes[address + 2]) << 16)
+             | (Byte.toUnsignedInt(bytes[address + 3]) << 24);
+    }
+    
+    /**
+     * Checks that {@code [address, address + length)} lies within the tape.
+     * 
+     * @param address the start address.
+     * @param length  the length of the range in bytes.
+     */
+    void checkTapeRange(final int address, final int length) {
+        if (length < 0 
+                || address < 0 
+                || address > tape.length - length) {
+            throw new StackMachineException(
+                    String.format("Tape range [%d, %d + %d) is not within "
+                                  + "[0, %d)",
+                                  address,
+                                  address,
+                                  length,
+                                  tape.length));
+        }
+    }
+    
+    void copyOnTape(final int target, final int source, final int length) {
+        checkTapeRange(source, length);
+        checkTapeRange(target, length);
+        BulkMemory.copy(tape, target, source, length);
+        tapeWritten(target, length);
+    }
+    
+    void fillTape(final int target, final byte value, final int length) {
+        checkTapeRange(target, length);
+        BulkMemory.fill(tape, target, value, length);
+        tapeWritten(target, length);
+    }
+    
+    int mismatchOnTape(final int a, final int b, final int length) {
+        checkTapeRange(a, length);
+        checkTapeRange(b, length);
+        return BulkMemory.mismatch(tape, a, b, length);
+    }
+    
+    int findByteOnTape(final int address, final byte value, final int length) {
+        checkTapeRange(address, length);
+        return BulkMemory.find(tape, address, value, length);
     }
 
     void writeByteToTape(final int address, final byte b) {
         tape[address] = b;
+        tapeWritten(address, 1);
     }
 
     void writeWordToTape(final int address, int word) {
+        tapeWritten(address, Integer.BYTES);
 
         final byte[] bytes = new byte[Integer.BYTES];
 
@@ -277,4 +1746,12 @@ public class SimpleStackMachine {
     void requestHalt() {
         haltIsRequested = true;
     }
+    
+    boolean isHaltRequested() {
+        return haltIsRequested;
+    }
+    
+    byte[] getTape() {
+        return tape;
+    }
 }
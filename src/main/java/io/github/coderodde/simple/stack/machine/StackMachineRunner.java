@@ -0,0 +1,517 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class implements the command line runner of program files:
+ * <pre>
+ *   java io.github.coderodde.simple.stack.machine.StackMachineRunner \
+ *        [options] program
+ * </pre>
+ * The program file is mapped into memory and read as one of the formats
+ * below; unless {@code --format} says otherwise, the format is detected from
+ * the magic number of the file and then from its extension:
+ * <ul>
+ *   <li>{@code module}: a {@link ProgramModule}, linked without libraries,
+ *   </li>
+ *   <li>{@code snapshot}: a {@link MachineSnapshot}, resumed where it was
+ *       taken,</li>
+ *   <li>{@code asm}: a source of {@link Assembler}, the files ending with
+ *       {@code .asm} or {@code .s},</li>
+ *   <li>{@code raw}: the program bytes, everything else.</li>
+ * </ul>
+ * The run goes through four phases: load, verify, prepare and execute. The
+ * verification rejects the unknown opcodes and the code running past the end
+ * of the program; it is skipped for snapshots and for 64-bit programs. The
+ * preparation builds what the chosen engine runs over, such as the
+ * control-flow graph of {@link BasicBlockExecutionEngine}. With {@code --timing}, the
+ * duration of each phase and the instructions per second are printed to the
+ * standard error.
+ * <p>
+ * The exit status is {@value #EXIT_HALTED} if the program halts,
+ * {@value #EXIT_OUT_OF_BUDGET} if it runs out of its instruction budget,
+ * {@value #EXIT_USAGE} on an invalid command line and
+ * {@value #EXIT_FAILURE} if the program cannot be loaded or traps.
+ * <p>
+ * The {@code appcds} profile of the build packages the runner as an
+ * executable jar together with a class data sharing archive, which shortens
+ * the startup of the short runs.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class StackMachineRunner {
+
+    static final int EXIT_HALTED = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_OUT_OF_BUDGET = 3;
+
+    static final String USAGE =
+            String.format(
+            "Usage: StackMachineRunner [options] program%n"
+            + "  --format raw|asm|module|snapshot  the program format%n"
+            + "  --engine default|tos|block|register"
+            + "  the execution engine%n"
+            + "  --tape-size bytes     the tape length, a multiple of %d%n"
+            + "  --input file          read the program input from file%n"
+            + "  --output file         write the program output to file%n"
+            + "  --budget count        the instruction budget%n"
+            + "  --timing              print the duration of each phase%n"
+            + "  --help                print this message%n",
+            MachineSnapshot.PAGE_SIZE);
+
+    /**
+     * This class holds the parsed command line.
+     */
+    static final class Options {
+
+        String format;
+        String engine = "default";
+        int tapeSize = 0;
+        Path input;
+        Path output;
+        long budget = Long.MAX_VALUE;
+        boolean timing;
+        boolean help;
+        Path program;
+
+        /**
+         * Parses the command line.
+         *
+         * @param args the arguments.
+         * @return the options.
+         * @throws IllegalArgumentException if the command line is invalid.
+         */
+        static Options parse(final String[] args) {
+            final Options options = new Options();
+
+            for (int i = 0; i < args.length; ++i) {
+                final String arg = args[i];
+
+                switch (arg) {
+                    case "--format":
+                        options.format = choice(arg, value(args, ++i),
+                                                "raw", "asm", "module",
+                                                "snapshot");
+                        break;
+
+                    case "--engine":
+                        options.engine = choice(arg, value(args, ++i),
+                                                "default", "tos", "block",
+                                                "register");
+                        break;
+
+                    case "--tape-size":
+                        options.tapeSize = (int) number(arg,
+                                                        value(args, ++i),
+                                                        Integer.MAX_VALUE);
+                        break;
+
+                    case "--input":
+                        options.input = Paths.get(value(args, ++i));
+                        break;
+
+                    case "--output":
+                        options.output = Paths.get(value(args, ++i));
+                        break;
+
+                    case "--budget":
+                        options.budget = number(arg,
+                                                value(args, ++i),
+                                                Long.MAX_VALUE);
+                        break;
+
+                    case "--timing":
+                        options.timing = true;
+                        break;
+
+                    case "--help":
+                        options.help = true;
+                        break;
+
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException(
+                                    "Unknown option " + arg);
+                        }
+
+                        if (options.program != null) {
+                            throw new IllegalArgumentException(
+                                    "Only one program may be run.");
+                        }
+
+                        options.program = Paths.get(arg);
+                }
+            }
+
+            if (options.program == null && !options.help) {
+                throw new IllegalArgumentException("No program is given.");
+            }
+
+            return options;
+        }
+
+        private static String value(final String[] args, final int index) {
+            if (index == args.length) {
+                throw new IllegalArgumentException(
+                        String.format("%s takes a value", args[index - 1]));
+            }
+
+            return args[index];
+        }
+
+        private static String choice(final String option,
+                                     final String value,
+                                     final String... choices) {
+            final String lowerCase = value.toLowerCase(Locale.ROOT);
+
+            if (!Arrays.asList(choices).contains(lowerCase)) {
+                throw new IllegalArgumentException(
+                        String.format("%s: %s is not one of %s",
+                                      option,
+                                      value,
+                                      String.join(", ", choices)));
+            }
+
+            return lowerCase;
+        }
+
+        private static long number(final String option,
+                                   final String value,
+                                   final long maximum) {
+            try {
+                final long number = Long.parseLong(value);
+
+                if (number > 0L && number <= maximum) {
+                    return number;
+                }
+            } catch (final NumberFormatException ex) {
+
+            }
+
+            throw new IllegalArgumentException(
+                    String.format("%s takes a positive number, not %s",
+                                  option,
+                                  value));
+        }
+    }
+
+    private final Options options;
+    private final InputStream stdin;
+    private final PrintStream stdout;
+    private final PrintStream stderr;
+
+    /**
+     * The program image, or {@code null} if a snapshot is run.
+     */
+    private byte[] image;
+
+    private MachineSnapshot snapshot;
+
+    private ExecutionEngine engine;
+
+    private long loadNanos;
+    private long verifyNanos = -1L;
+    private long prepareNanos;
+    private long executeNanos;
+
+    private StackMachineRunner(final Options options,
+                               final InputStream stdin,
+                               final PrintStream stdout,
+                               final PrintStream stderr) {
+        this.options = options;
+        this.stdin = stdin;
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    public static void main(final String[] args) {
+        final int status = run(args, System.in, System.out, System.err);
+
+        if (status != EXIT_HALTED) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the command line {@code args} with the given standard streams.
+     *
+     * @param args   the command line arguments.
+     * @param stdin  the standard input.
+     * @param stdout the standard output.
+     * @param stderr the standard error.
+     * @return the exit status.
+     */
+    static int run(final String[] args,
+                   final InputStream stdin,
+                   final PrintStream stdout,
+                   final PrintStream stderr) {
+        final Options options;
+
+        try {
+            options = Options.parse(args);
+        } catch (final IllegalArgumentException ex) {
+            stderr.println(ex.getMessage());
+            stderr.print(USAGE);
+            return EXIT_USAGE;
+        }
+
+        if (options.help) {
+            stdout.print(USAGE);
+            return EXIT_HALTED;
+        }
+
+        final StackMachineRunner runner =
+                new StackMachineRunner(options, stdin, stdout, stderr);
+
+        try {
+            return runner.run();
+        } catch (final IOException
+                       | IllegalArgumentException
+                       | IllegalStateException ex) {
+            stderr.println("Error: " + ex.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int run() throws IOException {
+        long start = System.nanoTime();
+        load();
+        loadNanos = System.nanoTime() - start;
+
+        final int tapeLength = snapshot != null
+                ? snapshot.getTapeLength()
+                : options.tapeSize > 0
+                ? options.tapeSize
+                : SimpleStackMachine.TAPE_LENGTH_IN_BYTES;
+
+        if (snapshot != null
+                && options.tapeSize > 0
+                && options.tapeSize != tapeLength) {
+            throw new IllegalArgumentException(
+                    String.format("The snapshot has a tape of %d bytes.",
+                                  tapeLength));
+        }
+
+        if (image != null && image.length > tapeLength) {
+            throw new IllegalArgumentException(
+                    String.format("The program of %d bytes does not fit on "
+                                  + "the tape of %d bytes.",
+                                  image.length,
+                                  tapeLength));
+        }
+
+        final boolean wide = image != null
+                && WordSize.of(image) == WordSize.LONG;
+
+        ControlFlowGraph cfg = null;
+
+        if (image != null && !wide) {
+            start = System.nanoTime();
+            cfg = ControlFlowGraph.build(Arrays.copyOf(image, tapeLength), 0);
+            Linker.verify(cfg,
+                          image,
+                          0,
+                          image.length,
+                          options.program.getFileName().toString(),
+                          List.of());
+            verifyNanos = System.nanoTime() - start;
+        }
+
+        start = System.nanoTime();
+        prepare(cfg);
+        prepareNanos = System.nanoTime() - start;
+
+        try (InputStream in = options.input == null
+                    ? null
+                    : Files.newInputStream(options.input);
+             PrintStream out = options.output == null
+                    ? null
+                    : new PrintStream(
+                            new BufferedOutputStream(
+                                    Files.newOutputStream(options.output)),
+                            false,
+                            StandardCharsets.UTF_8)) {
+            return execute(in == null ? stdin : in,
+                           out == null ? stdout : out,
+                           tapeLength);
+        }
+    }
+
+    /**
+     * Maps the program file into memory and decodes it.
+     */
+    private void load() throws IOException {
+        try (FileChannel channel = FileChannel.open(options.program,
+                                                    StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        String.format("The program file of %d bytes is too "
+                                      + "large.",
+                                      size));
+            }
+
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            switch (options.format != null ? options.format
+                                           : detectFormat(buffer)) {
+                case "module":
+                    image = new Linker().link(ProgramModule.fromBuffer(buffer))
+                                        .getImage();
+                    break;
+
+                case "snapshot":
+                    snapshot = MachineSnapshot.readFrom(channel.position(0L));
+                    break;
+
+                case "asm":
+                    image = Assembler.assemble(
+                            StandardCharsets.UTF_8.decode(buffer).toString());
+                    break;
+
+                default:
+                    image = new byte[buffer.remaining()];
+                    buffer.get(image);
+            }
+        }
+    }
+
+    private String detectFormat(final MappedByteBuffer buffer) {
+        if (buffer.remaining() >= Integer.BYTES) {
+            final int magic = buffer.getInt(0);
+
+            if (magic == ProgramModule.MAGIC) {
+                return "module";
+            }
+
+            if (magic == MachineSnapshot.MAGIC) {
+                return "snapshot";
+            }
+        }
+
+        final String name = options.program.getFileName()
+                                           .toString()
+                                           .toLowerCase(Locale.ROOT);
+
+        return name.endsWith(".asm") || name.endsWith(".s") ? "asm" : "raw";
+    }
+
+    /**
+     * Builds the engine, together with whatever it runs over. The engines
+     * of the resumed snapshots build it themselves, since the code may start
+     * anywhere; the 64-bit programs always run on
+     * {@link WideExecutionEngine}. {@link RegisterExecutionEngine} translates
+     * the loaded tape itself.
+     */
+    private void prepare(final ControlFlowGraph cfg) {
+        switch (options.engine) {
+            case "tos":
+                engine = TopOfStackCachingEngine.INSTANCE;
+                break;
+
+            case "block":
+                engine = cfg == null
+                        ? BasicBlockExecutionEngine.INSTANCE
+                        : machine -> BasicBlockExecutionEngine.INSTANCE
+                                                              .run(machine,
+                                                                   cfg);
+                break;
+
+            case "register":
+                // The machine translates the tape once it is loaded, so that
+                // the translation sees the writes of the program.
+                engine = RegisterExecutionEngine.INSTANCE;
+                break;
+
+            default:
+                engine = DefaultExecutionEngine.INSTANCE;
+        }
+    }
+
+    private int execute(final InputStream in,
+                        final PrintStream out,
+                        final int tapeLength) {
+        final SimpleStackMachine machine =
+                snapshot == null
+                        ? new SimpleStackMachine(in, out, tapeLength)
+                        : snapshot.fork(in, out);
+
+        machine.setInstructionBudget(options.budget);
+
+        final long executedBefore = machine.getExecutedInstructionCount();
+        final long start = System.nanoTime();
+
+        try {
+            if (snapshot == null) {
+                machine.execute(image, engine);
+            } else {
+                machine.resume(engine);
+            }
+        } catch (final StackMachineException ex) {
+            stderr.println("Trap: " + ex.getMessage());
+            return EXIT_FAILURE;
+        } finally {
+            executeNanos = System.nanoTime() - start;
+            out.flush();
+
+            if (options.timing) {
+                printTiming(machine.getExecutedInstructionCount()
+                            - executedBefore);
+            }
+        }
+
+        if (!machine.isHalted()) {
+            stderr.printf("The instruction budget of %d ran out at address "
+                          + "%d.%n",
+                          options.budget,
+                          machine.getInstructionPointer());
+            return EXIT_OUT_OF_BUDGET;
+        }
+
+        return EXIT_HALTED;
+    }
+
+    private void printTiming(final long executedInstructionCount) {
+        printPhase("load", loadNanos);
+
+        if (verifyNanos < 0L) {
+            stderr.printf("%-8s %12s%n", "verify", "skipped");
+        } else {
+            printPhase("verify", verifyNanos);
+        }
+
+        printPhase("prepare", prepareNanos);
+        printPhase("execute", executeNanos);
+
+        stderr.printf(Locale.ROOT,
+                      "%-8s %12d instructions, %.0f per second%n",
+                      "executed",
+                      executedInstructionCount,
+                      executedInstructionCount * 1e9
+                              / Math.max(1L, executeNanos));
+    }
+
+    private void printPhase(final String phase, final long nanos) {
+        stderr.printf(Locale.ROOT, "%-8s %12.3f ms%n", phase, nanos / 1e6);
+    }
+}
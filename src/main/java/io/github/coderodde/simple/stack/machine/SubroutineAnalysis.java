@@ -0,0 +1,547 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.ControlFlowGraph.BasicBlock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * This class implements the analysis of the subroutines of a program, that
+ * is, of the constant targets of its {@code CALL} instructions. A subroutine
+ * is pure if it writes nothing to the tape, performs no I/O, no {@code HOST}
+ * and no {@code HALT}, calls only pure subroutines and returns through the
+ * very return address its caller pushed. For a pure subroutine the analysis
+ * also derives from its stack effect how many arguments it reads from below
+ * the return address and how many results it leaves in their place.
+ * <p>
+ * A pure subroutine may still {@code LOAD} from the tape. The memo table of
+ * the machine forgets all the results as soon as anything is written to the
+ * tape.
+ * <p>
+ * The processor flags are part of the effect of a subroutine: the memo table
+ * restores the flags a subroutine returned with. A pure subroutine that may
+ * read the flags of its caller, by a conditional jump before its own
+ * {@code CMP} or by returning without a {@code CMP} on some path, has the
+ * flags it was called with in its memo key.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class SubroutineAnalysis {
+
+    /**
+     * This class describes a single analyzed subroutine.
+     */
+    public static final class Subroutine {
+
+        private final int entryAddress;
+        private final boolean pure;
+        private final int argumentCount;
+        private final int resultCount;
+        private final boolean readsCallerFlags;
+
+        Subroutine(final int entryAddress,
+                   final boolean pure,
+                   final int argumentCount,
+                   final int resultCount,
+                   final boolean readsCallerFlags) {
+            this.entryAddress = entryAddress;
+            this.pure = pure;
+            this.argumentCount = argumentCount;
+            this.resultCount = resultCount;
+            this.readsCallerFlags = readsCallerFlags;
+        }
+
+        public int getEntryAddress() {
+            return entryAddress;
+        }
+
+        public boolean isPure() {
+            return pure;
+        }
+
+        /**
+         * Returns the number of stack entries below the return address the
+         * subroutine consumes. Meaningful only for pure subroutines.
+         */
+        public int getArgumentCount() {
+            return argumentCount;
+        }
+
+        /**
+         * Returns the number of stack entries the subroutine leaves in place
+         * of its arguments. Meaningful only for pure subroutines.
+         */
+        public int getResultCount() {
+            return resultCount;
+        }
+
+        /**
+         * Tells whether the effect of the subroutine depends on the flags it
+         * is called with. Meaningful only for pure subroutines.
+         */
+        public boolean readsCallerFlags() {
+            return readsCallerFlags;
+        }
+
+        @Override
+        public String toString() {
+            return pure ? String.format("%d: pure, %d -> %d%s",
+                                        entryAddress,
+                                        argumentCount,
+                                        resultCount,
+                                        readsCallerFlags ? ", flags" : "")
+                        : String.format("%d: impure", entryAddress);
+        }
+    }
+
+    /**
+     * The tag of an abstract stack entry holding the return address.
+     */
+    private static final int RETURN_ADDRESS = 1;
+
+    /**
+     * The tag of an abstract stack entry holding any other value.
+     */
+    private static final int DATA = 0;
+
+    private final Map<Integer, Subroutine> subroutines;
+    private volatile boolean memoizationEnabled = true;
+
+    private SubroutineAnalysis(final Map<Integer, Subroutine> subroutines) {
+        this.subroutines = subroutines;
+    }
+
+    /**
+     * Analyzes all the subroutines of the program whose entry point is at
+     * address 0.
+     *
+     * @param program the program to analyze.
+     * @return the analysis.
+     */
+    public static SubroutineAnalysis analyze(final byte[] program) {
+        Objects.requireNonNull(program, "The input program is null.");
+
+        final ControlFlowGraph cfg = ControlFlowGraph.build(program, 0);
+        final List<Integer> entries = new ArrayList<>();
+
+        for (final BasicBlock block : cfg.getBlocks()) {
+            final int last = block.getLastInstructionAddress();
+
+            if (block.getInstructionCount() > 0
+                    && program[last] == Opcodes.CALL) {
+                final int target = cfg.constantJumpTarget(last);
+
+                if (target >= 0 && !entries.contains(target)) {
+                    entries.add(target);
+                }
+            }
+        }
+
+        // The signatures {arguments, results, reads caller flags} found so
+        // far; a routine missing from both maps is not known yet.
+        final Map<Integer, int[]> signatures = new HashMap<>();
+        final Map<Integer, Boolean> impure = new HashMap<>();
+        boolean changed = true;
+
+        for (int round = 0; changed && round <= 2 * entries.size() + 2;
+                ++round) {
+            changed = false;
+
+            for (final int entry : entries) {
+                if (impure.containsKey(entry)) {
+                    continue;
+                }
+
+                final RoutineAnalyzer analyzer =
+                        new RoutineAnalyzer(program,
+                                            cfg,
+                                            entry,
+                                            signatures,
+                                            impure);
+                final int[] signature = analyzer.analyze();
+
+                if (analyzer.impure) {
+                    impure.put(entry, Boolean.TRUE);
+                    signatures.remove(entry);
+                    changed = true;
+                } else if (signature != null) {
+                    final int[] previous = signatures.put(entry, signature);
+
+                    if (previous == null
+                            || previous[0] != signature[0]
+                            || previous[1] != signature[1]
+                            || previous[2] != signature[2]) {
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        final Map<Integer, Subroutine> subroutines = new TreeMap<>();
+
+        for (final int entry : entries) {
+            final int[] signature = signatures.get(entry);
+
+            subroutines.put(entry,
+                            signature == null || impure.containsKey(entry)
+                            ? new Subroutine(entry, false, 0, 0, false)
+                            : new Subroutine(entry,
+                                             true,
+                                             signature[0],
+                                             signature[1],
+                                             signature[2] != 0));
+        }
+
+        return new SubroutineAnalysis(subroutines);
+    }
+
+    /**
+     * Returns the subroutine starting at {@code entryAddress}, or
+     * {@code null} if no constant {@code CALL} targets that address.
+     *
+     * @param entryAddress the entry address.
+     * @return the subroutine or {@code null}.
+     */
+    public Subroutine getSubroutine(final int entryAddress) {
+        return subroutines.get(entryAddress);
+    }
+
+    public List<Subroutine> getSubroutines() {
+        return Collections.unmodifiableList(
+                new ArrayList<>(subroutines.values()));
+    }
+
+    /**
+     * Tells whether the memo table may cache the results of this program.
+     *
+     * @return {@code true} unless the program has opted out.
+     */
+    public boolean isMemoizationEnabled() {
+        return memoizationEnabled;
+    }
+
+    /**
+     * Lets the program opt out of (or back into) memoization.
+     *
+     * @param memoizationEnabled whether to memoize pure subroutines.
+     */
+    public void setMemoizationEnabled(final boolean memoizationEnabled) {
+        this.memoizationEnabled = memoizationEnabled;
+    }
+
+    /**
+     * An abstract operand stack: the tags of the entries the routine pushed
+     * or moved, and the number of arguments it has pulled from below. Also
+     * tells whether the routine has set the flags on every path so far; the
+     * paths may disagree on that, so it takes no part in the equality.
+     */
+    private static final class AbstractStack {
+
+        final List<Integer> tags;
+        int pulledArguments;
+        boolean flagsSet;
+
+        AbstractStack(final List<Integer> tags,
+                      final int pulledArguments,
+                      final boolean flagsSet) {
+            this.tags = tags;
+            this.pulledArguments = pulledArguments;
+            this.flagsSet = flagsSet;
+        }
+
+        AbstractStack copy() {
+            return new AbstractStack(new ArrayList<>(tags),
+                                     pulledArguments,
+                                     flagsSet);
+        }
+
+        int pop() {
+            if (tags.isEmpty()) {
+                ++pulledArguments;
+                return DATA;
+            }
+
+            return tags.remove(tags.size() - 1);
+        }
+
+        void push(final int tag) {
+            tags.add(tag);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof AbstractStack)) {
+                return false;
+            }
+
+            final AbstractStack other = (AbstractStack) o;
+            return pulledArguments == other.pulledArguments
+                    && tags.equals(other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tags.hashCode() + pulledArguments;
+        }
+    }
+
+    /**
+     * Interprets a single routine abstractly over all its paths.
+     */
+    private static final class RoutineAnalyzer {
+
+        private final byte[] program;
+        private final ControlFlowGraph cfg;
+        private final int entry;
+        private final Map<Integer, int[]> signatures;
+        private final Map<Integer, Boolean> impureRoutines;
+        private final Map<Integer, AbstractStack> states = new HashMap<>();
+        private final Deque<Integer> worklist = new ArrayDeque<>();
+        private int[] signature;
+        boolean impure;
+
+        /**
+         * Set if a flag of the caller may be read or returned.
+         */
+        private boolean readsCallerFlags;
+
+        RoutineAnalyzer(final byte[] program,
+                        final ControlFlowGraph cfg,
+                        final int entry,
+                        final Map<Integer, int[]> signatures,
+                        final Map<Integer, Boolean> impureRoutines) {
+            this.program = program;
+            this.cfg = cfg;
+            this.entry = entry;
+            this.signatures = signatures;
+            this.impureRoutines = impureRoutines;
+        }
+
+        /**
+         * Returns {@code {arguments, results, reads caller flags}}, or
+         * {@code null} if no return was reached. Sets {@link #impure} if the
+         * routine is not pure.
+         */
+        int[] analyze() {
+            final List<Integer> initialTags = new ArrayList<>();
+            initialTags.add(RETURN_ADDRESS);
+            flow(entry, new AbstractStack(initialTags, 0, false));
+
+            while (!worklist.isEmpty() && !impure) {
+                final int address = worklist.remove();
+                step(address, states.get(address).copy());
+            }
+
+            if (impure || signature == null) {
+                return null;
+            }
+
+            return new int[]{ signature[0],
+                              signature[1],
+                              readsCallerFlags ? 1 : 0 };
+        }
+
+        private void flow(final int address, final AbstractStack state) {
+            if (address < 0 || address >= program.length) {
+                impure = true;
+                return;
+            }
+
+            final AbstractStack previous = states.get(address);
+
+            if (previous == null) {
+                states.put(address, state);
+                worklist.add(address);
+            } else if (!previous.equals(state)) {
+                // The paths disagree on the stack layout.
+                impure = true;
+            } else if (previous.flagsSet && !state.flagsSet) {
+                // Some path reaches here with the flags of the caller.
+                previous.flagsSet = false;
+                worklist.add(address);
+            }
+        }
+
+        private void step(final int address, final AbstractStack state) {
+            final byte opcode = program[address];
+
+            if (Operation.getOperation(opcode) == null
+                    || address + Opcodes.instructionLength(opcode)
+                       >= program.length) {
+                impure = true;
+                return;
+            }
+
+            final int next = address + Opcodes.instructionLength(opcode);
+
+            switch (opcode) {
+                case Opcodes.STORE:
+                case Opcodes.PRINT_INT:
+                case Opcodes.PRINT_STRING:
+                case Opcodes.READ_INT:
+                case Opcodes.READ_STRING:
+                case Opcodes.HALT:
+                case Opcodes.HOST:
+                case Opcodes.BCOPY:
+                case Opcodes.BFILL:
+                case Opcodes.SPAWN:
+                case Opcodes.JOIN:
+                case Opcodes.YIELD:
+                case Opcodes.CAS:
+                case Opcodes.FADD:
+                case Opcodes.SEND:
+                case Opcodes.RECV:
+                case Opcodes.TRYRECV:
+                    impure = true;
+                    return;
+
+                case Opcodes.NOP:
+                    break;
+
+                case Opcodes.PUSH:
+                case Opcodes.CONST:
+                    state.push(DATA);
+                    break;
+
+                case Opcodes.DUP: {
+                    final int tag = popData(state);
+                    state.push(tag);
+                    state.push(tag);
+                    break;
+                }
+
+                case Opcodes.SWAP: {
+                    final int top = state.pop();
+                    final int second = state.pop();
+                    state.push(top);
+                    state.push(second);
+                    break;
+                }
+
+                case Opcodes.CMP:
+                    popData(state);
+                    popData(state);
+                    state.flagsSet = true;
+                    break;
+
+                case Opcodes.RET: {
+                    if (!state.flagsSet) {
+                        // Returns the flags it was called with.
+                        readsCallerFlags = true;
+                    }
+
+                    if (state.pop() != RETURN_ADDRESS
+                            || state.tags.contains(RETURN_ADDRESS)) {
+                        impure = true;
+                        return;
+                    }
+
+                    final int[] found = { state.pulledArguments,
+                                          state.tags.size() };
+
+                    if (signature == null) {
+                        signature = found;
+                    } else if (signature[0] != found[0]
+                            || signature[1] != found[1]) {
+                        impure = true;
+                    }
+
+                    return;
+                }
+
+                case Opcodes.JMP: {
+                    popData(state);
+                    final int target = cfg.constantJumpTarget(address);
+
+                    if (target < 0) {
+                        impure = true;
+                    } else {
+                        flow(target, state);
+                    }
+
+                    return;
+                }
+
+                case Opcodes.CALL: {
+                    popData(state);
+                    final int target = cfg.constantJumpTarget(address);
+
+                    if (target < 0 || impureRoutines.containsKey(target)) {
+                        impure = true;
+                        return;
+                    }
+
+                    final int[] callee = signatures.get(target);
+
+                    if (callee == null) {
+                        // Not known yet, e.g. a recursive call; the next
+                        // round will follow this path.
+                        return;
+                    }
+
+                    for (int i = 0; i < callee[0]; ++i) {
+                        popData(state);
+                    }
+
+                    for (int i = 0; i < callee[1]; ++i) {
+                        state.push(DATA);
+                    }
+
+                    if (callee[2] == 0) {
+                        // The callee sets the flags on every path.
+                        state.flagsSet = true;
+                    } else if (!state.flagsSet) {
+                        readsCallerFlags = true;
+                    }
+
+                    break;
+                }
+
+                default:
+                    if (Opcodes.isConditionalJump(opcode)) {
+                        if (!state.flagsSet) {
+                            readsCallerFlags = true;
+                        }
+
+                        flow(SimpleStackMachine.wordAt(program, address + 1),
+                             state.copy());
+                        break;
+                    }
+
+                    // LOAD, arithmetic: pop the operands, push the
+                    // results, all of them plain data.
+                    for (int i = 0; i < Opcodes.stackPops(opcode); ++i) {
+                        popData(state);
+                    }
+
+                    for (int i = 0; i < Opcodes.stackPushes(opcode); ++i) {
+                        state.push(DATA);
+                    }
+            }
+
+            if (!impure) {
+                flow(next, state);
+            }
+        }
+
+        /**
+         * Pops an entry that must not be the return address.
+         */
+        private int popData(final AbstractStack state) {
+            final int tag = state.pop();
+
+            if (tag == RETURN_ADDRESS) {
+                impure = true;
+            }
+
+            return tag;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.SubroutineAnalysis.Subroutine;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements the bounded, per-machine memo table of the results of
+ * the pure subroutines found by {@link SubroutineAnalysis}. The table is keyed
+ * by the entry address and the argument values of a call, and by the flags
+ * at the call if the subroutine reads the flags of its caller. On a hit, the
+ * call is replaced by popping the arguments, pushing the remembered results
+ * and setting the remembered flags; on a miss, the results and the flags are
+ * recorded when the callee returns to its caller.
+ * <p>
+ * The least recently used entry is evicted once the table is full. All the
+ * entries are dropped as soon as anything is written to the tape, since a
+ * pure subroutine may {@code LOAD} from it.
+ * <p>
+ * A missed call is pending until its callee returns. The pending calls whose
+ * arguments lie above the stack can no longer return, for instance when an
+ * engine that does not report returns ran the callee, and are dropped; at
+ * most {@value #MAXIMUM_PENDING_CALLS} calls are pending at a time.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class SubroutineMemoTable {
+
+    /**
+     * The maximum number of pending calls. The outermost one is dropped to
+     * make room for a new one.
+     */
+    static final int MAXIMUM_PENDING_CALLS = 4096;
+
+    /**
+     * The key of a memoized call.
+     */
+    private static final class CallKey {
+
+        private final int entryAddress;
+        private final int[] arguments;
+        private final int flags;
+        private final int hashCode;
+
+        CallKey(final int entryAddress,
+                final int[] arguments,
+                final int flags) {
+            this.entryAddress = entryAddress;
+            this.arguments = arguments;
+            this.flags = flags;
+            this.hashCode = 31 * (31 * entryAddress
+                                  + Arrays.hashCode(arguments))
+                          + flags;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof CallKey)) {
+                return false;
+            }
+
+            final CallKey other = (CallKey) o;
+            return entryAddress == other.entryAddress
+                    && flags == other.flags
+                    && Arrays.equals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The effect of a memoized call: the results and the flags it returned
+     * with.
+     */
+    private static final class CallResult {
+
+        final int[] results;
+        final int flags;
+
+        CallResult(final int[] results, final int flags) {
+            this.results = results;
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * A call that missed the table and has not returned yet.
+     */
+    private static final class PendingCall {
+
+        final CallKey key;
+        final int returnAddress;
+        final int argumentStart;
+        final int resultCount;
+        final long tapeWriteCount;
+
+        PendingCall(final CallKey key,
+                    final int returnAddress,
+                    final int argumentStart,
+                    final int resultCount,
+                    final long tapeWriteCount) {
+            this.key = key;
+            this.returnAddress = returnAddress;
+            this.argumentStart = argumentStart;
+            this.resultCount = resultCount;
+            this.tapeWriteCount = tapeWriteCount;
+        }
+    }
+
+    private final SubroutineAnalysis analysis;
+    private final Map<CallKey, CallResult> results;
+    private final Deque<PendingCall> pendingCalls = new ArrayDeque<>();
+
+    /**
+     * The tape write count of the machine the entries were recorded under.
+     */
+    private long tapeWriteCount = -1L;
+
+    /**
+     * Set while the program on the tape runs VM threads, whose tape writes
+     * the table cannot see. Cleared by {@link #clear()}.
+     */
+    private boolean suspended;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates an empty memo table.
+     *
+     * @param analysis the analysis of the program on the tape.
+     * @param capacity the maximum number of entries.
+     */
+    public SubroutineMemoTable(final SubroutineAnalysis analysis,
+                               final int capacity) {
+        Objects.requireNonNull(analysis, "The subroutine analysis is null.");
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    String.format("capacity(%d) < 1", capacity));
+        }
+
+        this.analysis = analysis;
+        this.results =
+                new LinkedHashMap<CallKey, CallResult>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<CallKey, CallResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public SubroutineAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Drops all the entries and the calls in flight and lifts the suspension.
+     * The counters are kept.
+     */
+    public void clear() {
+        results.clear();
+        pendingCalls.clear();
+        suspended = false;
+    }
+
+    /**
+     * Drops all the entries and the calls in flight and stops memoizing until
+     * the next {@link #clear()}.
+     */
+    void suspend() {
+        clear();
+        suspended = true;
+    }
+
+    /**
+     * Handles a {@code CALL} whose target has already been popped. On a hit,
+     * replaces the arguments on the stack of {@code machine} with the
+     * remembered results and moves the instruction pointer to
+     * {@code returnAddress}.
+     *
+     * @param machine       the calling machine.
+     * @param entryAddress  the call target.
+     * @param returnAddress the address right after the {@code CALL}.
+     * @return {@code true} if the call was served from the table, and
+     *         {@code false} if the caller must perform the call.
+     */
+    boolean tryCall(final SimpleStackMachine machine,
+                    final int entryAddress,
+                    final int returnAddress) {
+        if (suspended || !analysis.isMemoizationEnabled()) {
+            return false;
+        }
+
+        final Subroutine subroutine = analysis.getSubroutine(entryAddress);
+
+        if (subroutine == null
+                || !subroutine.isPure()
+                || machine.getStackSize() < subroutine.getArgumentCount()) {
+            return false;
+        }
+
+        if (tapeWriteCount != machine.getTapeWriteCount()) {
+            results.clear();
+            tapeWriteCount = machine.getTapeWriteCount();
+        }
+
+        final int argumentCount = subroutine.getArgumentCount();
+        final int argumentStart = machine.getStackSize() - argumentCount;
+        final int[] arguments =
+                Arrays.copyOfRange(machine.getStackArray(),
+                                   argumentStart,
+                                   machine.getStackSize());
+
+        final CallKey key =
+                new CallKey(entryAddress,
+                            arguments,
+                            subroutine.readsCallerFlags()
+                                    ? machine.flags().toBits()
+                                    : 0);
+        final CallResult cached = results.get(key);
+
+        if (cached == null) {
+            ++missCount;
+            dropPendingCallsAbove(argumentStart - 1);
+
+            if (pendingCalls.size() == MAXIMUM_PENDING_CALLS) {
+                pendingCalls.removeLast();
+            }
+
+            pendingCalls.push(
+                    new PendingCall(key,
+                                    returnAddress,
+                                    argumentStart,
+                                    subroutine.getResultCount(),
+                                    tapeWriteCount));
+            return false;
+        }
+
+        ++hitCount;
+        machine.setStack(machine.getStackArray(), argumentStart);
+
+        for (final int result : cached.results) {
+            machine.push(result);
+        }
+
+        machine.flags().setBits(cached.flags);
+
+        machine.setInstructionPointer(returnAddress);
+        return true;
+    }
+
+    /**
+     * Handles a {@code RET} that has already popped {@code returnAddress}.
+     * Records the results if it completes the innermost missed call.
+     *
+     * @param machine       the returning machine.
+     * @param returnAddress the address being returned to.
+     */
+    void onReturn(final SimpleStackMachine machine, final int returnAddress) {
+        dropPendingCallsAbove(machine.getStackSize());
+
+        final PendingCall call = pendingCalls.peek();
+
+        if (call == null || call.returnAddress != returnAddress) {
+            return;
+        }
+
+        pendingCalls.pop();
+
+        final int resultEnd = call.argumentStart + call.resultCount;
+
+        if (machine.getStackSize() == resultEnd
+                && machine.getTapeWriteCount() == call.tapeWriteCount
+                && call.tapeWriteCount == tapeWriteCount) {
+            results.put(call.key,
+                        new CallResult(
+                                Arrays.copyOfRange(machine.getStackArray(),
+                                                   call.argumentStart,
+                                                   resultEnd),
+                                machine.flags().toBits()));
+        }
+    }
+
+    /**
+     * Drops the innermost pending calls whose arguments start above
+     * {@code stackSize}: their frames are gone, so they never return.
+     */
+    private void dropPendingCallsAbove(final int stackSize) {
+        while (!pendingCalls.isEmpty()
+                && pendingCalls.peek().argumentStart > stackSize) {
+            pendingCalls.pop();
+        }
+    }
+}
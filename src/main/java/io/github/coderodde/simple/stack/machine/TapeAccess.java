@@ -0,0 +1,84 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * This class implements the accesses to the little-endian words of a tape
+ * that go through {@link VarHandle} views: the 64-bit words and the atomic
+ * instructions. The atomic accesses are sequentially consistent, like the
+ * volatile accesses of Java.
+ * <p>
+ * The callers check the ranges and the alignment.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class TapeAccess {
+
+    private static final VarHandle WORD_VIEW =
+            MethodHandles.byteArrayViewVarHandle(int[].class,
+                                                 ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class,
+                                                 ByteOrder.LITTLE_ENDIAN);
+
+    private TapeAccess() {
+
+    }
+
+    static long longWordAt(final byte[] tape, final int address) {
+        return (long) LONG_VIEW.get(tape, address);
+    }
+
+    static void setLongWordAt(final byte[] tape,
+                              final int address,
+                              final long word) {
+        LONG_VIEW.set(tape, address, word);
+    }
+
+    /**
+     * Replaces the word at {@code address} with {@code newValue} if it equals
+     * {@code expected}.
+     *
+     * @return the value of the word found.
+     */
+    static int compareAndExchangeWord(final byte[] tape,
+                                      final int address,
+                                      final int expected,
+                                      final int newValue) {
+        return (int) WORD_VIEW.compareAndExchange(tape,
+                                                  address,
+                                                  expected,
+                                                  newValue);
+    }
+
+    /**
+     * Adds {@code delta} to the word at {@code address}.
+     *
+     * @return the value of the word before the addition.
+     */
+    static int fetchAndAddWord(final byte[] tape,
+                               final int address,
+                               final int delta) {
+        return (int) WORD_VIEW.getAndAdd(tape, address, delta);
+    }
+
+    static long compareAndExchangeLong(final byte[] tape,
+                                       final int address,
+                                       final long expected,
+                                       final long newValue) {
+        return (long) LONG_VIEW.compareAndExchange(tape,
+                                                   address,
+                                                   expected,
+                                                   newValue);
+    }
+
+    static long fetchAndAddLong(final byte[] tape,
+                                final int address,
+                                final long delta) {
+        return (long) LONG_VIEW.getAndAdd(tape, address, delta);
+    }
+}
@@ -0,0 +1,320 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an execution engine that keeps up to two top-most
+ * operand stack entries in local variables ({@code tos} and {@code nos}). The
+ * entries are spilled to the stack array only when a push finds both
+ * registers occupied, and are filled back from the array only when an
+ * instruction needs more operands than are currently cached. This way the
+ * arithmetic instructions, {@code DUP}, {@code SWAP} and {@code CMP} become
+ * register-to-register operations.
+ * <p>
+ * The instructions that are rare in hot loops ({@code sout}, {@code iin},
+ * {@code sin} and any unknown opcode) are delegated to their
+ * {@link Operation} implementation after the cached registers have been
+ * flushed to the machine.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class TopOfStackCachingEngine implements ExecutionEngine {
+
+    public static final TopOfStackCachingEngine INSTANCE =
+            new TopOfStackCachingEngine();
+
+    private TopOfStackCachingEngine() {
+
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        final byte[] tape = machine.getTape();
+        final SimpleStackMachine.ProcessorFlags flags = machine.flags();
+
+        int[] stack = machine.getStackArray();
+        int sp = machine.getStackSize();
+        int ip = machine.getInstructionPointer();
+
+        // The top of the stack and the next-on-stack registers. 'cached' is
+        // the number of valid registers: 0, 1 (tos) or 2 (tos and nos).
+        int tos = 0;
+        int nos = 0;
+        int cached = 0;
+
+        final long initialBudget = machine.getInstructionBudget();
+        long budget = initialBudget;
+
+        try {
+            while (!machine.isStopRequested() && budget > 0L) {
+                --budget;
+
+                // Keep room for the one spill of a push and for flushing
+                // both registers afterwards, so that neither the
+                // instructions below nor the 'finally' block need to check
+                // the array capacity.
+                if (stack.length - sp < 3) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length + 2);
+                }
+
+                switch (tape[ip]) {
+                    case Opcodes.NOP:
+                        ++ip;
+                        break;
+
+                    case Opcodes.PUSH:
+                    case Opcodes.CONST: {
+                        final int value = SimpleStackMachine.wordAt(tape,
+                                                                    ip + 1);
+                        ip += 1 + Integer.BYTES;
+
+                        if (cached == 2) {
+                            stack[sp++] = nos;
+                        }
+
+                        nos = tos;
+                        tos = value;
+                        cached = Math.min(cached + 1, 2);
+                        break;
+                    }
+
+                    case Opcodes.POP:
+                        requireStackSize(sp, cached, 1);
+                        ++ip;
+
+                        if (cached == 2) {
+                            tos = nos;
+                            cached = 1;
+                        } else if (cached == 1) {
+                            cached = 0;
+                        } else {
+                            --sp;
+                        }
+
+                        break;
+
+                    case Opcodes.LOAD:
+                        if (cached == 0) {
+                            requireStackSize(sp, 0, 1);
+                            tos = stack[--sp];
+                            cached = 1;
+                        }
+
+                        ++ip;
+                        tos = machine.readWordFromTape(tos);
+                        break;
+
+                    case Opcodes.STORE:
+                        if (cached < 2) {
+                            requireStackSize(sp, cached, 2);
+
+                            if (cached == 0) {
+                                tos = stack[--sp];
+                            }
+
+                            nos = stack[--sp];
+                        }
+
+                        ++ip;
+                        machine.writeWordToTape(tos, nos);
+                        cached = 0;
+                        break;
+
+                    case Opcodes.ADD:
+                    case Opcodes.SUB:
+                    case Opcodes.MUL:
+                    case Opcodes.DIV:
+                    case Opcodes.MOD: {
+                        if (cached < 2) {
+                            requireStackSize(sp, cached, 2);
+
+                            if (cached == 0) {
+                                tos = stack[--sp];
+                            }
+
+                            nos = stack[--sp];
+                        }
+
+                        tos = Opcodes.arithmetic(tape[ip], tos, nos);
+                        cached = 1;
+                        ++ip;
+                        break;
+                    }
+
+                    case Opcodes.DUP:
+                        if (cached == 0) {
+                            requireStackSize(sp, 0, 1);
+                            tos = stack[--sp];
+                        } else if (cached == 2) {
+                            stack[sp++] = nos;
+                        }
+
+                        nos = tos;
+                        cached = 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.SWAP: {
+                        if (cached < 2) {
+                            requireStackSize(sp, cached, 2);
+
+                            if (cached == 0) {
+                                tos = stack[--sp];
+                            }
+
+                            nos = stack[--sp];
+                            cached = 2;
+                        }
+
+                        final int tmp = tos;
+                        tos = nos;
+                        nos = tmp;
+                        ++ip;
+                        break;
+                    }
+
+                    case Opcodes.CMP: {
+                        if (cached < 2) {
+                            requireStackSize(sp, cached, 2);
+
+                            if (cached == 0) {
+                                tos = stack[--sp];
+                            }
+
+                            nos = stack[--sp];
+                        }
+
+                        Opcodes.setComparisonFlags(flags, Integer.compare(tos, nos));
+                        cached = 0;
+                        ++ip;
+                        break;
+                    }
+
+                    case Opcodes.JMP:
+                    case Opcodes.RET:
+                        if (cached == 0) {
+                            requireStackSize(sp, 0, 1);
+                            tos = stack[--sp];
+                        } else if (cached == 2) {
+                            stack[sp++] = nos;
+                        }
+
+                        ip = tos;
+                        cached = 0;
+                        break;
+
+                    case Opcodes.CALL:
+                        if (cached == 0) {
+                            requireStackSize(sp, 0, 1);
+                            tos = stack[--sp];
+                        } else if (cached == 2) {
+                            stack[sp++] = nos;
+                        }
+
+                        // The return address replaces the call address in
+                        // the top register.
+                        nos = tos;
+                        tos = ip + 1 + Integer.BYTES;
+                        ip = nos;
+                        cached = 1;
+                        break;
+
+                    case Opcodes.JZ:
+                    case Opcodes.JNZ:
+                    case Opcodes.JBZ:
+                    case Opcodes.JAZ:
+                    case Opcodes.JL:
+                    case Opcodes.JLE:
+                    case Opcodes.JE:
+                    case Opcodes.JNE:
+                    case Opcodes.JA:
+                    case Opcodes.JAE:
+                        if (Opcodes.isJumpTaken(tape[ip], flags)) {
+                            ip = SimpleStackMachine.wordAt(tape, ip + 1);
+                        } else {
+                            ip += 1 + Integer.BYTES;
+                        }
+
+                        break;
+
+                    case Opcodes.PRINT_INT:
+                        if (cached == 0) {
+                            requireStackSize(sp, 0, 1);
+                            tos = stack[--sp];
+                            cached = 1;
+                        }
+
+                        ++ip;
+                        machine.printLine(tos);
+
+                        if (cached == 2) {
+                            tos = nos;
+                            cached = 1;
+                        } else {
+                            cached = 0;
+                        }
+
+                        break;
+
+                    case Opcodes.HALT:
+                        ++ip;
+                        machine.requestHalt();
+                        break;
+
+                    default:
+                        // Flush the registers and let the reference
+                        // implementation do the job.
+                        if (cached == 2) {
+                            stack[sp++] = nos;
+                        }
+
+                        if (cached >= 1) {
+                            stack[sp++] = tos;
+                        }
+
+                        cached = 0;
+                        machine.setStack(stack, sp);
+                        machine.setInstructionPointer(ip);
+                        machine.step();
+                        stack = machine.getStackArray();
+                        sp = machine.getStackSize();
+                        ip = machine.getInstructionPointer();
+
+                        if (machine.isWaiting()) {
+                            ++budget;
+                        }
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException ex) {
+            throw new StackMachineException(
+                    String.format("Tape access out of bounds near address %d: "
+                                  + "%s",
+                                  ip,
+                                  ex.getMessage()));
+        } finally {
+            if (cached == 2) {
+                stack[sp++] = nos;
+            }
+
+            if (cached >= 1) {
+                stack[sp++] = tos;
+            }
+
+            machine.setStack(stack, sp);
+            machine.setInstructionPointer(ip);
+            machine.chargeInstructions(initialBudget - budget);
+        }
+    }
+
+    private static void requireStackSize(final int sp,
+                                         final int cached,
+                                         final int requestedSize) {
+        if (sp + cached < requestedSize) {
+            throw new StackMachineException(
+                    String.format("'stack.size()' is %d, 'requestedSize' is %d",
+                                  sp + cached,
+                                  requestedSize));
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements the recorder of the compact binary execution traces
+ * replayed by {@link TraceReplayer}. Only the nondeterministic events are
+ * recorded: the loaded program's length and checksum, the results of
+ * {@code READ_INT} and {@code READ_STRING}, and an instruction pointer
+ * checkpoint every {@code checkpointInterval} instructions and at the end of
+ * every engine run. The checkpoints are taken between engine runs, so
+ * recording costs nothing per instruction.
+ * <p>
+ * The records are written to an off-heap ring buffer. When the ring is full,
+ * it is spilled to the file channel if one was given; otherwise the oldest
+ * records are dropped and the trace is no longer replayable, which
+ * {@link #isTruncated()} tells. All the words are little-endian:
+ * <pre>
+ *   PROGRAM    0x01 length:int crc32:int
+ *   READ_INT   0x02 value:int
+ *   READ_STR   0x03 length:int bytes:byte[length]   (UTF-8)
+ *   CHECKPOINT 0x04 executed:long ip:int halted:byte
+ * </pre>
+ * A recorder records one program run on one fresh machine at a time, and is
+ * not thread-safe. Loading another program starts the trace over, also in
+ * the spill channel.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class TraceRecorder {
+
+    /**
+     * The default number of instructions between two checkpoints.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1L << 20;
+
+    static final byte PROGRAM = 0x01;
+    static final byte READ_INT = 0x02;
+    static final byte READ_STRING = 0x03;
+    static final byte CHECKPOINT = 0x04;
+
+    static final int PROGRAM_RECORD_LENGTH = 1 + 2 * Integer.BYTES;
+    static final int READ_INT_RECORD_LENGTH = 1 + Integer.BYTES;
+    static final int CHECKPOINT_RECORD_LENGTH = 1
+                                              + Long.BYTES
+                                              + Integer.BYTES
+                                              + 1;
+
+    /**
+     * The off-heap ring of the records not yet spilled.
+     */
+    private final ByteBuffer ring;
+
+    /**
+     * The channel to spill the ring to, or {@code null} if the oldest records
+     * are dropped instead.
+     */
+    private final FileChannel spillChannel;
+
+    /**
+     * The position of the spill channel the trace starts at.
+     */
+    private final long spillStart;
+
+    private final long checkpointInterval;
+
+    /**
+     * The scratch buffer each record is encoded in before being copied to
+     * the ring.
+     */
+    private ByteBuffer scratch =
+            ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The index of the oldest record in the ring.
+     */
+    private int head = 0;
+
+    /**
+     * The number of bytes in the ring.
+     */
+    private int size = 0;
+
+    private long spilledBytes = 0L;
+    private boolean truncated = false;
+
+    /**
+     * Constructs a recorder that drops its oldest records once
+     * {@code capacity} bytes are buffered.
+     *
+     * @param capacity the capacity of the ring in bytes.
+     */
+    public TraceRecorder(final int capacity) {
+        this(capacity, DEFAULT_CHECKPOINT_INTERVAL, null);
+    }
+
+    /**
+     * Constructs a recorder.
+     *
+     * @param capacity           the capacity of the ring in bytes.
+     * @param checkpointInterval the number of instructions between two
+     *                           checkpoints.
+     * @param spillChannel       the channel to spill the full ring to, or
+     *                           {@code null} to drop the oldest records.
+     */
+    public TraceRecorder(final int capacity,
+                         final long checkpointInterval,
+                         final FileChannel spillChannel) {
+        if (capacity < CHECKPOINT_RECORD_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("capacity(%d) < %d",
+                                  capacity,
+                                  CHECKPOINT_RECORD_LENGTH));
+        }
+
+        if (checkpointInterval < 1L) {
+            throw new IllegalArgumentException(
+                    String.format("checkpointInterval(%d) < 1",
+                                  checkpointInterval));
+        }
+
+        this.ring = ByteBuffer.allocateDirect(capacity);
+        this.checkpointInterval = checkpointInterval;
+        this.spillChannel = spillChannel;
+
+        try {
+            this.spillStart = spillChannel == null ? 0L
+                                                   : spillChannel.position();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Tells whether records were dropped to make room in the ring. A
+     * truncated trace cannot be replayed.
+     *
+     * @return {@code true} if the trace is truncated.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the number of bytes recorded so far, spilled or not, excluding
+     * the dropped records.
+     *
+     * @return the trace length in bytes.
+     */
+    public long getTraceLength() {
+        return spilledBytes + size;
+    }
+
+    /**
+     * Returns the records still in the ring, oldest first. Without a spill
+     * channel, this is the whole trace unless it is truncated.
+     *
+     * @return the buffered trace bytes.
+     */
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[size];
+        final int firstPart = Math.min(size, ring.capacity() - head);
+
+        ring.get(head, bytes, 0, firstPart);
+        ring.get(0, bytes, firstPart, size - firstPart);
+        return bytes;
+    }
+
+    /**
+     * Writes the records still in the ring to the spill channel, so that the
+     * channel holds the whole trace.
+     */
+    public void flush() {
+        if (spillChannel == null) {
+            throw new IllegalStateException(
+                    "The recorder has no spill channel.");
+        }
+
+        spill();
+    }
+
+    /**
+     * Clears the trace, truncating the spill channel back to where the trace
+     * started. Called when a new program is loaded.
+     *
+     * @param program the loaded program.
+     */
+    void programLoaded(final byte[] program) {
+        final CRC32 crc = new CRC32();
+        crc.update(program);
+
+        if (spilledBytes > 0L) {
+            try {
+                spillChannel.truncate(spillStart).position(spillStart);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            spilledBytes = 0L;
+        }
+
+        head = 0;
+        size = 0;
+        truncated = false;
+
+        prepare(PROGRAM_RECORD_LENGTH).put(PROGRAM)
+                                      .putInt(program.length)
+                                      .putInt((int) crc.getValue());
+        append();
+    }
+
+    void recordInt(final int value) {
+        prepare(READ_INT_RECORD_LENGTH).put(READ_INT).putInt(value);
+        append();
+    }
+
+    void recordString(final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        prepare(1 + Integer.BYTES + bytes.length).put(READ_STRING)
+                                                 .putInt(bytes.length)
+                                                 .put(bytes);
+        append();
+    }
+
+    void recordCheckpoint(final long executedInstructions,
+                          final int instructionPointer,
+                          final boolean halted) {
+        prepare(CHECKPOINT_RECORD_LENGTH).put(CHECKPOINT)
+                                         .putLong(executedInstructions)
+                                         .putInt(instructionPointer)
+                                         .put((byte) (halted ? 1 : 0));
+        append();
+    }
+
+    /**
+     * Returns the length of the record starting at {@code index} of the ring.
+     */
+    private int recordLengthAt(final int index) {
+        switch (ring.get(index)) {
+            case PROGRAM:
+                return PROGRAM_RECORD_LENGTH;
+
+            case READ_INT:
+                return READ_INT_RECORD_LENGTH;
+
+            case CHECKPOINT:
+                return CHECKPOINT_RECORD_LENGTH;
+
+            default:
+                int length = 0;
+
+                for (int i = Integer.BYTES; i >= 1; --i) {
+                    length = (length << 8)
+                           | Byte.toUnsignedInt(
+                                   ring.get((index + i) % ring.capacity()));
+                }
+
+                return 1 + Integer.BYTES + length;
+        }
+    }
+
+    private ByteBuffer prepare(final int length) {
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length,
+                                                   2 * scratch.capacity()))
+                                .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        return scratch.clear();
+    }
+
+    /**
+     * Appends the record encoded in the scratch buffer to the ring.
+     */
+    private void append() {
+        scratch.flip();
+
+        final int length = scratch.remaining();
+        final int capacity = ring.capacity();
+
+        if (capacity - size < length) {
+            if (spillChannel != null) {
+                spill();
+
+                if (length > capacity) {
+                    writeFully(scratch);
+                    spilledBytes += length;
+                    return;
+                }
+            } else if (length > capacity) {
+                head = 0;
+                size = 0;
+                truncated = true;
+                return;
+            } else {
+                while (capacity - size < length) {
+                    final int dropped = recordLengthAt(head);
+                    head = (head + dropped) % capacity;
+                    size -= dropped;
+                }
+
+                truncated = true;
+            }
+        }
+
+        final int tail = (head + size) % capacity;
+        final int firstPart = Math.min(length, capacity - tail);
+
+        ring.put(tail, scratch, 0, firstPart);
+        ring.put(0, scratch, firstPart, length - firstPart);
+        size += length;
+    }
+
+    private void spill() {
+        final int firstPart = Math.min(size, ring.capacity() - head);
+
+        writeFully(ring.slice(head, firstPart));
+        writeFully(ring.slice(0, size - firstPart));
+
+        spilledBytes += size;
+        head = 0;
+        size = 0;
+    }
+
+    private void writeFully(final ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                spillChannel.write(buffer);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements the deterministic replay of a trace written by
+ * {@link TraceRecorder}. The replaying machine reads its input from the
+ * trace instead of its input stream, and is paused at every recorded
+ * checkpoint to verify that it has executed the same number of instructions
+ * and reached the same instruction pointer. Any difference is reported as a
+ * {@link StackMachineException}.
+ * <p>
+ * The replay is exact as long as the machine is configured as the recorded
+ * one was: the same intrinsics, and memoization enabled or not alike, since
+ * memoized calls are not counted as executed instructions.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class TraceReplayer {
+
+    private final int programLength;
+    private final int programChecksum;
+
+    /**
+     * The recorded inputs in order; each is an {@link Integer} or a
+     * {@link String}.
+     */
+    private final List<Object> inputs = new ArrayList<>();
+
+    private final List<long[]> checkpoints = new ArrayList<>();
+
+    /**
+     * The index of the next input to hand to the machine.
+     */
+    private int inputIndex;
+
+    /**
+     * Parses the trace bytes.
+     *
+     * @param trace the trace as written by {@link TraceRecorder}.
+     */
+    public TraceReplayer(final byte[] trace) {
+        this(ByteBuffer.wrap(Objects.requireNonNull(trace,
+                                                    "The trace is null.")));
+    }
+
+    /**
+     * Parses the remaining bytes of the buffer.
+     *
+     * @param trace the trace as written by {@link TraceRecorder}.
+     */
+    public TraceReplayer(final ByteBuffer trace) {
+        final ByteBuffer buffer = Objects.requireNonNull(trace,
+                                                         "The trace is null.")
+                                         .slice()
+                                         .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (!buffer.hasRemaining() || buffer.get() != TraceRecorder.PROGRAM) {
+            throw new IllegalArgumentException(
+                    "The trace does not start with a program record.");
+        }
+
+        try {
+            programLength = buffer.getInt();
+            programChecksum = buffer.getInt();
+
+            while (buffer.hasRemaining()) {
+                final byte type = buffer.get();
+
+                switch (type) {
+                    case TraceRecorder.READ_INT:
+                        inputs.add(buffer.getInt());
+                        break;
+
+                    case TraceRecorder.READ_STRING: {
+                        final byte[] bytes = new byte[buffer.getInt()];
+                        buffer.get(bytes);
+                        inputs.add(new String(bytes, StandardCharsets.UTF_8));
+                        break;
+                    }
+
+                    case TraceRecorder.CHECKPOINT:
+                        checkpoints.add(new long[] { buffer.getLong(),
+                                                     buffer.getInt(),
+                                                     buffer.get() });
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException(
+                                String.format("Unknown trace record type "
+                                              + "0x%02x at offset %d",
+                                              Byte.toUnsignedInt(type),
+                                              buffer.position() - 1));
+                }
+            }
+        } catch (final BufferUnderflowException
+                     | NegativeArraySizeException ex) {
+            throw new IllegalArgumentException("The trace is cut short.", ex);
+        }
+    }
+
+    /**
+     * Reads a trace spilled to a file.
+     *
+     * @param file the trace file.
+     * @return the replayer of the trace.
+     * @throws IOException if the file cannot be read.
+     */
+    public static TraceReplayer read(final Path file) throws IOException {
+        try (final FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TraceReplayer(
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                0L,
+                                channel.size()));
+        }
+    }
+
+    public int getInputCount() {
+        return inputs.size();
+    }
+
+    public int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Loads the program to the machine and runs it with the recorded input
+     * up to the last checkpoint. The machine is left as the recorded one was
+     * at that point: halted, or paused and resumable.
+     *
+     * @param machine the machine to replay on.
+     * @param program the recorded program.
+     * @param engine  the engine to run the machine with.
+     */
+    public void replay(final SimpleStackMachine machine,
+                       final byte[] program,
+                       final ExecutionEngine engine) {
+        Objects.requireNonNull(machine, "The machine is null.");
+        Objects.requireNonNull(program, "The program is null.");
+        Objects.requireNonNull(engine, "The execution engine is null.");
+
+        final CRC32 crc = new CRC32();
+        crc.update(program);
+
+        if (program.length != programLength
+                || (int) crc.getValue() != programChecksum) {
+            throw new IllegalArgumentException(
+                    "The program is not the one the trace was recorded for.");
+        }
+
+        inputIndex = 0;
+        machine.setTraceReplayer(this);
+
+        try {
+            if (checkpoints.isEmpty()) {
+                machine.execute(program, engine);
+            }
+
+            for (int i = 0; i < checkpoints.size(); ++i) {
+                final long[] checkpoint = checkpoints.get(i);
+
+                machine.setInstructionBudget(
+                        checkpoint[0] - machine.getExecutedInstructionCount());
+
+                if (i == 0) {
+                    machine.execute(program, engine);
+                } else {
+                    machine.resume(engine);
+                }
+
+                if (machine.getExecutedInstructionCount() != checkpoint[0]
+                        || machine.getInstructionPointer() != checkpoint[1]
+                        || machine.isHalted() != (checkpoint[2] != 0)) {
+                    throw new StackMachineException(
+                            String.format("Replay diverged at checkpoint %d: "
+                                          + "expected %d instructions at "
+                                          + "address %d, got %d at %d",
+                                          i,
+                                          checkpoint[0],
+                                          checkpoint[1],
+                                          machine.getExecutedInstructionCount(),
+                                          machine.getInstructionPointer()));
+                }
+            }
+
+            if (inputIndex != inputs.size()) {
+                throw new StackMachineException(
+                        String.format("Replay diverged: %d of %d recorded "
+                                      + "inputs were read",
+                                      inputIndex,
+                                      inputs.size()));
+            }
+        } finally {
+            machine.setTraceReplayer(null);
+        }
+    }
+
+    int nextInt() {
+        return (Integer) nextInput(Integer.class);
+    }
+
+    String nextString() {
+        return (String) nextInput(String.class);
+    }
+
+    private Object nextInput(final Class<?> type) {
+        if (inputIndex == inputs.size()
+                || !type.isInstance(inputs.get(inputIndex))) {
+            throw new StackMachineException(
+                    String.format("Replay diverged: input %d is not a "
+                                  + "recorded %s",
+                                  inputIndex,
+                                  type.getSimpleName()));
+        }
+
+        return inputs.get(inputIndex++);
+    }
+}
@@ -0,0 +1,547 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class implements the VM threads started by {@code SPAWN}. Every VM
+ * thread is a {@link SimpleStackMachine} of its own, with its own
+ * instruction pointer, operand stack and flags, sharing the tape of the
+ * machine that started the program. The threads run on a
+ * {@link ForkJoinPool} in slices of {@value #QUANTUM} instructions; a thread
+ * that yields or exhausts its slice is submitted to the pool anew.
+ * <p>
+ * {@code JOIN} waits for the thread to halt via
+ * {@link CompletableFuture#join()}, which lets the pool compensate for the
+ * blocked worker.
+ * <p>
+ * The threads run only while the thread 0 runs a slice, and share its
+ * instruction budget: each quantum is taken from the budget the slice
+ * started with, and the instructions the threads execute are charged to the
+ * thread 0 when its slice ends. Once the budget is spent or the slice ends,
+ * the threads park at the end of their quanta, and a {@code JOIN} waiting
+ * for a parked thread stops its machine at the {@code JOIN}; the next slice
+ * of the thread 0 resubmits them. When the thread 0 halts, traps or loads
+ * another program, the group is stopped: every thread ends at the end of
+ * its quantum, completing as cancelled.
+ * <p>
+ * The static methods implement the instructions of the threads: spawning,
+ * joining and yielding, the atomic accesses to the shared tape and the
+ * channel transfers.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class VmThreadGroup {
+
+    /**
+     * The number of instructions a VM thread runs before it lets the others
+     * have the worker.
+     */
+    static final long QUANTUM = 1L << 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The ID of the next thread. The main thread has the ID 0.
+     */
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final Map<Integer, VmThread> threads = new ConcurrentHashMap<>();
+
+    /**
+     * The instructions the threads may still run in the current slice of the
+     * thread 0.
+     */
+    private long budget;
+
+    /**
+     * The instructions the threads have run and not yet charged to the
+     * thread 0.
+     */
+    private long executed;
+
+    /**
+     * Whether the thread 0 runs a slice, so that the threads may run.
+     */
+    private boolean running = true;
+
+    private boolean stopped;
+
+    /**
+     * The threads waiting for the next slice of the thread 0.
+     */
+    private final List<VmThread> parked = new ArrayList<>();
+
+    /**
+     * Completed when the threads can run no more in the current slice: the
+     * budget is spent, the slice ended or the group is stopped.
+     */
+    private CompletableFuture<Void> exhausted = new CompletableFuture<>();
+
+    /**
+     * Constructs a group that runs its threads within the rest of the current
+     * slice of the thread 0.
+     *
+     * @param pool   the pool to run the threads on.
+     * @param budget the instruction budget of the slice.
+     */
+    VmThreadGroup(final ForkJoinPool pool, final long budget) {
+        this.pool = pool;
+        this.budget = budget;
+    }
+
+    /**
+     * Starts a VM thread of {@code machine} at {@code entryAddress} with
+     * {@code argument} on its operand stack. Suspends the memoization of
+     * {@code machine}, since the thread writes to the tape behind the back of
+     * the memo table.
+     *
+     * @param machine      the spawning machine.
+     * @param entryAddress the address of the first instruction of the thread.
+     * @param argument     the argument of the thread.
+     * @return the ID of the thread.
+     */
+    static int spawnThread(final SimpleStackMachine machine,
+                           final int entryAddress,
+                           final int argument) {
+        final SubroutineMemoTable memoTable = machine.getMemoTable();
+
+        if (memoTable != null) {
+            memoTable.suspend();
+        }
+
+        return machine.getThreadGroup().spawn(machine,
+                                              entryAddress,
+                                              argument,
+                                              machine.getRunningEngine());
+    }
+
+    /**
+     * Waits for the VM thread {@code id} of the program of {@code machine} to
+     * halt.
+     *
+     * @param machine the waiting machine.
+     * @param id      the ID of the thread.
+     * @return the top of the operand stack of the thread, or 0 if its stack
+     *         is empty.
+     */
+    static int joinThread(final SimpleStackMachine machine, final int id) {
+        return machine.getThreadGroup().join(id, machine.getThreadId());
+    }
+
+    /**
+     * Waits until the VM thread {@code id} has halted or trapped, or the
+     * threads can run no more in the current slice of the thread 0. In the
+     * latter case, stops {@code machine} at its {@code JOIN}.
+     *
+     * @param machine the waiting machine.
+     * @param id      the ID of the thread.
+     * @return {@code true} if the {@code JOIN} may complete.
+     */
+    static boolean awaitThread(final SimpleStackMachine machine,
+                               final int id) {
+        if (id == machine.getThreadId()
+                || machine.getThreadGroup().await(id)) {
+            return true;
+        }
+
+        machine.requestJoinPause();
+        return false;
+    }
+
+    /**
+     * Lets the other VM threads run. A spawned thread stops its slice and
+     * gives its worker up; the thread 0 runs on a thread of its own, and
+     * merely yields it.
+     *
+     * @param machine the yielding machine.
+     */
+    static void yieldThread(final SimpleStackMachine machine) {
+        if (machine.getThreadId() == 0) {
+            Thread.yield();
+        } else {
+            machine.requestYield();
+        }
+    }
+
+    /**
+     * Atomically replaces the word at {@code address} with {@code newValue}
+     * if it equals {@code expected}.
+     *
+     * @param machine  the accessing machine.
+     * @param address  the aligned address of the word.
+     * @param expected the expected value of the word.
+     * @param newValue the new value of the word.
+     * @return the value of the word found.
+     */
+    static int compareAndExchangeWord(final SimpleStackMachine machine,
+                                      final int address,
+                                      final int expected,
+                                      final int newValue) {
+        beginAtomicWrite(machine, address, Integer.BYTES);
+        return TapeAccess.compareAndExchangeWord(machine.getTape(),
+                                                 address,
+                                                 expected,
+                                                 newValue);
+    }
+
+    /**
+     * Atomically adds {@code delta} to the word at {@code address}.
+     *
+     * @param machine the accessing machine.
+     * @param address the aligned address of the word.
+     * @param delta   the value to add.
+     * @return the value of the word before the addition.
+     */
+    static int fetchAndAddWord(final SimpleStackMachine machine,
+                               final int address,
+                               final int delta) {
+        beginAtomicWrite(machine, address, Integer.BYTES);
+        return TapeAccess.fetchAndAddWord(machine.getTape(), address, delta);
+    }
+
+    /**
+     * The 64-bit counterpart of
+     * {@link #compareAndExchangeWord(SimpleStackMachine, int, int, int)}.
+     */
+    static long compareAndExchangeLong(final SimpleStackMachine machine,
+                                       final int address,
+                                       final long expected,
+                                       final long newValue) {
+        beginAtomicWrite(machine, address, Long.BYTES);
+        return TapeAccess.compareAndExchangeLong(machine.getTape(),
+                                                 address,
+                                                 expected,
+                                                 newValue);
+    }
+
+    /**
+     * The 64-bit counterpart of
+     * {@link #fetchAndAddWord(SimpleStackMachine, int, int)}.
+     */
+    static long fetchAndAddLong(final SimpleStackMachine machine,
+                                final int address,
+                                final long delta) {
+        beginAtomicWrite(machine, address, Long.BYTES);
+        return TapeAccess.fetchAndAddLong(machine.getTape(), address, delta);
+    }
+
+    /**
+     * Returns the channel at the port of a channel instruction.
+     *
+     * @param machine the machine executing the instruction.
+     * @param port    the port.
+     * @return the channel.
+     */
+    static Channel channelAt(final SimpleStackMachine machine,
+                             final int port) {
+        final Channel channel = machine.getChannel(port);
+
+        if (channel == null) {
+            throw new StackMachineException(
+                    String.format("No channel at port %d", port));
+        }
+
+        return channel;
+    }
+
+    static void sendToChannel(final SimpleStackMachine machine,
+                              final int port,
+                              final int word) {
+        if (!channelAt(machine, port).send(word)) {
+            throw new StackMachineException(
+                    String.format("The channel at port %d is closed", port));
+        }
+    }
+
+    static int receiveFromChannel(final SimpleStackMachine machine,
+                                  final int port) {
+        final long word = channelAt(machine, port).receive();
+
+        if (word == Channel.EMPTY) {
+            throw new StackMachineException(
+                    String.format("The channel at port %d is closed and "
+                                  + "drained",
+                                  port));
+        }
+
+        return (int) word;
+    }
+
+    /**
+     * Checks the range and the alignment of an atomic access and accounts for
+     * the write.
+     */
+    private static void beginAtomicWrite(final SimpleStackMachine machine,
+                                         final int address,
+                                         final int wordBytes) {
+        machine.checkTapeRange(address, wordBytes);
+
+        if (address % wordBytes != 0) {
+            throw new StackMachineException(
+                    String.format("Unaligned atomic access at address %d",
+                                  address));
+        }
+
+        machine.tapeWritten(address, wordBytes);
+    }
+
+    /**
+     * Lets the threads run again within {@code budget} instructions. Called
+     * when the thread 0 starts a slice.
+     *
+     * @param budget the instruction budget of the slice.
+     */
+    synchronized void beginSlice(final long budget) {
+        if (stopped) {
+            return;
+        }
+
+        this.budget = budget;
+        this.running = true;
+        this.exhausted = new CompletableFuture<>();
+
+        for (final VmThread thread : parked) {
+            pool.execute(thread);
+        }
+
+        parked.clear();
+    }
+
+    /**
+     * Parks the threads at the end of their quanta. Called when a slice of
+     * the thread 0 ends.
+     *
+     * @return the number of instructions the threads executed since the
+     *         previous call, to be charged to the thread 0.
+     */
+    synchronized long endSlice() {
+        running = false;
+        exhausted.complete(null);
+
+        final long count = executed;
+        executed = 0L;
+        return count;
+    }
+
+    /**
+     * Cancels all the threads: the running ones at the end of their quanta,
+     * the parked ones at once.
+     */
+    synchronized void stop() {
+        stopped = true;
+        running = false;
+        exhausted.complete(null);
+
+        for (final VmThread thread : parked) {
+            thread.cancel();
+        }
+
+        parked.clear();
+    }
+
+    /**
+     * Takes the next quantum of {@code thread} from the budget, or parks the
+     * thread if the threads may not run.
+     *
+     * @return the quantum, 0 if the thread is parked, or -1 if the group is
+     *         stopped.
+     */
+    private synchronized long takeQuantum(final VmThread thread) {
+        if (stopped) {
+            return -1L;
+        }
+
+        if (budget == 0L) {
+            // The budget stays spent for the rest of the slice.
+            running = false;
+        }
+
+        if (!running) {
+            parked.add(thread);
+            exhausted.complete(null);
+            return 0L;
+        }
+
+        final long quantum = Math.min(QUANTUM, budget);
+        budget -= quantum;
+        return quantum;
+    }
+
+    /**
+     * Accounts for a quantum that ran {@code count} instructions.
+     */
+    private synchronized void endQuantum(final long quantum,
+                                         final long count) {
+        executed += count;
+
+        if (running) {
+            budget += quantum - count;
+        }
+    }
+
+    private boolean await(final int id) {
+        final VmThread thread = threads.get(id);
+
+        if (thread == null) {
+            // JOIN reports it.
+            return true;
+        }
+
+        final CompletableFuture<Void> signal;
+
+        synchronized (this) {
+            signal = exhausted;
+        }
+
+        try {
+            CompletableFuture.anyOf(thread.completion, signal).join();
+        } catch (final CompletionException ex) {
+            // The thread trapped, which JOIN reports.
+        }
+
+        return thread.completion.isDone();
+    }
+
+    /**
+     * Starts a thread at {@code entryAddress} with {@code argument} as the
+     * only entry of its operand stack.
+     *
+     * @param parent       the spawning machine.
+     * @param entryAddress the address of the first instruction to run.
+     * @param argument     the argument of the thread.
+     * @param engine       the engine to run the thread with.
+     * @return the ID of the new thread.
+     */
+    int spawn(final SimpleStackMachine parent,
+              final int entryAddress,
+              final int argument,
+              final ExecutionEngine engine) {
+        final int id = nextId.getAndIncrement();
+        final SimpleStackMachine machine = parent.newThread(id);
+
+        machine.push(argument);
+        machine.setInstructionPointer(entryAddress);
+
+        final VmThread thread = new VmThread(id, machine, engine);
+        threads.put(id, thread);
+        pool.execute(thread);
+        return id;
+    }
+
+    /**
+     * Waits for the thread {@code id} to halt.
+     *
+     * @param id       the ID of the thread to wait for.
+     * @param joinerId the ID of the waiting thread.
+     * @return the top of the operand stack of the halted thread, or 0 if its
+     *         stack is empty.
+     */
+    int join(final int id, final int joinerId) {
+        if (id == joinerId) {
+            throw new StackMachineException(
+                    String.format("VM thread %d cannot join itself", id));
+        }
+
+        final VmThread thread = threads.get(id);
+
+        if (thread == null) {
+            throw new StackMachineException(
+                    String.format("Unknown VM thread %d", id));
+        }
+
+        try {
+            return thread.completion.join();
+        } catch (final CompletionException ex) {
+            throw new StackMachineException(
+                    String.format("VM thread %d trapped: %s",
+                                  id,
+                                  ex.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * Tells whether any thread of this group has not yet halted or trapped.
+     *
+     * @return {@code true} if a thread is running.
+     */
+    boolean hasRunningThreads() {
+        for (final VmThread thread : threads.values()) {
+            if (!thread.completion.isDone()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private final class VmThread implements Runnable {
+
+        private final int id;
+        private final SimpleStackMachine machine;
+        private final ExecutionEngine engine;
+        private final CompletableFuture<Integer> completion =
+                new CompletableFuture<>();
+
+        VmThread(final int id,
+                 final SimpleStackMachine machine,
+                 final ExecutionEngine engine) {
+            this.id = id;
+            this.machine = machine;
+            this.engine = engine;
+        }
+
+        @Override
+        public void run() {
+            final long quantum = takeQuantum(this);
+
+            if (quantum <= 0L) {
+                if (quantum < 0L) {
+                    cancel();
+                }
+
+                return;
+            }
+
+            final long executedBefore = machine.getExecutedInstructionCount();
+            machine.setInstructionBudget(quantum);
+
+            try {
+                machine.resume(engine);
+            } catch (final RuntimeException ex) {
+                completion.completeExceptionally(ex);
+                return;
+            } finally {
+                endQuantum(quantum,
+                           machine.getExecutedInstructionCount()
+                                   - executedBefore);
+            }
+
+            if (machine.isHalted()) {
+                final int[] stack = machine.getStackArray();
+                final int size = machine.getStackSize();
+                completion.complete(size == 0 ? 0 : stack[size - 1]);
+            } else {
+                pool.execute(this);
+            }
+        }
+
+        void cancel() {
+            completion.completeExceptionally(
+                    new StackMachineException(
+                            String.format("VM thread %d was cancelled", id)));
+        }
+
+        @Override
+        public String toString() {
+            return "VM thread " + id;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Arrays;
+
+/**
+ * This class implements the execution engine of the programs declaring
+ * {@link WordSize#LONG}. It keeps the 64-bit operand stack in a
+ * {@code long[]} and the instruction pointer in local variables, and
+ * dispatches on the opcode with a plain {@code switch}. The 32-bit engines
+ * never see a 64-bit program: {@link SimpleStackMachine} runs every program
+ * declaring {@link WordSize#LONG} in this engine, whatever engine it is
+ * given.
+ * <p>
+ * Every instruction but {@code HOST}, {@code SPAWN}, {@code JOIN} and the
+ * channel instructions is supported. The addresses, lengths and byte values
+ * popped by the string, bulk memory and jump instructions must fit in an
+ * {@code int}; {@code CAS} and {@code FADD} work on 8-byte aligned words.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public final class WideExecutionEngine implements ExecutionEngine {
+
+    public static final WideExecutionEngine INSTANCE =
+            new WideExecutionEngine();
+
+    private WideExecutionEngine() {
+
+    }
+
+    @Override
+    public void run(final SimpleStackMachine machine) {
+        final byte[] tape = machine.getTape();
+        final SimpleStackMachine.ProcessorFlags flags = machine.flags();
+
+        final WideMode wide = machine.getWideMode();
+
+        long[] stack = wide.getStackArray();
+        int sp = wide.getStackSize();
+        int ip = machine.getInstructionPointer();
+
+        final long initialBudget = machine.getInstructionBudget();
+        long budget = initialBudget;
+
+        try {
+            while (!machine.isStopRequested() && budget > 0L) {
+                --budget;
+
+                // Keep room for the one entry an instruction may push.
+                if (sp == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+
+                final byte opcode = tape[ip];
+
+                switch (opcode) {
+                    case Opcodes.NOP:
+                    case Opcodes.YIELD:
+                        ++ip;
+
+                        if (opcode == Opcodes.YIELD) {
+                            VmThreadGroup.yieldThread(machine);
+                        }
+
+                        break;
+
+                    case Opcodes.PUSH:
+                    case Opcodes.CONST:
+                        machine.checkTapeRange(ip + 1, Long.BYTES);
+                        stack[sp++] = TapeAccess.longWordAt(tape, ip + 1);
+                        ip += 1 + Long.BYTES;
+                        break;
+
+                    case Opcodes.POP:
+                        requireStackSize(sp, 1);
+                        --sp;
+                        ++ip;
+                        break;
+
+                    case Opcodes.DUP:
+                        requireStackSize(sp, 1);
+                        stack[sp] = stack[sp - 1];
+                        ++sp;
+                        ++ip;
+                        break;
+
+                    case Opcodes.SWAP: {
+                        requireStackSize(sp, 2);
+                        final long top = stack[sp - 1];
+                        stack[sp - 1] = stack[sp - 2];
+                        stack[sp - 2] = top;
+                        ++ip;
+                        break;
+                    }
+
+                    case Opcodes.LOAD:
+                        requireStackSize(sp, 1);
+                        stack[sp - 1] = wide.readLongFromTape(
+                                toInt(stack[sp - 1], ip));
+                        ++ip;
+                        break;
+
+                    case Opcodes.STORE:
+                        requireStackSize(sp, 2);
+                        wide.writeLongToTape(toInt(stack[sp - 1], ip),
+                                             stack[sp - 2]);
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.ADD:
+                    case Opcodes.SUB:
+                    case Opcodes.MUL:
+                    case Opcodes.DIV:
+                    case Opcodes.MOD:
+                        requireStackSize(sp, 2);
+                        stack[sp - 2] = Opcodes.arithmetic(opcode,
+                                                           stack[sp - 1],
+                                                           stack[sp - 2]);
+                        --sp;
+                        ++ip;
+                        break;
+
+                    case Opcodes.CMP:
+                        requireStackSize(sp, 2);
+                        Opcodes.setComparisonFlags(
+                                flags,
+                                Long.compare(stack[sp - 1], stack[sp - 2]));
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.JMP:
+                    case Opcodes.RET:
+                        requireStackSize(sp, 1);
+                        ip = toInt(stack[--sp], ip);
+                        break;
+
+                    case Opcodes.CALL: {
+                        requireStackSize(sp, 1);
+                        final int target = toInt(stack[sp - 1], ip);
+                        stack[sp - 1] = ip + 1 + Integer.BYTES;
+                        ip = target;
+                        break;
+                    }
+
+                    case Opcodes.JZ:
+                    case Opcodes.JNZ:
+                    case Opcodes.JBZ:
+                    case Opcodes.JAZ:
+                    case Opcodes.JL:
+                    case Opcodes.JLE:
+                    case Opcodes.JE:
+                    case Opcodes.JNE:
+                    case Opcodes.JA:
+                    case Opcodes.JAE:
+                        if (Opcodes.isJumpTaken(opcode, flags)) {
+                            ip = SimpleStackMachine.wordAt(tape, ip + 1);
+                        } else {
+                            ip += 1 + Integer.BYTES;
+                        }
+
+                        break;
+
+                    case Opcodes.PRINT_INT:
+                        requireStackSize(sp, 1);
+                        machine.printLine(stack[--sp]);
+                        ++ip;
+                        break;
+
+                    case Opcodes.PRINT_STRING:
+                        requireStackSize(sp, 2);
+                        machine.printString(toInt(stack[sp - 2], ip),
+                                            toInt(stack[sp - 1], ip));
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.READ_INT:
+                        if (!machine.awaitInput()) {
+                            // Not executed, so not charged either.
+                            ++budget;
+                            return;
+                        }
+
+                        stack[sp++] = wide.readLong();
+                        ++ip;
+                        break;
+
+                    case Opcodes.READ_STRING:
+                        requireStackSize(sp, 2);
+
+                        if (!machine.awaitInput()) {
+                            ++budget;
+                            return;
+                        }
+
+                        stack[sp - 2] = machine.readStringToTape(
+                                toInt(stack[sp - 2], ip),
+                                toInt(stack[sp - 1], ip));
+                        --sp;
+                        ++ip;
+                        break;
+
+                    case Opcodes.BCOPY:
+                        requireStackSize(sp, 3);
+                        machine.copyOnTape(toInt(stack[sp - 3], ip),
+                                           toInt(stack[sp - 2], ip),
+                                           toInt(stack[sp - 1], ip));
+                        sp -= 3;
+                        ++ip;
+                        break;
+
+                    case Opcodes.BFILL:
+                        requireStackSize(sp, 3);
+                        machine.fillTape(toInt(stack[sp - 3], ip),
+                                         (byte) stack[sp - 2],
+                                         toInt(stack[sp - 1], ip));
+                        sp -= 3;
+                        ++ip;
+                        break;
+
+                    case Opcodes.BCMP:
+                        requireStackSize(sp, 3);
+                        stack[sp - 3] = machine.mismatchOnTape(
+                                toInt(stack[sp - 3], ip),
+                                toInt(stack[sp - 2], ip),
+                                toInt(stack[sp - 1], ip));
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.BFIND:
+                        requireStackSize(sp, 3);
+                        stack[sp - 3] = machine.findByteOnTape(
+                                toInt(stack[sp - 3], ip),
+                                (byte) stack[sp - 2],
+                                toInt(stack[sp - 1], ip));
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.CAS:
+                        requireStackSize(sp, 3);
+                        stack[sp - 3] = VmThreadGroup.compareAndExchangeLong(
+                                machine,
+                                toInt(stack[sp - 3], ip),
+                                stack[sp - 2],
+                                stack[sp - 1]);
+                        sp -= 2;
+                        ++ip;
+                        break;
+
+                    case Opcodes.FADD:
+                        requireStackSize(sp, 2);
+                        stack[sp - 2] = VmThreadGroup.fetchAndAddLong(
+                                machine,
+                                toInt(stack[sp - 2], ip),
+                                stack[sp - 1]);
+                        --sp;
+                        ++ip;
+                        break;
+
+                    case Opcodes.HALT:
+                        ++ip;
+                        machine.requestHalt();
+                        break;
+
+                    default:
+                        throw new StackMachineException(
+                                Operation.getOperation(opcode) == null
+                                ? String.format("Unknown opcode 0x%02x at "
+                                                + "address %d",
+                                                Byte.toUnsignedInt(opcode),
+                                                ip)
+                                : String.format("Instruction %s at address "
+                                                + "%d is not supported with "
+                                                + "64-bit words",
+                                                Operation.getOperation(opcode)
+                                                         .getOperationName(),
+                                                ip));
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException ex) {
+            throw new StackMachineException(
+                    String.format("Tape access out of bounds near address %d: "
+                                  + "%s",
+                                  ip,
+                                  ex.getMessage()));
+        } finally {
+            wide.setStack(stack, sp);
+            machine.setInstructionPointer(ip);
+            machine.chargeInstructions(initialBudget - budget);
+        }
+    }
+
+    /**
+     * Converts an operand used as an address, a length or an offset.
+     */
+    private static int toInt(final long operand, final int ip) {
+        if (operand != (int) operand) {
+            throw new StackMachineException(
+                    String.format("Operand %d at address %d does not fit in "
+                                  + "32 bits",
+                                  operand,
+                                  ip));
+        }
+
+        return (int) operand;
+    }
+
+    private static void requireStackSize(final int sp,
+                                         final int requestedSize) {
+        if (sp < requestedSize) {
+            throw new StackMachineException(
+                    String.format("'stack.size()' is %d, 'requestedSize' is %d",
+                                  sp,
+                                  requestedSize));
+        }
+    }
+}
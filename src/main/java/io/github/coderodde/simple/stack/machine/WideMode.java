@@ -0,0 +1,85 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the state of a machine that only the programs declaring
+ * {@link WordSize#LONG} use, namely the 64-bit operand stack, and implements
+ * their 64-bit tape accesses and input. A machine creates it when it loads
+ * its first such program.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+final class WideMode {
+
+    /**
+     * The initial capacity of the operand stack array.
+     */
+    private static final int INITIAL_STACK_CAPACITY = 64;
+
+    private final SimpleStackMachine machine;
+
+    /**
+     * The 64-bit operand stack. The top of the stack is at
+     * {@code stack[stackSize - 1]}.
+     */
+    private long[] stack = new long[INITIAL_STACK_CAPACITY];
+
+    private int stackSize = 0;
+
+    WideMode(final SimpleStackMachine machine) {
+        this.machine = machine;
+    }
+
+    /**
+     * Returns the backing array of the operand stack. Only the first
+     * {@link #getStackSize()} entries are meaningful.
+     *
+     * @return the operand stack array.
+     */
+    long[] getStackArray() {
+        return stack;
+    }
+
+    int getStackSize() {
+        return stackSize;
+    }
+
+    void setStack(final long[] stack, final int stackSize) {
+        this.stack = stack;
+        this.stackSize = stackSize;
+    }
+
+    long[] getOperandStack() {
+        return Arrays.copyOf(stack, stackSize);
+    }
+
+    long readLongFromTape(final int address) {
+        machine.checkTapeRange(address, Long.BYTES);
+        return TapeAccess.longWordAt(machine.getTape(), address);
+    }
+
+    void writeLongToTape(final int address, final long word) {
+        machine.checkTapeRange(address, Long.BYTES);
+        machine.tapeWritten(address, Long.BYTES);
+        TapeAccess.setLongWordAt(machine.getTape(), address, word);
+    }
+
+    /**
+     * Reads a 64-bit number from the input of the machine.
+     *
+     * @return the number read.
+     */
+    long readLong() {
+        final String token = machine.readNumberToken("readLong");
+
+        try {
+            return Long.parseLong(token.trim());
+        } catch (final NumberFormatException ex) {
+            throw new StackMachineException(
+                    String.format("The input \"%s\" is not an integer",
+                                  token));
+        }
+    }
+}
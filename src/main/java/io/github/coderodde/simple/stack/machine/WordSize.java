@@ -0,0 +1,76 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.util.Arrays;
+
+/**
+ * This enumeration lists the word sizes a program may be written for. A
+ * program image is run with 32-bit words unless it starts with the header
+ * of {@link #LONG}, in which case its stack entries, {@code PUSH} and
+ * {@code CONST} immediates, tape words and arithmetic are all 64-bit. The
+ * jump and call addresses stay 32-bit in both.
+ *
+ * @version 1.0.0 (Oct 18, 2026)
+ * @since 1.0.0 (Oct 18, 2026)
+ */
+public enum WordSize {
+
+    INT  (Integer.BYTES, new byte[0]),
+    LONG (Long.BYTES, new byte[] { 0x7f, 'W', '6', '4' });
+
+    private final int bytes;
+
+    /**
+     * The header the image starts with. The code starts right after it.
+     */
+    private final byte[] imageHeader;
+
+    private WordSize(final int bytes, final byte[] imageHeader) {
+        this.bytes = bytes;
+        this.imageHeader = imageHeader;
+    }
+
+    /**
+     * Returns the word size the program image declares.
+     *
+     * @param program the program image.
+     * @return the word size of the program.
+     */
+    public static WordSize of(final byte[] program) {
+        final byte[] header = LONG.imageHeader;
+
+        return program.length >= header.length
+                && Arrays.equals(program, 0, header.length,
+                                 header, 0, header.length)
+                ? LONG
+                : INT;
+    }
+
+    /**
+     * Returns the number of bytes of a word.
+     *
+     * @return the word length in bytes.
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns a copy of the header a program image of this word size starts
+     * with. The header of {@link #INT} is empty.
+     *
+     * @return the image header.
+     */
+    public byte[] getImageHeader() {
+        return imageHeader.clone();
+    }
+
+    /**
+     * Returns the address of the first instruction of a program image of
+     * this word size.
+     *
+     * @return the code start address.
+     */
+    public int getCodeStart() {
+        return imageHeader.length;
+    }
+}
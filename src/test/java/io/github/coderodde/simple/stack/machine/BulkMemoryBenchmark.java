@@ -0,0 +1,59 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Compares the block instructions to the equivalent interpreted word loops.
+ * Run with
+ * {@code java -cp target/classes:target/test-classes
+ * io.github.coderodde.simple.stack.machine.BulkMemoryBenchmark}.
+ */
+public final class BulkMemoryBenchmark {
+
+    private static final int LENGTH = 4096;
+    private static final int REPETITIONS = 2_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        final byte[] interpretedCopy =
+                TestPrograms.interpretedCopy(LENGTH, REPETITIONS);
+        final byte[] bulkCopy = TestPrograms.bulkCopy(LENGTH, REPETITIONS);
+        final byte[] interpretedFill =
+                TestPrograms.interpretedFill(LENGTH, REPETITIONS);
+        final byte[] bulkFill = TestPrograms.bulkFill(LENGTH, REPETITIONS);
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            System.out.printf("Round %d:%n", round + 1);
+
+            for (final ExecutionEngine engine
+                    : new ExecutionEngine[] {
+                        DefaultExecutionEngine.INSTANCE,
+                        BasicBlockExecutionEngine.INSTANCE }) {
+                final String engineName = engine.getClass().getSimpleName();
+
+                benchmark(engineName + "/copy/loop", interpretedCopy, engine);
+                benchmark(engineName + "/copy/bcopy", bulkCopy, engine);
+                benchmark(engineName + "/fill/loop", interpretedFill, engine);
+                benchmark(engineName + "/fill/bfill", bulkFill, engine);
+            }
+        }
+    }
+
+    private static void benchmark(final String name,
+                                  final byte[] program,
+                                  final ExecutionEngine engine) {
+        final SimpleStackMachine machine =
+                new SimpleStackMachine(System.in,
+                                       new PrintStream(
+                                               OutputStream.nullOutputStream()));
+
+        final long start = System.nanoTime();
+        machine.execute(program, engine);
+        final long end = System.nanoTime();
+
+        System.out.printf("    %-42s %6d ms%n",
+                          name,
+                          (end - start) / 1_000_000L);
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.BLOCK_TARGET_ADDRESS;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BulkMemoryTest {
+
+    private static final ExecutionEngine[] ENGINES = {
+        DefaultExecutionEngine.INSTANCE,
+        TopOfStackCachingEngine.INSTANCE,
+        RegisterExecutionEngine.INSTANCE,
+        BasicBlockExecutionEngine.INSTANCE,
+    };
+
+    @Test
+    public void blockInstructionsMatchInterpretedLoops() {
+        final int length = 256;
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final SimpleStackMachine interpretedCopy =
+                    run(TestPrograms.interpretedCopy(length, 2), engine);
+            final SimpleStackMachine bulkCopy =
+                    run(TestPrograms.bulkCopy(length, 2), engine);
+
+            assertArrayEquals(
+                    block(interpretedCopy, BLOCK_TARGET_ADDRESS, length + 1),
+                    block(bulkCopy, BLOCK_TARGET_ADDRESS, length + 1));
+            assertEquals(3,
+                         bulkCopy.getTape()[BLOCK_TARGET_ADDRESS + 3]);
+            assertTrue(bulkCopy.getExecutedInstructionCount() * 10
+                       < interpretedCopy.getExecutedInstructionCount());
+
+            final SimpleStackMachine interpretedFill =
+                    run(TestPrograms.interpretedFill(length, 2), engine);
+            final SimpleStackMachine bulkFill =
+                    run(TestPrograms.bulkFill(length, 2), engine);
+
+            assertArrayEquals(
+                    block(interpretedFill, BLOCK_TARGET_ADDRESS, length + 1),
+                    block(bulkFill, BLOCK_TARGET_ADDRESS, length + 1));
+            assertEquals(0x2a, bulkFill.getTape()[BLOCK_TARGET_ADDRESS]);
+            assertEquals(0, bulkFill.getTape()[BLOCK_TARGET_ADDRESS + length]);
+        }
+    }
+
+    @Test
+    public void overlappingCopies() {
+        final CodeBuilder cb = new CodeBuilder(1100);
+
+        // "abcdef" at 1000: forward overlap, then backward overlap.
+        push(cb, 1002);
+        push(cb, 1000);
+        push(cb, 4);
+        emit(cb, Operation.BCOPY);
+        push(cb, 1000);
+        push(cb, 6);
+        emit(cb, Operation.PRINT_STRING);
+        push(cb, 1000);
+        push(cb, 1001);
+        push(cb, 5);
+        emit(cb, Operation.BCOPY);
+        push(cb, 1000);
+        push(cb, 6);
+        emit(cb, Operation.PRINT_STRING);
+        emit(cb, Operation.HALT);
+        cb.emit("abcdef", 1000);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            assertEquals(String.format("ababcd%nbabcdd%n"),
+                         output(cb.toByteArray(), engine));
+        }
+    }
+
+    @Test
+    public void compareAndFind() {
+        final CodeBuilder cb = new CodeBuilder(1100);
+
+        push(cb, 1000);
+        push(cb, 1020);
+        push(cb, 12);
+        emit(cb, Operation.BCMP);
+        emit(cb, Operation.PRINT_INT);
+        push(cb, 1000);
+        push(cb, 1040);
+        push(cb, 12);
+        emit(cb, Operation.BCMP);
+        emit(cb, Operation.PRINT_INT);
+        push(cb, 1000);
+        push(cb, 'k');
+        push(cb, 12);
+        emit(cb, Operation.BFIND);
+        emit(cb, Operation.PRINT_INT);
+        push(cb, 1000);
+        push(cb, 'z');
+        push(cb, 12);
+        emit(cb, Operation.BFIND);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        cb.emit("abcdefghijkl", 1000);
+        cb.emit("abcdefghijkl", 1020);
+        cb.emit("abcdefgXijkl", 1040);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            assertEquals(String.format("-1%n7%n10%n-1%n"),
+                         output(cb.toByteArray(), engine));
+        }
+    }
+
+    @Test
+    public void findMatchesScalarSearch() {
+        final Random random = new Random(13L);
+        final byte[] bytes = new byte[300];
+
+        for (int iteration = 0; iteration < 2000; ++iteration) {
+            random.nextBytes(bytes);
+
+            final int address = random.nextInt(100);
+            final int length = random.nextInt(200);
+            final byte value = (byte) random.nextInt(256);
+            int expected = -1;
+
+            for (int i = 0; i < length; ++i) {
+                if (bytes[address + i] == value) {
+                    expected = i;
+                    break;
+                }
+            }
+
+            assertEquals(expected,
+                         BulkMemory.find(bytes, address, value, length));
+        }
+    }
+
+    @Test(expected = StackMachineException.class)
+    public void outOfRangeFillIsRejected() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        push(cb, 16 * 1024 - 4);
+        push(cb, 0);
+        push(cb, 5);
+        emit(cb, Operation.BFILL);
+        emit(cb, Operation.HALT);
+
+        run(cb.toByteArray(), DefaultExecutionEngine.INSTANCE);
+    }
+
+    private static byte[] block(final SimpleStackMachine machine,
+                                final int address,
+                                final int length) {
+        return Arrays.copyOfRange(machine.getTape(), address, address + length);
+    }
+
+    private static SimpleStackMachine run(final byte[] program,
+                                          final ExecutionEngine engine) {
+        final SimpleStackMachine machine =
+                new SimpleStackMachine(new ByteArrayInputStream(new byte[0]),
+                                       new PrintStream(
+                                               new ByteArrayOutputStream()));
+        machine.execute(program, engine);
+        return machine;
+    }
+
+    private static String output(final byte[] program,
+                                 final ExecutionEngine engine) {
+        return TestPrograms.run(program, "", engine);
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BytecodeOptimizerTest {
+    
+    @Test
+    public void corpusVerifies() {
+        for (final Map.Entry<byte[], String> e 
+                : TestPrograms.corpus().entrySet()) {
+            final byte[] optimized = BytecodeOptimizer.optimize(e.getKey());
+            
+            assertEquals(e.getKey().length, optimized.length);
+            BytecodeOptimizer.verify(e.getKey(), 
+                                     optimized, 
+                                     Collections.singletonList(e.getValue()));
+        }
+    }
+    
+    @Test
+    public void foldsConstantsAndDeletesDeadCode() {
+        final byte[] program = TestPrograms.constantExpressions();
+        final byte[] optimized = BytecodeOptimizer.optimize(program);
+        
+        // PUSH 10; PRINT_INT; HALT.
+        assertEquals(Operation.PUSH.getOpcodeByte(), optimized[0]);
+        assertEquals(10, SimpleStackMachine.wordAt(optimized, 1));
+        assertEquals(Operation.PRINT_INT.getOpcodeByte(), optimized[5]);
+        assertEquals(Operation.HALT.getOpcodeByte(), optimized[6]);
+        
+        for (int i = 7; i < optimized.length; ++i) {
+            assertEquals(Operation.NOP.getOpcodeByte(), optimized[i]);
+        }
+        
+        assertEquals(String.format("10%n"), 
+                     TestPrograms.run(optimized, 
+                                      "", 
+                                      DefaultExecutionEngine.INSTANCE));
+    }
+    
+    @Test
+    public void keepsComparisonWhenFlagsAreReadLater() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        
+        push(cb, 1);                     //  0
+        push(cb, 2);                     //  5
+        emit(cb, Operation.CMP);         // 10: 2 > 1
+        emit(cb, Operation.JA);          // 11
+        cb.emit(16);
+        emit(cb, Operation.JA);          // 16: reads the flags again.
+        cb.emit(27);
+        emit(cb, Operation.HALT);        // 21
+        emit(cb, Operation.HALT);        // 22
+        emit(cb, Operation.HALT);        // 23
+        emit(cb, Operation.HALT);        // 24
+        emit(cb, Operation.HALT);        // 25
+        emit(cb, Operation.HALT);        // 26
+        push(cb, 42);                    // 27
+        emit(cb, Operation.PRINT_INT);   // 32
+        emit(cb, Operation.HALT);        // 33
+        
+        final byte[] optimized = BytecodeOptimizer.optimize(cb.toByteArray());
+        
+        assertTrue(contains(optimized, Operation.CMP.getOpcodeByte()));
+        BytecodeOptimizer.verify(cb.toByteArray(), 
+                                 optimized, 
+                                 Collections.singletonList(""));
+    }
+    
+    @Test
+    public void relocatesCallsAndBranches() {
+        final byte[] program = TestPrograms.recursiveFibonacci(12);
+        final byte[] optimized = BytecodeOptimizer.optimize(program);
+        
+        // The subroutine moves down next to the main program.
+        assertTrue(optimized[100] != program[100]);
+        BytecodeOptimizer.verify(program, 
+                                 optimized, 
+                                 Collections.singletonList(""));
+    }
+    
+    @Test
+    public void leavesComputedJumpsAlone() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        
+        push(cb, 10);
+        push(cb, 10);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.JMP);        // To 20.
+        cb.setInstructionPointer(20);
+        push(cb, 2);
+        push(cb, 3);
+        emit(cb, Operation.MUL);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        assertArrayEquals(cb.toByteArray(), 
+                          BytecodeOptimizer.optimize(cb.toByteArray()));
+    }
+    
+    @Test
+    public void keepsThreadEntryPoints() {
+        final CodeBuilder cb = new CodeBuilder(120);
+        
+        push(cb, 100);                   //  0
+        emit(cb, Operation.JMP);         //  5
+        cb.setInstructionPointer(50);
+        emit(cb, Operation.DUP);         // 50: the worker.
+        emit(cb, Operation.MUL);
+        emit(cb, Operation.HALT);
+        cb.setInstructionPointer(100);
+        push(cb, 7);                     // 100
+        push(cb, 50);
+        emit(cb, Operation.SPAWN);
+        emit(cb, Operation.JOIN);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        final byte[] optimized = BytecodeOptimizer.optimize(cb.toByteArray());
+        
+        assertEquals(String.format("49%n"), 
+                     TestPrograms.run(optimized, 
+                                      "", 
+                                      DefaultExecutionEngine.INSTANCE));
+        
+        final ControlFlowGraph cfg = ControlFlowGraph.build(cb.toByteArray(), 
+                                                            0);
+        
+        assertTrue(cfg.isInstructionStart(52));
+    }
+    
+    @Test
+    public void keepsDataBetweenBlocks() {
+        final CodeBuilder cb = new CodeBuilder(60);
+        
+        push(cb, 30);                    //  0
+        emit(cb, Operation.JMP);         //  5
+        cb.setInstructionPointer(10);
+        cb.emit((byte) 'a');             // 10: the string.
+        cb.emit((byte) 'b');
+        cb.emit((byte) 'c');
+        cb.setInstructionPointer(30);
+        push(cb, 10);                    // 30
+        push(cb, 3);
+        emit(cb, Operation.PRINT_STRING);
+        push(cb, 2);
+        push(cb, 3);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        final byte[] program = cb.toByteArray();
+        
+        assertEquals(TestPrograms.run(program, 
+                                      "", 
+                                      DefaultExecutionEngine.INSTANCE),
+                     TestPrograms.run(BytecodeOptimizer.optimize(program), 
+                                      "", 
+                                      DefaultExecutionEngine.INSTANCE));
+    }
+    
+    @Test(expected = StackMachineException.class)
+    public void verificationDetectsDifferences() {
+        final byte[] original = TestPrograms.inputAndStrings();
+        final byte[] broken = original.clone();
+        broken[7] = 2; // PUSH 1 becomes PUSH 2.
+        
+        final List<String> inputs = Arrays.asList("1\n", "41\n");
+        BytecodeOptimizer.verify(original, broken, inputs);
+    }
+    
+    private static boolean contains(final byte[] code, final byte opcode) {
+        for (final byte b : code) {
+            if (b == opcode) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+}
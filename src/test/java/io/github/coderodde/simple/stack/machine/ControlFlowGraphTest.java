@@ -0,0 +1,147 @@
+package io.github.coderodde.simple.stack.machine;
+
+import io.github.coderodde.simple.stack.machine.ControlFlowGraph.BasicBlock;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ControlFlowGraphTest {
+    
+    @Test
+    public void splitsAtJumpTargetsAndAfterBranches() {
+        final ControlFlowGraph cfg = 
+                ControlFlowGraph.build(TestPrograms.arithmeticLoop(10), 0);
+        
+        final List<BasicBlock> blocks = cfg.getBlocks();
+        
+        assertEquals(3, blocks.size());
+        
+        final BasicBlock entry = blocks.get(0);
+        assertEquals(0, entry.getStartAddress());
+        assertEquals(16, entry.getEndAddress());
+        assertEquals(4, entry.getInstructionCount());
+        assertEquals(1, entry.getStackEffect());
+        assertEquals(0, entry.getRequiredStackSize());
+        assertEquals(2, entry.getMaximumStackGrowth());
+        
+        final BasicBlock loop = blocks.get(1);
+        assertEquals(16, loop.getStartAddress());
+        assertEquals(0, loop.getStackEffect());
+        assertEquals(1, loop.getRequiredStackSize());
+        assertEquals(3, loop.getMaximumStackGrowth());
+        assertArrayEquals(new int[]{ 16, loop.getEndAddress() }, 
+                          loop.getSuccessorAddresses());
+        
+        final BasicBlock exit = blocks.get(2);
+        assertEquals(-1, exit.getStackEffect());
+        assertEquals(0, exit.getSuccessorAddresses().length);
+    }
+    
+    @Test
+    public void followsConstantCallTargetsAndReturnSites() {
+        final ControlFlowGraph cfg = 
+                ControlFlowGraph.build(TestPrograms.recursiveFibonacci(5), 0);
+        
+        final BasicBlock entry = cfg.blockAt(0);
+        assertArrayEquals(new int[]{ 100, 15 }, 
+                          entry.getSuccessorAddresses());
+        assertFalse(entry.hasComputedSuccessor());
+        
+        final BasicBlock returnPath = cfg.blockAt(164);
+        assertTrue(returnPath.hasComputedSuccessor());
+        assertEquals(2, returnPath.getRequiredStackSize());
+        
+        assertTrue(cfg.isInstructionStart(131));
+        assertTrue(cfg.isInstructionStart(148));
+    }
+    
+    @Test
+    public void basicBlockEngineMatchesDefaultEngine() {
+        for (final Map.Entry<byte[], String> e 
+                : TestPrograms.corpus().entrySet()) {
+            assertEquals(
+                    TestPrograms.run(e.getKey(), 
+                                     e.getValue(),
+                                     DefaultExecutionEngine.INSTANCE),
+                    TestPrograms.run(e.getKey(), 
+                                     e.getValue(),
+                                     BasicBlockExecutionEngine.INSTANCE));
+        }
+    }
+    
+    @Test
+    public void instructionBudgetPausesAndResumes() {
+        final byte[] program = TestPrograms.arithmeticLoop(50);
+        final String expected = 
+                TestPrograms.run(program, 
+                                 "", 
+                                 DefaultExecutionEngine.INSTANCE);
+        
+        final ExecutionEngine[] engines = {
+            DefaultExecutionEngine.INSTANCE,
+            TopOfStackCachingEngine.INSTANCE,
+            RegisterExecutionEngine.INSTANCE,
+            BasicBlockExecutionEngine.INSTANCE,
+        };
+        
+        for (final ExecutionEngine engine : engines) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = 
+                    new SimpleStackMachine(System.in, 
+                                           new PrintStream(bos, true));
+            
+            machine.setInstructionBudget(7);
+            machine.execute(program, engine);
+            
+            assertFalse(machine.isHalted());
+            assertEquals(7L, machine.getExecutedInstructionCount());
+            
+            while (!machine.isHalted()) {
+                machine.setInstructionBudget(10);
+                machine.resume(engine);
+            }
+            
+            assertEquals(expected, bos.toString());
+            assertEquals(4L + 50L * 16L + 2L, 
+                         machine.getExecutedInstructionCount());
+        }
+    }
+    
+    @Test
+    public void machineKeepsTheGraphUntilTheCodeIsWritten() {
+        final byte[] program = TestPrograms.arithmeticLoop(10);
+        final SimpleStackMachine machine = 
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        
+        machine.setInstructionBudget(7);
+        machine.execute(program, BasicBlockExecutionEngine.INSTANCE);
+        
+        final ControlFlowGraph cfg = machine.getControlFlowGraph();
+        
+        machine.setInstructionBudget(10);
+        machine.resume(BasicBlockExecutionEngine.INSTANCE);
+        
+        assertSame(cfg, machine.getControlFlowGraph());
+        
+        // Data past the code leaves the graph alone.
+        machine.tapeWritten(2000, Integer.BYTES);
+        assertSame(cfg, machine.getControlFlowGraph());
+        
+        machine.tapeWritten(16, 1);
+        
+        final ControlFlowGraph rebuilt = machine.getControlFlowGraph();
+        
+        assertNotSame(cfg, rebuilt);
+        
+        machine.loadProgram(program);
+        assertNotSame(rebuilt, machine.getControlFlowGraph());
+    }
+}
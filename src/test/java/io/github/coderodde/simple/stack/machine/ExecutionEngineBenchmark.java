@@ -0,0 +1,65 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Compares the execution engines on an arithmetic-heavy loop and on a 
+ * call-heavy recursion. Run with
+ * {@code java -cp target/classes:target/test-classes 
+ * io.github.coderodde.simple.stack.machine.ExecutionEngineBenchmark}.
+ */
+public final class ExecutionEngineBenchmark {
+    
+    private static final int ITERATIONS = 2_000_000;
+    private static final int FIBONACCI_INDEX = 25;
+    private static final int ROUNDS = 5;
+    
+    public static void main(String[] args) {
+        final byte[] loop = TestPrograms.arithmeticLoop(ITERATIONS);
+        final byte[] fibonacci = 
+                TestPrograms.recursiveFibonacci(FIBONACCI_INDEX);
+        
+        for (int round = 0; round < ROUNDS; ++round) {
+            System.out.printf("Round %d:%n", round + 1);
+            benchmarkAllEngines("loop", loop);
+            benchmarkAllEngines("fibonacci", fibonacci);
+        }
+    }
+    
+    private static void benchmarkAllEngines(final String programName,
+                                            final byte[] program) {
+        benchmark(programName + "/default", 
+                  program, 
+                  DefaultExecutionEngine.INSTANCE);
+        
+        benchmark(programName + "/tos-cached", 
+                  program, 
+                  TopOfStackCachingEngine.INSTANCE);
+        
+        benchmark(programName + "/register", 
+                  program, 
+                  RegisterExecutionEngine.INSTANCE);
+        
+        benchmark(programName + "/basic-block", 
+                  program, 
+                  BasicBlockExecutionEngine.INSTANCE);
+    }
+    
+    private static void benchmark(final String name,
+                                  final byte[] program, 
+                                  final ExecutionEngine engine) {
+        final SimpleStackMachine machine = 
+                new SimpleStackMachine(System.in, 
+                                       new PrintStream(
+                                               OutputStream.nullOutputStream()));
+        
+        final long start = System.nanoTime();
+        machine.execute(program, engine);
+        final long end = System.nanoTime();
+        
+        System.out.printf("    %-22s %6d ms%n", 
+                          name, 
+                          (end - start) / 1_000_000L);
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ExecutionListenerTest {
+
+    @Test
+    public void doesNotChangeTheOutput() {
+        for (final Map.Entry<byte[], String> entry
+                : TestPrograms.corpus().entrySet()) {
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+            TestPrograms.newMachine(entry.getValue(), expected)
+                        .execute(entry.getKey());
+
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine(entry.getValue(), actual);
+
+            machine.setExecutionListener(new ExecutionListener() {});
+            machine.execute(entry.getKey(),
+                            BasicBlockExecutionEngine.INSTANCE);
+
+            assertTrue(machine.isHalted());
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void pausesAtBreakpoint() {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+        final int breakpoint = 16;
+
+        machine.setExecutionListener(new ExecutionListener() {
+            @Override
+            public void beforeInstruction(final SimpleStackMachine m,
+                                          final int address,
+                                          final Operation operation) {
+                if (address == breakpoint) {
+                    m.requestPause();
+                }
+            }
+        });
+
+        machine.execute(TestPrograms.arithmeticLoop(3));
+
+        int stops = 0;
+
+        // Resuming runs past the breakpoint it stopped at.
+        while (!machine.isHalted()) {
+            assertEquals(breakpoint, machine.getInstructionPointer());
+            ++stops;
+            machine.resume();
+        }
+
+        assertEquals(3, stops);
+        assertEquals(TestPrograms.run(TestPrograms.arithmeticLoop(3),
+                                      "",
+                                      DefaultExecutionEngine.INSTANCE),
+                     bos.toString());
+    }
+
+    @Test
+    public void reportsTapeWrites() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        final List<int[]> writes = new ArrayList<>();
+
+        machine.setExecutionListener(new ExecutionListener() {
+            @Override
+            public void onMemoryWrite(final SimpleStackMachine m,
+                                      final int address,
+                                      final int length) {
+                writes.add(new int[] { address, length });
+            }
+        });
+
+        machine.execute(TestPrograms.arithmeticLoop(3));
+
+        // The initial store and one per iteration.
+        assertEquals(4, writes.size());
+
+        for (final int[] write : writes) {
+            assertEquals(TestPrograms.LOOP_COUNTER_ADDRESS, write[0]);
+            assertEquals(Integer.BYTES, write[1]);
+        }
+
+        final SimpleStackMachine bulk =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        writes.clear();
+        bulk.setExecutionListener(machine.getExecutionListener());
+        bulk.execute(TestPrograms.bulkFill(100, 2));
+
+        assertTrue(writes.stream()
+                         .anyMatch(w -> w[0] == TestPrograms
+                                                   .BLOCK_TARGET_ADDRESS
+                                     && w[1] == 100));
+    }
+
+    @Test
+    public void reportsAtomicWrites() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        final List<int[]> writes = new ArrayList<>();
+
+        machine.setExecutionListener(new ExecutionListener() {
+            @Override
+            public void onMemoryWrite(final SimpleStackMachine m,
+                                      final int address,
+                                      final int length) {
+                writes.add(new int[] { address, length });
+            }
+        });
+
+        final CodeBuilder cb = new CodeBuilder(40);
+        TestPrograms.push(cb, 1000);
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, 5);
+        TestPrograms.emit(cb, Operation.CAS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.push(cb, 1004);
+        TestPrograms.push(cb, 3);
+        TestPrograms.emit(cb, Operation.FADD);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        machine.execute(cb.toByteArray());
+
+        assertEquals(2, writes.size());
+        assertArrayEquals(new int[] { 1000, Integer.BYTES }, writes.get(0));
+        assertArrayEquals(new int[] { 1004, Integer.BYTES }, writes.get(1));
+    }
+
+    @Test
+    public void reportsCallsAndReturns() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        final int[] depth = new int[2];
+        final int[] calls = new int[1];
+
+        machine.setExecutionListener(new ExecutionListener() {
+            @Override
+            public void onCall(final SimpleStackMachine m,
+                               final int callAddress,
+                               final int target) {
+                assertEquals(100, target);
+                ++calls[0];
+                depth[1] = Math.max(depth[1], ++depth[0]);
+            }
+
+            @Override
+            public void onReturn(final SimpleStackMachine m,
+                                 final int returnAddress,
+                                 final int target) {
+                assertEquals(m.getInstructionPointer(), target);
+                --depth[0];
+            }
+        });
+
+        machine.execute(TestPrograms.recursiveFibonacci(10));
+
+        // fib(10) makes 2 * fib(11) - 1 calls, nested 10 deep.
+        assertEquals(177, calls[0]);
+        assertEquals(0, depth[0]);
+        assertEquals(10, depth[1]);
+    }
+
+    @Test
+    public void reportsTrap() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        final StackMachineException[] trapped = new StackMachineException[1];
+
+        machine.setExecutionListener(new ExecutionListener() {
+            @Override
+            public void onTrap(final SimpleStackMachine m,
+                               final int address,
+                               final StackMachineException exception) {
+                assertEquals(1, address);
+                trapped[0] = exception;
+            }
+        });
+
+        try {
+            machine.execute(new byte[] { Opcodes.NOP, (byte) 0xee });
+            fail("An unknown opcode must trap.");
+        } catch (final StackMachineException ex) {
+            assertSame(ex, trapped[0]);
+        }
+    }
+
+    @Test
+    public void detachesFromPausedMachine() {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+        final int[] steps = new int[1];
+        final ExecutionListener stepper = new ExecutionListener() {
+            @Override
+            public void beforeInstruction(final SimpleStackMachine m,
+                                          final int address,
+                                          final Operation operation) {
+                ++steps[0];
+            }
+
+            @Override
+            public void onMemoryWrite(final SimpleStackMachine m,
+                                      final int address,
+                                      final int length) {
+                m.requestPause();
+            }
+        };
+
+        machine.setInstructionBudget(20L);
+        machine.execute(TestPrograms.arithmeticLoop(10));
+
+        // Attach to the paused machine and single step to the first store.
+        machine.setExecutionListener(stepper);
+        machine.setInstructionBudget(Long.MAX_VALUE);
+        machine.resume();
+
+        assertFalse(machine.isHalted());
+        assertTrue(steps[0] > 0);
+
+        final int stepsTaken = steps[0];
+
+        machine.setExecutionListener(null);
+        machine.resume(BasicBlockExecutionEngine.INSTANCE);
+
+        assertTrue(machine.isHalted());
+        assertEquals(stepsTaken, steps[0]);
+        assertEquals(TestPrograms.run(TestPrograms.arithmeticLoop(10),
+                                      "",
+                                      DefaultExecutionEngine.INSTANCE),
+                     bos.toString());
+    }
+}
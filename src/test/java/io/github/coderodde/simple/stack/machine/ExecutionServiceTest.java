@@ -0,0 +1,183 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.net.SocketAddress;
+import java.util.concurrent.RejectedExecutionException;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ExecutionServiceTest {
+
+    @Test
+    public void storedProgramsRunWithStreamedInput() throws Exception {
+        try (final ExecutionService service =
+                     new ExecutionService(2, 4, 1_000_000L)) {
+            final SocketAddress address = service.start();
+
+            try (final ExecutionClient client = new ExecutionClient(address)) {
+                final int programId = client.storeProgram(doubler());
+
+                assertEquals(programId, client.storeProgram(doubler()));
+
+                final int first = client.run(programId, 100L);
+                final int second = client.run(programId, 100L);
+
+                client.sendInput(second, "-7");
+                client.sendInput(first, "21");
+
+                final ExecutionClient.JobResult firstResult =
+                        client.awaitResult(first);
+                final ExecutionClient.JobResult secondResult =
+                        client.awaitResult(second);
+
+                assertTrue(firstResult.isHalted());
+                assertEquals(String.format(">>> 42%n"),
+                             firstResult.getOutput());
+                assertEquals(String.format(">>> -14%n"),
+                             secondResult.getOutput());
+                assertEquals(5L, firstResult.getExecutedInstructionCount());
+                assertArrayEquals(new int[0],
+                                  firstResult.getOperandStack());
+            }
+
+            assertEquals(2L, service.getCompletedJobCount());
+            assertEquals(0, service.getPendingJobCount());
+        }
+    }
+
+    @Test
+    public void admissionIsLimitedByQueueDepthAndBudget() throws Exception {
+        try (final ExecutionService service =
+                     new ExecutionService(1, 0, 1000L)) {
+            final SocketAddress address = service.start();
+
+            try (final ExecutionClient client = new ExecutionClient(address)) {
+                final int programId = client.storeProgram(doubler());
+
+                // The parked job holds the only slot.
+                final int parked = client.run(programId, 600L);
+
+                assertRejected(client, programId, 10L, "queue is full");
+
+                client.sendInput(parked, "1");
+                assertTrue(client.awaitResult(parked).isHalted());
+
+                assertRejected(client, programId, 1001L, "exceeds");
+
+                // The unused part of the first budget was given back.
+                final int next = client.run(programId, 995L);
+                client.sendInput(next, "2");
+
+                assertEquals(String.format(">>> 4%n"),
+                             client.awaitResult(next).getOutput());
+            }
+
+            assertEquals(2L, service.getRejectedJobCount());
+        }
+    }
+
+    @Test
+    public void trapsAndExhaustedBudgetsAreReported() throws Exception {
+        try (final ExecutionService service =
+                     new ExecutionService(2, 2, Long.MAX_VALUE)) {
+            service.setExecutionEngine(TopOfStackCachingEngine.INSTANCE);
+
+            try (final ExecutionClient client =
+                         new ExecutionClient(service.start())) {
+                final CodeBuilder divide = new CodeBuilder(16);
+                TestPrograms.push(divide, 0);
+                TestPrograms.push(divide, 1);
+                TestPrograms.emit(divide, Operation.DIV);
+                TestPrograms.emit(divide, Operation.HALT);
+
+                final ExecutionClient.JobResult trapped =
+                        client.awaitResult(client.run(divide.toByteArray(),
+                                                      100L));
+
+                assertTrue(trapped.isTrapped());
+                assertEquals("/ by zero", trapped.getTrapMessage());
+
+                final CodeBuilder loop = new CodeBuilder(16);
+                TestPrograms.push(loop, 0);
+                TestPrograms.emit(loop, Operation.JMP);
+                TestPrograms.emit(loop, Operation.HALT);
+
+                final ExecutionClient.JobResult exhausted =
+                        client.awaitResult(client.run(loop.toByteArray(),
+                                                      1000L));
+
+                assertTrue(exhausted.isOutOfBudget());
+                assertFalse(exhausted.isHalted());
+                assertEquals(1000L, exhausted.getExecutedInstructionCount());
+            }
+        }
+    }
+
+    @Test
+    public void threadInstructionsCountAgainstTheBudget() throws Exception {
+        try (final ExecutionService service =
+                     new ExecutionService(1, 2, 200_000L)) {
+            try (final ExecutionClient client =
+                         new ExecutionClient(service.start())) {
+                // The main thread joins a worker looping forever.
+                final CodeBuilder cb = new CodeBuilder(64);
+                TestPrograms.push(cb, 0);
+                TestPrograms.push(cb, 32);
+                TestPrograms.emit(cb, Operation.SPAWN);
+                TestPrograms.emit(cb, Operation.JOIN);
+                TestPrograms.emit(cb, Operation.HALT);
+
+                cb.setInstructionPointer(32);
+                TestPrograms.push(cb, 32);
+                TestPrograms.emit(cb, Operation.JMP);
+
+                final ExecutionClient.JobResult exhausted =
+                        client.awaitResult(client.run(cb.toByteArray(),
+                                                      100_000L));
+
+                assertTrue(exhausted.isOutOfBudget());
+                assertTrue(exhausted.getExecutedInstructionCount()
+                           > 90_000L);
+                assertTrue(exhausted.getExecutedInstructionCount()
+                           <= 100_010L);
+
+                // The job gave back no more than it left unused.
+                assertRejected(client,
+                               client.storeProgram(doubler()),
+                               110_000L,
+                               "exceeds");
+            }
+        }
+    }
+
+    private static void assertRejected(final ExecutionClient client,
+                                       final int programId,
+                                       final long budget,
+                                       final String reason)
+            throws Exception {
+        try {
+            client.run(programId, budget);
+            fail("The job must be rejected.");
+        } catch (final RejectedExecutionException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(reason));
+        }
+    }
+
+    /**
+     * Builds a program printing twice the integer it reads.
+     */
+    private static byte[] doubler() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+}
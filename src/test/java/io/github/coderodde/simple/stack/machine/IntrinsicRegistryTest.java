@@ -0,0 +1,187 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import java.io.ByteArrayOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class IntrinsicRegistryTest {
+
+    private static final ExecutionEngine[] ENGINES = {
+        DefaultExecutionEngine.INSTANCE,
+        TopOfStackCachingEngine.INSTANCE,
+        RegisterExecutionEngine.INSTANCE,
+        BasicBlockExecutionEngine.INSTANCE,
+    };
+
+    @Test
+    public void standardIntrinsics() {
+        final CodeBuilder cb = new CodeBuilder(1200);
+
+        // memcpy(1002, 1000, 5): "abcdef" -> "ababcde", overlapping.
+        push(cb, 1002);
+        push(cb, 1000);
+        push(cb, 5);
+        host(cb, IntrinsicRegistry.MEMCPY);
+        push(cb, 1000);
+        push(cb, 7);
+        emit(cb, Operation.PRINT_STRING);
+
+        // memset(1100, 'z', 3).
+        push(cb, 1100);
+        push(cb, 'z');
+        push(cb, 3);
+        host(cb, IntrinsicRegistry.MEMSET);
+        push(cb, 1100);
+        push(cb, 3);
+        emit(cb, Operation.PRINT_STRING);
+
+        // memcmp(1000, 1100, 3): 'a' < 'z'.
+        push(cb, 1000);
+        push(cb, 1100);
+        push(cb, 3);
+        host(cb, IntrinsicRegistry.MEMCMP);
+        emit(cb, Operation.PRINT_INT);
+
+        // hash(1150, 1) of "a".
+        push(cb, 1150);
+        push(cb, 1);
+        host(cb, IntrinsicRegistry.HASH);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+
+        cb.emit("abcdef", 1000);
+        cb.emit("a", 1150);
+
+        final byte[] program = cb.toByteArray();
+
+        for (final ExecutionEngine engine : ENGINES) {
+            assertEquals(engine.getClass().getSimpleName(),
+                         String.format("ababcde%nzzz%n-1%n%d%n", 0xe40c292c),
+                         run(program, engine));
+        }
+    }
+
+    @Test
+    public void customIntrinsicWithResults() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        push(cb, 7);
+        push(cb, 3);
+        host(cb, 42);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+
+        final IntrinsicRegistry registry =
+                new IntrinsicRegistry().register(
+                        42,
+                        "divmod",
+                        2,
+                        2,
+                        frame -> {
+                            final int a = frame.getArgument(0);
+                            final int b = frame.getArgument(1);
+                            frame.setResult(0, a / b);
+                            frame.setResult(1, a % b);
+                        });
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+            machine.setIntrinsicRegistry(registry);
+            machine.execute(cb.toByteArray(), engine);
+
+            assertEquals(String.format("1%n2%n"), bos.toString());
+        }
+    }
+
+    @Test
+    public void unknownIntrinsicFailsAtLoadTime() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        emit(cb, Operation.HALT);
+        host(cb, 0);
+        host(cb, 99);
+
+        // Unreachable HOST instructions are fine.
+        run(cb.toByteArray(), DefaultExecutionEngine.INSTANCE);
+
+        final CodeBuilder reachable = new CodeBuilder(100);
+        emit(reachable, Operation.NOP);
+        host(reachable, 99);
+        emit(reachable, Operation.HALT);
+
+        try {
+            run(reachable.toByteArray(), DefaultExecutionEngine.INSTANCE);
+            fail("An unknown intrinsic must be rejected.");
+        } catch (final StackMachineException ex) {
+            assertEquals("Unknown intrinsic 99 at address 1",
+                         ex.getMessage());
+        }
+    }
+
+    @Test
+    public void standardIntrinsicsReportOnlyTheirWrites() {
+        final CodeBuilder cb = new CodeBuilder(1200);
+
+        // memcmp(1000, 1004, 4), hash(1000, 8), then memset(1100, 0, 4).
+        push(cb, 1000);
+        push(cb, 1004);
+        push(cb, 4);
+        host(cb, IntrinsicRegistry.MEMCMP);
+        emit(cb, Operation.POP);
+        push(cb, 1000);
+        push(cb, 8);
+        host(cb, IntrinsicRegistry.HASH);
+        emit(cb, Operation.POP);
+        push(cb, 1100);
+        push(cb, 0);
+        push(cb, 4);
+        host(cb, IntrinsicRegistry.MEMSET);
+        emit(cb, Operation.HALT);
+
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        machine.setIntrinsicRegistry(IntrinsicRegistry.standard());
+        machine.execute(cb.toByteArray(), RegisterExecutionEngine.INSTANCE);
+
+        // Loading the program and memset.
+        assertEquals(2L, machine.getTapeWriteCount());
+    }
+
+    @Test(expected = StackMachineException.class)
+    public void outOfRangeCopyIsRejected() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        push(cb, 16 * 1024 - 2);
+        push(cb, 0);
+        push(cb, 4);
+        host(cb, IntrinsicRegistry.MEMCPY);
+        emit(cb, Operation.HALT);
+
+        run(cb.toByteArray(), DefaultExecutionEngine.INSTANCE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateIdIsRejected() {
+        IntrinsicRegistry.standard().register(IntrinsicRegistry.HASH,
+                                              "other",
+                                              0,
+                                              0,
+                                              frame -> {});
+    }
+
+    private static void host(final CodeBuilder cb, final int id) {
+        emit(cb, Operation.HOST);
+        cb.emit(id);
+    }
+
+    private static String run(final byte[] program,
+                              final ExecutionEngine engine) {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+        machine.setIntrinsicRegistry(IntrinsicRegistry.standard());
+        machine.execute(program, engine);
+        return bos.toString();
+    }
+}
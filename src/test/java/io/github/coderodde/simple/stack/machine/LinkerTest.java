@@ -0,0 +1,227 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class LinkerTest {
+
+    private static final int MATH_BASE = 8000;
+    private static final int IO_BASE = 9000;
+
+    @Test
+    public void linkedProgramCallsAcrossLibraries() {
+        final SharedLibrary io = ioLibrary();
+        final LinkedProgram program = new Linker().addLibrary(io)
+                                                  .link(mainModule());
+
+        assertEquals(2, program.getLibraries().size());
+        assertEquals(MATH_BASE, program.getSymbolAddress("square"));
+        assertEquals(IO_BASE, program.getSymbolAddress("printSquare"));
+
+        final ByteArrayOutputStream linkedOut = new ByteArrayOutputStream();
+        final SimpleStackMachine linked =
+                TestPrograms.newMachine("", linkedOut);
+        program.execute(linked);
+
+        final ByteArrayOutputStream plainOut = new ByteArrayOutputStream();
+        final SimpleStackMachine plain = TestPrograms.newMachine("", plainOut);
+        plain.execute(program.getImage(), DefaultExecutionEngine.INSTANCE);
+
+        final String expected = String.format("49%n25%n");
+
+        assertEquals(expected, linkedOut.toString());
+        assertEquals(expected, plainOut.toString());
+        assertTrue(linked.isHalted());
+        assertEquals(plain.getExecutedInstructionCount(),
+                     linked.getExecutedInstructionCount());
+    }
+
+    @Test
+    public void librariesAreLoadedOncePerProcess() {
+        final SharedLibrary math = mathLibrary();
+
+        assertSame(math, mathLibrary());
+        assertSame(math, SharedLibrary.getLoaded("math"));
+        assertSame(math, ioLibrary().getDependencies().get(0));
+
+        try {
+            SharedLibrary.load(mathModule(), MATH_BASE + 100);
+            fail("The library math is already loaded elsewhere.");
+        } catch (final IllegalStateException ex) {
+
+        }
+    }
+
+    @Test
+    public void modulesSurviveEncoding() {
+        final ProgramModule module = mathModule();
+        final ByteBuffer buffer = ByteBuffer.allocate(1000);
+        buffer.put(module.toByteArray()).put((byte) 42).flip();
+
+        final ProgramModule decoded = ProgramModule.fromBuffer(buffer);
+
+        assertArrayEquals(module.toByteArray(), decoded.toByteArray());
+        assertEquals(module.getExports(), decoded.getExports());
+        assertEquals(1, decoded.getRelocations().size());
+        assertTrue(decoded.getRelocations().get(0).isLocal());
+        assertEquals(42, buffer.get());
+    }
+
+    @Test
+    public void invalidModulesAreRejected() {
+        final Linker linker = new Linker().addLibrary(mathLibrary());
+
+        final CodeBuilder unknownOpcode = new CodeBuilder(8);
+        TestPrograms.push(unknownOpcode, 1);
+        unknownOpcode.emit((byte) 0x7e);
+        unknownOpcode.emit(Operation.HALT.getOpcodeByte());
+
+        assertRejected(linker, module(unknownOpcode, "bad"), "unknown opcode");
+
+        final CodeBuilder undefined = new CodeBuilder(16);
+        TestPrograms.push(undefined, 0);
+        TestPrograms.emit(undefined, Operation.CALL);
+        undefined.emit(0);
+        TestPrograms.emit(undefined, Operation.HALT);
+
+        assertRejected(linker,
+                       new ProgramModule.Builder("undefined",
+                                                 undefined.toByteArray())
+                               .relocate(1, "cube")
+                               .build(),
+                       "undefined symbol cube");
+
+        final CodeBuilder intoLibrary = new CodeBuilder(16);
+        TestPrograms.push(intoLibrary, MATH_BASE + 1);
+        TestPrograms.emit(intoLibrary, Operation.JMP);
+        TestPrograms.emit(intoLibrary, Operation.HALT);
+
+        assertRejected(linker,
+                       module(intoLibrary, "intoLibrary"),
+                       "outside of its code");
+    }
+
+    private static void assertRejected(final Linker linker,
+                                       final ProgramModule module,
+                                       final String message) {
+        try {
+            linker.link(module);
+            fail("The module must be rejected.");
+        } catch (final IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * Prints the square of 7 through the io library and the absolute value
+     * of the square of -5 computed with the math library.
+     */
+    private static ProgramModule mainModule() {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        TestPrograms.push(cb, 7);
+        final int printSquare = cb.getInstructionPointer() + 1;
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CALL);
+        cb.emit(0);
+        TestPrograms.push(cb, -5);
+        final int square = cb.getInstructionPointer() + 1;
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CALL);
+        cb.emit(0);
+        final int abs = cb.getInstructionPointer() + 1;
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CALL);
+        cb.emit(0);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return new ProgramModule.Builder("main", cb.toByteArray())
+                .relocate(printSquare, "printSquare")
+                .relocate(square, "square")
+                .relocate(abs, "abs")
+                .build();
+    }
+
+    private static SharedLibrary mathLibrary() {
+        return SharedLibrary.load(mathModule(), MATH_BASE);
+    }
+
+    /**
+     * Builds the math library exporting {@code square} and {@code abs}.
+     */
+    private static ProgramModule mathModule() {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        // [x, ret] -> [x * x].
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.MUL);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.RET);
+
+        // [x, ret] -> [|x|].
+        final int abs = cb.getInstructionPointer();
+
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JAE);
+        final int jumpTarget = cb.getInstructionPointer();
+        cb.emit(0);
+        TestPrograms.push(cb, -1);
+        TestPrograms.emit(cb, Operation.MUL);
+
+        final int positive = cb.getInstructionPointer();
+
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.RET);
+
+        cb.setInstructionPointer(jumpTarget);
+        cb.emit(positive);
+
+        return new ProgramModule.Builder("math", cb.toByteArray())
+                .export("square", 0)
+                .export("abs", abs)
+                .relocate(jumpTarget)
+                .build();
+    }
+
+    /**
+     * Builds the io library exporting {@code printSquare}, which calls
+     * {@code square} of the math library.
+     */
+    private static SharedLibrary ioLibrary() {
+        final CodeBuilder cb = new CodeBuilder(32);
+
+        // [x, ret] -> [].
+        TestPrograms.emit(cb, Operation.SWAP);
+        final int square = cb.getInstructionPointer() + 1;
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CALL);
+        cb.emit(0);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.RET);
+
+        return SharedLibrary.load(
+                new ProgramModule.Builder("io", cb.toByteArray())
+                        .export("printSquare", 0)
+                        .relocate(square, "square")
+                        .build(),
+                IO_BASE,
+                mathLibrary());
+    }
+
+    private static ProgramModule module(final CodeBuilder cb,
+                                        final String name) {
+        return new ProgramModule.Builder(name, cb.toByteArray()).build();
+    }
+}
@@ -0,0 +1,251 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LockstepEngineTest {
+
+    private static final int EVEN_ADDRESS = 100;
+    private static final int NEXT_ADDRESS = 130;
+    private static final int END_ADDRESS = 160;
+
+    @Test
+    public void divergentLoopsMatchScalarRuns() {
+        final byte[] program = collatzSteps();
+        final int[][] inputs = new int[2000][];
+
+        for (int i = 0; i < inputs.length; ++i) {
+            inputs[i] = new int[] { i + 1 };
+        }
+
+        final LockstepEngine engine = new LockstepEngine(program, 512);
+        final LockstepEngine.LaneResult[] results = engine.run(inputs);
+        long scalarInstructions = 0L;
+
+        for (int i = 0; i < inputs.length; ++i) {
+            scalarInstructions += assertMatchesScalar(program,
+                                                      inputs[i],
+                                                      results[i]);
+        }
+
+        assertEquals(0L, engine.getHandedOverLaneCount());
+        assertTrue(engine.getDispatchCount() * 8 < scalarInstructions);
+    }
+
+    @Test
+    public void rowsKeepRunningAfterALaneHalts() {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        // Halts at once on zero, or counts n down to zero and prints it.
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JNE);
+        cb.emit(20);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(20);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JE);
+        cb.emit(50);
+        TestPrograms.push(cb, -1);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.push(cb, 20);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        cb.setInstructionPointer(50);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        // The first lane halts before the loop, the others loop together.
+        final int[][] inputs = new int[64][];
+        inputs[0] = new int[] { 0 };
+
+        for (int i = 1; i < inputs.length; ++i) {
+            inputs[i] = new int[] { 100 };
+        }
+
+        final LockstepEngine engine = new LockstepEngine(cb.toByteArray());
+        final LockstepEngine.LaneResult[] results = engine.run(inputs);
+
+        for (int i = 0; i < inputs.length; ++i) {
+            assertMatchesScalar(cb.toByteArray(), inputs[i], results[i]);
+        }
+
+        assertEquals(0L, engine.getHandedOverLaneCount());
+        assertTrue(engine.getConvergedDispatchCount() > 100 * 8);
+    }
+
+    @Test
+    public void trappingLanesMatchScalarRuns() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        // Prints 100 / n.
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.push(cb, 100);
+        TestPrograms.emit(cb, Operation.DIV);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        final int[][] inputs = { { 5 }, { 0 }, { -3 }, { }, { 0 }, { 7 } };
+        final LockstepEngine engine = new LockstepEngine(cb.toByteArray());
+        final LockstepEngine.LaneResult[] results = engine.run(inputs);
+
+        for (int i = 0; i < inputs.length; ++i) {
+            assertMatchesScalar(cb.toByteArray(), inputs[i], results[i]);
+        }
+
+        assertEquals(3L, engine.getHandedOverLaneCount());
+        assertEquals("/ by zero", results[1].getTrap().getMessage());
+    }
+
+    @Test
+    public void unsupportedInstructionsAreHandedOverWithLaneState() {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        // Stores n at 1000, fills [2000, 2008) and prints n + mem[1000].
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 1000);
+        TestPrograms.emit(cb, Operation.STORE);
+        TestPrograms.push(cb, 2000);
+        TestPrograms.push(cb, 7);
+        TestPrograms.push(cb, 8);
+        TestPrograms.emit(cb, Operation.BFILL);
+        TestPrograms.push(cb, 1000);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        final int[][] inputs = new int[100][];
+
+        for (int i = 0; i < inputs.length; ++i) {
+            inputs[i] = new int[] { i * 37 - 1000 };
+        }
+
+        final LockstepEngine engine = new LockstepEngine(cb.toByteArray(),
+                                                         32);
+        final LockstepEngine.LaneResult[] results = engine.run(inputs);
+
+        for (int i = 0; i < inputs.length; ++i) {
+            assertMatchesScalar(cb.toByteArray(), inputs[i], results[i]);
+        }
+
+        assertEquals(100L, engine.getHandedOverLaneCount());
+    }
+
+    /**
+     * Builds a program that reads {@code n} and prints the number of
+     * Collatz steps from {@code n} to 1.
+     */
+    private static byte[] collatzSteps() {
+        final CodeBuilder cb = new CodeBuilder(END_ADDRESS + 16);
+
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.SWAP);
+
+        // [steps, n]
+        final int loop = cb.getInstructionPointer();
+
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JE);
+        cb.emit(END_ADDRESS);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 2);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.MOD);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JE);
+        cb.emit(EVEN_ADDRESS);
+
+        // Odd: n = 3n + 1.
+        TestPrograms.push(cb, 3);
+        TestPrograms.emit(cb, Operation.MUL);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.push(cb, NEXT_ADDRESS);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        // Even: n = n / 2.
+        cb.setInstructionPointer(EVEN_ADDRESS);
+        TestPrograms.push(cb, 2);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.DIV);
+        TestPrograms.push(cb, NEXT_ADDRESS);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        // ++steps.
+        cb.setInstructionPointer(NEXT_ADDRESS);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.push(cb, loop);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        cb.setInstructionPointer(END_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    /**
+     * Runs the program on a fresh machine and compares its outcome to the
+     * lane result.
+     *
+     * @return the number of instructions the machine executed.
+     */
+    private static long assertMatchesScalar(
+            final byte[] program,
+            final int[] input,
+            final LockstepEngine.LaneResult result) {
+        final StringBuilder text = new StringBuilder();
+
+        for (final int word : input) {
+            text.append(word).append('\n');
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine =
+                new SimpleStackMachine(
+                        new ByteArrayInputStream(text.toString().getBytes()),
+                        new PrintStream(bos, true));
+        RuntimeException trap = null;
+
+        try {
+            machine.execute(program);
+        } catch (final RuntimeException ex) {
+            trap = ex;
+        }
+
+        assertEquals(bos.toString(), result.getOutput());
+        assertArrayEquals(machine.getOperandStack(),
+                          result.getOperandStack());
+        assertEquals(machine.isHalted(), result.isHalted());
+
+        if (trap == null) {
+            assertEquals(null, result.getTrap());
+        } else {
+            assertEquals(trap.getClass(), result.getTrap().getClass());
+            assertEquals(trap.getMessage(), result.getTrap().getMessage());
+        }
+
+        return machine.getExecutedInstructionCount();
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class MachineMetricsTest {
+
+    private static final String PREFIX = "io.github.coderodde.simple.stack.";
+
+    @Test
+    public void countsProgramsSlicesAndTraps() {
+        final MachineMetrics metrics = MachineMetrics.INSTANCE;
+        final long started = metrics.getProgramsStarted();
+        final long halted = metrics.getProgramsHalted();
+        final long paused = metrics.getPausedSlices();
+        final long traps = metrics.getTraps();
+        final long instructions = metrics.getExecutedInstructions();
+        final long ioWaits = metrics.getIoWaits();
+
+        // Halts after 4 + 16 * 10 + 2 instructions.
+        run(TestPrograms.arithmeticLoop(10), "");
+
+        // Pauses once, then halts on resume.
+        final SimpleStackMachine pausing =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        pausing.setInstructionBudget(10L);
+        pausing.execute(TestPrograms.arithmeticLoop(10));
+        pausing.setInstructionBudget(Long.MAX_VALUE);
+        pausing.resume();
+
+        // Waits for input once.
+        run(TestPrograms.inputAndStrings(), "41\n");
+
+        try {
+            run(new byte[] { (byte) 0xee, 0 }, "");
+            fail("An unknown opcode must trap.");
+        } catch (final StackMachineException ex) {
+            // Expected.
+        }
+
+        assertEquals(started + 4, metrics.getProgramsStarted());
+        assertEquals(halted + 3, metrics.getProgramsHalted());
+        assertEquals(paused + 1, metrics.getPausedSlices());
+        assertEquals(traps + 1, metrics.getTraps());
+        assertEquals(ioWaits + 1, metrics.getIoWaits());
+        assertTrue(metrics.getExecutedInstructions()
+                   >= instructions + 2 * (4 + 16 * 10 + 2));
+        assertEquals(0L, metrics.getRunningMachines());
+        assertTrue(metrics.getMaximumStackCapacity() >= 64L);
+    }
+
+    @Test
+    public void exposesMXBean() throws Exception {
+        MachineMetrics.register();
+        MachineMetrics.register();
+
+        try {
+            run(TestPrograms.callAndReturn(), "");
+
+            final MBeanServer server =
+                    ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(MachineMetrics.OBJECT_NAME);
+
+            assertTrue((Long) server.getAttribute(name, "ProgramsStarted")
+                       >= 1L);
+
+            final long[] histogram =
+                    (long[]) server.getAttribute(name,
+                                                 "SliceLatencyHistogram");
+            long slices = 0L;
+
+            for (final long count : histogram) {
+                slices += count;
+            }
+
+            assertTrue(slices >= 1L);
+        } finally {
+            MachineMetrics.unregister();
+        }
+    }
+
+    @Test
+    public void emitsFlightRecorderEvents() throws Exception {
+        final Path file = Files.createTempFile("machine", ".jfr");
+
+        try (final Recording recording = new Recording()) {
+            for (final String event : new String[] { "ProgramStart",
+                                                     "ProgramEnd",
+                                                     "Trap",
+                                                     "ExecutionSlice",
+                                                     "IoWait" }) {
+                recording.enable(PREFIX + event).withThreshold(Duration.ZERO);
+            }
+
+            recording.start();
+            run(TestPrograms.inputAndStrings(), "41\n");
+
+            try {
+                run(new byte[] { (byte) 0xee, 0 }, "");
+            } catch (final StackMachineException ex) {
+                // Expected.
+            }
+
+            recording.stop();
+            recording.dump(file);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            final Map<String, Integer> counts = new HashMap<>();
+
+            for (final RecordedEvent event : events) {
+                counts.merge(event.getEventType().getName(), 1, Integer::sum);
+            }
+
+            assertEquals(Integer.valueOf(2), counts.get(PREFIX + "ProgramStart"));
+            assertEquals(Integer.valueOf(2), counts.get(PREFIX + "ProgramEnd"));
+            assertEquals(Integer.valueOf(1), counts.get(PREFIX + "Trap"));
+            assertEquals(Integer.valueOf(2),
+                         counts.get(PREFIX + "ExecutionSlice"));
+            assertEquals(Integer.valueOf(1), counts.get(PREFIX + "IoWait"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(final byte[] program, final String input) {
+        TestPrograms.newMachine(input, new ByteArrayOutputStream())
+                    .execute(program);
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class MachineSnapshotTest {
+
+    private static final int VALUE_ADDRESS = 1000;
+
+    @Test
+    public void forksWhatIfContinuations() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        // Run the common prefix up to READ_INT.
+        machine.setInstructionBudget(3L);
+        machine.execute(addToInput());
+
+        final MachineSnapshot snapshot = machine.snapshot();
+
+        for (int input = 1; input <= 3; ++input) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine fork =
+                    snapshot.fork(
+                            new ByteArrayInputStream(
+                                    (input + "\n").getBytes()),
+                            new PrintStream(bos, true));
+
+            fork.resume(BasicBlockExecutionEngine.INSTANCE);
+
+            assertTrue(fork.isHalted());
+            assertEquals(">>> " + (input + 5), bos.toString().trim());
+        }
+
+        assertFalse(machine.isHalted());
+        assertEquals(3L, snapshot.getExecutedInstructionCount());
+    }
+
+    @Test
+    public void sharesUnchangedPages() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.setInstructionBudget(10L);
+        machine.execute(TestPrograms.arithmeticLoop(10));
+
+        final MachineSnapshot first = machine.snapshot();
+        final MachineSnapshot unchanged = machine.snapshot();
+
+        // The loop body stores its counter to the first page.
+        machine.setInstructionBudget(20L);
+        machine.resume();
+
+        final MachineSnapshot second = machine.snapshot();
+        final int pageCount = SimpleStackMachine.TAPE_LENGTH_IN_BYTES
+                            / MachineSnapshot.PAGE_SIZE;
+
+        assertEquals(pageCount, unchanged.getSharedPageCount(first));
+        assertEquals(pageCount - 1, second.getSharedPageCount(unchanged));
+    }
+
+    @Test
+    public void restoresEarlierState() {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+        machine.setInstructionBudget(50L);
+        machine.execute(TestPrograms.arithmeticLoop(10));
+
+        final MachineSnapshot snapshot = machine.snapshot();
+        final int[] stack = machine.getOperandStack();
+
+        machine.setInstructionBudget(Long.MAX_VALUE);
+        machine.resume();
+        assertTrue(machine.isHalted());
+
+        machine.restore(snapshot);
+
+        assertFalse(machine.isHalted());
+        assertEquals(50L, machine.getExecutedInstructionCount());
+        assertArrayEquals(stack, machine.getOperandStack());
+
+        machine.resume();
+
+        final String expected = TestPrograms.run(
+                TestPrograms.arithmeticLoop(10),
+                "",
+                DefaultExecutionEngine.INSTANCE);
+
+        assertEquals(expected + expected, bos.toString());
+    }
+
+    @Test
+    public void roundTripsThroughFileChannel() throws IOException {
+        final Path file = Files.createTempFile("snapshot", ".bin");
+
+        try {
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            machine.setInstructionBudget(77L);
+            machine.execute(TestPrograms.recursiveFibonacci(10));
+
+            final MachineSnapshot snapshot = machine.snapshot();
+
+            try (final FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.WRITE)) {
+                snapshot.writeTo(channel);
+            }
+
+            final MachineSnapshot read;
+
+            try (final FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                read = MachineSnapshot.readFrom(channel);
+            }
+
+            assertEquals(snapshot.getInstructionPointer(),
+                         read.getInstructionPointer());
+            assertArrayEquals(snapshot.getOperandStack(),
+                              read.getOperandStack());
+
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine fork =
+                    read.fork(new ByteArrayInputStream(new byte[0]),
+                              new PrintStream(bos, true));
+
+            fork.resume();
+
+            assertEquals(TestPrograms.run(TestPrograms.recursiveFibonacci(10),
+                                          "",
+                                          DefaultExecutionEngine.INSTANCE),
+                         bos.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        final Path file = Files.createTempFile("snapshot", ".bin");
+
+        try {
+            try (final FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[64]));
+            }
+
+            try (final FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                MachineSnapshot.readFrom(channel);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Builds a program that stores 5, reads a number and prints their sum.
+     */
+    private static byte[] addToInput() {
+        final CodeBuilder cb = new CodeBuilder(VALUE_ADDRESS + Integer.BYTES);
+
+        TestPrograms.push(cb, 5);
+        TestPrograms.push(cb, VALUE_ADDRESS);
+        TestPrograms.emit(cb, Operation.STORE);
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.push(cb, VALUE_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+}
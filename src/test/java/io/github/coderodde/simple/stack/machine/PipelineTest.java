@@ -0,0 +1,270 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class PipelineTest {
+
+    private static final int EMPTY_HANDLER_ADDRESS = 200;
+    private static final int END_HANDLER_ADDRESS = 220;
+
+    @Test
+    public void singleProducerSingleConsumerKeepsOrder() throws Exception {
+        final Channel channel = Channel.singleProducerSingleConsumer(100);
+        final int count = 1_000_000;
+
+        assertEquals(128, channel.getCapacity());
+
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; ++i) {
+                channel.send(i);
+            }
+
+            channel.close();
+        });
+
+        producer.start();
+
+        for (int i = 0; i < count; ++i) {
+            assertEquals(i, channel.receive());
+        }
+
+        producer.join();
+
+        assertEquals(Channel.EMPTY, channel.receive());
+        assertEquals(count, channel.getSentCount());
+        assertEquals(count, channel.getReceivedCount());
+        assertEquals(0, channel.size());
+    }
+
+    @Test
+    public void multiProducerMultiConsumerLosesNothing() throws Exception {
+        final Channel channel = Channel.multiProducerMultiConsumer(64);
+        final int perProducer = 100_000;
+        final Thread[] threads = new Thread[8];
+        final AtomicLong sum = new AtomicLong();
+
+        for (int t = 0; t < 4; ++t) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= perProducer; ++i) {
+                    channel.send(i);
+                }
+            });
+
+            threads[t + 4] = new Thread(() -> {
+                long local = 0L;
+
+                for (int i = 0; i < perProducer; ++i) {
+                    local += channel.receive();
+                }
+
+                sum.addAndGet(local);
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4L * perProducer * (perProducer + 1) / 2, sum.get());
+        assertEquals(0, channel.size());
+        assertEquals(Channel.EMPTY, channel.poll());
+    }
+
+    @Test
+    public void threeStagePipelineSumsSquares() {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Pipeline pipeline =
+                new Pipeline(16)
+                        .addStage(TestPrograms.newMachine(
+                                          "", new ByteArrayOutputStream()),
+                                  producer(1000))
+                        .addStage(TestPrograms.newMachine(
+                                          "", new ByteArrayOutputStream()),
+                                  squarer(),
+                                  BasicBlockExecutionEngine.INSTANCE)
+                        .addStage(TestPrograms.newMachine("", bos),
+                                  summer(),
+                                  RegisterExecutionEngine.INSTANCE);
+
+        pipeline.run();
+
+        assertEquals("333833500", bos.toString().trim());
+        assertEquals(3, pipeline.getStageCount());
+
+        for (int i = 0; i < 2; ++i) {
+            final Channel channel = pipeline.getChannel(i);
+
+            assertEquals(1000L, channel.getSentCount());
+            assertEquals(1000L, channel.getReceivedCount());
+            assertEquals(0, channel.size());
+            assertTrue(channel.isClosed());
+            assertTrue(pipeline.getThroughput(i) > 0.0);
+        }
+    }
+
+    @Test
+    public void receivingFromDrainedChannelTraps() {
+        final Pipeline pipeline =
+                new Pipeline(4)
+                        .addStage(TestPrograms.newMachine(
+                                          "", new ByteArrayOutputStream()),
+                                  producer(3))
+                        .addStage(TestPrograms.newMachine(
+                                          "", new ByteArrayOutputStream()),
+                                  receiver(4));
+
+        try {
+            pipeline.run();
+            fail("The fourth RECV must trap.");
+        } catch (final StackMachineException ex) {
+            assertTrue(ex.getMessage(),
+                       ex.getMessage().contains("closed and drained"));
+        }
+    }
+
+    @Test
+    public void missingChannelTraps() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        TestPrograms.push(cb, 7);
+        TestPrograms.emit(cb, Operation.RECV);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        try {
+            TestPrograms.newMachine("", new ByteArrayOutputStream())
+                        .execute(cb.toByteArray());
+            fail("There is no channel at port 7.");
+        } catch (final StackMachineException ex) {
+            assertEquals("No channel at port 7", ex.getMessage());
+        }
+    }
+
+    /**
+     * Builds a stage sending {@code 1, ..., count}.
+     */
+    private static byte[] producer(final int count) {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        TestPrograms.push(cb, 1);
+
+        final int loop = cb.getInstructionPointer();
+
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, Pipeline.OUTPUT_PORT);
+        TestPrograms.emit(cb, Operation.SEND);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, count + 1);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JL);
+        cb.emit(loop);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    /**
+     * Builds a stage receiving {@code count} words with {@code RECV}.
+     */
+    private static byte[] receiver(final int count) {
+        final CodeBuilder cb = new CodeBuilder(64);
+
+        for (int i = 0; i < count; ++i) {
+            TestPrograms.push(cb, Pipeline.INPUT_PORT);
+            TestPrograms.emit(cb, Operation.RECV);
+        }
+
+        TestPrograms.emit(cb, Operation.HALT);
+        return cb.toByteArray();
+    }
+
+    /**
+     * Builds a stage sending the square of every word received.
+     */
+    private static byte[] squarer() {
+        final CodeBuilder cb = new CodeBuilder(END_HANDLER_ADDRESS + 16);
+        final int loop = receiveLoopHead(cb);
+
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.MUL);
+        TestPrograms.push(cb, Pipeline.OUTPUT_PORT);
+        TestPrograms.emit(cb, Operation.SEND);
+        TestPrograms.push(cb, loop);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        emitEmptyHandler(cb, loop);
+        cb.setInstructionPointer(END_HANDLER_ADDRESS);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    /**
+     * Builds a stage printing the sum of the words received.
+     */
+    private static byte[] summer() {
+        final CodeBuilder cb = new CodeBuilder(END_HANDLER_ADDRESS + 16);
+
+        TestPrograms.push(cb, 0);
+
+        final int loop = receiveLoopHead(cb);
+
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.push(cb, loop);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        emitEmptyHandler(cb, loop);
+        cb.setInstructionPointer(END_HANDLER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    /**
+     * Emits {@code TRYRECV} from the input port branching to the handlers
+     * when the status is not 1, and leaves the received word on the stack.
+     *
+     * @return the address of the loop head.
+     */
+    private static int receiveLoopHead(final CodeBuilder cb) {
+        final int loop = cb.getInstructionPointer();
+
+        TestPrograms.push(cb, Pipeline.INPUT_PORT);
+        TestPrograms.emit(cb, Operation.TRYRECV);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JL);
+        cb.emit(END_HANDLER_ADDRESS);
+        TestPrograms.emit(cb, Operation.JE);
+        cb.emit(EMPTY_HANDLER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+
+        return loop;
+    }
+
+    private static void emitEmptyHandler(final CodeBuilder cb,
+                                         final int loop) {
+        cb.setInstructionPointer(EMPTY_HANDLER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.YIELD);
+        TestPrograms.push(cb, loop);
+        TestPrograms.emit(cb, Operation.JMP);
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class RegisterExecutionEngineTest {
+    
+    @Test
+    public void corpus() {
+        for (final Map.Entry<byte[], String> e 
+                : TestPrograms.corpus().entrySet()) {
+            assertEquals(
+                    TestPrograms.run(e.getKey(), 
+                                     e.getValue(),
+                                     DefaultExecutionEngine.INSTANCE),
+                    TestPrograms.run(e.getKey(), 
+                                     e.getValue(),
+                                     RegisterExecutionEngine.INSTANCE));
+        }
+    }
+    
+    @Test
+    public void foldsConstantsAndResolvesConstantBranches() {
+        final RegisterProgram program = 
+                RegisterTranslator.translate(
+                        TestPrograms.constantExpressions(), 
+                        0);
+        
+        // The entry block folds down to 'goto 41' with 10 left on the stack,
+        // and the dead block at 29 is never translated.
+        assertEquals(2, program.getBlockCount());
+        assertTrue(program.toString().contains("out[0] = 10"));
+        assertEquals(String.format("10%n"), 
+                     TestPrograms.run(TestPrograms.constantExpressions(), 
+                                      "", 
+                                      RegisterExecutionEngine.INSTANCE));
+    }
+    
+    @Test
+    public void dropsStackTraffic() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        
+        emit(cb, Operation.READ_INT);
+        emit(cb, Operation.READ_INT);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.DUP);
+        emit(cb, Operation.POP);
+        emit(cb, Operation.SUB);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        final RegisterProgram program = 
+                RegisterTranslator.translate(cb.toByteArray(), 0);
+        
+        // iin, iin, sub, iout, halt.
+        assertEquals(5, program.getInstructionCount());
+        assertEquals(String.format(">>> >>> -2%n"), 
+                     TestPrograms.run(cb.toByteArray(), 
+                                      "3 5", 
+                                      RegisterExecutionEngine.INSTANCE));
+    }
+    
+    @Test
+    public void blockUsesValuesFromBelowItsEntryDepth() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        
+        push(cb, 1);
+        push(cb, 2);
+        push(cb, 3);
+        push(cb, 30);
+        emit(cb, Operation.JMP);
+        
+        cb.setInstructionPointer(30);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        assertEquals(String.format("1%n5%n"), 
+                     TestPrograms.run(cb.toByteArray(), 
+                                      "", 
+                                      RegisterExecutionEngine.INSTANCE));
+    }
+    
+    @Test
+    public void seesTheCodeItOverwrites() {
+        final CodeBuilder cb = new CodeBuilder(30);
+        
+        // Overwrites the operand of 'PUSH 1' at 16 with 99.
+        push(cb, 99);
+        push(cb, 17);
+        emit(cb, Operation.STORE);
+        
+        for (int i = 0; i < 5; ++i) {
+            emit(cb, Operation.NOP);
+        }
+        
+        push(cb, 1);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        assertEquals(String.format("99%n"), 
+                     TestPrograms.run(cb.toByteArray(), 
+                                      "", 
+                                      RegisterExecutionEngine.INSTANCE));
+    }
+    
+    @Test
+    public void keepsTheTranslationAcrossResumptions() {
+        final SimpleStackMachine machine = 
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+        
+        machine.setInstructionBudget(1L);
+        machine.execute(TestPrograms.constantExpressions(), 
+                        RegisterExecutionEngine.INSTANCE);
+        
+        final RegisterProgram program = machine.getRegisterProgram();
+        
+        machine.setInstructionBudget(Long.MAX_VALUE);
+        machine.resume(RegisterExecutionEngine.INSTANCE);
+        
+        assertSame(program, machine.getRegisterProgram());
+        
+        machine.loadProgram(TestPrograms.constantExpressions());
+        
+        assertNotSame(program, machine.getRegisterProgram());
+    }
+    
+    @Test(expected = StackMachineException.class) 
+    public void stackUnderflow() {
+        final CodeBuilder cb = new CodeBuilder(10);
+        
+        push(cb, 1);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.HALT);
+        
+        new SimpleStackMachine().execute(cb.toByteArray(), 
+                                         RegisterExecutionEngine.INSTANCE);
+    }
+}
@@ -0,0 +1,238 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class StackMachineRunnerTest {
+
+    private static final String SQUARES =
+            "; Prints the squares of n, n - 1, ..., 1.\n"
+            + "        push title\n"
+            + "        push 7\n"
+            + "        sout\n"
+            + "        iin\n"
+            + "loop:   dup\n"
+            + "        push 0\n"
+            + "        cmp\n"
+            + "        je done\n"
+            + "        dup\n"
+            + "        push square\n"
+            + "        call\n"
+            + "        iout\n"
+            + "        push -1\n"
+            + "        add\n"
+            + "        push loop\n"
+            + "        jmp\n"
+            + "done:   pop\n"
+            + "        halt\n"
+            + "\n"
+            + "square: swap      ; [x, ret] -> [x * x]\n"
+            + "        dup\n"
+            + "        mul\n"
+            + "        swap\n"
+            + "        ret\n"
+            + "title:  .ascii \"squares\"\n";
+
+    private final List<Path> files = new ArrayList<>();
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    @After
+    public void deleteFiles() throws IOException {
+        for (final Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void assemblyRunsWithRedirectedStreamsAndTiming()
+            throws IOException {
+        final Path program = file(".asm", SQUARES);
+        final Path input = file(".txt", "3\n");
+        final Path output = file(".txt", "");
+
+        for (final String engine : new String[] { "default", "tos",
+                                                  "block", "register" }) {
+            assertEquals(StackMachineRunner.EXIT_HALTED,
+                         run("--engine", engine,
+                             "--input", input.toString(),
+                             "--output", output.toString(),
+                             "--timing",
+                             program.toString()));
+
+            assertEquals(String.format("squares%n>>> 9%n4%n1%n"),
+                         Files.readString(output));
+        }
+
+        final String timing = stderr.toString();
+
+        for (final String phase : new String[] { "load", "verify",
+                                                 "prepare", "execute" }) {
+            assertTrue(timing, timing.contains(phase));
+        }
+
+        assertTrue(timing, timing.contains("per second"));
+        assertEquals("", stdout.toString());
+    }
+
+    @Test
+    public void registerEngineSeesTheCodeTheProgramOverwrites()
+            throws IOException {
+        // The store overwrites the operand of 'push 1' at 16 with 99.
+        final Path program = file(".asm", "push 99\npush 17\nstore\n"
+                                          + "nop\nnop\nnop\nnop\nnop\n"
+                                          + "push 1\niout\nhalt\n");
+
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run("--engine", "register", program.toString()));
+        assertEquals(String.format("99%n"), stdout.toString());
+    }
+
+    @Test
+    public void assemblerMatchesHandWrittenCode() {
+        final CodeBuilder cb = new CodeBuilder(19);
+        TestPrograms.push(cb, 0x41);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JE);
+        cb.emit(5);
+        TestPrograms.emit(cb, Operation.CALL);
+        cb.emit(0);
+
+        assertArrayEquals(cb.toByteArray(),
+                          Assembler.assemble("  PUSH 'A'\n"
+                                             + "x: dup ; x is at 5\n"
+                                             + "cmp\n"
+                                             + "je x\n"
+                                             + "call\n"
+                                             + ".zero 2\n"));
+
+        assertAssemblyRejected("push\n", "Line 1: push takes 1");
+        assertAssemblyRejected("nop\njz nowhere\n", "Line 2: undefined label");
+        assertAssemblyRejected("a: nop\na: halt\n", "defined twice");
+        assertAssemblyRejected("nop\n.wide\n", ".wide must be the first");
+        assertAssemblyRejected("frobnicate\n", "unknown mnemonic");
+    }
+
+    @Test
+    public void formatsAreDetected() throws IOException {
+        final byte[] raw = Assembler.assemble("push 6\npush 7\nmul\niout\n"
+                                              + "halt\n");
+
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run(file(".bin", raw).toString()));
+
+        final byte[] module =
+                new ProgramModule.Builder("main", raw).build().toByteArray();
+
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run(file(".bin", module).toString()));
+
+        final SimpleStackMachine machine =
+                new SimpleStackMachine(
+                        new ByteArrayInputStream(new byte[0]),
+                        new PrintStream(new ByteArrayOutputStream()));
+
+        machine.setInstructionBudget(2L);
+        machine.execute(raw);
+
+        final Path snapshot = file(".bin", new byte[0]);
+
+        try (FileChannel channel =
+                     FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            machine.snapshot().writeTo(channel);
+        }
+
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run("--engine", "block", snapshot.toString()));
+
+        final byte[] wide = Assembler.assemble(".wide\n"
+                                               + "push 0x100000000\n"
+                                               + "iout\nhalt\n");
+
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run("--timing", file(".bin", wide).toString()));
+
+        assertEquals(String.format("42%n42%n42%n4294967296%n"),
+                     stdout.toString());
+        assertTrue(stderr.toString(), stderr.toString().contains("skipped"));
+    }
+
+    @Test
+    public void failuresHaveTheirExitStatus() throws IOException {
+        final Path loop = file(".s", "l: push l\njmp\n");
+
+        assertEquals(StackMachineRunner.EXIT_OUT_OF_BUDGET,
+                     run("--budget", "1000", "--engine", "register",
+                         loop.toString()));
+        assertTrue(stderr.toString(), stderr.toString().contains("ran out"));
+
+        final Path divide = file(".asm", "push 0\npush 1\ndiv\nhalt\n");
+
+        assertEquals(StackMachineRunner.EXIT_FAILURE, run(divide.toString()));
+        assertTrue(stderr.toString(), stderr.toString().contains("Trap"));
+
+        final Path open = file(".asm", "nop\n");
+
+        assertEquals(StackMachineRunner.EXIT_FAILURE, run(open.toString()));
+        assertTrue(stderr.toString(),
+                   stderr.toString().contains("runs past its end"));
+
+        final Path halt = file(".asm", "halt\n");
+
+        assertEquals(StackMachineRunner.EXIT_FAILURE,
+                     run("--tape-size", "1000", halt.toString()));
+        assertEquals(StackMachineRunner.EXIT_HALTED,
+                     run("--tape-size", "1024", halt.toString()));
+
+        assertEquals(StackMachineRunner.EXIT_USAGE,
+                     run("--engine", "jit", halt.toString()));
+        assertEquals(StackMachineRunner.EXIT_USAGE, run("--budget"));
+        assertEquals(StackMachineRunner.EXIT_USAGE, run());
+    }
+
+    private int run(final String... args) {
+        return StackMachineRunner.run(
+                args,
+                new ByteArrayInputStream(new byte[0]),
+                new PrintStream(stdout, true),
+                new PrintStream(stderr, true));
+    }
+
+    private Path file(final String suffix, final String text)
+            throws IOException {
+        return file(suffix, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path file(final String suffix, final byte[] bytes)
+            throws IOException {
+        final Path file = Files.createTempFile("runner", suffix);
+        files.add(file);
+        return Files.write(file, bytes);
+    }
+
+    private static void assertAssemblyRejected(final String source,
+                                               final String message) {
+        try {
+            Assembler.assemble(source);
+            fail("The source must be rejected.");
+        } catch (final IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import io.github.coderodde.simple.stack.machine.SubroutineAnalysis.Subroutine;
+import java.io.ByteArrayOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SubroutineMemoTableTest {
+
+    private static final ExecutionEngine[] ENGINES = {
+        DefaultExecutionEngine.INSTANCE,
+        BasicBlockExecutionEngine.INSTANCE,
+    };
+
+    @Test
+    public void findsPureSubroutines() {
+        final Subroutine fib =
+                SubroutineAnalysis.analyze(TestPrograms.recursiveFibonacci(5))
+                                  .getSubroutine(100);
+
+        assertTrue(fib.isPure());
+        assertEquals(1, fib.getArgumentCount());
+        assertEquals(1, fib.getResultCount());
+
+        final Subroutine square =
+                SubroutineAnalysis.analyze(TestPrograms.callAndReturn())
+                                  .getSubroutine(100);
+
+        assertTrue(square.isPure());
+        assertEquals(1, square.getArgumentCount());
+        assertEquals(1, square.getResultCount());
+    }
+
+    @Test
+    public void subroutineWithOutputIsImpure() {
+        final CodeBuilder cb = new CodeBuilder(200);
+        push(cb, 7);
+        push(cb, 100);
+        emit(cb, Operation.CALL);
+        cb.emit(0);
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(100);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.RET);
+
+        assertFalse(SubroutineAnalysis.analyze(cb.toByteArray())
+                                      .getSubroutine(100)
+                                      .isPure());
+    }
+
+    @Test
+    public void memoizedFibonacciMatchesPlainRun() {
+        final byte[] program = TestPrograms.recursiveFibonacci(20);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+            machine.enableMemoization(SubroutineAnalysis.analyze(program),
+                                      1024);
+            machine.execute(program, engine);
+
+            assertEquals(TestPrograms.run(program,
+                                          "",
+                                          DefaultExecutionEngine.INSTANCE),
+                         bos.toString());
+
+            final SubroutineMemoTable table = machine.getMemoTable();
+
+            // fib(0)..fib(20) miss once each; fib(n - 2) hits for n >= 3.
+            assertEquals(21L, table.getMissCount());
+            assertEquals(18L, table.getHitCount());
+            assertTrue(machine.getExecutedInstructionCount() < 1000L);
+        }
+    }
+
+    @Test
+    public void spawnSuspendsMemoizationForItsProgramOnly() {
+        final CodeBuilder cb = new CodeBuilder(210);
+        push(cb, 0);
+        push(cb, 200);
+        emit(cb, Operation.SPAWN);
+        emit(cb, Operation.JOIN);
+        emit(cb, Operation.POP);
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(200);
+        emit(cb, Operation.POP);
+        emit(cb, Operation.HALT);
+
+        final byte[] program = TestPrograms.recursiveFibonacci(20);
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.enableMemoization(SubroutineAnalysis.analyze(program), 1024);
+
+        final SubroutineMemoTable table = machine.getMemoTable();
+
+        machine.execute(cb.toByteArray());
+
+        assertSame(table, machine.getMemoTable());
+        assertTrue(table.isSuspended());
+
+        machine.loadProgram(program);
+
+        assertFalse(table.isSuspended());
+    }
+
+    @Test
+    public void programMayOptOut() {
+        final byte[] program = TestPrograms.recursiveFibonacci(10);
+        final SubroutineAnalysis analysis = SubroutineAnalysis.analyze(program);
+        analysis.setMemoizationEnabled(false);
+
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.enableMemoization(analysis, 1024);
+        machine.execute(program);
+
+        assertEquals(0L, machine.getMemoTable().getHitCount());
+        assertEquals(0L, machine.getMemoTable().getMissCount());
+    }
+
+    @Test
+    public void callsThatNeverReturnAreDropped() {
+        final byte[] program = TestPrograms.callAndReturn();
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.enableMemoization(SubroutineAnalysis.analyze(program), 16);
+        machine.loadProgram(program);
+
+        final SubroutineMemoTable table = machine.getMemoTable();
+
+        // square(3) returning to 11 calls square(4), which never returns.
+        machine.setStack(new int[] { 3 }, 1);
+        assertFalse(table.tryCall(machine, 100, 11));
+        machine.setStack(new int[] { 3, 11, 4 }, 3);
+        assertFalse(table.tryCall(machine, 100, 50));
+
+        machine.setStack(new int[] { 9 }, 1);
+        table.onReturn(machine, 11);
+        assertEquals(1, table.size());
+
+        machine.setStack(new int[] { 3 }, 1);
+        assertTrue(table.tryCall(machine, 100, 11));
+        assertEquals(9, machine.pop());
+    }
+
+    @Test
+    public void tapeWriteInvalidatesResults() {
+        // The subroutine at 100 returns its argument plus the word at 1000;
+        // the main program calls it twice with the same argument and stores
+        // to 1000 in between.
+        final CodeBuilder cb = new CodeBuilder(1100);
+        push(cb, 1);
+        push(cb, 100);
+        emit(cb, Operation.CALL);
+        cb.emit(0);
+        emit(cb, Operation.PRINT_INT);
+        push(cb, 5);
+        push(cb, 1000);
+        emit(cb, Operation.STORE);
+        push(cb, 1);
+        push(cb, 100);
+        emit(cb, Operation.CALL);
+        cb.emit(0);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(100);
+        emit(cb, Operation.SWAP);
+        push(cb, 1000);
+        emit(cb, Operation.LOAD);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.RET);
+
+        final byte[] program = cb.toByteArray();
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+            machine.enableMemoization(SubroutineAnalysis.analyze(program),
+                                      16);
+            machine.execute(program, engine);
+
+            assertEquals(String.format("1%n6%n"), bos.toString());
+            assertEquals(0L, machine.getMemoTable().getHitCount());
+        }
+    }
+
+    @Test
+    public void hitRestoresTheFlagsOfTheCall() {
+        // The subroutine at 100 compares 5 to its argument and returns the
+        // argument. The last call hits the entry of the first one, and the
+        // caller branches on the flags it returned with.
+        final CodeBuilder cb = new CodeBuilder(200);
+
+        for (final int argument : new int[] { 1, 7, 1 }) {
+            push(cb, argument);
+            push(cb, 100);
+            emit(cb, Operation.CALL);
+            cb.emit(0);
+            emit(cb, Operation.POP);
+        }
+
+        emit(cb, Operation.JA);
+        cb.emit(80);
+        push(cb, 0);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(80);
+        push(cb, 1);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(100);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.DUP);
+        push(cb, 5);
+        emit(cb, Operation.CMP);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.RET);
+
+        final byte[] program = cb.toByteArray();
+        final Subroutine subroutine =
+                SubroutineAnalysis.analyze(program).getSubroutine(100);
+
+        assertTrue(subroutine.isPure());
+        assertFalse(subroutine.readsCallerFlags());
+        assertMemoizedRunMatchesPlainRun(program, 1L);
+    }
+
+    @Test
+    public void flagsOfTheCallerArePartOfTheKey() {
+        // The subroutine at 100 replaces its argument with 1 if the flags of
+        // its caller say "above", and with 0 otherwise.
+        final CodeBuilder cb = new CodeBuilder(200);
+
+        for (final int[] operands : new int[][] { { 1, 2 }, { 2, 1 } }) {
+            push(cb, operands[0]);
+            push(cb, operands[1]);
+            emit(cb, Operation.CMP);
+            push(cb, 9);
+            push(cb, 100);
+            emit(cb, Operation.CALL);
+            cb.emit(0);
+            emit(cb, Operation.PRINT_INT);
+        }
+
+        emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(100);
+        emit(cb, Operation.JA);
+        cb.emit(120);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.POP);
+        push(cb, 0);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.RET);
+
+        cb.setInstructionPointer(120);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.POP);
+        push(cb, 1);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.RET);
+
+        final byte[] program = cb.toByteArray();
+        final Subroutine subroutine =
+                SubroutineAnalysis.analyze(program).getSubroutine(100);
+
+        assertTrue(subroutine.isPure());
+        assertTrue(subroutine.readsCallerFlags());
+        assertMemoizedRunMatchesPlainRun(program, 0L);
+    }
+
+    private static void assertMemoizedRunMatchesPlainRun(
+            final byte[] program,
+            final long expectedHitCount) {
+        final String expected =
+                TestPrograms.run(program, "", DefaultExecutionEngine.INSTANCE);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+            machine.enableMemoization(SubroutineAnalysis.analyze(program),
+                                      16);
+            machine.execute(program, engine);
+
+            assertEquals(expected, bos.toString());
+            assertEquals(expectedHitCount,
+                         machine.getMemoTable().getHitCount());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SuspendableInputTest {
+
+    private static final ExecutionEngine[] ENGINES = {
+        DefaultExecutionEngine.INSTANCE,
+        TopOfStackCachingEngine.INSTANCE,
+        RegisterExecutionEngine.INSTANCE,
+        BasicBlockExecutionEngine.INSTANCE,
+    };
+
+    @Test
+    public void suspendsAndResumesOnEveryEngine() {
+        final String expected = TestPrograms.run(TestPrograms.inputAndStrings(),
+                                                 "41\n",
+                                                 DefaultExecutionEngine
+                                                         .INSTANCE);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = newSuspendingMachine(bos);
+
+            machine.execute(TestPrograms.inputAndStrings(), engine);
+
+            assertEquals(MachineStatus.NEEDS_INPUT, machine.getStatus());
+            assertEquals(0L, machine.getExecutedInstructionCount());
+            assertEquals(0, machine.getInstructionPointer());
+            assertTrue(machine.offerInput("41"));
+
+            machine.resume(engine);
+
+            assertEquals(MachineStatus.HALTED, machine.getStatus());
+            assertEquals(expected, bos.toString());
+        }
+    }
+
+    @Test
+    public void suspendsAgainWhenInputRunsOut() {
+        for (final ExecutionEngine engine : ENGINES) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = newSuspendingMachine(bos);
+
+            machine.offerInput("3");
+            machine.execute(sumOfTwoInputs(), engine);
+
+            assertEquals(MachineStatus.NEEDS_INPUT, machine.getStatus());
+            // Stopped at the second READ_INT.
+            assertEquals(3L, machine.getExecutedInstructionCount());
+            assertEquals(3, machine.getInstructionPointer());
+            assertTrue(machine.offerInput("4"));
+            assertFalse(machine.offerInput("5"));
+
+            machine.resume(engine);
+
+            assertEquals(MachineStatus.HALTED, machine.getStatus());
+            assertEquals(">>> >>> 7", bos.toString().trim());
+        }
+    }
+
+    @Test
+    public void pausesWithBudgetAsBefore() {
+        final SimpleStackMachine machine =
+                newSuspendingMachine(new ByteArrayOutputStream());
+
+        machine.offerInput("1");
+        machine.offerInput("2");
+        machine.setInstructionBudget(2L);
+        machine.execute(sumOfTwoInputs());
+
+        assertEquals(MachineStatus.PAUSED, machine.getStatus());
+
+        machine.setInstructionBudget(Long.MAX_VALUE);
+        machine.resume();
+
+        assertEquals(MachineStatus.HALTED, machine.getStatus());
+    }
+
+    @Test(expected = StackMachineException.class)
+    public void rejectsNonIntegerInput() {
+        final SimpleStackMachine machine =
+                newSuspendingMachine(new ByteArrayOutputStream());
+
+        machine.offerInput("forty-one");
+        machine.execute(sumOfTwoInputs());
+    }
+
+    @Test
+    public void smallPoolDrivesManyMachines() throws Exception {
+        final int machineCount = 2000;
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final CountDownLatch halted = new CountDownLatch(machineCount);
+        final List<SimpleStackMachine> machines = new ArrayList<>();
+        final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        final byte[] program = sumOfTwoInputs();
+
+        try {
+            for (int i = 0; i < machineCount; ++i) {
+                final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                final SimpleStackMachine machine = newSuspendingMachine(bos);
+
+                machines.add(machine);
+                outputs.add(bos);
+
+                pool.execute(() -> {
+                    machine.execute(program,
+                                    BasicBlockExecutionEngine.INSTANCE);
+                    countIfHalted(machine, halted);
+                });
+            }
+
+            for (int input = 0; input < 2; ++input) {
+                for (int i = 0; i < machineCount; ++i) {
+                    final SimpleStackMachine machine = machines.get(i);
+
+                    if (machine.offerInput(Integer.toString(i))) {
+                        pool.execute(() -> {
+                            machine.resume(BasicBlockExecutionEngine.INSTANCE);
+                            countIfHalted(machine, halted);
+                        });
+                    }
+                }
+            }
+
+            assertTrue(halted.await(30L, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < machineCount; ++i) {
+            assertEquals(">>> >>> " + 2 * i, outputs.get(i).toString().trim());
+        }
+    }
+
+    private static void countIfHalted(final SimpleStackMachine machine,
+                                      final CountDownLatch halted) {
+        if (machine.getStatus() == MachineStatus.HALTED) {
+            halted.countDown();
+        }
+    }
+
+    /**
+     * Builds a program that prints the sum of two input numbers.
+     */
+    @Test
+    public void waitingForInputSpendsNoBudget() {
+        for (final ExecutionEngine engine : ENGINES) {
+            final SimpleStackMachine machine =
+                    newSuspendingMachine(new ByteArrayOutputStream());
+
+            machine.setInstructionBudget(10L);
+            machine.offerInput("3");
+            machine.execute(sumOfTwoInputs(), engine);
+
+            assertEquals(MachineStatus.NEEDS_INPUT, machine.getStatus());
+            assertEquals(3L, machine.getExecutedInstructionCount());
+            assertEquals(7L, machine.getInstructionBudget());
+
+            // Waiting again charges nothing either.
+            machine.resume(engine);
+
+            assertEquals(3L, machine.getExecutedInstructionCount());
+            assertEquals(7L, machine.getInstructionBudget());
+        }
+    }
+
+    private static byte[] sumOfTwoInputs() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        TestPrograms.emit(cb, Operation.NOP);
+        TestPrograms.emit(cb, Operation.NOP);
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    private static SimpleStackMachine newSuspendingMachine(
+            final ByteArrayOutputStream bos) {
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+        machine.setSuspendingInput(true);
+        return machine;
+    }
+}
@@ -0,0 +1,385 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A small corpus of test programs shared by the engine tests and benchmarks.
+ */
+final class TestPrograms {
+    
+    static final int LOOP_COUNTER_ADDRESS = 1000;
+    static final int REPETITION_COUNTER_ADDRESS = 1004;
+    static final int BLOCK_SOURCE_ADDRESS = 4096;
+    static final int BLOCK_TARGET_ADDRESS = 8192;
+    static final int FILL_PATTERN = 0x2a2a2a2a;
+    
+    private TestPrograms() {
+        
+    }
+    
+    /**
+     * Builds a program that iterates {@code acc = (acc + i) * 31} for 
+     * {@code i = iterations, ..., 1} and prints {@code acc}. The counter 
+     * {@code i} lives on the tape at {@value #LOOP_COUNTER_ADDRESS}.
+     * 
+     * @param iterations the number of loop iterations.
+     * @return the program bytes.
+     */
+    static byte[] arithmeticLoop(final int iterations) {
+        final CodeBuilder cb = new CodeBuilder(LOOP_COUNTER_ADDRESS 
+                                               + Integer.BYTES);
+        
+        // mem[1000] = iterations, acc = 0.
+        push(cb, iterations);
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        push(cb, 0);
+        
+        final int loop = 16;
+        
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.LOAD);
+        emit(cb, Operation.ADD);
+        push(cb, 31);
+        emit(cb, Operation.MUL);
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.LOAD);
+        push(cb, -1);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.DUP);
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        push(cb, 0);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.CMP);
+        emit(cb, Operation.JA);
+        cb.emit(loop);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Builds a program that squares 10 in a subroutine and prints the result.
+     * 
+     * @return the program bytes.
+     */
+    static byte[] callAndReturn() {
+        final CodeBuilder cb = new CodeBuilder(200);
+        
+        push(cb, 10);
+        push(cb, 100);
+        emit(cb, Operation.CALL);
+        cb.emit(0);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        // The subroutine at 100: squares the argument below the return 
+        // address.
+        cb.setInstructionPointer(100);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.DUP);
+        emit(cb, Operation.MUL);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.RET);
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Builds a program that computes the {@code n}th Fibonacci number with a
+     * naively recursive subroutine and prints it.
+     * 
+     * @param n the index of the Fibonacci number.
+     * @return the program bytes.
+     */
+    static byte[] recursiveFibonacci(final int n) {
+        final CodeBuilder cb = new CodeBuilder(200);
+        final int fib = 100;
+        
+        push(cb, n);
+        push(cb, fib);
+        emit(cb, Operation.CALL);
+        cb.emit(0);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        // fib: [n ret] -> [fib(n) ret] -> [fib(n)] after return.
+        cb.setInstructionPointer(fib);
+        emit(cb, Operation.SWAP);          // 100: ret n
+        emit(cb, Operation.DUP);           // 101: ret n n
+        push(cb, 2);                       // 102: ret n n 2
+        emit(cb, Operation.SWAP);          // 107: ret n 2 n
+        emit(cb, Operation.CMP);           // 108: ret n
+        emit(cb, Operation.JL);            // 109: n < 2?
+        cb.emit(fib + 64);
+        emit(cb, Operation.DUP);           // 114: ret n n
+        push(cb, -1);                      // 115
+        emit(cb, Operation.ADD);           // 120: ret n n-1
+        push(cb, fib);                     // 121
+        emit(cb, Operation.CALL);          // 126: ret n fib(n-1)
+        cb.emit(0);
+        emit(cb, Operation.SWAP);          // 131: ret fib(n-1) n
+        push(cb, -2);                      // 132
+        emit(cb, Operation.ADD);           // 137: ret fib(n-1) n-2
+        push(cb, fib);                     // 138
+        emit(cb, Operation.CALL);          // 143: ret fib(n-1) fib(n-2)
+        cb.emit(0);
+        emit(cb, Operation.ADD);           // 148: ret fib(n)
+        emit(cb, Operation.SWAP);          // 149: fib(n) ret
+        emit(cb, Operation.RET);           // 150
+        
+        cb.setInstructionPointer(fib + 64);
+        emit(cb, Operation.SWAP);          // 164: n ret
+        emit(cb, Operation.RET);
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Builds a program that reads a number, prints it incremented by one and
+     * then prints a greeting from the tape.
+     * 
+     * @return the program bytes.
+     */
+    static byte[] inputAndStrings() {
+        final CodeBuilder cb = new CodeBuilder(1000);
+        
+        emit(cb, Operation.READ_INT);
+        push(cb, 1);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.PRINT_INT);
+        push(cb, 900);
+        push(cb, 2);
+        emit(cb, Operation.PRINT_STRING);
+        emit(cb, Operation.HALT);
+        cb.emit("Hi", 900);
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Builds a program made mostly of constant arithmetic, a comparison of 
+     * constants and a branch over dead code.
+     * 
+     * @return the program bytes.
+     */
+    static byte[] constantExpressions() {
+        final CodeBuilder cb = new CodeBuilder(100);
+        
+        push(cb, 2);                     //  0
+        push(cb, 3);                     //  5
+        emit(cb, Operation.MUL);         // 10
+        push(cb, 4);                     // 11
+        emit(cb, Operation.ADD);         // 16
+        emit(cb, Operation.DUP);         // 17
+        push(cb, 10);                    // 18
+        emit(cb, Operation.CMP);         // 23: 10 vs 10
+        emit(cb, Operation.JE);          // 24
+        cb.emit(41);
+        push(cb, 666);                   // 29: dead
+        emit(cb, Operation.PRINT_INT);   // 34
+        push(cb, 41);                    // 35
+        emit(cb, Operation.JMP);         // 40
+        push(cb, 7);                     // 41
+        emit(cb, Operation.POP);         // 46
+        emit(cb, Operation.PRINT_INT);   // 47
+        emit(cb, Operation.HALT);        // 48
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Builds a program that copies {@code length} bytes from 
+     * {@value #BLOCK_SOURCE_ADDRESS} to {@value #BLOCK_TARGET_ADDRESS} 
+     * {@code repetitions} times, one word per loop iteration.
+     * 
+     * @param length      the number of bytes, a multiple of four.
+     * @param repetitions the number of times to copy.
+     * @return the program bytes.
+     */
+    static byte[] interpretedCopy(final int length, final int repetitions) {
+        return repeated(repetitions, cb -> wordLoop(cb, length, () -> {
+            push(cb, LOOP_COUNTER_ADDRESS);
+            emit(cb, Operation.LOAD);
+            push(cb, BLOCK_SOURCE_ADDRESS);
+            emit(cb, Operation.ADD);
+            emit(cb, Operation.LOAD);
+            push(cb, LOOP_COUNTER_ADDRESS);
+            emit(cb, Operation.LOAD);
+            push(cb, BLOCK_TARGET_ADDRESS);
+            emit(cb, Operation.ADD);
+            emit(cb, Operation.STORE);
+        }));
+    }
+    
+    /**
+     * Builds the {@code BCOPY} equivalent of 
+     * {@link #interpretedCopy(int, int)}.
+     */
+    static byte[] bulkCopy(final int length, final int repetitions) {
+        return repeated(repetitions, cb -> {
+            push(cb, BLOCK_TARGET_ADDRESS);
+            push(cb, BLOCK_SOURCE_ADDRESS);
+            push(cb, length);
+            emit(cb, Operation.BCOPY);
+        });
+    }
+    
+    /**
+     * Builds a program that fills {@code length} bytes at 
+     * {@value #BLOCK_TARGET_ADDRESS} with {@value #FILL_PATTERN} 
+     * {@code repetitions} times, one word per loop iteration.
+     * 
+     * @param length      the number of bytes, a multiple of four.
+     * @param repetitions the number of times to fill.
+     * @return the program bytes.
+     */
+    static byte[] interpretedFill(final int length, final int repetitions) {
+        return repeated(repetitions, cb -> wordLoop(cb, length, () -> {
+            push(cb, FILL_PATTERN);
+            push(cb, LOOP_COUNTER_ADDRESS);
+            emit(cb, Operation.LOAD);
+            push(cb, BLOCK_TARGET_ADDRESS);
+            emit(cb, Operation.ADD);
+            emit(cb, Operation.STORE);
+        }));
+    }
+    
+    /**
+     * Builds the {@code BFILL} equivalent of 
+     * {@link #interpretedFill(int, int)}.
+     */
+    static byte[] bulkFill(final int length, final int repetitions) {
+        return repeated(repetitions, cb -> {
+            push(cb, BLOCK_TARGET_ADDRESS);
+            push(cb, FILL_PATTERN & 0xff);
+            push(cb, length);
+            emit(cb, Operation.BFILL);
+        });
+    }
+    
+    /**
+     * Emits a program that runs {@code body} {@code repetitions} times and 
+     * halts. The source block holds the bytes 0, 1, 2, ...
+     */
+    private static byte[] repeated(final int repetitions,
+                                   final Consumer<CodeBuilder> body) {
+        final CodeBuilder cb = new CodeBuilder(BLOCK_TARGET_ADDRESS);
+        
+        for (int i = BLOCK_SOURCE_ADDRESS; i < BLOCK_TARGET_ADDRESS; ++i) {
+            cb.setInstructionPointer(i);
+            cb.emit((byte) i);
+        }
+        
+        cb.setInstructionPointer(0);
+        push(cb, repetitions);
+        push(cb, REPETITION_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        
+        final int outer = cb.getInstructionPointer();
+        body.accept(cb);
+        
+        push(cb, REPETITION_COUNTER_ADDRESS);
+        emit(cb, Operation.LOAD);
+        push(cb, -1);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.DUP);
+        push(cb, REPETITION_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        push(cb, 0);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.CMP);
+        emit(cb, Operation.JA);
+        cb.emit(outer);
+        emit(cb, Operation.HALT);
+        
+        return cb.toByteArray();
+    }
+    
+    /**
+     * Emits a loop running {@code body} for the offsets 
+     * {@code 0, 4, ..., length - 4} kept at {@value #LOOP_COUNTER_ADDRESS}.
+     */
+    private static void wordLoop(final CodeBuilder cb, 
+                                 final int length, 
+                                 final Runnable body) {
+        push(cb, 0);
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        
+        final int inner = cb.getInstructionPointer();
+        body.run();
+        
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.LOAD);
+        push(cb, Integer.BYTES);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.DUP);
+        push(cb, LOOP_COUNTER_ADDRESS);
+        emit(cb, Operation.STORE);
+        push(cb, length);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.CMP);
+        emit(cb, Operation.JL);
+        cb.emit(inner);
+    }
+    
+    /**
+     * Returns the corpus programs with the input each one expects.
+     * 
+     * @return the map from a program to its input.
+     */
+    static Map<byte[], String> corpus() {
+        final Map<byte[], String> corpus = new LinkedHashMap<>();
+        corpus.put(arithmeticLoop(100), "");
+        corpus.put(callAndReturn(), "");
+        corpus.put(recursiveFibonacci(10), "");
+        corpus.put(inputAndStrings(), "41\n");
+        corpus.put(constantExpressions(), "");
+        return corpus;
+    }
+    
+    static void push(final CodeBuilder cb, final int value) {
+        cb.emit(Operation.PUSH.getOpcodeByte());
+        cb.emit(value);
+    }
+    
+    static void emit(final CodeBuilder cb, final Operation operation) {
+        cb.emit(operation.getOpcodeByte());
+    }
+    
+    /**
+     * Creates a machine reading {@code input} and printing to {@code bos}.
+     * 
+     * @param input the text of the input stream.
+     * @param bos   the stream the output goes to.
+     * @return the machine.
+     */
+    static SimpleStackMachine newMachine(final String input,
+                                         final ByteArrayOutputStream bos) {
+        return new SimpleStackMachine(
+                new ByteArrayInputStream(input.getBytes()),
+                new PrintStream(bos, true));
+    }
+    
+    /**
+     * Runs {@code program} on a fresh machine.
+     * 
+     * @return the output of the program.
+     */
+    static String run(final byte[] program, 
+                      final String input,
+                      final ExecutionEngine engine) {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        
+        newMachine(input, bos).execute(program, engine);
+        return bos.toString();
+    }
+}
@@ -0,0 +1,354 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ThreadingTest {
+
+    private static final ExecutionEngine[] ENGINES = {
+        DefaultExecutionEngine.INSTANCE,
+        TopOfStackCachingEngine.INSTANCE,
+        RegisterExecutionEngine.INSTANCE,
+        BasicBlockExecutionEngine.INSTANCE,
+    };
+
+    private static final int COUNTER_ADDRESS = 2000;
+    private static final int WORKER_ADDRESS = 200;
+
+    @Test
+    public void fetchAndAddCountsEveryIncrementOnEveryEngine() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (final ExecutionEngine engine : ENGINES) {
+                final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                final SimpleStackMachine machine =
+                        TestPrograms.newMachine("", bos);
+
+                machine.setThreadPool(pool);
+                machine.execute(counterProgram(4, 1000), engine);
+
+                assertTrue(machine.isHalted());
+                assertEquals("4000", bos.toString().trim());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void joinReturnsTopOfWorkerStack() {
+        final CodeBuilder cb = new CodeBuilder(WORKER_ADDRESS + 10);
+
+        TestPrograms.push(cb, 7);
+        TestPrograms.push(cb, WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.SPAWN);
+        TestPrograms.emit(cb, Operation.JOIN);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.MUL);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            assertEquals("49",
+                         TestPrograms.run(cb.toByteArray(), "", engine)
+                                     .trim());
+        }
+    }
+
+    @Test
+    public void compareAndSwapPushesWitnessedValue() {
+        final CodeBuilder cb = new CodeBuilder(COUNTER_ADDRESS
+                                               + Integer.BYTES);
+
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, 5);
+        TestPrograms.emit(cb, Operation.CAS);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, 9);
+        TestPrograms.emit(cb, Operation.CAS);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            assertEquals("0\n5\n5",
+                         TestPrograms.run(cb.toByteArray(), "", engine)
+                                     .trim()
+                                     .replace("\r", ""));
+        }
+    }
+
+    @Test
+    public void unalignedAtomicAccessTraps() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        TestPrograms.push(cb, COUNTER_ADDRESS + 1);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.FADD);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        assertTraps(cb.toByteArray(), "Unaligned atomic access");
+    }
+
+    @Test
+    public void joiningUnknownThreadTraps() {
+        final CodeBuilder cb = new CodeBuilder(16);
+
+        TestPrograms.push(cb, 42);
+        TestPrograms.emit(cb, Operation.JOIN);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        assertTraps(cb.toByteArray(), "Unknown VM thread 42");
+    }
+
+    @Test
+    public void joiningTrappedThreadTraps() {
+        final CodeBuilder cb = new CodeBuilder(WORKER_ADDRESS + 10);
+
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.SPAWN);
+        TestPrograms.emit(cb, Operation.JOIN);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        // The worker pops more than its argument.
+        cb.setInstructionPointer(WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        assertTraps(cb.toByteArray(), "VM thread 1 trapped");
+    }
+
+    @Test
+    public void snapshotsSeeTheWritesOfJoinedThreads() {
+        final CodeBuilder cb = new CodeBuilder(COUNTER_ADDRESS
+                                               + Integer.BYTES);
+
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.SPAWN);
+        TestPrograms.emit(cb, Operation.JOIN);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.push(cb, 7);
+        TestPrograms.emit(cb, Operation.FADD);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.setInstructionBudget(2L);
+        machine.execute(cb.toByteArray());
+
+        final MachineSnapshot before = machine.snapshot();
+
+        machine.setInstructionBudget(Long.MAX_VALUE);
+        machine.resume();
+
+        final MachineSnapshot after = machine.snapshot();
+        final byte[] tape = new byte[SimpleStackMachine.TAPE_LENGTH_IN_BYTES];
+        after.copyTapeTo(tape);
+
+        assertTrue(machine.isHalted());
+        assertEquals(7, SimpleStackMachine.wordAt(tape, COUNTER_ADDRESS));
+        assertEquals(before.getTapeLength() / MachineSnapshot.PAGE_SIZE - 1,
+                     after.getSharedPageCount(before));
+    }
+
+    @Test
+    public void threadsStopWhenTheProgramEnds() throws InterruptedException {
+        for (final ExecutionEngine engine : ENGINES) {
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            machine.execute(spinningWorkerProgram(false), engine);
+
+            assertTrue(machine.isHalted());
+            assertCounterSettles(machine);
+        }
+    }
+
+    @Test
+    public void threadsStopWhenAnotherProgramIsLoaded()
+            throws InterruptedException {
+        final CodeBuilder halt = new CodeBuilder(1);
+        TestPrograms.emit(halt, Operation.HALT);
+
+        for (final ExecutionEngine engine : ENGINES) {
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            machine.setInstructionBudget(1000L);
+            machine.execute(spinningWorkerProgram(true), engine);
+            machine.setInstructionBudget(Long.MAX_VALUE);
+            machine.execute(halt.toByteArray(), engine);
+
+            assertCounterSettles(machine);
+        }
+    }
+
+    @Test
+    public void threadsShareTheInstructionBudget()
+            throws InterruptedException {
+        for (final ExecutionEngine engine : ENGINES) {
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            machine.setInstructionBudget(100_000L);
+            machine.execute(spinningWorkerProgram(true), engine);
+
+            // The main thread waits at its JOIN for the worker that spent
+            // the budget.
+            assertFalse(machine.isHalted());
+            assertEquals(0L, machine.getInstructionBudget());
+            // The group takes its budget when the main thread spawns, so the
+            // few instructions before the SPAWN come on top.
+            assertTrue(machine.getExecutedInstructionCount() <= 100_010L);
+            assertTrue(machine.getExecutedInstructionCount() > 90_000L);
+            assertCounterSettles(machine);
+
+            final int counter =
+                    SimpleStackMachine.wordAt(machine.getTape(),
+                                              COUNTER_ADDRESS);
+
+            machine.setInstructionBudget(100_000L);
+            machine.resume(engine);
+
+            assertTrue(SimpleStackMachine.wordAt(machine.getTape(),
+                                                 COUNTER_ADDRESS)
+                       > counter);
+            assertTrue(machine.getExecutedInstructionCount() <= 200_010L);
+        }
+    }
+
+    /**
+     * Waits for the quanta in flight and checks that the counter at
+     * {@value #COUNTER_ADDRESS} does not change any more.
+     */
+    private static void assertCounterSettles(final SimpleStackMachine machine)
+            throws InterruptedException {
+        Thread.sleep(100L);
+
+        final int counter =
+                SimpleStackMachine.wordAt(machine.getTape(), COUNTER_ADDRESS);
+
+        Thread.sleep(200L);
+
+        assertEquals(counter,
+                     SimpleStackMachine.wordAt(machine.getTape(),
+                                               COUNTER_ADDRESS));
+    }
+
+    /**
+     * Builds a program that spawns a worker adding 1 to the counter at
+     * {@value #COUNTER_ADDRESS} forever, and then halts or joins the worker.
+     */
+    private static byte[] spinningWorkerProgram(final boolean join) {
+        final CodeBuilder cb = new CodeBuilder(COUNTER_ADDRESS
+                                               + Integer.BYTES);
+
+        TestPrograms.push(cb, 0);
+        TestPrograms.push(cb, WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.SPAWN);
+
+        if (join) {
+            TestPrograms.emit(cb, Operation.JOIN);
+        }
+
+        TestPrograms.emit(cb, Operation.HALT);
+
+        cb.setInstructionPointer(WORKER_ADDRESS);
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.FADD);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.push(cb, WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.JMP);
+
+        return cb.toByteArray();
+    }
+
+    /**
+     * Builds a program that spawns {@code threads} workers, each adding 1 to
+     * the counter at {@value #COUNTER_ADDRESS} {@code increments} times and
+     * yielding after every increment, joins them all and prints the counter.
+     */
+    private static byte[] counterProgram(final int threads,
+                                         final int increments) {
+        final CodeBuilder cb = new CodeBuilder(COUNTER_ADDRESS
+                                               + Integer.BYTES);
+
+        for (int i = 0; i < threads; ++i) {
+            TestPrograms.push(cb, i);
+            TestPrograms.push(cb, WORKER_ADDRESS);
+            TestPrograms.emit(cb, Operation.SPAWN);
+        }
+
+        for (int i = 0; i < threads; ++i) {
+            TestPrograms.emit(cb, Operation.JOIN);
+            TestPrograms.emit(cb, Operation.POP);
+        }
+
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        // The worker: drops its argument and counts down from increments.
+        cb.setInstructionPointer(WORKER_ADDRESS);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.push(cb, increments);
+
+        final int loop = cb.getInstructionPointer();
+
+        TestPrograms.push(cb, COUNTER_ADDRESS);
+        TestPrograms.push(cb, 1);
+        TestPrograms.emit(cb, Operation.FADD);
+        TestPrograms.emit(cb, Operation.POP);
+        TestPrograms.emit(cb, Operation.YIELD);
+        TestPrograms.push(cb, -1);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 0);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JA);
+        cb.emit(loop);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    private static void assertTraps(final byte[] program,
+                                    final String message) {
+        for (final ExecutionEngine engine : ENGINES) {
+            try {
+                TestPrograms.newMachine("", new ByteArrayOutputStream())
+                            .execute(program, engine);
+                fail("The program must trap.");
+            } catch (final StackMachineException ex) {
+                assertTrue(ex.getMessage(),
+                           ex.getMessage().contains(message));
+            }
+        }
+    }
+}
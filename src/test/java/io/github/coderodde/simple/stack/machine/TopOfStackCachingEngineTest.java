@@ -0,0 +1,132 @@
+package io.github.coderodde.simple.stack.machine;
+
+import static io.github.coderodde.simple.stack.machine.TestPrograms.emit;
+import static io.github.coderodde.simple.stack.machine.TestPrograms.push;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TopOfStackCachingEngineTest {
+    
+    @Test
+    public void corpus() {
+        for (final Map.Entry<byte[], String> e 
+                : TestPrograms.corpus().entrySet()) {
+            assertSameOutput(e.getKey(), e.getValue());
+        }
+    }
+    
+    @Test
+    public void stackShuffling() {
+        final CodeBuilder cb = new CodeBuilder(200);
+        
+        push(cb, 7);
+        push(cb, 3);
+        emit(cb, Operation.SWAP);
+        emit(cb, Operation.SUB); // 7 - 3
+        emit(cb, Operation.DUP);
+        emit(cb, Operation.DUP);
+        emit(cb, Operation.MUL);
+        push(cb, 100);
+        push(cb, 200);
+        push(cb, 300);
+        emit(cb, Operation.POP);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.PRINT_INT);
+        emit(cb, Operation.HALT);
+        
+        assertEquals(String.format("300%n16%n4%n"), 
+                     assertSameOutput(cb.toByteArray(), ""));
+    }
+    
+    @Test
+    public void callAndReturn() {
+        assertEquals(String.format("100%n"), 
+                     assertSameOutput(TestPrograms.callAndReturn(), ""));
+    }
+    
+    @Test
+    public void delegatedInstructions() {
+        assertEquals(String.format(">>> 42%nHi%n"), 
+                     assertSameOutput(TestPrograms.inputAndStrings(), "41\n"));
+    }
+    
+    @Test(expected = StackMachineException.class) 
+    public void stackUnderflow() {
+        final CodeBuilder cb = new CodeBuilder(10);
+        
+        push(cb, 1);
+        emit(cb, Operation.ADD);
+        emit(cb, Operation.HALT);
+        
+        new SimpleStackMachine().execute(cb.toByteArray(), 
+                                         TopOfStackCachingEngine.INSTANCE);
+    }
+    
+    @Test(expected = StackMachineException.class) 
+    public void divisionByZero() {
+        final CodeBuilder cb = new CodeBuilder(20);
+        
+        push(cb, 0);
+        push(cb, 1);
+        emit(cb, Operation.DIV);
+        emit(cb, Operation.HALT);
+        
+        new SimpleStackMachine().execute(cb.toByteArray(), 
+                                         TopOfStackCachingEngine.INSTANCE);
+    }
+    
+    @Test
+    public void pausesOnBudgetAtTheStackCapacity() {
+        // The initial stack capacity is 64: the last push spills into the
+        // slot right before the end of the array, and the pause flushes both
+        // registers.
+        final CodeBuilder cb = new CodeBuilder(400);
+        
+        for (int i = 0; i < 65; ++i) {
+            push(cb, i);
+        }
+        
+        emit(cb, Operation.HALT);
+        
+        final SimpleStackMachine machine = new SimpleStackMachine();
+        machine.setInstructionBudget(65L);
+        machine.execute(cb.toByteArray(), TopOfStackCachingEngine.INSTANCE);
+        
+        assertFalse(machine.isHalted());
+        assertEquals(65, machine.getStackSize());
+        assertEquals(64, machine.pop());
+        assertEquals(63, machine.pop());
+        
+        machine.setInstructionBudget(1L);
+        machine.resume(TopOfStackCachingEngine.INSTANCE);
+        
+        assertTrue(machine.isHalted());
+    }
+    
+    /**
+     * Runs {@code program} on the default engine and on the engine under test
+     * and checks that both produce the same output.
+     * 
+     * @return the output.
+     */
+    private static String assertSameOutput(final byte[] program, 
+                                           final String input) {
+        final String expected = 
+                TestPrograms.run(program, 
+                                 input, 
+                                 DefaultExecutionEngine.INSTANCE);
+        
+        final String actual = 
+                TestPrograms.run(program, 
+                                 input, 
+                                 TopOfStackCachingEngine.INSTANCE);
+        
+        assertEquals(expected, actual);
+        return actual;
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class TraceReplayerTest {
+
+    @Test
+    public void replaysCheckpointsOnAnotherEngine() {
+        final byte[] program = TestPrograms.arithmeticLoop(100);
+        final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", recorded);
+        final TraceRecorder recorder = new TraceRecorder(4096, 50L, null);
+
+        machine.setTraceRecorder(recorder);
+        machine.execute(program);
+
+        final TraceReplayer replayer =
+                new TraceReplayer(recorder.toByteArray());
+
+        // 1606 instructions in chunks of 50.
+        assertEquals(33, replayer.getCheckpointCount());
+        assertEquals(0, replayer.getInputCount());
+
+        final ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        final SimpleStackMachine replaying =
+                TestPrograms.newMachine("", replayed);
+
+        replayer.replay(replaying, program, BasicBlockExecutionEngine.INSTANCE);
+
+        assertTrue(replaying.isHalted());
+        assertEquals(recorded.toString(), replayed.toString());
+    }
+
+    @Test
+    public void replaysInputWithoutInputStream() {
+        final byte[] program = readingProgram();
+        final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("41 hello\n", recorded);
+        final TraceRecorder recorder = new TraceRecorder(256);
+
+        machine.setTraceRecorder(recorder);
+        machine.execute(program);
+
+        final TraceReplayer replayer =
+                new TraceReplayer(recorder.toByteArray());
+        final ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+
+        assertEquals(2, replayer.getInputCount());
+
+        replayer.replay(TestPrograms.newMachine("", replayed),
+                        program,
+                        DefaultExecutionEngine.INSTANCE);
+
+        assertEquals(recorded.toString(), replayed.toString());
+        assertTrue(replayed.toString().contains(" hello"));
+    }
+
+    @Test
+    public void spillsToFile() throws Exception {
+        final byte[] program = TestPrograms.arithmeticLoop(100);
+        final Path file = Files.createTempFile("trace", ".bin");
+
+        try (final FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.WRITE)) {
+            final TraceRecorder recorder =
+                    new TraceRecorder(32, 10L, channel);
+            final SimpleStackMachine machine =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            machine.setTraceRecorder(recorder);
+            machine.execute(program);
+            recorder.flush();
+
+            assertFalse(recorder.isTruncated());
+            assertEquals(recorder.getTraceLength(), Files.size(file));
+
+            final TraceReplayer replayer = TraceReplayer.read(file);
+            final SimpleStackMachine replaying =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            assertEquals(161, replayer.getCheckpointCount());
+            replayer.replay(replaying,
+                            program,
+                            TopOfStackCachingEngine.INSTANCE);
+            assertTrue(replaying.isHalted());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void reusedSpillingRecorderStartsOver() throws Exception {
+        final byte[] program = TestPrograms.arithmeticLoop(20);
+        final Path file = Files.createTempFile("trace", ".bin");
+
+        try (final FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.WRITE)) {
+            final TraceRecorder recorder =
+                    new TraceRecorder(32, 10L, channel);
+            final SimpleStackMachine first =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            first.setTraceRecorder(recorder);
+            first.execute(TestPrograms.arithmeticLoop(100));
+
+            final SimpleStackMachine second =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            second.setTraceRecorder(recorder);
+            second.execute(program);
+            recorder.flush();
+
+            assertEquals(recorder.getTraceLength(), Files.size(file));
+
+            final SimpleStackMachine replaying =
+                    TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+            TraceReplayer.read(file).replay(replaying,
+                                            program,
+                                            DefaultExecutionEngine.INSTANCE);
+            assertTrue(replaying.isHalted());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void dropsOldestRecordsWithoutSpillChannel() {
+        final TraceRecorder recorder = new TraceRecorder(100, 10L, null);
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.setTraceRecorder(recorder);
+        machine.execute(TestPrograms.arithmeticLoop(100));
+
+        assertTrue(recorder.isTruncated());
+        assertTrue(recorder.getTraceLength() <= 100L);
+
+        try {
+            new TraceReplayer(recorder.toByteArray());
+            fail("A truncated trace must not be replayable.");
+        } catch (final IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void rejectsAnotherProgram() {
+        final TraceRecorder recorder = new TraceRecorder(256);
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.setTraceRecorder(recorder);
+        machine.execute(TestPrograms.arithmeticLoop(10));
+
+        try {
+            new TraceReplayer(recorder.toByteArray())
+                    .replay(TestPrograms.newMachine(
+                                    "", new ByteArrayOutputStream()),
+                            TestPrograms.arithmeticLoop(11),
+                            DefaultExecutionEngine.INSTANCE);
+            fail("The program checksum must be verified.");
+        } catch (final IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Builds a program that reads a number and a line, and prints the line,
+     * its length and the number.
+     */
+    private static byte[] readingProgram() {
+        final CodeBuilder cb = new CodeBuilder(600);
+
+        TestPrograms.emit(cb, Operation.READ_INT);
+        TestPrograms.push(cb, 500);
+        TestPrograms.push(cb, 64);
+        TestPrograms.emit(cb, Operation.READ_STRING);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.push(cb, 500);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.PRINT_STRING);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.coderodde.simple.stack.machine;
+
+import java.io.ByteArrayOutputStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class WideWordModeTest {
+
+    private static final int ACCUMULATOR_ADDRESS = 1000;
+    private static final int COUNTER_ADDRESS = 1008;
+
+    @Test
+    public void arithmeticUsesSixtyFourBits() {
+        final CodeBuilder cb = wideProgram(64);
+
+        push(cb, 3_000_000_000L);
+        push(cb, 3_000_000_000L);
+        TestPrograms.emit(cb, Operation.MUL);
+        TestPrograms.emit(cb, Operation.DUP);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        push(cb, Long.MAX_VALUE);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+        machine.execute(cb.toByteArray());
+
+        assertEquals(WordSize.LONG, machine.getWordSize());
+        assertEquals("9000000000000000000", bos.toString().trim());
+        assertArrayEquals(new long[] { 9_000_000_000_000_000_000L
+                                       + Long.MAX_VALUE },
+                          machine.getWideOperandStack());
+    }
+
+    @Test
+    public void factorialLoopRunsInEveryEngine() {
+        final byte[] program = factorial(20);
+        final ExecutionEngine[] engines = {
+            DefaultExecutionEngine.INSTANCE,
+            TopOfStackCachingEngine.INSTANCE,
+            RegisterExecutionEngine.INSTANCE,
+            WideExecutionEngine.INSTANCE,
+        };
+
+        for (final ExecutionEngine engine : engines) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final SimpleStackMachine machine = TestPrograms.newMachine("", bos);
+
+            machine.execute(program, engine);
+
+            assertEquals("2432902008176640000", bos.toString().trim());
+            assertEquals(0, machine.getWideOperandStack().length);
+        }
+    }
+
+    @Test
+    public void readIntReadsSixtyFourBitWords() {
+        final CodeBuilder cb = wideProgram(64);
+
+        TestPrograms.emit(cb, Operation.READ_INT);
+        push(cb, 1L);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        TestPrograms.newMachine("-12345678901234\n", bos)
+                    .execute(cb.toByteArray());
+
+        assertEquals(">>> -12345678901233", bos.toString().trim());
+    }
+
+    @Test
+    public void thirtyTwoBitProgramsAreUnchanged() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.execute(TestPrograms.arithmeticLoop(10));
+
+        assertEquals(WordSize.INT, machine.getWordSize());
+
+        try {
+            machine.getWideOperandStack();
+            fail("The program uses 32-bit words.");
+        } catch (final IllegalStateException ex) {
+
+        }
+    }
+
+    @Test
+    public void unsupportedInstructionsTrap() {
+        final CodeBuilder cb = wideProgram(32);
+
+        push(cb, 0L);
+        TestPrograms.emit(cb, Operation.RECV);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        try {
+            TestPrograms.newMachine("", new ByteArrayOutputStream())
+                    .execute(cb.toByteArray());
+            fail("RECV is not supported with 64-bit words.");
+        } catch (final StackMachineException ex) {
+            assertEquals("Instruction recv at address 13 is not supported "
+                         + "with 64-bit words",
+                         ex.getMessage());
+        }
+    }
+
+    @Test
+    public void listenersAreRejected() {
+        final SimpleStackMachine machine =
+                TestPrograms.newMachine("", new ByteArrayOutputStream());
+
+        machine.setExecutionListener(new ExecutionListener() {});
+
+        try {
+            machine.execute(factorial(5));
+            fail("A listener cannot observe a program using 64-bit words.");
+        } catch (final IllegalStateException ex) {
+            assertEquals(0L, machine.getExecutedInstructionCount());
+        }
+    }
+
+    /**
+     * Builds a program that prints {@code n!} computing it on the tape.
+     */
+    private static byte[] factorial(final long n) {
+        final CodeBuilder cb = wideProgram(256);
+
+        push(cb, 1L);
+        push(cb, ACCUMULATOR_ADDRESS);
+        TestPrograms.emit(cb, Operation.STORE);
+        push(cb, n);
+        push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.STORE);
+
+        final int loop = cb.getInstructionPointer();
+
+        // acc *= i.
+        push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        push(cb, ACCUMULATOR_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.MUL);
+        push(cb, ACCUMULATOR_ADDRESS);
+        TestPrograms.emit(cb, Operation.STORE);
+
+        // --i, loop while i > 1.
+        push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        push(cb, -1L);
+        TestPrograms.emit(cb, Operation.ADD);
+        TestPrograms.emit(cb, Operation.DUP);
+        push(cb, COUNTER_ADDRESS);
+        TestPrograms.emit(cb, Operation.STORE);
+        push(cb, 1L);
+        TestPrograms.emit(cb, Operation.SWAP);
+        TestPrograms.emit(cb, Operation.CMP);
+        TestPrograms.emit(cb, Operation.JA);
+        cb.emit(loop);
+
+        push(cb, ACCUMULATOR_ADDRESS);
+        TestPrograms.emit(cb, Operation.LOAD);
+        TestPrograms.emit(cb, Operation.PRINT_INT);
+        TestPrograms.emit(cb, Operation.HALT);
+
+        return cb.toByteArray();
+    }
+
+    private static CodeBuilder wideProgram(final int capacity) {
+        final CodeBuilder cb = new CodeBuilder(capacity);
+
+        for (final byte b : WordSize.LONG.getImageHeader()) {
+            cb.emit(b);
+        }
+
+        return cb;
+    }
+
+    private static void push(final CodeBuilder cb, final long value) {
+        cb.emit(Operation.PUSH.getOpcodeByte());
+        cb.emit(value);
+    }
+}